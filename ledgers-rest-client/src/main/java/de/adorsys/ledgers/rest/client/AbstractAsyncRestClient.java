@@ -0,0 +1,42 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Base of the asynchronous ledgers clients: executes calls of the wrapped Feign client on the {@link LedgersAsyncExecutor}.
+ *
+ * @param <C> type of the wrapped Feign client
+ */
+public abstract class AbstractAsyncRestClient<C> {
+    private final C restClient;
+    private final LedgersAsyncExecutor executor;
+
+    protected AbstractAsyncRestClient(C restClient, LedgersAsyncExecutor executor) {
+        this.restClient = restClient;
+        this.executor = executor;
+    }
+
+    /**
+     * Executes an arbitrary call of the wrapped client asynchronously.
+     */
+    public <T> CompletableFuture<T> call(Function<C, T> call) {
+        return executor.supplyAsync(() -> call.apply(restClient));
+    }
+}
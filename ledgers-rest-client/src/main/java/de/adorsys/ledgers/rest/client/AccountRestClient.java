@@ -16,8 +16,24 @@
 
 package de.adorsys.ledgers.rest.client;
 
+import de.adorsys.ledgers.middleware.api.domain.account.TransactionTO;
 import de.adorsys.ledgers.middleware.rest.resource.AccountRestAPI;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.time.LocalDate;
 
 @FeignClient(value = "ledgersAccount", url = "${xs2asandbox.ledgers.url}", path=AccountRestAPI.BASE_PATH, configuration=FeignConfig.class)
-public interface AccountRestClient extends AccountRestAPI {}
+public interface AccountRestClient extends AccountRestAPI {
+
+    /**
+     * Same resource as {@link #getTransactionByDates(String, LocalDate, LocalDate)}, but the transactions are not bound
+     * to transfer objects, so that large transaction lists can be mapped element by element, see {@link JsonArrayBody}.
+     */
+    @GetMapping(path = "/{accountId}/transactions")
+    JsonArrayBody<TransactionTO> getTransactionByDatesAsStream(@PathVariable("accountId") String accountId,
+                                                               @RequestParam("dateFrom") LocalDate dateFrom,
+                                                               @RequestParam("dateTo") LocalDate dateTo);
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import de.adorsys.ledgers.middleware.api.domain.account.*;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous counterpart of {@link AccountRestClient}.
+ */
+public class AsyncAccountRestClient extends AbstractAsyncRestClient<AccountRestClient> {
+
+    public AsyncAccountRestClient(AccountRestClient accountRestClient, LedgersAsyncExecutor executor) {
+        super(accountRestClient, executor);
+    }
+
+    public CompletableFuture<ResponseEntity<List<AccountDetailsTO>>> getListOfAccounts() {
+        return call(AccountRestClient::getListOfAccounts);
+    }
+
+    public CompletableFuture<ResponseEntity<AccountDetailsTO>> getAccountDetailsById(String accountId) {
+        return call(client -> client.getAccountDetailsById(accountId));
+    }
+
+    public CompletableFuture<ResponseEntity<List<AccountBalanceTO>>> getBalances(String accountId) {
+        return call(client -> client.getBalances(accountId));
+    }
+
+    public CompletableFuture<ResponseEntity<List<TransactionTO>>> getTransactionByDates(String accountId, LocalDate dateFrom, LocalDate dateTo) {
+        return call(client -> client.getTransactionByDates(accountId, dateFrom, dateTo));
+    }
+
+    public CompletableFuture<ResponseEntity<TransactionTO>> getTransactionById(String accountId, String transactionId) {
+        return call(client -> client.getTransactionById(accountId, transactionId));
+    }
+
+    public CompletableFuture<ResponseEntity<List<AdditionalAccountInformationTO>>> getAdditionalAccountInfo(AccountIdentifierTypeTO accountIdentifierType, String accountIdentifier) {
+        return call(client -> client.getAdditionalAccountInfo(accountIdentifierType, accountIdentifier));
+    }
+}
@@ -4,20 +4,90 @@ import de.adorsys.ledgers.middleware.rest.utils.Constants;
 import feign.RequestInterceptor;
 import feign.RequestTemplate;
 
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Adds the bearer token of the current call to every ledgers request.
+ * <p>
+ * The token is never shared between callers: it is bound to the calling thread by
+ * {@link #withAccessToken(String)} for the lifetime of the returned {@link AccessTokenScope}
+ * and handed over to worker threads explicitly with {@link #propagate(Supplier)} or {@link #propagating(Executor)}.
+ */
 public class AuthRequestInterceptor implements RequestInterceptor {
 	
 	private static final String BEARER_CONSTANT = "Bearer ";
-	
-	private String accessToken;
+
+	private static final ThreadLocal<String> CURRENT_ACCESS_TOKEN = new ThreadLocal<>();
 
 	@Override
 	public void apply(RequestTemplate template) {
+		String accessToken = CURRENT_ACCESS_TOKEN.get();
 		if(accessToken!=null) {
 			template.header(Constants.AUTH_HEADER_NAME, BEARER_CONSTANT + accessToken);
 		}
 	}
 
-	public void setAccessToken(String accessToken) {
-		this.accessToken = accessToken;
+	/**
+	 * Binds the access token to the current thread. Closing the returned scope restores the token
+	 * that was bound before, so nested calls never clear the credentials of their caller.
+	 *
+	 * @param accessToken token to be sent with the ledgers requests of this scope, may be <code>null</code>
+	 * @return scope to be closed by the same thread, preferably with try-with-resources
+	 */
+	public AccessTokenScope withAccessToken(String accessToken) {
+		return bind(accessToken);
+	}
+
+	/**
+	 * @return the access token bound to the current thread or <code>null</code>
+	 */
+	public String getAccessToken() {
+		return CURRENT_ACCESS_TOKEN.get();
+	}
+
+	/**
+	 * Captures the access token of the calling thread and binds it around the given task on the executing thread.
+	 */
+	public <T> Supplier<T> propagate(Supplier<T> task) {
+		String capturedToken = CURRENT_ACCESS_TOKEN.get();
+		return () -> {
+			try (AccessTokenScope ignored = bind(capturedToken)) {
+				return task.get();
+			}
+		};
+	}
+
+	/**
+	 * Captures the access token of the calling thread and binds it around the given task on the executing thread.
+	 */
+	public Runnable propagate(Runnable task) {
+		String capturedToken = CURRENT_ACCESS_TOKEN.get();
+		return () -> {
+			try (AccessTokenScope ignored = bind(capturedToken)) {
+				task.run();
+			}
+		};
+	}
+
+	/**
+	 * @return executor, that runs every submitted task with the access token of the submitting thread
+	 */
+	public Executor propagating(Executor executor) {
+		return task -> executor.execute(propagate(task));
+	}
+
+	private static AccessTokenScope bind(String accessToken) {
+		String previousToken = CURRENT_ACCESS_TOKEN.get();
+		setCurrent(accessToken);
+		return () -> setCurrent(previousToken);
+	}
+
+	private static void setCurrent(String accessToken) {
+		if (accessToken == null) {
+			CURRENT_ACCESS_TOKEN.remove();
+		} else {
+			CURRENT_ACCESS_TOKEN.set(accessToken);
+		}
 	}
 }
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker.
+ * <p>
+ * The outcomes of the last {@code slidingWindowSize} calls are recorded. Once at least {@code minimumNumberOfCalls}
+ * have been recorded and the failure rate reaches the threshold, the breaker opens and rejects all calls for
+ * {@code waitDurationInOpenState}. Afterwards it lets {@code permittedCallsInHalfOpenState} trial calls through:
+ * if all of them succeed, the breaker closes again, otherwise it reopens.
+ */
+public class CircuitBreaker {
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int slidingWindowSize;
+    private final int minimumNumberOfCalls;
+    private final float failureRateThreshold;
+    private final long waitDurationInOpenStateNanos;
+    private final int permittedCallsInHalfOpenState;
+    private final LongSupplier nanoClock;
+
+    private final boolean[] failed;
+    private int nextIndex;
+    private int recordedCalls;
+    private int failedCalls;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    public CircuitBreaker(int slidingWindowSize, int minimumNumberOfCalls, float failureRateThreshold,
+                          long waitDurationInOpenStateMs, int permittedCallsInHalfOpenState) {
+        this(slidingWindowSize, minimumNumberOfCalls, failureRateThreshold, waitDurationInOpenStateMs,
+             permittedCallsInHalfOpenState, System::nanoTime);
+    }
+
+    CircuitBreaker(int slidingWindowSize, int minimumNumberOfCalls, float failureRateThreshold,
+                   long waitDurationInOpenStateMs, int permittedCallsInHalfOpenState, LongSupplier nanoClock) {
+        this.slidingWindowSize = slidingWindowSize;
+        this.minimumNumberOfCalls = Math.min(minimumNumberOfCalls, slidingWindowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.waitDurationInOpenStateNanos = TimeUnit.MILLISECONDS.toNanos(waitDurationInOpenStateMs);
+        this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+        this.nanoClock = nanoClock;
+        this.failed = new boolean[slidingWindowSize];
+    }
+
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAt < waitDurationInOpenStateNanos) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits == 0) {
+                return false;
+            }
+            halfOpenPermits--;
+        }
+        return true;
+    }
+
+    /**
+     * Returns a permission that was acquired, but not used for a call.
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && halfOpenPermits < permittedCallsInHalfOpenState) {
+            halfOpenPermits++;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            halfOpenSuccesses++;
+            if (halfOpenSuccesses >= permittedCallsInHalfOpenState) {
+                transitionTo(State.CLOSED);
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recordedCalls >= minimumNumberOfCalls && failedCalls * 100f / recordedCalls >= failureRateThreshold) {
+                transitionTo(State.OPEN);
+            }
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean callFailed) {
+        if (recordedCalls == slidingWindowSize) {
+            if (failed[nextIndex]) {
+                failedCalls--;
+            }
+        } else {
+            recordedCalls++;
+        }
+        failed[nextIndex] = callFailed;
+        if (callFailed) {
+            failedCalls++;
+        }
+        nextIndex = (nextIndex + 1) % slidingWindowSize;
+    }
+
+    private void transitionTo(State newState) {
+        state = newState;
+        if (newState == State.OPEN) {
+            openedAt = nanoClock.getAsLong();
+        } else if (newState == State.HALF_OPEN) {
+            halfOpenPermits = permittedCallsInHalfOpenState;
+            halfOpenSuccesses = 0;
+        } else {
+            recordedCalls = 0;
+            failedCalls = 0;
+            nextIndex = 0;
+        }
+    }
+}
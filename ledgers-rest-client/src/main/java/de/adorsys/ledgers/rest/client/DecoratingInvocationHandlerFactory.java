@@ -0,0 +1,58 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import feign.InvocationHandlerFactory;
+import feign.Target;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies all {@link MethodHandlerDecorator}s of a Feign client to the handlers of its methods.
+ */
+public class DecoratingInvocationHandlerFactory implements InvocationHandlerFactory {
+    private final InvocationHandlerFactory delegate = new InvocationHandlerFactory.Default();
+    private final List<MethodHandlerDecorator> decorators;
+
+    public DecoratingInvocationHandlerFactory(List<MethodHandlerDecorator> decorators) {
+        this.decorators = decorators;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public InvocationHandler create(Target target, Map<Method, MethodHandler> dispatch) {
+        Map<Method, MethodHandler> decoratedDispatch = new LinkedHashMap<>();
+        dispatch.forEach((method, methodHandler) -> decoratedDispatch.put(method, decorate(target, method, methodHandler)));
+        return delegate.create(target, decoratedDispatch);
+    }
+
+    private MethodHandler decorate(Target<?> target, Method method, MethodHandler methodHandler) {
+        // default methods call other methods of the client, which are decorated already
+        if (method.isDefault()) {
+            return methodHandler;
+        }
+        MethodHandler decorated = methodHandler;
+        for (int i = decorators.size() - 1; i >= 0; i--) {
+            decorated = decorators.get(i).decorate(target, method, decorated);
+        }
+        return decorated;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Small in-memory cache with a time to live per entry and an (approximate) maximum number of entries.
+ * <p>
+ * When the cache is full, expired entries are removed first, then arbitrary entries.
+ * {@link #bindTo(MeterRegistry)} publishes the usual {@code cache.gets}, {@code cache.puts}, {@code cache.evictions}
+ * and {@code cache.size} meters, tagged with the cache name.
+ */
+public class ExpiringCache<K, V> {
+    private final String name;
+    private final int maxSize;
+    private final Clock clock;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ExpiringCache(String name, int maxSize) {
+        this(name, maxSize, Clock.systemUTC());
+    }
+
+    public ExpiringCache(String name, int maxSize, Clock clock) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.clock = clock;
+    }
+
+    /**
+     * @return the cached value, {@code null} if there is none or it has expired
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expiresAt > clock.millis()) {
+            hits.increment();
+            return entry.value;
+        }
+        if (entry != null) {
+            entries.remove(key, entry);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Caches the value for the given time, nothing is cached for a {@code null} value or a time to live of zero.
+     */
+    public void put(K key, V value, Duration timeToLive) {
+        if (value == null || maxSize <= 0 || timeToLive.isNegative() || timeToLive.isZero()) {
+            return;
+        }
+        if (entries.size() >= maxSize && !entries.containsKey(key)) {
+            makeRoom();
+        }
+        entries.put(key, new Entry<>(value, clock.millis() + timeToLive.toMillis()));
+        puts.increment();
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void bindTo(MeterRegistry meterRegistry) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::doubleValue)
+                .tag("cache", name).tag("result", "hit")
+                .description("The number of times cache lookup methods have returned a cached value")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::doubleValue)
+                .tag("cache", name).tag("result", "miss")
+                .description("The number of times cache lookup methods have returned nothing")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.puts", puts, LongAdder::doubleValue)
+                .tag("cache", name)
+                .description("The number of entries added to the cache")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", evictions, LongAdder::doubleValue)
+                .tag("cache", name)
+                .description("The number of entries removed because the cache was full")
+                .register(meterRegistry);
+        Gauge.builder("cache.size", entries, Map::size)
+                .tag("cache", name)
+                .description("The number of entries in the cache, including expired ones not yet removed")
+                .register(meterRegistry);
+    }
+
+    private void makeRoom() {
+        long now = clock.millis();
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+        Iterator<K> keys = entries.keySet().iterator();
+        while (entries.size() >= maxSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+            evictions.increment();
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
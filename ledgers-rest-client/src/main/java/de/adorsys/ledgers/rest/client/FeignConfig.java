@@ -1,20 +1,46 @@
 package de.adorsys.ledgers.rest.client;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.Client;
+import feign.Feign;
+import feign.codec.Decoder;
 import feign.codec.Encoder;
+import feign.optionals.OptionalDecoder;
+import feign.httpclient.ApacheHttpClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
 import org.springframework.cloud.openfeign.FeignFormatterRegistrar;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
 import org.springframework.cloud.openfeign.support.SpringEncoder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Scope;
+import org.springframework.core.env.Environment;
 import org.springframework.format.datetime.standard.DateTimeFormatterRegistrar;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 
+import java.util.stream.Collectors;
+
 /**
  * In this configuration, we clone the original object mapper and remove the
- * root value wrapping.
+ * root value wrapping. JSON request bodies are written with the shared writers of the {@link JsonCodecRegistry},
+ * JSON array responses may be mapped element by element, see {@link JsonArrayDecoder}.
+ * <p>
+ * Each Feign client also gets its own pooled keep-alive HTTP client, see {@link PooledHttpClientFactory},
+ * with optional compression, see {@link HttpCompression}. Latency and outcome of every call sent to ledgers
+ * are recorded, see {@link MetricsDecorator}. Concurrent identical reads share a single call,
+ * see {@link SingleFlightDecorator}. Calls are guarded by a circuit breaker and a bulkhead
+ * per client, see {@link ResilienceDecorator}, transient failures are retried, see {@link RetryDecorator}, and slow
+ * reads may be hedged, see {@link HedgingDecorator}. Timeouts are set per method, see {@link TimeoutDecorator}.
+ * Further decorators can be added as {@link MethodHandlerDecorator} beans, e.g. the {@link PsuAccountListCache}.
  *
  * @author fpo
  */
@@ -22,10 +48,16 @@ import org.springframework.http.converter.json.MappingJackson2HttpMessageConvert
 public class FeignConfig {
 
     @Bean
-    public Encoder feignEncoder(ObjectMapper objectMapper) {
+    public Encoder feignEncoder(ObjectMapper objectMapper, ObjectProvider<JsonCodecRegistry> jsonCodecRegistry) {
         HttpMessageConverter jacksonConverter = new MappingJackson2HttpMessageConverter(objectMapper);
         ObjectFactory<HttpMessageConverters> objectFactory = () -> new HttpMessageConverters(jacksonConverter);
-        return new SpringEncoder(objectFactory);
+        return new JsonCodecEncoder(jsonCodecRegistry.getIfAvailable(() -> new JsonCodecRegistry(objectMapper)),
+                                    new SpringEncoder(objectFactory));
+    }
+
+    @Bean
+    public Decoder feignDecoder(ObjectMapper objectMapper, ObjectFactory<HttpMessageConverters> messageConverters) {
+        return new JsonArrayDecoder(objectMapper, new OptionalDecoder(new ResponseEntityDecoder(new SpringDecoder(messageConverters))));
     }
 
     @Bean
@@ -36,4 +68,103 @@ public class FeignConfig {
             registrar.registerFormatters(formatterRegistry);
         };
     }
+
+    @Bean
+    public PooledHttpClientFactory pooledHttpClientFactory(Environment environment,
+                                                           @Value("${feign.client.name}") String clientName) {
+        return new PooledHttpClientFactory(new LedgersClientProperties(environment, PooledHttpClientFactory.PROPERTY_PREFIX, clientName));
+    }
+
+    @Bean
+    public PoolingHttpClientConnectionManager ledgersConnectionManager(PooledHttpClientFactory pooledHttpClientFactory,
+                                                                       ObjectProvider<MeterRegistry> meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = pooledHttpClientFactory.connectionManager();
+        meterRegistry.ifAvailable(registry -> pooledHttpClientFactory.bindMetrics(registry, connectionManager));
+        return connectionManager;
+    }
+
+    @Bean
+    public HttpCompression httpCompression(Environment environment,
+                                           @Value("${feign.client.name}") String clientName,
+                                           ObjectProvider<MeterRegistry> meterRegistry) {
+        return new HttpCompression(new LedgersClientProperties(environment, PooledHttpClientFactory.PROPERTY_PREFIX, clientName),
+                                   meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    @Bean
+    public CloseableHttpClient ledgersHttpClient(PooledHttpClientFactory pooledHttpClientFactory,
+                                                 PoolingHttpClientConnectionManager ledgersConnectionManager,
+                                                 ObjectProvider<HttpClientBuilderCustomizer> httpClientBuilderCustomizers) {
+        return pooledHttpClientFactory.httpClient(ledgersConnectionManager,
+                                                  httpClientBuilderCustomizers.orderedStream().collect(Collectors.toList()));
+    }
+
+    @Bean
+    public TimeoutDecorator timeoutDecorator(Environment environment,
+                                             @Value("${feign.client.name}") String clientName,
+                                             ObjectProvider<MeterRegistry> meterRegistry) {
+        return new TimeoutDecorator(new LedgersClientProperties(environment, TimeoutDecorator.PROPERTY_PREFIX, clientName),
+                                    meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    @Bean
+    public Client feignClient(CloseableHttpClient ledgersHttpClient, TimeoutDecorator timeoutDecorator) {
+        return timeoutDecorator.client(new ApacheHttpClient(ledgersHttpClient));
+    }
+
+    @Bean
+    public MetricsDecorator metricsDecorator(Environment environment,
+                                             @Value("${feign.client.name}") String clientName,
+                                             ObjectProvider<MeterRegistry> meterRegistry) {
+        return new MetricsDecorator(new LedgersClientProperties(environment, MetricsDecorator.PROPERTY_PREFIX, clientName),
+                                    meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    @Bean
+    public SingleFlightDecorator singleFlightDecorator(Environment environment,
+                                                       @Value("${feign.client.name}") String clientName,
+                                                       ObjectProvider<AuthRequestInterceptor> authRequestInterceptor,
+                                                       ObjectProvider<MeterRegistry> meterRegistry) {
+        return new SingleFlightDecorator(new LedgersClientProperties(environment, SingleFlightDecorator.PROPERTY_PREFIX, clientName),
+                                         authRequestInterceptor.getIfAvailable(),
+                                         meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    @Bean
+    public ResilienceDecorator resilienceDecorator(Environment environment,
+                                                   @Value("${feign.client.name}") String clientName,
+                                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        return new ResilienceDecorator(new LedgersClientProperties(environment, ResilienceDecorator.PROPERTY_PREFIX, clientName),
+                                       meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    @Bean
+    public RetryDecorator retryDecorator(Environment environment,
+                                         @Value("${feign.client.name}") String clientName,
+                                         ObjectProvider<RetryBudget> retryBudget,
+                                         ObjectProvider<MeterRegistry> meterRegistry) {
+        return new RetryDecorator(new LedgersClientProperties(environment, RetryDecorator.PROPERTY_PREFIX, clientName),
+                                  retryBudget.getIfAvailable(() -> new RetryBudget(0.1, 50)),
+                                  meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    @Bean
+    public HedgingDecorator hedgingDecorator(Environment environment,
+                                             @Value("${feign.client.name}") String clientName,
+                                             ObjectProvider<LedgersHedgingExecutor> ledgersHedgingExecutor,
+                                             ObjectProvider<MeterRegistry> meterRegistry) {
+        return new HedgingDecorator(new LedgersClientProperties(environment, HedgingDecorator.PROPERTY_PREFIX, clientName),
+                                    ledgersHedgingExecutor.getIfAvailable(),
+                                    meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    @Bean
+    @Scope("prototype")
+    public Feign.Builder feignBuilder(ObjectProvider<MethodHandlerDecorator> methodHandlerDecorators) {
+        // JsonArrayBody results are read after decoding, feignDecoder closes all other responses
+        return Feign.builder()
+                       .doNotCloseAfterDecode()
+                       .invocationHandlerFactory(new DecoratingInvocationHandlerFactory(methodHandlerDecorators.orderedStream()
+                                                                                                .collect(Collectors.toList())));
+    }
 }
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Target;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * Hedges latency-critical idempotent reads: if a call hasn't completed after the configured latency percentile
+ * of the method, an identical second request is sent and the first successful response is returned.
+ * <p>
+ * Both requests run on the {@link LedgersHedgingExecutor} while the caller waits for the first success, so a slow
+ * original request doesn't delay the response of a faster hedged one. The losing request is not interrupted, its
+ * response is discarded. If the original request fails while the hedged one is in flight, the caller waits at most
+ * {@code max-hedge-wait-ms} for the hedged response, otherwise the failure of the original request is rethrown.
+ * When all threads of the executor are busy, the call runs on the calling thread without hedging.
+ * <p>
+ * Disabled by default, enabled with {@code ledgers.hedging.config.<clientName>.enabled}. Only methods listed in
+ * {@code methods} which are idempotent (see {@link RetryDecorator}) are hedged. Hedged requests are limited by a per-client
+ * budget of {@code budget-ratio} of the calls. A hedged request which hasn't been sent yet when the original one completes
+ * is dropped.
+ */
+public class HedgingDecorator implements MethodHandlerDecorator {
+    static final String PROPERTY_PREFIX = "ledgers.hedging";
+    private static final int ORDER = 500;
+    private static final String DEFAULT_METHODS = "getBalances,getAccountDetailsById,getTransactionById,getPaymentStatusById";
+
+    private final LedgersClientProperties properties;
+    private final LedgersHedgingExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final List<String> hedgedMethods;
+    private final RetryBudget hedgingBudget;
+    private final Counter budgetExhausted;
+
+    public HedgingDecorator(LedgersClientProperties properties, LedgersHedgingExecutor executor, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.enabled = executor != null && properties.get("enabled", Boolean.class, false);
+        this.hedgedMethods = Arrays.stream(properties.get("methods", String.class, DEFAULT_METHODS).split(","))
+                                     .map(String::trim)
+                                     .collect(Collectors.toList());
+        this.hedgingBudget = new RetryBudget(properties.get("budget-ratio", Double.class, 0.05),
+                                             properties.get("budget-max-tokens", Integer.class, 20));
+        this.budgetExhausted = Counter.builder("ledgers.hedging.budget.exhausted")
+                                       .description("Hedged requests skipped because the hedging budget was used up")
+                                       .tag("client", properties.getClientName())
+                                       .register(meterRegistry);
+    }
+
+    @Override
+    public MethodHandler decorate(Target<?> target, Method method, MethodHandler methodHandler) {
+        LedgersClientProperties methodProperties = properties.forMethod(method.getName());
+        if (!enabled || !hedgedMethods.contains(method.getName())
+                    || RetryDecorator.classify(method, methodProperties) != RetryDecorator.Idempotency.IDEMPOTENT) {
+            return methodHandler;
+        }
+        HedgedMethod hedgedMethod = new HedgedMethod(method.getName(), methodProperties);
+        return args -> hedgedMethod.invoke(methodHandler, args);
+    }
+
+    private static void call(MethodHandler methodHandler, Object[] args, CompletableFuture<Object> future) {
+        try {
+            future.complete(methodHandler.invoke(args));
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private class HedgedMethod {
+        private final LatencyPercentile latency;
+        private final long maxHedgeWaitMs;
+        private final Counter hedgesSent;
+        private final Counter hedgesWon;
+
+        private HedgedMethod(String methodName, LedgersClientProperties methodProperties) {
+            this.latency = new LatencyPercentile(methodProperties.get("delay-percentile", Double.class, 0.95),
+                                                 methodProperties.get("min-delay-ms", Long.class, 20L),
+                                                 methodProperties.get("max-delay-ms", Long.class, 2_000L),
+                                                 methodProperties.get("initial-delay-ms", Long.class, 200L));
+            this.maxHedgeWaitMs = methodProperties.get("max-hedge-wait-ms", Long.class, 10_000L);
+            this.hedgesSent = counter("ledgers.hedging.sent", "Hedged requests sent", methodName);
+            this.hedgesWon = counter("ledgers.hedging.won", "Hedged responses returned instead of the original one", methodName);
+            Gauge.builder("ledgers.hedging.delay", latency, LatencyPercentile::getDelayMs)
+                    .description("Current delay before a hedged request is sent")
+                    .baseUnit("milliseconds")
+                    .tag("client", properties.getClientName())
+                    .tag("method", methodName)
+                    .register(meterRegistry);
+        }
+
+        private Object invoke(MethodHandler methodHandler, Object[] args) throws Throwable {
+            long start = System.nanoTime();
+            hedgingBudget.onCall();
+            CompletableFuture<Object> original = new CompletableFuture<>();
+            if (!executor.execute(() -> call(methodHandler, args, original))) {
+                // no free thread to wait on: the call isn't hedged
+                Object result = methodHandler.invoke(args);
+                latency.record(System.nanoTime() - start);
+                return result;
+            }
+            CompletableFuture<Object> hedge = new CompletableFuture<>();
+            ScheduledFuture<?> trigger = executor.schedule(() -> sendHedge(methodHandler, args, hedge), latency.getDelayMs());
+            CompletableFuture<Object> response = new CompletableFuture<>();
+            original.whenComplete((result, failure) -> {
+                if (failure == null) {
+                    latency.record(System.nanoTime() - start);
+                    response.complete(result);
+                } else if (trigger.cancel(false)) {
+                    response.completeExceptionally(failure);
+                } else {
+                    hedge.orTimeout(maxHedgeWaitMs, TimeUnit.MILLISECONDS)
+                            .whenComplete((hedgeResult, hedgeFailure) -> {
+                                if (hedgeFailure == null) {
+                                    completeWithHedge(response, hedgeResult);
+                                } else {
+                                    response.completeExceptionally(failure);
+                                }
+                            });
+                }
+            });
+            hedge.thenAccept(result -> completeWithHedge(response, result));
+            try {
+                return response.get();
+            } catch (ExecutionException e) {
+                throw e.getCause();
+            } finally {
+                trigger.cancel(false);
+            }
+        }
+
+        private void sendHedge(MethodHandler methodHandler, Object[] args, CompletableFuture<Object> hedge) {
+            if (!hedgingBudget.tryAcquireRetry()) {
+                budgetExhausted.increment();
+                hedge.cancel(false);
+                return;
+            }
+            if (!executor.execute(() -> call(methodHandler, args, hedge))) {
+                hedge.cancel(false);
+                return;
+            }
+            hedgesSent.increment();
+        }
+
+        private void completeWithHedge(CompletableFuture<Object> response, Object result) {
+            if (response.complete(result)) {
+                hedgesWon.increment();
+            }
+        }
+
+        private Counter counter(String name, String description, String methodName) {
+            return Counter.builder(name)
+                           .description(description)
+                           .tag("client", properties.getClientName())
+                           .tag("method", methodName)
+                           .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.http.*;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Opt-in gzip/deflate compression for a single ledgers Feign client.
+ * <p>
+ * Enabled by {@code ledgers.http-client.config.<clientName>.compression.enabled} (or {@code .default}).
+ * Request bodies of the configured media types are gzipped once they reach the minimum size,
+ * responses are requested with {@code Accept-Encoding: gzip, deflate} and decompressed transparently.
+ * Bytes on the wire and decoded bytes are counted in {@code ledgers.http.client.bytes},
+ * tagged by client, direction and representation. When disabled, the client keeps the built-in response
+ * decompression of Apache HTTP client and no bytes are counted.
+ */
+public class HttpCompression implements HttpClientBuilderCustomizer {
+    private static final String METRIC_NAME = "ledgers.http.client.bytes";
+    private static final String GZIP = "gzip";
+    private static final String DEFLATE = "deflate";
+    private static final String ACCEPT_ENCODING = GZIP + ", " + DEFLATE;
+
+    private final boolean enabled;
+    private final int minRequestSize;
+    private final List<String> mimeTypes;
+    private final Counter requestWireBytes;
+    private final Counter requestDecodedBytes;
+    private final Counter responseWireBytes;
+    private final Counter responseDecodedBytes;
+
+    public HttpCompression(LedgersClientProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.get("compression.enabled", Boolean.class, false);
+        this.minRequestSize = properties.get("compression.min-request-size", Integer.class, 2_048);
+        this.mimeTypes = Arrays.stream(properties.get("compression.mime-types", String.class, "application/json").split(","))
+                                 .map(String::trim)
+                                 .map(mimeType -> mimeType.toLowerCase(Locale.ROOT))
+                                 .collect(Collectors.toList());
+        String clientName = properties.getClientName();
+        this.requestWireBytes = counter(meterRegistry, clientName, "request", "wire");
+        this.requestDecodedBytes = counter(meterRegistry, clientName, "request", "decoded");
+        this.responseWireBytes = counter(meterRegistry, clientName, "response", "wire");
+        this.responseDecodedBytes = counter(meterRegistry, clientName, "response", "decoded");
+    }
+
+    @Override
+    public void customize(HttpClientBuilder httpClientBuilder) {
+        if (!enabled) {
+            // keep the built-in gzip/deflate handling of Apache HTTP client
+            return;
+        }
+        // the built-in decompression of Apache HTTP client would hide the wire size of responses
+        httpClientBuilder.disableContentCompression();
+        httpClientBuilder.addInterceptorFirst(this::compressRequest);
+        httpClientBuilder.addInterceptorFirst(this::decompressResponse);
+    }
+
+    void compressRequest(HttpRequest request, HttpContext context) throws IOException {
+        request.setHeader(HttpHeaders.ACCEPT_ENCODING, ACCEPT_ENCODING);
+        if (!(request instanceof HttpEntityEnclosingRequest)) {
+            return;
+        }
+        HttpEntityEnclosingRequest entityRequest = (HttpEntityEnclosingRequest) request;
+        HttpEntity entity = entityRequest.getEntity();
+        if (entity == null || entity.getContentLength() < 0) {
+            return;
+        }
+        requestDecodedBytes.increment(entity.getContentLength());
+        if (entity.getContentLength() < minRequestSize || entity.getContentEncoding() != null
+                    || request.containsHeader(HttpHeaders.CONTENT_ENCODING) || !isCompressible(entity)) {
+            requestWireBytes.increment(entity.getContentLength());
+            return;
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream((int) entity.getContentLength() / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            entity.writeTo(gzip);
+        }
+        ByteArrayEntity compressedEntity = new ByteArrayEntity(compressed.toByteArray());
+        compressedEntity.setContentType(entity.getContentType());
+        compressedEntity.setContentEncoding(GZIP);
+        entityRequest.setEntity(compressedEntity);
+        requestWireBytes.increment(compressedEntity.getContentLength());
+    }
+
+    void decompressResponse(HttpResponse response, HttpContext context) {
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            return;
+        }
+        Header contentEncoding = entity.getContentEncoding();
+        String encoding = contentEncoding == null ? null : contentEncoding.getValue().trim().toLowerCase(Locale.ROOT);
+        if (encoding != null && !GZIP.equals(encoding) && !DEFLATE.equals(encoding)) {
+            return;
+        }
+        response.setEntity(new CountingEntity(entity, encoding));
+        if (encoding != null) {
+            response.removeHeaders(HttpHeaders.CONTENT_ENCODING);
+            response.removeHeaders(HttpHeaders.CONTENT_LENGTH);
+            response.removeHeaders("Content-MD5");
+        }
+    }
+
+    private boolean isCompressible(HttpEntity entity) {
+        if (entity.getContentType() == null) {
+            return false;
+        }
+        String mimeType = ContentType.parse(entity.getContentType().getValue()).getMimeType().toLowerCase(Locale.ROOT);
+        return mimeTypes.contains(mimeType);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String clientName, String direction, String representation) {
+        return Counter.builder(METRIC_NAME)
+                       .description("HTTP body bytes exchanged with ledgers/CMS, on the wire and after decoding")
+                       .baseUnit("bytes")
+                       .tag("client", clientName)
+                       .tag("direction", direction)
+                       .tag("representation", representation)
+                       .register(meterRegistry);
+    }
+
+    /**
+     * Decompresses the response body (if needed) and counts the bytes before and after decoding.
+     */
+    private class CountingEntity extends HttpEntityWrapper {
+        private final String encoding;
+        private InputStream content;
+
+        private CountingEntity(HttpEntity wrappedEntity, String encoding) {
+            super(wrappedEntity);
+            this.encoding = encoding;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            if (content == null) {
+                InputStream wire = new CountingInputStream(wrappedEntity.getContent(), responseWireBytes);
+                InputStream decoded;
+                if (GZIP.equals(encoding)) {
+                    decoded = new GZIPInputStream(wire);
+                } else if (DEFLATE.equals(encoding)) {
+                    decoded = new InflaterInputStream(wire);
+                } else {
+                    decoded = wire;
+                }
+                content = new CountingInputStream(decoded, responseDecodedBytes);
+            }
+            return content;
+        }
+
+        @Override
+        public long getContentLength() {
+            return encoding == null ? super.getContentLength() : -1;
+        }
+
+        @Override
+        public Header getContentEncoding() {
+            return null;
+        }
+
+        @Override
+        public void writeTo(OutputStream outStream) throws IOException {
+            try (InputStream inStream = getContent()) {
+                byte[] buffer = new byte[8_192];
+                int read;
+                while ((read = inStream.read(buffer)) != -1) {
+                    outStream.write(buffer, 0, read);
+                }
+            }
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return true;
+        }
+
+        @Override
+        public void consumeContent() throws IOException {
+            EntityUtils.consume(wrappedEntity);
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private final Counter counter;
+
+        private CountingInputStream(InputStream in, Counter counter) {
+            super(in);
+            this.counter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read != -1) {
+                counter.increment();
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                counter.increment(read);
+            }
+            return read;
+        }
+    }
+}
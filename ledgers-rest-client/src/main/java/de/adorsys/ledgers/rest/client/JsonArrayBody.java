@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import feign.codec.DecodeException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * JSON array body of a ledgers response, still open after the Feign call has returned (see {@link JsonArrayDecoder}).
+ * <p>
+ * {@link #map(Function)} parses the elements from the response stream as they arrive and maps every element right away,
+ * so neither the raw body nor the list of transfer objects is ever held in memory, only the mapped result list.
+ * The body can be read once; it is closed by {@link #map(Function)}, or by {@link #close()} if it isn't needed.
+ */
+public class JsonArrayBody<T> implements Closeable {
+    private final ObjectReader elementReader;
+    private final InputStream body;
+    private boolean consumed;
+
+    /**
+     * @param body response stream, {@code null} if the response has no body
+     */
+    public JsonArrayBody(ObjectReader elementReader, InputStream body) {
+        this.elementReader = elementReader;
+        this.body = body;
+    }
+
+    /**
+     * @param mapper applied to every element as soon as it has been read
+     * @return mapped elements, an empty list if the response has no body
+     * @throws DecodeException if the body isn't a JSON array of the element type or can't be read
+     */
+    public <R> List<R> map(Function<T, R> mapper) {
+        if (consumed) {
+            throw new IllegalStateException("The body of a ledgers response can only be read once");
+        }
+        consumed = true;
+        List<R> result = new ArrayList<>();
+        if (body == null) {
+            return result;
+        }
+        try (InputStream stream = body;
+             JsonParser parser = elementReader.getFactory().createParser(stream)) {
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.VALUE_NULL) {
+                return result;
+            }
+            if (token != JsonToken.START_ARRAY) {
+                throw new IOException("Expected JSON array, but got " + token);
+            }
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new IOException("Unexpected end of JSON array");
+                }
+                T element = elementReader.readValue(parser);
+                result.add(mapper.apply(element));
+            }
+            return result;
+        } catch (IOException e) {
+            throw new DecodeException(200, e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        consumed = true;
+        if (body != null) {
+            body.close();
+        }
+    }
+}
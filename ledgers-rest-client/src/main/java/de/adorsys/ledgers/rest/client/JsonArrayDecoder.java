@@ -0,0 +1,63 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.Response;
+import feign.Util;
+import feign.codec.Decoder;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+/**
+ * Decodes Feign methods returning {@link JsonArrayBody}, all other return types are passed to the delegate.
+ * <p>
+ * A {@link JsonArrayBody} keeps the response stream open, so that its elements are parsed while the data arrives.
+ * This requires the Feign client not to close the response after decoding (see {@code Feign.Builder#doNotCloseAfterDecode()}),
+ * so this decoder closes the response itself for all other return types.
+ * <p>
+ * Error statuses still go through the error decoder and the decorators of the call (e.g. {@link RetryDecorator}),
+ * but the body of a {@link JsonArrayBody} is read after the call has returned: a failure while reading it isn't retried,
+ * and it is only limited by the read timeout of the connection.
+ */
+public class JsonArrayDecoder implements Decoder {
+    private final ObjectMapper objectMapper;
+    private final Decoder delegate;
+
+    public JsonArrayDecoder(ObjectMapper objectMapper, Decoder delegate) {
+        this.objectMapper = objectMapper;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Object decode(Response response, Type type) throws IOException {
+        if (!(type instanceof ParameterizedType) || ((ParameterizedType) type).getRawType() != JsonArrayBody.class) {
+            try {
+                return delegate.decode(response, type);
+            } finally {
+                Util.ensureClosed(response.body());
+            }
+        }
+        Type elementType = ((ParameterizedType) type).getActualTypeArguments()[0];
+        return new JsonArrayBody<>(objectMapper.readerFor(objectMapper.constructType(elementType)),
+                                   response.body() == null
+                                           ? null
+                                           : response.body().asInputStream());
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import feign.RequestTemplate;
+import feign.codec.EncodeException;
+import feign.codec.Encoder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * Writes JSON request bodies with the writers of a {@link JsonCodecRegistry}. Bodies of requests declaring
+ * another content type are left to the delegate encoder.
+ */
+public class JsonCodecEncoder implements Encoder {
+    private final JsonCodecRegistry jsonCodecRegistry;
+    private final Encoder delegate;
+
+    public JsonCodecEncoder(JsonCodecRegistry jsonCodecRegistry, Encoder delegate) {
+        this.jsonCodecRegistry = jsonCodecRegistry;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void encode(Object object, Type bodyType, RequestTemplate template) {
+        Collection<String> contentTypes = template.headers().get(HttpHeaders.CONTENT_TYPE);
+        if (object == null || contentTypes != null && contentTypes.stream().noneMatch(this::isJson)) {
+            delegate.encode(object, bodyType, template);
+            return;
+        }
+        try {
+            byte[] body = jsonCodecRegistry.writer(object, bodyType).writeValueAsBytes(object);
+            if (contentTypes == null) {
+                template.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+            }
+            template.body(body, StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new EncodeException("Could not write JSON request body: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private boolean isJson(String contentType) {
+        try {
+            return MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(contentType));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
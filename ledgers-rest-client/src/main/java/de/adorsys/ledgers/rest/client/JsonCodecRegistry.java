@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Type bound {@link ObjectReader}s and {@link ObjectWriter}s of one {@link ObjectMapper}, built once and shared,
+ * so reading or writing a DTO doesn't resolve its (de)serializer again on every call.
+ * <p>
+ * Readers and writers of the types given at construction are built right away, those of other types on first use.
+ * They keep the configuration the object mapper had when they were built.
+ */
+public class JsonCodecRegistry {
+    private final ObjectMapper objectMapper;
+    private final ObjectReader treeReader;
+    private final Map<JavaType, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<JavaType, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    public JsonCodecRegistry(ObjectMapper objectMapper, Type... types) {
+        this.objectMapper = objectMapper;
+        this.treeReader = objectMapper.readerFor(JsonNode.class);
+        for (Type type : types) {
+            reader(type);
+            writer(type);
+        }
+    }
+
+    public ObjectReader reader(Type type) {
+        return readers.computeIfAbsent(objectMapper.constructType(type), objectMapper::readerFor);
+    }
+
+    public ObjectWriter writer(Type type) {
+        return writers.computeIfAbsent(objectMapper.constructType(type), objectMapper::writerFor);
+    }
+
+    /**
+     * Writer for the value itself, like {@link ObjectMapper#writeValueAsBytes(Object)}: the declared type is only used
+     * for collections, maps and arrays, whose element types can't be seen on the value.
+     */
+    public ObjectWriter writer(Object value, Type declaredType) {
+        JavaType type = declaredType == null ? null : objectMapper.constructType(declaredType);
+        return type != null && type.isContainerType() && type.getRawClass().isInstance(value)
+                       ? writers.computeIfAbsent(type, objectMapper::writerFor)
+                       : writer(value.getClass());
+    }
+
+    public JsonNode readTree(byte[] content) throws IOException {
+        return treeReader.readTree(new ByteArrayInputStream(content));
+    }
+
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+}
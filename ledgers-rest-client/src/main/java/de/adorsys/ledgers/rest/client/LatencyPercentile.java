@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks a latency percentile of the most recent calls of a single method.
+ * <p>
+ * Latencies are kept in a fixed-size ring buffer; the percentile is recomputed every {@code RECOMPUTE_INTERVAL}
+ * samples and clamped to {@code [minDelayMs, maxDelayMs]}. Until the buffer has enough samples the initial delay is used.
+ */
+class LatencyPercentile {
+    private static final int WINDOW_SIZE = 512;
+    private static final int RECOMPUTE_INTERVAL = 64;
+
+    private final double percentile;
+    private final long minDelayMs;
+    private final long maxDelayMs;
+    private final long[] samples = new long[WINDOW_SIZE];
+    private long count;
+    private volatile long delayMs;
+
+    LatencyPercentile(double percentile, long minDelayMs, long maxDelayMs, long initialDelayMs) {
+        this.percentile = percentile;
+        this.minDelayMs = minDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.delayMs = clamp(initialDelayMs);
+    }
+
+    synchronized void record(long latencyNanos) {
+        samples[(int) (count % WINDOW_SIZE)] = latencyNanos;
+        count++;
+        if (count >= RECOMPUTE_INTERVAL && count % RECOMPUTE_INTERVAL == 0) {
+            int size = (int) Math.min(count, WINDOW_SIZE);
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            int index = Math.min(size - 1, (int) Math.ceil(percentile * size) - 1);
+            delayMs = clamp(TimeUnit.NANOSECONDS.toMillis(sorted[Math.max(index, 0)]));
+        }
+    }
+
+    long getDelayMs() {
+        return delayMs;
+    }
+
+    private long clamp(long value) {
+        return Math.max(minDelayMs, Math.min(maxDelayMs, value));
+    }
+}
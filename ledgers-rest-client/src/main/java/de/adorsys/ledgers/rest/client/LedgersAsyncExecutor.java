@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Bounded thread pool for concurrent ledgers calls.
+ * <p>
+ * Every task runs with the access token of the submitting thread (see {@link AuthRequestInterceptor#propagating(Executor)}).
+ * When both the pool and its queue are full, the task is executed by the caller itself,
+ * so a burst degrades to the former synchronous behaviour instead of failing.
+ */
+public class LedgersAsyncExecutor {
+    private static final String EXECUTOR_NAME = "ledgers.async";
+
+    private final ExecutorService threadPool;
+    private final Executor executor;
+
+    public LedgersAsyncExecutor(int poolSize, int queueCapacity, AuthRequestInterceptor authRequestInterceptor, MeterRegistry meterRegistry) {
+        ExecutorService pool = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                                                      new ArrayBlockingQueue<>(queueCapacity),
+                                                      new CustomizableThreadFactory("ledgers-async-"),
+                                                      new ThreadPoolExecutor.CallerRunsPolicy());
+        this.threadPool = meterRegistry == null
+                                  ? pool
+                                  : ExecutorServiceMetrics.monitor(meterRegistry, pool, EXECUTOR_NAME, Tags.empty());
+        this.executor = authRequestInterceptor.propagating(threadPool);
+    }
+
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(call, executor);
+    }
+
+    /**
+     * Waits for the result and rethrows the original exception of the ledgers call (e.g. {@link feign.FeignException})
+     * instead of the {@link CompletionException} wrapper.
+     */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public void shutdown() {
+        threadPool.shutdown();
+    }
+}
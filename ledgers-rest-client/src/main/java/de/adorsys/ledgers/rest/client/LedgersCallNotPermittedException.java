@@ -0,0 +1,32 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import feign.FeignException;
+
+/**
+ * Thrown instead of calling ledgers when the circuit breaker of the client is open or its bulkhead is full.
+ * <p>
+ * Carries HTTP status 503, so callers can handle it like any other unavailable ledgers response.
+ */
+public class LedgersCallNotPermittedException extends FeignException {
+    private static final int SERVICE_UNAVAILABLE = 503;
+
+    public LedgersCallNotPermittedException(String message) {
+        super(SERVICE_UNAVAILABLE, message);
+    }
+}
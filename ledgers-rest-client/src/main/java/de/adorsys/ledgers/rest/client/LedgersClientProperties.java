@@ -0,0 +1,75 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import org.springframework.core.env.Environment;
+
+/**
+ * Resolves settings of a single Feign client, following the layout of {@code feign.client.config}:
+ * a value under {@code <prefix>.config.<clientName>.<key>} wins over {@code <prefix>.config.default.<key>}.
+ * Settings of a single method ({@link #forMethod(String)}) may be overridden under
+ * {@code <prefix>.config.<clientName>.methods.<methodName>.<key>}.
+ */
+public class LedgersClientProperties {
+    private static final String DEFAULT_CONFIG = "default";
+
+    private final Environment environment;
+    private final String prefix;
+    private final String clientName;
+    private final String methodName;
+
+    public LedgersClientProperties(Environment environment, String prefix, String clientName) {
+        this(environment, prefix, clientName, null);
+    }
+
+    private LedgersClientProperties(Environment environment, String prefix, String clientName, String methodName) {
+        this.environment = environment;
+        this.prefix = prefix;
+        this.clientName = clientName;
+        this.methodName = methodName;
+    }
+
+    public LedgersClientProperties forMethod(String methodName) {
+        return new LedgersClientProperties(environment, prefix, clientName, methodName);
+    }
+
+    public <T> T get(String key, Class<T> type, T defaultValue) {
+        if (methodName != null) {
+            T methodValue = environment.getProperty(propertyName(clientName + ".methods." + methodName, key), type);
+            if (methodValue != null) {
+                return methodValue;
+            }
+        }
+        T clientValue = environment.getProperty(propertyName(clientName, key), type);
+        if (clientValue != null) {
+            return clientValue;
+        }
+        return environment.getProperty(propertyName(DEFAULT_CONFIG, key), type, defaultValue);
+    }
+
+    public String getClientName() {
+        return clientName;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    private String propertyName(String configName, String key) {
+        return prefix + ".config." + configName + "." + key;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.*;
+
+/**
+ * Dedicated pool running the original and the hedged requests of {@link HedgingDecorator}, so that the caller can
+ * return whichever response arrives first.
+ * <p>
+ * It is separate from {@link LedgersAsyncExecutor}, so hedging a call that already runs on a ledgers-async thread
+ * never waits for a free thread of its own pool. The pool doesn't queue: when all {@code poolSize} threads are busy,
+ * {@link #execute(Runnable)} rejects the task and the call isn't hedged. Every task runs with the access token
+ * of the submitting thread.
+ */
+public class LedgersHedgingExecutor {
+    private static final String EXECUTOR_NAME = "ledgers.hedging";
+
+    private final ThreadPoolExecutor threadPool;
+    private final ScheduledThreadPoolExecutor timer;
+    private final AuthRequestInterceptor authRequestInterceptor;
+
+    public LedgersHedgingExecutor(int poolSize, AuthRequestInterceptor authRequestInterceptor, MeterRegistry meterRegistry) {
+        this.threadPool = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                                                 new CustomizableThreadFactory("ledgers-hedge-"));
+        this.threadPool.allowCoreThreadTimeOut(true);
+        this.timer = new ScheduledThreadPoolExecutor(1, new CustomizableThreadFactory("ledgers-hedge-timer-"));
+        this.timer.setRemoveOnCancelPolicy(true);
+        this.authRequestInterceptor = authRequestInterceptor;
+        if (meterRegistry != null) {
+            new ExecutorServiceMetrics(threadPool, EXECUTOR_NAME, Tags.empty()).bindTo(meterRegistry);
+        }
+    }
+
+    /**
+     * Runs the task on a free thread of the pool.
+     *
+     * @return {@code false} if all threads are busy and the task has not been accepted
+     */
+    public boolean execute(Runnable task) {
+        try {
+            threadPool.execute(authRequestInterceptor.propagate(task));
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Runs the task on the timer thread after the delay, unless the returned future has been cancelled before.
+     * The task must be short, e.g. hand a request over to {@link #execute(Runnable)}.
+     */
+    public ScheduledFuture<?> schedule(Runnable task, long delayMs) {
+        return timer.schedule(authRequestInterceptor.propagate(task), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        timer.shutdownNow();
+        threadPool.shutdownNow();
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import de.adorsys.ledgers.middleware.api.domain.um.AccessTokenTO;
+import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Validates ledgers access tokens locally by checking the signature and the expiry of the JWT against the
+ * {@link TokenSigningKeys}, instead of calling {@link UserMgmtRestClient#validate(String)} for every check.
+ * <p>
+ * Only a valid signature leads to a local decision: an unexpired token is valid, an expired one is invalid, and so
+ * is a token whose signature doesn't match the key with its key ID. Everything else (no signing keys configured,
+ * unknown key ID or algorithm, malformed token) is left to ledgers. Tokens revoked in ledgers before they expire are
+ * still accepted locally.
+ * <p>
+ * With a {@link TokenValidationCache}, a token validated before isn't validated again while the cached result lasts.
+ */
+public class LocalTokenValidator {
+    private static final Logger logger = LoggerFactory.getLogger(LocalTokenValidator.class);
+    private static final String METRIC_NAME = "ledgers.token.validation";
+    private static final String TOKEN_TYPE = "Bearer";
+    private static final Map<String, String> HMAC_ALGORITHMS = Map.of("HS256", "HmacSHA256",
+                                                                      "HS384", "HmacSHA384",
+                                                                      "HS512", "HmacSHA512");
+    private static final Map<String, String> RSA_ALGORITHMS = Map.of("RS256", "SHA256withRSA",
+                                                                     "RS384", "SHA384withRSA",
+                                                                     "RS512", "SHA512withRSA");
+
+    private final TokenSigningKeys signingKeys;
+    private final TokenValidationCache validationCache;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader accessTokenReader;
+    private final Clock clock;
+    private final Counter localValid;
+    private final Counter localInvalid;
+    private final Counter remote;
+
+    public LocalTokenValidator(TokenSigningKeys signingKeys, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this(signingKeys, null, objectMapper, meterRegistry);
+    }
+
+    /**
+     * @param signingKeys     keys to validate the tokens with, {@code null} to always validate them in ledgers
+     * @param validationCache results of previous validations, {@code null} to validate every time
+     */
+    public LocalTokenValidator(TokenSigningKeys signingKeys, TokenValidationCache validationCache, ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry) {
+        this(signingKeys, validationCache, objectMapper, meterRegistry, Clock.systemUTC());
+    }
+
+    LocalTokenValidator(TokenSigningKeys signingKeys, TokenValidationCache validationCache, ObjectMapper objectMapper,
+                        MeterRegistry meterRegistry, Clock clock) {
+        this.signingKeys = signingKeys;
+        this.validationCache = validationCache;
+        this.objectMapper = objectMapper;
+        this.accessTokenReader = objectMapper.readerFor(AccessTokenTO.class)
+                                         .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.clock = clock;
+        this.localValid = counter(meterRegistry, "local-valid");
+        this.localInvalid = counter(meterRegistry, "local-invalid");
+        this.remote = counter(meterRegistry, "remote");
+    }
+
+    /**
+     * @param remoteValidation validation in ledgers, used when the token can't be validated locally
+     * @return the validated token, {@code null} if the token is invalid
+     */
+    public BearerTokenTO validate(String accessToken, Supplier<BearerTokenTO> remoteValidation) {
+        if (validationCache != null && accessToken != null) {
+            return validationCache.validate(accessToken, () -> validateUncached(accessToken, remoteValidation));
+        }
+        return validateUncached(accessToken, remoteValidation);
+    }
+
+    private BearerTokenTO validateUncached(String accessToken, Supplier<BearerTokenTO> remoteValidation) {
+        if (signingKeys != null && accessToken != null) {
+            Verification verification = verify(accessToken);
+            if (verification == Verification.VALID) {
+                BearerTokenTO bearerToken = toBearerToken(accessToken);
+                if (bearerToken != null) {
+                    localValid.increment();
+                    return bearerToken;
+                }
+            } else if (verification == Verification.INVALID) {
+                localInvalid.increment();
+                return null;
+            }
+        }
+        remote.increment();
+        return remoteValidation.get();
+    }
+
+    Verification verify(String accessToken) {
+        String[] parts = accessToken.split("\\.", -1);
+        if (parts.length != 3) {
+            return Verification.INCONCLUSIVE;
+        }
+        try {
+            JsonNode header = objectMapper.readTree(decode(parts[0]));
+            String algorithm = header.path("alg").asText();
+            String keyId = header.hasNonNull("kid") ? header.get("kid").asText() : null;
+            byte[] signingInput = (parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII);
+            byte[] signature = decode(parts[2]);
+
+            Verification verification = verifySignature(algorithm, keyId, signingInput, signature);
+            if (verification != Verification.VALID) {
+                return verification;
+            }
+            long expiresAt = objectMapper.readTree(decode(parts[1])).path("exp").asLong(0);
+            if (expiresAt == 0) {
+                return Verification.INCONCLUSIVE;
+            }
+            return expiresAt > clock.millis() / 1000
+                           ? Verification.VALID
+                           : Verification.INVALID;
+        } catch (IOException | IllegalArgumentException | GeneralSecurityException e) {
+            logger.debug("Access token can't be validated locally: {}", e.getMessage());
+            return Verification.INCONCLUSIVE;
+        }
+    }
+
+    private Verification verifySignature(String algorithm, String keyId, byte[] signingInput, byte[] signature)
+            throws GeneralSecurityException {
+        List<TokenSigningKeys.SigningKey> candidates;
+        if (HMAC_ALGORITHMS.containsKey(algorithm)) {
+            candidates = signingKeys.find(keyId, SecretKey.class);
+            for (TokenSigningKeys.SigningKey candidate : candidates) {
+                Mac mac = Mac.getInstance(HMAC_ALGORITHMS.get(algorithm));
+                mac.init(candidate.getKey());
+                if (MessageDigest.isEqual(mac.doFinal(signingInput), signature)) {
+                    return Verification.VALID;
+                }
+            }
+        } else if (RSA_ALGORITHMS.containsKey(algorithm)) {
+            candidates = signingKeys.find(keyId, PublicKey.class);
+            for (TokenSigningKeys.SigningKey candidate : candidates) {
+                Signature verifier = Signature.getInstance(RSA_ALGORITHMS.get(algorithm));
+                verifier.initVerify((PublicKey) candidate.getKey());
+                verifier.update(signingInput);
+                if (verifier.verify(signature)) {
+                    return Verification.VALID;
+                }
+            }
+        } else {
+            return Verification.INCONCLUSIVE;
+        }
+        // a key without ID may just be outdated, the key with the ID of the token is not
+        return keyId != null && candidates.stream().anyMatch(candidate -> keyId.equals(candidate.getKeyId()))
+                       ? Verification.INVALID
+                       : Verification.INCONCLUSIVE;
+    }
+
+    /**
+     * Same token as returned by ledgers: the claims of the JWT are the access token object.
+     */
+    private BearerTokenTO toBearerToken(String accessToken) {
+        try {
+            JsonNode claims = objectMapper.readTree(decode(accessToken.split("\\.")[1]));
+            BearerTokenTO bearerToken = new BearerTokenTO();
+            bearerToken.setAccess_token(accessToken);
+            bearerToken.setToken_type(TOKEN_TYPE);
+            bearerToken.setExpires_in((int) (claims.path("exp").asLong() - clock.millis() / 1000));
+            bearerToken.setAccessTokenObject(accessTokenReader.readValue(claims));
+            return bearerToken;
+        } catch (IOException e) {
+            logger.debug("Access token claims can't be read locally: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private byte[] decode(String part) {
+        return Base64.getUrlDecoder().decode(part);
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder(METRIC_NAME)
+                       .description("Validations of ledgers access tokens")
+                       .tag("result", result)
+                       .register(meterRegistry);
+    }
+
+    enum Verification {
+        VALID, INVALID, INCONCLUSIVE
+    }
+}
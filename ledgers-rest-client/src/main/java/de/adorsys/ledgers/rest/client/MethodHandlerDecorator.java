@@ -0,0 +1,34 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Target;
+import org.springframework.core.Ordered;
+
+import java.lang.reflect.Method;
+
+/**
+ * Wraps the handler of a single Feign client method, e.g. to add resilience or metrics to every ledgers call.
+ * <p>
+ * Decorators are picked up from the Feign client context and applied in {@link Ordered order}:
+ * the decorator with the lowest order is the outermost one.
+ */
+public interface MethodHandlerDecorator extends Ordered {
+
+    MethodHandler decorate(Target<?> target, Method method, MethodHandler methodHandler);
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import feign.FeignException;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Response;
+import feign.Target;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.ResponseEntity;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Records the latency and the outcome of every ledgers Feign call which is sent to ledgers, including retries,
+ * hedged requests and the time spent waiting for a bulkhead permit.
+ * <p>
+ * It is ordered inside {@link PsuAccountListCache} and {@link SingleFlightDecorator}: cache hits and calls answered by
+ * a coalesced call never reach ledgers and would skew the timers used to size timeouts and pools, they are counted by
+ * {@code cache.gets} and {@code ledgers.single-flight.coalesced} instead.
+ * <p>
+ * The timer {@code ledgers.client.requests} is tagged with {@code client}, {@code method}, {@code status} and
+ * {@code outcome}; failed calls are additionally counted by {@code ledgers.client.errors} with the exception type.
+ * Percentile histograms and client-side percentiles are configured under {@code ledgers.metrics.config.<clientName>}.
+ */
+public class MetricsDecorator implements MethodHandlerDecorator {
+    static final String PROPERTY_PREFIX = "ledgers.metrics";
+    private static final int ORDER = 250;
+    private static final String UNKNOWN_STATUS = "UNKNOWN";
+
+    private final LedgersClientProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public MetricsDecorator(LedgersClientProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public MethodHandler decorate(Target<?> target, Method method, MethodHandler methodHandler) {
+        LedgersClientProperties methodProperties = properties.forMethod(method.getName());
+        if (!methodProperties.get("enabled", Boolean.class, true)) {
+            return methodHandler;
+        }
+        Tags tags = Tags.of("client", properties.getClientName(), "method", method.getName());
+        Function<Tags, Timer> timer = timer(methodProperties, tags);
+        return args -> record(methodHandler, args, timer, tags);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private Object record(MethodHandler methodHandler, Object[] args, Function<Tags, Timer> timer, Tags tags) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            Object result = methodHandler.invoke(args);
+            int status = status(result);
+            timer.apply(Tags.of("status", status > 0 ? String.valueOf(status) : UNKNOWN_STATUS,
+                                "outcome", status > 0 ? outcome(status) : "SUCCESS"))
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            long duration = System.nanoTime() - start;
+            String status = e instanceof FeignException && ((FeignException) e).status() > 0
+                                    ? String.valueOf(((FeignException) e).status())
+                                    : UNKNOWN_STATUS;
+            String outcome = outcome(e);
+            timer.apply(Tags.of("status", status, "outcome", outcome))
+                    .record(duration, TimeUnit.NANOSECONDS);
+            Counter.builder("ledgers.client.errors")
+                    .description("Failed calls of ledgers and CMS Feign client methods")
+                    .tags(tags.and("status", status, "outcome", outcome, "exception", e.getClass().getSimpleName()))
+                    .register(meterRegistry)
+                    .increment();
+            throw e;
+        }
+    }
+
+    private Function<Tags, Timer> timer(LedgersClientProperties methodProperties, Tags tags) {
+        boolean percentileHistogram = methodProperties.get("percentile-histogram", Boolean.class, true);
+        double[] percentiles = percentiles(methodProperties.get("percentiles", String.class, ""));
+        Duration minimumExpected = Duration.ofMillis(methodProperties.get("minimum-expected-ms", Long.class, 1L));
+        Duration maximumExpected = Duration.ofMillis(methodProperties.get("maximum-expected-ms", Long.class, 60_000L));
+        return callTags -> Timer.builder("ledgers.client.requests")
+                                   .description("Calls of ledgers and CMS Feign client methods")
+                                   .tags(tags.and(callTags))
+                                   .publishPercentileHistogram(percentileHistogram)
+                                   .publishPercentiles(percentiles)
+                                   .minimumExpectedValue(minimumExpected)
+                                   .maximumExpectedValue(maximumExpected)
+                                   .register(meterRegistry);
+    }
+
+    private int status(Object result) {
+        if (result instanceof ResponseEntity) {
+            return ((ResponseEntity<?>) result).getStatusCodeValue();
+        }
+        if (result instanceof Response) {
+            return ((Response) result).status();
+        }
+        return -1;
+    }
+
+    private String outcome(Throwable e) {
+        if (e instanceof LedgersCallNotPermittedException) {
+            return "REJECTED";
+        }
+        if (e instanceof FeignException && ((FeignException) e).status() > 0) {
+            return outcome(((FeignException) e).status());
+        }
+        return "IO_ERROR";
+    }
+
+    private String outcome(int status) {
+        if (status >= 500) {
+            return "SERVER_ERROR";
+        }
+        if (status >= 400) {
+            return "CLIENT_ERROR";
+        }
+        if (status >= 300) {
+            return "REDIRECTION";
+        }
+        return "SUCCESS";
+    }
+
+    private double[] percentiles(String percentiles) {
+        return Arrays.stream(percentiles.split(","))
+                       .map(String::trim)
+                       .filter(percentile -> !percentile.isEmpty())
+                       .mapToDouble(Double::parseDouble)
+                       .toArray();
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.UnsupportedSchemeException;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.DefaultSchemePortResolver;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Builds the pooled keep-alive Apache HTTP client used by a single ledgers Feign client.
+ * <p>
+ * Every {@code @FeignClient} gets its own child application context and therefore its own pool,
+ * sized by the {@code ledgers.http-client.config.<clientName>} (or {@code .default}) settings.
+ */
+public class PooledHttpClientFactory {
+    static final String PROPERTY_PREFIX = "ledgers.http-client";
+    private static final String METRIC_PREFIX = "ledgers.http.client.pool.";
+
+    private final LedgersClientProperties properties;
+
+    public PooledHttpClientFactory(LedgersClientProperties properties) {
+        this.properties = properties;
+    }
+
+    public PoolingHttpClientConnectionManager connectionManager() {
+        long timeToLive = properties.get("time-to-live-ms", Long.class, 900_000L);
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(timeToLive, TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(properties.get("max-connections", Integer.class, 200));
+        connectionManager.setDefaultMaxPerRoute(properties.get("max-connections-per-route", Integer.class, 50));
+        connectionManager.setValidateAfterInactivity(properties.get("validate-after-inactivity-ms", Integer.class, 2_000));
+        return connectionManager;
+    }
+
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager connectionManager,
+                                          List<HttpClientBuilderCustomizer> customizers) {
+        RequestConfig defaultRequestConfig = RequestConfig.custom()
+                                                     .setConnectionRequestTimeout(properties.get("connection-request-timeout-ms", Integer.class, 5_000))
+                                                     .build();
+        HttpClientBuilder httpClientBuilder = HttpClientBuilder.create()
+                                                      .setConnectionManager(connectionManager)
+                                                      .setDefaultRequestConfig(defaultRequestConfig)
+                                                      .setKeepAliveStrategy(keepAliveStrategy(properties.get("keep-alive-ms", Long.class, 60_000L)))
+                                                      .evictExpiredConnections()
+                                                      .evictIdleConnections(properties.get("idle-eviction-ms", Long.class, 30_000L), TimeUnit.MILLISECONDS);
+        customizers.forEach(customizer -> customizer.customize(httpClientBuilder));
+        return httpClientBuilder.build();
+    }
+
+    public void bindMetrics(MeterRegistry meterRegistry, PoolingHttpClientConnectionManager connectionManager) {
+        gauge(meterRegistry, connectionManager, "leased", "Connections currently leased to requests", PoolStats::getLeased);
+        gauge(meterRegistry, connectionManager, "pending", "Requests waiting for a free connection", PoolStats::getPending);
+        gauge(meterRegistry, connectionManager, "idle", "Idle keep-alive connections in the pool", PoolStats::getAvailable);
+        gauge(meterRegistry, connectionManager, "max", "Maximum number of pooled connections", PoolStats::getMax);
+    }
+
+    /**
+     * Opens up to {@code connections} TCP (and TLS) connections to {@code url} and returns them to the pool as idle
+     * keep-alive connections, so the first requests after startup don't pay for the connection setup.
+     * No HTTP request is sent.
+     *
+     * @return the number of newly opened connections
+     */
+    public int preOpenConnections(PoolingHttpClientConnectionManager connectionManager, String url, int connections)
+            throws IOException, InterruptedException {
+        HttpRoute route = route(url);
+        int connectTimeout = properties.get("warm-up-connect-timeout-ms", Integer.class, 2_000);
+        long keepAlive = properties.get("keep-alive-ms", Long.class, 60_000L);
+        List<HttpClientConnection> leased = new ArrayList<>();
+        int opened = 0;
+        try {
+            for (int i = 0; i < Math.min(connections, connectionManager.getMaxPerRoute(route)); i++) {
+                HttpClientConnection connection = connectionManager.requestConnection(route, null)
+                                                          .get(connectTimeout, TimeUnit.MILLISECONDS);
+                leased.add(connection);
+                if (!connection.isOpen()) {
+                    HttpClientContext context = HttpClientContext.create();
+                    connectionManager.connect(connection, route, connectTimeout, context);
+                    connectionManager.routeComplete(connection, route, context);
+                    opened++;
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new IOException("Could not lease a connection to " + url, e.getCause());
+        } finally {
+            leased.forEach(connection -> connectionManager.releaseConnection(connection, null, keepAlive, TimeUnit.MILLISECONDS));
+        }
+        return opened;
+    }
+
+    /**
+     * Same route as planned by the HTTP client for requests to {@code url}, so the pre-opened connections are reused.
+     */
+    private HttpRoute route(String url) throws UnsupportedSchemeException {
+        URI uri = URI.create(url);
+        HttpHost host = new HttpHost(uri.getHost(), uri.getPort(), uri.getScheme());
+        HttpHost target = new HttpHost(host.getHostName(), DefaultSchemePortResolver.INSTANCE.resolve(host), host.getSchemeName());
+        return new HttpRoute(target, null, "https".equalsIgnoreCase(target.getSchemeName()));
+    }
+
+    /**
+     * Honours the {@code Keep-Alive} header sent by the server, but never keeps a connection
+     * longer than the configured maximum.
+     */
+    private ConnectionKeepAliveStrategy keepAliveStrategy(long maxKeepAlive) {
+        return (response, context) -> {
+            long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return serverKeepAlive > 0
+                           ? Math.min(serverKeepAlive, maxKeepAlive)
+                           : maxKeepAlive;
+        };
+    }
+
+    private void gauge(MeterRegistry meterRegistry, PoolingHttpClientConnectionManager connectionManager,
+                       String name, String description, ToIntFunction<PoolStats> value) {
+        Gauge.builder(METRIC_PREFIX + name, connectionManager, m -> value.applyAsInt(m.getTotalStats()))
+                .description(description)
+                .tag("client", properties.getClientName())
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Target;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the account list of a PSU for a short time, as the AIS and consent flows of the same PSU often read it
+ * several times within seconds.
+ * <p>
+ * Decorates {@link AccountRestClient#getListOfAccounts()}: the successful response is cached under the bound access
+ * token itself, as ledgers lists the accounts the token grants access to and the claims of the token aren't verified
+ * here. Calls without a readable, unexpired token always go to ledgers. The {@link PaymentRestClient} calls which may
+ * execute a payment, whatever their outcome, invalidate the entries of all tokens issued to the same PSU (the
+ * {@code sub} claim): they start a new invalidation generation of the PSU, which is part of the cache key. Otherwise
+ * an entry lives at most the configured time to live. The shared response must be treated as read-only by the callers.
+ */
+public class PsuAccountListCache implements MethodHandlerDecorator {
+    private static final Set<String> PAYMENT_EXECUTION_METHODS = Set.of("initiatePayment", "authorizePayment", "executePayment");
+    private static final String CACHED_METHOD = "getListOfAccounts";
+    private static final int ORDER = 150;
+    private static final long INITIAL_GENERATION = 0;
+
+    private final ExpiringCache<String, ResponseEntity<?>> accountLists;
+    // an invalidation generation lives as long as the entries cached before it
+    private final ExpiringCache<String, Long> psuGenerations;
+    private final AtomicLong nextGeneration = new AtomicLong(INITIAL_GENERATION);
+    private final Duration timeToLive;
+    private final AuthRequestInterceptor authRequestInterceptor;
+    private final ObjectReader claimsReader;
+    private final Clock clock;
+
+    public PsuAccountListCache(int maxSize, Duration timeToLive, AuthRequestInterceptor authRequestInterceptor,
+                               ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this(maxSize, timeToLive, authRequestInterceptor, objectMapper, meterRegistry, Clock.systemUTC());
+    }
+
+    public PsuAccountListCache(int maxSize, Duration timeToLive, AuthRequestInterceptor authRequestInterceptor,
+                               ObjectMapper objectMapper, MeterRegistry meterRegistry, Clock clock) {
+        this.accountLists = new ExpiringCache<>("ledgers.accounts", maxSize, clock);
+        this.psuGenerations = new ExpiringCache<>("ledgers.accounts.generations", maxSize, clock);
+        this.timeToLive = timeToLive;
+        this.authRequestInterceptor = authRequestInterceptor;
+        this.claimsReader = objectMapper.readerFor(JsonNode.class);
+        this.clock = clock;
+        accountLists.bindTo(meterRegistry);
+    }
+
+    @Override
+    public MethodHandler decorate(Target<?> target, Method method, MethodHandler methodHandler) {
+        if (AccountRestClient.class.equals(target.type()) && CACHED_METHOD.equals(method.getName())) {
+            return args -> cached(methodHandler, args);
+        }
+        if (PaymentRestClient.class.equals(target.type()) && PAYMENT_EXECUTION_METHODS.contains(method.getName())) {
+            return args -> {
+                try {
+                    return methodHandler.invoke(args);
+                } finally {
+                    invalidateCurrentPsu();
+                }
+            };
+        }
+        return methodHandler;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    /**
+     * Drops the cached account lists of the PSU of the access token bound to the current thread.
+     */
+    public void invalidateCurrentPsu() {
+        String accessToken = authRequestInterceptor.getAccessToken();
+        String psuId = psuId(accessToken);
+        if (psuId != null) {
+            accountLists.invalidate(cacheKey(accessToken, psuId));
+            psuGenerations.put(psuId, nextGeneration.incrementAndGet(), timeToLive);
+        }
+    }
+
+    private Object cached(MethodHandler methodHandler, Object[] args) throws Throwable {
+        String accessToken = authRequestInterceptor.getAccessToken();
+        String psuId = psuId(accessToken);
+        if (psuId == null) {
+            return methodHandler.invoke(args);
+        }
+        String cacheKey = cacheKey(accessToken, psuId);
+        ResponseEntity<?> cached = accountLists.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        Object result = methodHandler.invoke(args);
+        if (result instanceof ResponseEntity) {
+            ResponseEntity<?> response = (ResponseEntity<?>) result;
+            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+                accountLists.put(cacheKey, response, timeToLive);
+            }
+        }
+        return result;
+    }
+
+    private String cacheKey(String accessToken, String psuId) {
+        Long generation = psuGenerations.get(psuId);
+        return (generation == null ? INITIAL_GENERATION : generation) + ":" + accessToken;
+    }
+
+    /**
+     * @return the {@code sub} claim of an unexpired JWT, {@code null} if there is none
+     */
+    private String psuId(String accessToken) {
+        String[] parts = accessToken == null
+                                 ? new String[0]
+                                 : accessToken.split("\\.");
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            JsonNode claims = claimsReader.readTree(new ByteArrayInputStream(Base64.getUrlDecoder().decode(parts[1])));
+            if (claims == null || claims.path("exp").asLong(0) <= clock.millis() / 1000) {
+                return null;
+            }
+            return claims.path("sub").textValue();
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import feign.FeignException;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Target;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker and semaphore bulkhead around the calls of a single ledgers Feign client.
+ * <p>
+ * Configured under {@code ledgers.resilience.config.<clientName>} (or {@code .default}). With {@code per-method}
+ * enabled, every method gets its own breaker and bulkhead, which may be tuned under
+ * {@code ledgers.resilience.config.<clientName>.methods.<methodName>}.
+ * <p>
+ * Server errors, I/O errors and calls slower than {@code circuit-breaker.slow-call-duration-threshold-ms} count as failures,
+ * client errors (4xx) don't. The bulkhead defaults to the connections per route of the pooled HTTP client
+ * (see {@link PooledHttpClientFactory}) and lets a burst wait up to {@code bulkhead.max-wait-ms} for a free slot.
+ * Rejected calls fail with {@link LedgersCallNotPermittedException}.
+ * <p>
+ * The {@link RetryDecorator} is ordered outside, so every attempt takes its own permits and a retry backing off
+ * doesn't hold a bulkhead slot.
+ */
+public class ResilienceDecorator implements MethodHandlerDecorator {
+    static final String PROPERTY_PREFIX = "ledgers.resilience";
+    private static final Logger logger = LoggerFactory.getLogger(ResilienceDecorator.class);
+    private static final int ORDER = 300;
+    private static final String CLIENT_GUARD = "";
+
+    private final LedgersClientProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final boolean perMethod;
+    private final Map<String, Guard> guards = new ConcurrentHashMap<>();
+
+    public ResilienceDecorator(LedgersClientProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.enabled = properties.get("enabled", Boolean.class, true);
+        this.perMethod = properties.get("per-method", Boolean.class, false);
+    }
+
+    @Override
+    public MethodHandler decorate(Target<?> target, Method method, MethodHandler methodHandler) {
+        if (!enabled) {
+            return methodHandler;
+        }
+        Guard guard = perMethod
+                              ? guards.computeIfAbsent(method.getName(), name -> new Guard(properties.forMethod(name)))
+                              : guards.computeIfAbsent(CLIENT_GUARD, name -> new Guard(properties));
+        return args -> guard.call(methodHandler, args);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private class Guard {
+        private final String name;
+        private final CircuitBreaker circuitBreaker;
+        private final Semaphore bulkhead;
+        private final long maxWaitMs;
+        private final long slowCallThresholdNanos;
+        private final Counter circuitOpenRejections;
+        private final Counter bulkheadFullRejections;
+
+        private Guard(LedgersClientProperties guardProperties) {
+            String methodName = guardProperties.getMethodName();
+            this.name = methodName == null ? guardProperties.getClientName() : guardProperties.getClientName() + "#" + methodName;
+            this.circuitBreaker = new CircuitBreaker(guardProperties.get("circuit-breaker.sliding-window-size", Integer.class, 20),
+                                                     guardProperties.get("circuit-breaker.minimum-number-of-calls", Integer.class, 10),
+                                                     guardProperties.get("circuit-breaker.failure-rate-threshold", Float.class, 50f),
+                                                     guardProperties.get("circuit-breaker.wait-duration-in-open-state-ms", Long.class, 10_000L),
+                                                     guardProperties.get("circuit-breaker.permitted-calls-in-half-open-state", Integer.class, 3));
+            this.bulkhead = new Semaphore(guardProperties.get("bulkhead.max-concurrent-calls", Integer.class, 50));
+            this.maxWaitMs = guardProperties.get("bulkhead.max-wait-ms", Long.class, 500L);
+            this.slowCallThresholdNanos = TimeUnit.MILLISECONDS.toNanos(guardProperties.get("circuit-breaker.slow-call-duration-threshold-ms", Long.class, 10_000L));
+
+            String method = methodName == null ? "all" : methodName;
+            Gauge.builder("ledgers.resilience.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                    .description("State of the circuit breaker: 0 closed, 1 open, 2 half open")
+                    .tag("client", guardProperties.getClientName())
+                    .tag("method", method)
+                    .register(meterRegistry);
+            Gauge.builder("ledgers.resilience.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                    .description("Free permits of the bulkhead")
+                    .tag("client", guardProperties.getClientName())
+                    .tag("method", method)
+                    .register(meterRegistry);
+            this.circuitOpenRejections = rejections(guardProperties.getClientName(), method, "circuit-open");
+            this.bulkheadFullRejections = rejections(guardProperties.getClientName(), method, "bulkhead-full");
+        }
+
+        private Object call(MethodHandler methodHandler, Object[] args) throws Throwable {
+            if (!circuitBreaker.tryAcquirePermission()) {
+                circuitOpenRejections.increment();
+                throw new LedgersCallNotPermittedException("Circuit breaker of " + name + " is open");
+            }
+            boolean bulkheadAcquired;
+            try {
+                bulkheadAcquired = acquireBulkhead();
+            } catch (InterruptedException e) {
+                circuitBreaker.releasePermission();
+                throw e;
+            }
+            if (!bulkheadAcquired) {
+                circuitBreaker.releasePermission();
+                bulkheadFullRejections.increment();
+                throw new LedgersCallNotPermittedException("Bulkhead of " + name + " is full");
+            }
+            long start = System.nanoTime();
+            try {
+                Object result = methodHandler.invoke(args);
+                recordOutcome(System.nanoTime() - start > slowCallThresholdNanos);
+                return result;
+            } catch (FeignException e) {
+                recordOutcome(e.status() < 0 || e.status() >= 500);
+                throw e;
+            } catch (Throwable e) {
+                recordOutcome(true);
+                throw e;
+            } finally {
+                bulkhead.release();
+            }
+        }
+
+        private boolean acquireBulkhead() throws InterruptedException {
+            return maxWaitMs > 0
+                           ? bulkhead.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS)
+                           : bulkhead.tryAcquire();
+        }
+
+        private void recordOutcome(boolean failed) {
+            CircuitBreaker.State before = circuitBreaker.getState();
+            if (failed) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+            CircuitBreaker.State after = circuitBreaker.getState();
+            if (before != after) {
+                logger.warn("Circuit breaker of {} changed from {} to {}", name, before, after);
+            }
+        }
+
+        private Counter rejections(String clientName, String method, String reason) {
+            return Counter.builder("ledgers.resilience.rejected")
+                           .description("Ledgers calls rejected without being sent")
+                           .tag("client", clientName)
+                           .tag("method", method)
+                           .tag("reason", reason)
+                           .register(meterRegistry);
+        }
+    }
+}
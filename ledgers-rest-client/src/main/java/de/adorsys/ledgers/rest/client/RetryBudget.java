@@ -0,0 +1,58 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket limiting retries (or other additional requests, like hedged ones) to a share of the regular traffic.
+ * <p>
+ * Every call deposits {@code ratio} tokens (up to {@code maxTokens}), every retry withdraws one token.
+ * With a ratio of 0.1 retries can add at most about 10% extra load, so they can't amplify an outage.
+ */
+public class RetryBudget {
+    private static final long SCALE = 1_000;
+
+    private final long depositPerCall;
+    private final long maxTokens;
+    private final AtomicLong tokens;
+
+    public RetryBudget(double ratio, int maxTokens) {
+        this.depositPerCall = Math.round(ratio * SCALE);
+        this.maxTokens = maxTokens * SCALE;
+        this.tokens = new AtomicLong(this.maxTokens);
+    }
+
+    public void onCall() {
+        tokens.accumulateAndGet(depositPerCall, (current, deposit) -> Math.min(maxTokens, current + deposit));
+    }
+
+    public boolean tryAcquireRetry() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - SCALE));
+        return true;
+    }
+
+    public double getAvailableRetries() {
+        return (double) tokens.get() / SCALE;
+    }
+}
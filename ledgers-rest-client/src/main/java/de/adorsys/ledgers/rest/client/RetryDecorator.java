@@ -0,0 +1,174 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import feign.FeignException;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.RetryableException;
+import feign.Target;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.lang.reflect.Method;
+import java.net.ConnectException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries transient failures of ledgers calls, depending on whether the called method is idempotent.
+ * <p>
+ * GET/HEAD methods are considered safe and are retried on I/O errors and on 502, 503 and 504 responses.
+ * Other methods are only retried if the connection couldn't be established, i.e. the request never reached ledgers.
+ * {@code initiatePayment} and {@code authorizePayment} are never retried. The classification of a method can be overridden
+ * with {@code ledgers.retry.config.<clientName>.methods.<methodName>.idempotent}.
+ * <p>
+ * Retries wait for a jittered exponential backoff and are limited by the shared {@link RetryBudget}.
+ * <p>
+ * It is ordered outside the {@link ResilienceDecorator}: each attempt is guarded and counted by the circuit breaker and
+ * releases its bulkhead permit before the backoff. Attempts rejected by the circuit breaker or the bulkhead aren't retried.
+ */
+public class RetryDecorator implements MethodHandlerDecorator {
+    static final String PROPERTY_PREFIX = "ledgers.retry";
+    private static final Logger logger = LoggerFactory.getLogger(RetryDecorator.class);
+    private static final int ORDER = 280;
+    private static final Set<String> NEVER_RETRIED = Collections.unmodifiableSet(new HashSet<>(Arrays.asList("initiatePayment", "authorizePayment")));
+    private static final List<Integer> TRANSIENT_STATUSES = Arrays.asList(502, 503, 504);
+
+    private final LedgersClientProperties properties;
+    private final RetryBudget retryBudget;
+    private final MeterRegistry meterRegistry;
+    private final Counter budgetExhausted;
+
+    enum Idempotency {
+        IDEMPOTENT, NOT_IDEMPOTENT, NEVER_RETRIED
+    }
+
+    public RetryDecorator(LedgersClientProperties properties, RetryBudget retryBudget, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.retryBudget = retryBudget;
+        this.meterRegistry = meterRegistry;
+        this.budgetExhausted = Counter.builder("ledgers.retry.budget.exhausted")
+                                       .description("Retries skipped because the retry budget was used up")
+                                       .tag("client", properties.getClientName())
+                                       .register(meterRegistry);
+    }
+
+    @Override
+    public MethodHandler decorate(Target<?> target, Method method, MethodHandler methodHandler) {
+        LedgersClientProperties methodProperties = properties.forMethod(method.getName());
+        Idempotency idempotency = classify(method, methodProperties);
+        if (!methodProperties.get("enabled", Boolean.class, true) || idempotency == Idempotency.NEVER_RETRIED) {
+            return args -> {
+                retryBudget.onCall();
+                return methodHandler.invoke(args);
+            };
+        }
+        int maxAttempts = methodProperties.get("max-attempts", Integer.class, 3);
+        long initialBackoffMs = methodProperties.get("initial-backoff-ms", Long.class, 50L);
+        long maxBackoffMs = methodProperties.get("max-backoff-ms", Long.class, 1_000L);
+        Counter retries = Counter.builder("ledgers.retry.attempts")
+                                  .description("Retried ledgers calls")
+                                  .tag("client", properties.getClientName())
+                                  .tag("method", method.getName())
+                                  .register(meterRegistry);
+
+        return args -> {
+            retryBudget.onCall();
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return methodHandler.invoke(args);
+                } catch (FeignException e) {
+                    if (attempt >= maxAttempts || !isTransient(e, idempotency)) {
+                        throw e;
+                    }
+                    if (!retryBudget.tryAcquireRetry()) {
+                        budgetExhausted.increment();
+                        throw e;
+                    }
+                    logger.info("Retrying {}#{} after {} (attempt {} of {})", properties.getClientName(), method.getName(),
+                                e.getMessage(), attempt + 1, maxAttempts);
+                    retries.increment();
+                    backoff(attempt, initialBackoffMs, maxBackoffMs, e);
+                }
+            }
+        };
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    static Idempotency classify(Method method, LedgersClientProperties methodProperties) {
+        if (NEVER_RETRIED.contains(method.getName())) {
+            return Idempotency.NEVER_RETRIED;
+        }
+        Boolean configured = methodProperties.get("idempotent", Boolean.class, null);
+        if (configured != null) {
+            return configured ? Idempotency.IDEMPOTENT : Idempotency.NOT_IDEMPOTENT;
+        }
+        RequestMapping mapping = AnnotatedElementUtils.findMergedAnnotation(method, RequestMapping.class);
+        if (mapping == null) {
+            return Idempotency.NOT_IDEMPOTENT;
+        }
+        List<RequestMethod> httpMethods = Arrays.asList(mapping.method());
+        return !httpMethods.isEmpty() && httpMethods.stream().allMatch(m -> m == RequestMethod.GET || m == RequestMethod.HEAD)
+                       ? Idempotency.IDEMPOTENT
+                       : Idempotency.NOT_IDEMPOTENT;
+    }
+
+    private boolean isTransient(FeignException e, Idempotency idempotency) {
+        if (e instanceof LedgersCallNotPermittedException) {
+            return false;
+        }
+        if (isConnectFailure(e)) {
+            return true;
+        }
+        return idempotency == Idempotency.IDEMPOTENT
+                       && (e instanceof RetryableException || TRANSIENT_STATUSES.contains(e.status()));
+    }
+
+    private boolean isConnectFailure(Throwable e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof ConnectTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void backoff(int attempt, long initialBackoffMs, long maxBackoffMs, FeignException lastFailure) {
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        long sleepMs = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            Thread.sleep(sleepMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw lastFailure;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Response;
+import feign.Target;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Coalesces concurrent identical reads: while a call of an idempotent method is in flight, further calls with the same
+ * arguments and the same access token wait for it and share its result (or its exception) instead of calling ledgers again.
+ * <p>
+ * Nothing is cached: the call is forgotten as soon as it completes, so there is no staleness window. The shared result
+ * must be treated as read-only by the callers. Methods returning a raw {@link Response} or a {@link JsonArrayBody} are
+ * never coalesced, as their body can only be read once.
+ * <p>
+ * Enabled by default for idempotent methods (see {@link RetryDecorator}), it can be switched off with
+ * {@code ledgers.single-flight.config.<clientName>.enabled} or per method.
+ */
+public class SingleFlightDecorator implements MethodHandlerDecorator {
+    static final String PROPERTY_PREFIX = "ledgers.single-flight";
+    private static final int ORDER = 200;
+
+    private final LedgersClientProperties properties;
+    private final AuthRequestInterceptor authRequestInterceptor;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<CallKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    public SingleFlightDecorator(LedgersClientProperties properties, AuthRequestInterceptor authRequestInterceptor,
+                                 MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.authRequestInterceptor = authRequestInterceptor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public MethodHandler decorate(Target<?> target, Method method, MethodHandler methodHandler) {
+        LedgersClientProperties methodProperties = properties.forMethod(method.getName());
+        if (!methodProperties.get("enabled", Boolean.class, true)
+                    || Response.class.isAssignableFrom(method.getReturnType())
+                    || JsonArrayBody.class.isAssignableFrom(method.getReturnType())
+                    || RetryDecorator.classify(method, methodProperties) != RetryDecorator.Idempotency.IDEMPOTENT) {
+            return methodHandler;
+        }
+        Counter coalesced = Counter.builder("ledgers.single-flight.coalesced")
+                                    .description("Calls answered by an identical call already in flight")
+                                    .tag("client", properties.getClientName())
+                                    .tag("method", method.getName())
+                                    .register(meterRegistry);
+        return args -> invoke(method, methodHandler, args, coalesced);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private Object invoke(Method method, MethodHandler methodHandler, Object[] args, Counter coalesced) throws Throwable {
+        String accessToken = authRequestInterceptor == null
+                                     ? null
+                                     : authRequestInterceptor.getAccessToken();
+        CallKey key = new CallKey(method, accessToken, args);
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> runningCall = inFlight.putIfAbsent(key, call);
+        if (runningCall != null) {
+            coalesced.increment();
+            try {
+                return runningCall.join();
+            } catch (CompletionException e) {
+                throw e.getCause();
+            }
+        }
+        try {
+            Object result = methodHandler.invoke(args);
+            call.complete(result);
+            return result;
+        } catch (Throwable e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    private static final class CallKey {
+        private final Method method;
+        private final String accessToken;
+        private final List<Object> args;
+
+        private CallKey(Method method, String accessToken, Object[] args) {
+            this.method = method;
+            this.accessToken = accessToken;
+            this.args = args == null
+                                ? null
+                                : Arrays.asList(args);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CallKey callKey = (CallKey) o;
+            return method.equals(callKey.method)
+                           && Objects.equals(accessToken, callKey.accessToken)
+                           && Objects.equals(args, callKey.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(method, accessToken, args);
+        }
+    }
+}
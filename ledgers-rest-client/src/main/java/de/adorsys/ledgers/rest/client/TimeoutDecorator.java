@@ -0,0 +1,188 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import feign.Client;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Request;
+import feign.Target;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Connect and read timeouts per Feign method, replacing the single {@code feign.client.config} timeouts.
+ * <p>
+ * Every method belongs to an operation class with its own defaults under
+ * {@code ledgers.timeouts.config.<clientName>.<operationClass>} (or {@code .default}): {@code auth} (login and token
+ * validation), {@code bulk-read} (transaction lists), {@code read} (other GET calls) and {@code write} (everything else).
+ * The class and the timeouts of a single method may be overridden under
+ * {@code ledgers.timeouts.config.<clientName>.methods.<methodName>}.
+ * <p>
+ * With {@code adaptive} enabled, the read timeout follows {@code adaptive-multiplier} times the {@code adaptive-percentile}
+ * of the recent latencies of the method, kept within {@code min-read-timeout-ms} and {@code max-read-timeout-ms}.
+ * <p>
+ * The timeouts are handed to the HTTP client by the {@link Client} returned from {@link #client(Client)}.
+ */
+public class TimeoutDecorator implements MethodHandlerDecorator {
+    static final String PROPERTY_PREFIX = "ledgers.timeouts";
+    private static final int ORDER = 600;
+    private static final Set<String> AUTH_METHODS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "authorise", "authoriseForConsent", "validate", "verifyAuthConfirmationCode")));
+    private static final Set<String> BULK_READ_METHODS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "getTransactionByDates", "getTransactionByDatesAsStream")));
+    private static final ThreadLocal<MethodTimeouts> CURRENT_TIMEOUTS = new ThreadLocal<>();
+
+    private final LedgersClientProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+
+    enum OperationClass {
+        AUTH(5_000), READ(10_000), BULK_READ(60_000), WRITE(30_000);
+
+        private final int defaultReadTimeout;
+
+        OperationClass(int defaultReadTimeout) {
+            this.defaultReadTimeout = defaultReadTimeout;
+        }
+
+        String key() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+
+    public TimeoutDecorator(LedgersClientProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.enabled = properties.get("enabled", Boolean.class, true);
+    }
+
+    @Override
+    public MethodHandler decorate(Target<?> target, Method method, MethodHandler methodHandler) {
+        if (!enabled) {
+            return methodHandler;
+        }
+        MethodTimeouts timeouts = new MethodTimeouts(method, properties.forMethod(method.getName()));
+        return args -> {
+            MethodTimeouts previous = CURRENT_TIMEOUTS.get();
+            CURRENT_TIMEOUTS.set(timeouts);
+            long start = System.nanoTime();
+            try {
+                return methodHandler.invoke(args);
+            } finally {
+                timeouts.record(System.nanoTime() - start);
+                if (previous == null) {
+                    CURRENT_TIMEOUTS.remove();
+                } else {
+                    CURRENT_TIMEOUTS.set(previous);
+                }
+            }
+        };
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    /**
+     * Wraps the HTTP client, so the timeouts of the method being invoked replace the {@link Request.Options} of Feign.
+     */
+    public Client client(Client delegate) {
+        return (request, options) -> {
+            MethodTimeouts timeouts = CURRENT_TIMEOUTS.get();
+            return delegate.execute(request, timeouts == null
+                                                     ? options
+                                                     : timeouts.options(options));
+        };
+    }
+
+    static OperationClass classify(Method method, LedgersClientProperties methodProperties) {
+        String configured = methodProperties.get("operation-class", String.class, null);
+        if (configured != null) {
+            return OperationClass.valueOf(configured.toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+        if (AUTH_METHODS.contains(method.getName())) {
+            return OperationClass.AUTH;
+        }
+        if (BULK_READ_METHODS.contains(method.getName())) {
+            return OperationClass.BULK_READ;
+        }
+        return RetryDecorator.classify(method, methodProperties) == RetryDecorator.Idempotency.IDEMPOTENT
+                       ? OperationClass.READ
+                       : OperationClass.WRITE;
+    }
+
+    private class MethodTimeouts {
+        private final int connectTimeout;
+        private final int readTimeout;
+        private final int minReadTimeout;
+        private final int maxReadTimeout;
+        private final double adaptiveMultiplier;
+        private final LatencyPercentile latency;
+
+        private MethodTimeouts(Method method, LedgersClientProperties methodProperties) {
+            OperationClass operationClass = classify(method, methodProperties);
+            String classPrefix = operationClass.key() + ".";
+            this.connectTimeout = methodProperties.get("connect-timeout-ms", Integer.class,
+                                                       properties.get(classPrefix + "connect-timeout-ms", Integer.class, 2_000));
+            this.readTimeout = methodProperties.get("read-timeout-ms", Integer.class,
+                                                    properties.get(classPrefix + "read-timeout-ms", Integer.class, operationClass.defaultReadTimeout));
+            this.minReadTimeout = methodProperties.get("min-read-timeout-ms", Integer.class,
+                                                       properties.get(classPrefix + "min-read-timeout-ms", Integer.class, readTimeout));
+            this.maxReadTimeout = methodProperties.get("max-read-timeout-ms", Integer.class,
+                                                       properties.get(classPrefix + "max-read-timeout-ms", Integer.class, readTimeout));
+            this.adaptiveMultiplier = methodProperties.get("adaptive-multiplier", Double.class, 3.0);
+            this.latency = methodProperties.get("adaptive", Boolean.class, false)
+                                   ? new LatencyPercentile(methodProperties.get("adaptive-percentile", Double.class, 0.99), 0, Long.MAX_VALUE, 0)
+                                   : null;
+            Gauge.builder("ledgers.timeouts.read", this, MethodTimeouts::currentReadTimeout)
+                    .description("Current read timeout of the ledgers Feign method")
+                    .baseUnit("milliseconds")
+                    .tag("client", properties.getClientName())
+                    .tag("method", method.getName())
+                    .tag("operation.class", operationClass.key())
+                    .register(meterRegistry);
+        }
+
+        private void record(long latencyNanos) {
+            if (latency != null) {
+                latency.record(latencyNanos);
+            }
+        }
+
+        private int currentReadTimeout() {
+            long observed = latency == null
+                                    ? 0
+                                    : latency.getDelayMs();
+            if (observed == 0) {
+                return readTimeout;
+            }
+            return (int) Math.max(minReadTimeout, Math.min(maxReadTimeout, Math.round(observed * adaptiveMultiplier)));
+        }
+
+        private Request.Options options(Request.Options defaults) {
+            return new Request.Options(connectTimeout, currentReadTimeout(), defaults.isFollowRedirects());
+        }
+    }
+}
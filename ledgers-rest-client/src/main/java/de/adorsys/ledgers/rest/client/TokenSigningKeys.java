@@ -0,0 +1,170 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Keys used by ledgers to sign its access tokens, see {@link LocalTokenValidator}.
+ * <p>
+ * Keys come from a configured HMAC secret and/or a JWK set ({@code {"keys": [...]}} with {@code oct} and {@code RSA}
+ * keys), read from a file or an endpoint ({@code file:}, {@code classpath:} or {@code http(s):} location).
+ * The JWK set is reloaded periodically; if reloading fails, the previously loaded keys are kept.
+ */
+public class TokenSigningKeys implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(TokenSigningKeys.class);
+
+    private final List<SigningKey> secretKeys;
+    private final Resource jwkSet;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService scheduler;
+    private volatile List<SigningKey> jwkSetKeys = Collections.emptyList();
+
+    public TokenSigningKeys(String secret, String jwkSetLocation, long refreshIntervalMs, ObjectMapper objectMapper) {
+        this.secretKeys = secret == null || secret.isEmpty()
+                                  ? Collections.emptyList()
+                                  : Collections.singletonList(new SigningKey(null, new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256")));
+        this.jwkSet = jwkSetLocation == null || jwkSetLocation.isEmpty()
+                              ? null
+                              : new DefaultResourceLoader().getResource(jwkSetLocation);
+        this.objectMapper = objectMapper;
+        if (jwkSet == null) {
+            this.scheduler = null;
+            return;
+        }
+        refresh();
+        if (refreshIntervalMs > 0) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("ledgers-token-keys-");
+            threadFactory.setDaemon(true);
+            this.scheduler = new ScheduledThreadPoolExecutor(1, threadFactory);
+            scheduler.scheduleWithFixedDelay(this::refresh, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * Keys of the given type ({@link java.security.PublicKey} or {@link javax.crypto.SecretKey}) that may have signed
+     * a token with the given key ID: the key with this ID and all keys without an ID.
+     */
+    List<SigningKey> find(String keyId, Class<? extends Key> type) {
+        List<SigningKey> candidates = new ArrayList<>();
+        for (List<SigningKey> keys : List.of(jwkSetKeys, secretKeys)) {
+            keys.stream()
+                    .filter(key -> type.isInstance(key.getKey()))
+                    .filter(key -> key.getKeyId() == null || key.getKeyId().equals(keyId))
+                    .forEach(candidates::add);
+        }
+        return candidates;
+    }
+
+    public void refresh() {
+        try (InputStream inputStream = jwkSet.getInputStream()) {
+            List<SigningKey> keys = new ArrayList<>();
+            for (JsonNode jwk : objectMapper.readTree(inputStream).path("keys")) {
+                SigningKey key = toSigningKey(jwk);
+                if (key != null) {
+                    keys.add(key);
+                }
+            }
+            if (!keys.stream().map(SigningKey::getKeyId).collect(Collectors.toList())
+                         .equals(jwkSetKeys.stream().map(SigningKey::getKeyId).collect(Collectors.toList()))) {
+                logger.info("Loaded {} ledgers token signing keys from {}", keys.size(), jwkSet.getDescription());
+            }
+            jwkSetKeys = keys;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not load ledgers token signing keys from {}, keeping {} known keys: {}",
+                        jwkSet.getDescription(), jwkSetKeys.size(), e.getMessage());
+        }
+    }
+
+    private SigningKey toSigningKey(JsonNode jwk) {
+        String keyId = jwk.hasNonNull("kid") ? jwk.get("kid").asText() : null;
+        String keyType = jwk.path("kty").asText();
+        try {
+            if ("oct".equals(keyType)) {
+                return new SigningKey(keyId, new SecretKeySpec(decode(jwk, "k"), "HmacSHA256"));
+            }
+            if ("RSA".equals(keyType)) {
+                RSAPublicKeySpec keySpec = new RSAPublicKeySpec(new BigInteger(1, decode(jwk, "n")), new BigInteger(1, decode(jwk, "e")));
+                return new SigningKey(keyId, KeyFactory.getInstance("RSA").generatePublic(keySpec));
+            }
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            logger.warn("Skipping invalid ledgers token signing key {}: {}", keyId, e.getMessage());
+            return null;
+        }
+        logger.debug("Skipping ledgers token signing key {} of unsupported type {}", keyId, keyType);
+        return null;
+    }
+
+    private byte[] decode(JsonNode jwk, String field) {
+        String value = jwk.path(field).textValue();
+        if (value == null) {
+            throw new IllegalArgumentException("missing " + field);
+        }
+        return Base64.getUrlDecoder().decode(value);
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    static final class SigningKey {
+        private final String keyId;
+        private final Key key;
+
+        SigningKey(String keyId, Key key) {
+            this.keyId = keyId;
+            this.key = key;
+        }
+
+        String getKeyId() {
+            return keyId;
+        }
+
+        Key getKey() {
+            return key;
+        }
+    }
+}
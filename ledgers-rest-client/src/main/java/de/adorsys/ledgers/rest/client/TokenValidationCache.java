@@ -0,0 +1,154 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
+import feign.FeignException;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Results of access token validations, keyed by a SHA-256 hash of the token.
+ * <p>
+ * A valid token is cached until it expires, but not longer than the configured maximum, so tokens revoked in
+ * ledgers are accepted at most that long. Invalid tokens (no result or {@code 401}/{@code 403} from ledgers) are
+ * cached for a short time only, to absorb floods of requests with the same invalid token.
+ * <p>
+ * The expiry of a token can be looked up without validating it, see {@link #getExpiresAt(String, Function)}.
+ */
+public class TokenValidationCache {
+    private final ExpiringCache<String, CachedToken> validTokens;
+    private final ExpiringCache<String, Boolean> invalidTokens;
+    private final ExpiringCache<String, Instant> tokenExpiries;
+    private final Duration maxTimeToLive;
+    private final Duration invalidTimeToLive;
+    private final Clock clock;
+
+    public TokenValidationCache(int maxSize, Duration maxTimeToLive, int invalidMaxSize, Duration invalidTimeToLive,
+                                MeterRegistry meterRegistry) {
+        this(maxSize, maxTimeToLive, invalidMaxSize, invalidTimeToLive, meterRegistry, Clock.systemUTC());
+    }
+
+    public TokenValidationCache(int maxSize, Duration maxTimeToLive, int invalidMaxSize, Duration invalidTimeToLive,
+                                MeterRegistry meterRegistry, Clock clock) {
+        this.validTokens = new ExpiringCache<>("ledgers.token.validation", maxSize, clock);
+        this.invalidTokens = new ExpiringCache<>("ledgers.token.validation.invalid", invalidMaxSize, clock);
+        this.tokenExpiries = new ExpiringCache<>("ledgers.token.expiry", maxSize, clock);
+        this.maxTimeToLive = maxTimeToLive;
+        this.invalidTimeToLive = invalidTimeToLive;
+        this.clock = clock;
+        validTokens.bindTo(meterRegistry);
+        invalidTokens.bindTo(meterRegistry);
+        tokenExpiries.bindTo(meterRegistry);
+    }
+
+    /**
+     * @param validation validates the token if there is no cached result
+     * @return the validated token with its remaining lifetime, {@code null} if the token is invalid
+     */
+    public BearerTokenTO validate(String accessToken, Supplier<BearerTokenTO> validation) {
+        String key = hash(accessToken);
+        CachedToken cached = validTokens.get(key);
+        if (cached != null) {
+            return cached.toBearerToken(clock.instant());
+        }
+        if (invalidTokens.get(key) != null) {
+            return null;
+        }
+
+        BearerTokenTO bearerToken;
+        try {
+            bearerToken = validation.get();
+        } catch (FeignException e) {
+            if (e.status() == 401 || e.status() == 403) {
+                invalidTokens.put(key, Boolean.TRUE, invalidTimeToLive);
+            }
+            throw e;
+        }
+        if (bearerToken == null) {
+            invalidTokens.put(key, Boolean.TRUE, invalidTimeToLive);
+            return null;
+        }
+        Duration expiresIn = Duration.ofSeconds(bearerToken.getExpires_in());
+        validTokens.put(key, new CachedToken(bearerToken, clock.instant().plus(expiresIn)),
+                        expiresIn.compareTo(maxTimeToLive) < 0 ? expiresIn : maxTimeToLive);
+        return bearerToken;
+    }
+
+    /**
+     * Expiry of the token, taken from its cached validation if there is one. Otherwise it is read with {@code expiryReader}
+     * once and kept for the configured maximum time to live, so the token isn't parsed again on every call.
+     *
+     * @return the expiry, {@code null} if {@code expiryReader} can't read it
+     */
+    public Instant getExpiresAt(String accessToken, Function<String, Instant> expiryReader) {
+        String key = hash(accessToken);
+        CachedToken cached = validTokens.get(key);
+        if (cached != null) {
+            return cached.expiresAt;
+        }
+        Instant expiresAt = tokenExpiries.get(key);
+        if (expiresAt == null) {
+            expiresAt = expiryReader.apply(accessToken);
+            if (expiresAt != null) {
+                tokenExpiries.put(key, expiresAt, maxTimeToLive);
+            }
+        }
+        return expiresAt;
+    }
+
+    private String hash(String accessToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(accessToken.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class CachedToken {
+        private final BearerTokenTO bearerToken;
+        private final Instant expiresAt;
+
+        private CachedToken(BearerTokenTO bearerToken, Instant expiresAt) {
+            this.bearerToken = bearerToken;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * A copy for every caller, with the remaining lifetime at the time of the cache hit.
+         */
+        private BearerTokenTO toBearerToken(Instant now) {
+            BearerTokenTO copy = new BearerTokenTO();
+            copy.setAccess_token(bearerToken.getAccess_token());
+            copy.setToken_type(bearerToken.getToken_type());
+            copy.setRefresh_token(bearerToken.getRefresh_token());
+            copy.setAccessTokenObject(bearerToken.getAccessTokenObject());
+            copy.setExpires_in((int) Duration.between(now, expiresAt).getSeconds());
+            return copy;
+        }
+    }
+}
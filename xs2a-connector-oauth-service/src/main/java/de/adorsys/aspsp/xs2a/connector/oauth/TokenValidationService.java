@@ -17,7 +17,9 @@
 package de.adorsys.aspsp.xs2a.connector.oauth;
 
 import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
+import de.adorsys.ledgers.rest.client.AccessTokenScope;
 import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import de.adorsys.ledgers.rest.client.LocalTokenValidator;
 import de.adorsys.ledgers.rest.client.UserMgmtRestClient;
 import feign.FeignException;
 import lombok.RequiredArgsConstructor;
@@ -30,16 +32,20 @@ import org.springframework.stereotype.Component;
 public class TokenValidationService {
     private final AuthRequestInterceptor authInterceptor;
     private final UserMgmtRestClient ledgersUserMgmt;
+    private final LocalTokenValidator localTokenValidator;
 
     public BearerTokenTO validate(String bearerToken) {
         try {
-            authInterceptor.setAccessToken(bearerToken);
-            return ledgersUserMgmt.validate(bearerToken).getBody();
+            return localTokenValidator.validate(bearerToken, () -> validateInLedgers(bearerToken));
         } catch (FeignException e) {
             log.error("Token validation is failed");
-        } finally {
-            authInterceptor.setAccessToken(null);
         }
         return null;
     }
+
+    private BearerTokenTO validateInLedgers(String bearerToken) {
+        try (AccessTokenScope ignored = authInterceptor.withAccessToken(bearerToken)) {
+            return ledgersUserMgmt.validate(bearerToken).getBody();
+        }
+    }
 }
@@ -16,18 +16,23 @@
 
 package de.adorsys.aspsp.xs2a.connector.oauth;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
+import de.adorsys.ledgers.rest.client.AccessTokenScope;
 import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import de.adorsys.ledgers.rest.client.LocalTokenValidator;
 import de.adorsys.ledgers.rest.client.UserMgmtRestClient;
 import feign.FeignException;
 import feign.Request;
 import feign.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -44,6 +49,10 @@ class TokenValidationServiceTest {
     private AuthRequestInterceptor authRequestInterceptor;
     @Mock
     private UserMgmtRestClient userMgmtRestClient;
+    @Mock
+    private AccessTokenScope accessTokenScope;
+    @Spy
+    private LocalTokenValidator localTokenValidator = new LocalTokenValidator(null, new ObjectMapper(), new SimpleMeterRegistry());
 
     @InjectMocks
     private TokenValidationService tokenValidationService;
@@ -52,6 +61,8 @@ class TokenValidationServiceTest {
     void validate_withValidToken_shouldReturnValidToken() {
         // Given
         String token = "some token";
+        when(authRequestInterceptor.withAccessToken(token))
+                .thenReturn(accessTokenScope);
         BearerTokenTO expected = new BearerTokenTO();
         when(userMgmtRestClient.validate(token))
                 .thenReturn(ResponseEntity.ok(expected));
@@ -62,16 +73,18 @@ class TokenValidationServiceTest {
         // Then
         assertEquals(expected, actual);
 
-        InOrder inOrder = Mockito.inOrder(authRequestInterceptor, userMgmtRestClient);
-        inOrder.verify(authRequestInterceptor).setAccessToken(token);
+        InOrder inOrder = Mockito.inOrder(authRequestInterceptor, userMgmtRestClient, accessTokenScope);
+        inOrder.verify(authRequestInterceptor).withAccessToken(token);
         inOrder.verify(userMgmtRestClient).validate(token);
-        inOrder.verify(authRequestInterceptor).setAccessToken(null);
+        inOrder.verify(accessTokenScope).close();
     }
 
     @Test
     void validate_onFeignException_shouldReturnNull() {
         // Given
         String token = "some token";
+        when(authRequestInterceptor.withAccessToken(token))
+                .thenReturn(accessTokenScope);
         Response feignResponse = Response.builder()
                                          .status(HttpStatus.BAD_REQUEST.value())
                                          .request(Request.create(Request.HttpMethod.GET, "", Collections.emptyMap(), null))
@@ -87,9 +100,9 @@ class TokenValidationServiceTest {
         // Then
         assertNull(actual);
 
-        InOrder inOrder = Mockito.inOrder(authRequestInterceptor, userMgmtRestClient);
-        inOrder.verify(authRequestInterceptor).setAccessToken(token);
+        InOrder inOrder = Mockito.inOrder(authRequestInterceptor, userMgmtRestClient, accessTokenScope);
+        inOrder.verify(authRequestInterceptor).withAccessToken(token);
         inOrder.verify(userMgmtRestClient).validate(token);
-        inOrder.verify(authRequestInterceptor).setAccessToken(null);
+        inOrder.verify(accessTokenScope).close();
     }
 }
\ No newline at end of file
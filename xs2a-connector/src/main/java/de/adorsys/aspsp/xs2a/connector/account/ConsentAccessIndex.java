@@ -0,0 +1,131 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package de.adorsys.aspsp.xs2a.connector.account;
+
+import de.adorsys.aspsp.xs2a.connector.mock.IbanResolverMockService;
+import de.adorsys.psd2.xs2a.core.ais.AccountAccessType;
+import de.adorsys.psd2.xs2a.spi.domain.account.SpiAccountReference;
+import de.adorsys.psd2.xs2a.spi.domain.account.SpiAdditionalInformationAccess;
+import de.adorsys.psd2.xs2a.spi.domain.consent.SpiAccountAccess;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Account references of a single {@link SpiAccountAccess}, indexed by IBAN and currency.
+ * <p>
+ * Card account references are resolved to their IBAN once per access list, on its first lookup, so matching
+ * ledgers accounts against the consent is a hash lookup instead of a scan over all references of the consent.
+ * A reference without currency grants access to all currencies of the IBAN. The index may be shared between
+ * the threads serving the same request.
+ */
+public class ConsentAccessIndex {
+    private final SpiAccountAccess accountAccess;
+    private final IbanResolverMockService ibanResolverMockService;
+    private final boolean ownerNameForAllAccounts;
+    private final Map<Access, Set<IbanAccountReference>> index = new ConcurrentHashMap<>();
+
+    private ConsentAccessIndex(SpiAccountAccess accountAccess, IbanResolverMockService ibanResolverMockService) {
+        this.accountAccess = accountAccess;
+        this.ibanResolverMockService = ibanResolverMockService;
+        this.ownerNameForAllAccounts = isOwnerNameForAllAccounts(accountAccess);
+    }
+
+    public static ConsentAccessIndex of(@NotNull SpiAccountAccess accountAccess, IbanResolverMockService ibanResolverMockService) {
+        return new ConsentAccessIndex(accountAccess, ibanResolverMockService);
+    }
+
+    public boolean hasAccountAccess(String iban, @Nullable Currency currency) {
+        return contains(Access.ACCOUNTS, iban, currency);
+    }
+
+    public boolean hasBalanceAccess(String iban, @Nullable Currency currency) {
+        return contains(Access.BALANCES, iban, currency);
+    }
+
+    public boolean hasTransactionAccess(String iban, @Nullable Currency currency) {
+        return contains(Access.TRANSACTIONS, iban, currency);
+    }
+
+    public boolean hasOwnerNameAccess(String iban, @Nullable Currency currency) {
+        return ownerNameForAllAccounts || contains(Access.OWNER_NAME, iban, currency);
+    }
+
+    private boolean contains(Access access, String iban, Currency currency) {
+        if (iban == null) {
+            return false;
+        }
+        Set<IbanAccountReference> references = index.computeIfAbsent(access, a -> index(a.references.apply(accountAccess)));
+        return references.contains(new IbanAccountReference(iban, null))
+                       || currency != null && references.contains(new IbanAccountReference(iban, currency));
+    }
+
+    private Set<IbanAccountReference> index(List<SpiAccountReference> references) {
+        if (references == null || references.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<IbanAccountReference> ibanReferences = new HashSet<>();
+        for (SpiAccountReference reference : references) {
+            String iban = reference.getIban() != null
+                                  ? reference.getIban()
+                                  : ibanResolverMockService.handleIbanByAccountReference(reference); // TODO: Remove when ledgers starts supporting card accounts https://git.adorsys.de/adorsys/xs2a/aspsp-xs2a/issues/1246
+            if (iban != null) {
+                ibanReferences.add(new IbanAccountReference(iban, reference.getCurrency()));
+            }
+        }
+        return ibanReferences;
+    }
+
+    private static boolean isOwnerNameForAllAccounts(SpiAccountAccess accountAccess) {
+        List<SpiAccountReference> ownerName = ownerNameReferences(accountAccess);
+        if (ownerName != null) {
+            return ownerName.isEmpty();
+        }
+        List<AccountAccessType> accountAccessTypes = Arrays.asList(accountAccess.getAvailableAccounts(), accountAccess.getAvailableAccountsWithBalance(), accountAccess.getAllPsd2());
+        return accountAccessTypes.contains(AccountAccessType.ALL_ACCOUNTS_WITH_OWNER_NAME);
+    }
+
+    private static List<SpiAccountReference> ownerNameReferences(SpiAccountAccess accountAccess) {
+        SpiAdditionalInformationAccess spiAdditionalInformationAccess = accountAccess.getSpiAdditionalInformationAccess();
+        return spiAdditionalInformationAccess != null
+                       ? spiAdditionalInformationAccess.getOwnerName()
+                       : null;
+    }
+
+    private enum Access {
+        ACCOUNTS(SpiAccountAccess::getAccounts),
+        BALANCES(SpiAccountAccess::getBalances),
+        TRANSACTIONS(SpiAccountAccess::getTransactions),
+        OWNER_NAME(ConsentAccessIndex::ownerNameReferences);
+
+        private final Function<SpiAccountAccess, List<SpiAccountReference>> references;
+
+        Access(Function<SpiAccountAccess, List<SpiAccountReference>> references) {
+            this.references = references;
+        }
+    }
+}
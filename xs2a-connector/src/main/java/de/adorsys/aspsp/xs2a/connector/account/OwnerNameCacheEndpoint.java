@@ -0,0 +1,54 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package de.adorsys.aspsp.xs2a.connector.account;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Actuator endpoint of the owner name cache: {@code DELETE /actuator/ownernames} drops all cached owner names,
+ * {@code DELETE /actuator/ownernames/{resourceId}} the owner name of a single account.
+ */
+@Endpoint(id = "ownernames")
+public class OwnerNameCacheEndpoint {
+    private final OwnerNameService ownerNameService;
+
+    public OwnerNameCacheEndpoint(OwnerNameService ownerNameService) {
+        this.ownerNameService = ownerNameService;
+    }
+
+    @ReadOperation
+    public Map<String, Integer> cachedOwnerNames() {
+        return Collections.singletonMap("size", ownerNameService.getCachedOwnerNamesCount());
+    }
+
+    @DeleteOperation
+    public void invalidateAll() {
+        ownerNameService.invalidateOwnerNames();
+    }
+
+    @DeleteOperation
+    public void invalidate(@Selector String resourceId) {
+        ownerNameService.invalidateOwnerName(resourceId);
+    }
+}
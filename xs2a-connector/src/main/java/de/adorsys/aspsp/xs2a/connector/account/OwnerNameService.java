@@ -16,26 +16,27 @@
 
 package de.adorsys.aspsp.xs2a.connector.account;
 
-import de.adorsys.aspsp.xs2a.connector.mock.IbanResolverMockService;
 import de.adorsys.ledgers.middleware.api.domain.account.AccountIdentifierTypeTO;
 import de.adorsys.ledgers.middleware.api.domain.account.AdditionalAccountInformationTO;
 import de.adorsys.ledgers.rest.client.AccountRestClient;
-import de.adorsys.psd2.xs2a.core.ais.AccountAccessType;
+import de.adorsys.ledgers.rest.client.AsyncAccountRestClient;
+import de.adorsys.ledgers.rest.client.ExpiringCache;
 import de.adorsys.psd2.xs2a.spi.domain.account.SpiAccountDetails;
-import de.adorsys.psd2.xs2a.spi.domain.account.SpiAccountReference;
-import de.adorsys.psd2.xs2a.spi.domain.account.SpiAdditionalInformationAccess;
 import de.adorsys.psd2.xs2a.spi.domain.account.SpiCardAccountDetails;
-import de.adorsys.psd2.xs2a.spi.domain.consent.SpiAccountAccess;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
-import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
-import java.util.Arrays;
-import java.util.Currency;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -43,18 +44,16 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class OwnerNameService {
     private final AccountRestClient accountRestClient;
-    private final IbanResolverMockService ibanResolverMockService;
+    private final AsyncAccountRestClient asyncAccountRestClient;
+    private final ExpiringCache<String, String> ownerNameCache;
 
-    public boolean shouldContainOwnerName(IbanAccountReference ibanAccountReference, SpiAccountAccess accountAccess) {
-        SpiAdditionalInformationAccess spiAdditionalInformationAccess = accountAccess.getSpiAdditionalInformationAccess();
-        if (spiAdditionalInformationAccess != null && spiAdditionalInformationAccess.getOwnerName() != null) {
-            List<SpiAccountReference> ownerName = spiAdditionalInformationAccess.getOwnerName();
-            return ownerName.isEmpty() || containsAccountReferenceWithIban(ownerName, ibanAccountReference.getIban(), ibanAccountReference.getCurrency());
-        }
+    @Value("${ledgers.owner-name.parallelism:8}")
+    private int parallelism;
+    @Value("${ledgers.owner-name.cache.ttl-ms:86400000}")
+    private long ownerNameCacheTtlMs;
 
-        AccountAccessType allAccountsWithOwnerName = AccountAccessType.ALL_ACCOUNTS_WITH_OWNER_NAME;
-        List<AccountAccessType> accountAccessTypes = Arrays.asList(accountAccess.getAvailableAccounts(), accountAccess.getAvailableAccountsWithBalance(), accountAccess.getAllPsd2());
-        return accountAccessTypes.contains(allAccountsWithOwnerName);
+    public boolean shouldContainOwnerName(IbanAccountReference ibanAccountReference, ConsentAccessIndex consentAccessIndex) {
+        return consentAccessIndex.hasOwnerNameAccess(ibanAccountReference.getIban(), ibanAccountReference.getCurrency());
     }
 
     public SpiAccountDetails enrichAccountDetailsWithOwnerName(SpiAccountDetails accountDetails) {
@@ -69,15 +68,81 @@ public class OwnerNameService {
         return cardAccountDetails;
     }
 
-    private boolean containsAccountReferenceWithIban(List<SpiAccountReference> references, @NotNull String iban, Currency currency) {
-        return references.stream()
-                       .filter(reference -> iban.equals(getIbanFromAccessReference(reference)))
-                       .anyMatch(reference -> reference.getCurrency() == null || reference.getCurrency().equals(currency));
+    public List<SpiAccountDetails> enrichAccountDetailsListWithOwnerName(List<SpiAccountDetails> accountDetailsList) {
+        enrichWithOwnerNames(accountDetailsList, SpiAccountDetails::getResourceId, SpiAccountDetails::setOwnerName);
+        return accountDetailsList;
+    }
+
+    public List<SpiCardAccountDetails> enrichCardAccountDetailsListWithOwnerName(List<SpiCardAccountDetails> cardAccountDetailsList) {
+        enrichWithOwnerNames(cardAccountDetailsList, SpiCardAccountDetails::getResourceId, SpiCardAccountDetails::setOwnerName);
+        return cardAccountDetailsList;
+    }
+
+    /**
+     * Drops the cached owner name of the account, so the next request reads it from ledgers again.
+     */
+    public void invalidateOwnerName(String resourceId) {
+        ownerNameCache.invalidate(resourceId);
+    }
+
+    public void invalidateOwnerNames() {
+        ownerNameCache.invalidateAll();
+    }
+
+    public int getCachedOwnerNamesCount() {
+        return ownerNameCache.size();
+    }
+
+    /**
+     * Requests the owner names of all accounts that are not cached yet concurrently, at most
+     * {@code ledgers.owner-name.parallelism} at a time, so the list costs about as much as its slowest lookup. An account whose owner name can't be read from ledgers
+     * is left without owner name instead of failing the whole list.
+     */
+    private <T> void enrichWithOwnerNames(List<T> accounts, Function<T, String> resourceId, BiConsumer<T, String> ownerName) {
+        Semaphore permits = new Semaphore(Math.max(parallelism, 1));
+        List<CompletableFuture<Void>> lookups = new ArrayList<>(accounts.size());
+        try {
+            for (T account : accounts) {
+                String accountId = resourceId.apply(account);
+                String cachedOwnerName = ownerNameCache.get(accountId);
+                if (cachedOwnerName != null) {
+                    ownerName.accept(account, cachedOwnerName);
+                    continue;
+                }
+                permits.acquire();
+                lookups.add(asyncAccountRestClient.getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, accountId)
+                                    .thenApply(additionalAccountInfo -> cacheOwnerName(accountId, toOwnerName(additionalAccountInfo)))
+                                    .exceptionally(e -> {
+                                        log.warn("Owner name of account {} could not be read: {}", accountId, e.getMessage());
+                                        return null;
+                                    })
+                                    .thenAccept(name -> ownerName.accept(account, name))
+                                    .whenComplete((ignored, e) -> permits.release()));
+            }
+        } catch (InterruptedException e) {
+            log.warn("Interrupted while requesting owner names, {} of {} accounts requested", lookups.size(), accounts.size());
+            Thread.currentThread().interrupt();
+        }
+        CompletableFuture.allOf(lookups.toArray(new CompletableFuture[0])).join();
     }
 
     private String getAccountOwnerNameFromLedgers(String resourceId) {
-        ResponseEntity<List<AdditionalAccountInformationTO>> additionalAccountInfo = accountRestClient.getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, resourceId);
+        String cachedOwnerName = ownerNameCache.get(resourceId);
+        if (cachedOwnerName != null) {
+            return cachedOwnerName;
+        }
+        return cacheOwnerName(resourceId, toOwnerName(accountRestClient.getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, resourceId)));
+    }
 
+    /**
+     * Accounts without owner name are not cached, their owner name is requested again the next time.
+     */
+    private String cacheOwnerName(String resourceId, String ownerName) {
+        ownerNameCache.put(resourceId, ownerName, Duration.ofMillis(ownerNameCacheTtlMs));
+        return ownerName;
+    }
+
+    private String toOwnerName(ResponseEntity<List<AdditionalAccountInformationTO>> additionalAccountInfo) {
         List<AdditionalAccountInformationTO> additionalAccountInformationList = additionalAccountInfo.getBody();
         if (CollectionUtils.isEmpty(additionalAccountInformationList)) {
             return null;
@@ -87,12 +152,4 @@ public class OwnerNameService {
                        .map(AdditionalAccountInformationTO::getAccountOwnerName)
                        .collect(Collectors.joining(", "));
     }
-
-    private String getIbanFromAccessReference(SpiAccountReference reference) {
-        String iban = reference.getIban();
-
-        return iban != null
-                       ? iban
-                       : ibanResolverMockService.handleIbanByAccountReference(reference);
-    }
 }
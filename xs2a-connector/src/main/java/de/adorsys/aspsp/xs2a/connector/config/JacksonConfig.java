@@ -3,6 +3,13 @@ package de.adorsys.aspsp.xs2a.connector.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAConsentResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCALoginResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAPaymentResponseTO;
+import de.adorsys.ledgers.rest.client.JsonCodecRegistry;
+import de.adorsys.psd2.core.payment.model.BulkPaymentInitiationJson;
+import de.adorsys.psd2.core.payment.model.PaymentInitiationJson;
+import de.adorsys.psd2.core.payment.model.PeriodicPaymentInitiationJson;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -15,4 +22,14 @@ public class JacksonConfig {
         objectMapper.registerModule(new JavaTimeModule());
         return objectMapper;
     }
+
+    /**
+     * Readers and writers of the DTOs on the hot paths: stored SCA responses, initiated payments and ledgers errors.
+     */
+    @Bean
+    public JsonCodecRegistry jsonCodecRegistry(ObjectMapper objectMapper) {
+        return new JsonCodecRegistry(objectMapper,
+                                     SCAConsentResponseTO.class, SCALoginResponseTO.class, SCAPaymentResponseTO.class,
+                                     PaymentInitiationJson.class, BulkPaymentInitiationJson.class, PeriodicPaymentInitiationJson.class);
+    }
 }
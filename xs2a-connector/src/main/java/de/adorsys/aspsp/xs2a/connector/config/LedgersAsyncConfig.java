@@ -0,0 +1,51 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config;
+
+import de.adorsys.ledgers.rest.client.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class LedgersAsyncConfig {
+    @Value("${ledgers.async.pool-size:16}")
+    private int poolSize;
+    @Value("${ledgers.async.queue-capacity:200}")
+    private int queueCapacity;
+    @Value("${ledgers.hedging.pool-size:64}")
+    private int hedgingPoolSize;
+
+    @Bean(destroyMethod = "shutdown")
+    public LedgersAsyncExecutor ledgersAsyncExecutor(AuthRequestInterceptor authRequestInterceptor,
+                                                     ObjectProvider<MeterRegistry> meterRegistry) {
+        return new LedgersAsyncExecutor(poolSize, queueCapacity, authRequestInterceptor, meterRegistry.getIfAvailable());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public LedgersHedgingExecutor ledgersHedgingExecutor(AuthRequestInterceptor authRequestInterceptor,
+                                                         ObjectProvider<MeterRegistry> meterRegistry) {
+        return new LedgersHedgingExecutor(hedgingPoolSize, authRequestInterceptor, meterRegistry.getIfAvailable());
+    }
+
+    @Bean
+    public AsyncAccountRestClient asyncAccountRestClient(AccountRestClient accountRestClient, LedgersAsyncExecutor ledgersAsyncExecutor) {
+        return new AsyncAccountRestClient(accountRestClient, ledgersAsyncExecutor);
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import de.adorsys.ledgers.rest.client.ExpiringCache;
+import de.adorsys.ledgers.rest.client.PsuAccountListCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class LedgersCacheConfig {
+    @Value("${ledgers.account-cache.max-size:1000}")
+    private int accountCacheMaxSize;
+    @Value("${ledgers.account-cache.ttl-ms:5000}")
+    private long accountCacheTtlMs;
+    @Value("${ledgers.owner-name.cache.max-size:10000}")
+    private int ownerNameCacheMaxSize;
+
+    /**
+     * Account lists per access token, shared by all flows reading them. Being a {@code MethodHandlerDecorator}, it is applied
+     * to the ledgers Feign clients.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "ledgers.account-cache.enabled", havingValue = "true", matchIfMissing = true)
+    public PsuAccountListCache psuAccountListCache(AuthRequestInterceptor authRequestInterceptor,
+                                                   @Qualifier("objectMapper") ObjectMapper objectMapper,
+                                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        return new PsuAccountListCache(accountCacheMaxSize, Duration.ofMillis(accountCacheTtlMs), authRequestInterceptor, objectMapper,
+                                       meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    /**
+     * Owner names per account resource ID, filled and invalidated by {@code OwnerNameService}.
+     */
+    @Bean
+    public ExpiringCache<String, String> ownerNameCache(ObjectProvider<MeterRegistry> meterRegistry) {
+        ExpiringCache<String, String> ownerNameCache = new ExpiringCache<>("ledgers.owner-names", ownerNameCacheMaxSize);
+        ownerNameCache.bindTo(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+        return ownerNameCache;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package de.adorsys.aspsp.xs2a.connector.config;
+
+import de.adorsys.aspsp.xs2a.connector.account.OwnerNameCacheEndpoint;
+import de.adorsys.aspsp.xs2a.connector.account.OwnerNameService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+public class LedgersCacheEndpointConfig {
+
+    /**
+     * Lets operators drop cached owner names, e.g. after an account holder has been renamed in ledgers.
+     */
+    @Bean
+    public OwnerNameCacheEndpoint ownerNameCacheEndpoint(OwnerNameService ownerNameService) {
+        return new OwnerNameCacheEndpoint(ownerNameService);
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config;
+
+import de.adorsys.ledgers.rest.client.RetryBudget;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class LedgersRetryConfig {
+    @Value("${ledgers.retry.budget.ratio:0.1}")
+    private double ratio;
+    @Value("${ledgers.retry.budget.max-tokens:50}")
+    private int maxTokens;
+
+    /**
+     * Retry budget shared by all ledgers and CMS Feign clients.
+     */
+    @Bean
+    public RetryBudget ledgersRetryBudget(ObjectProvider<MeterRegistry> meterRegistry) {
+        RetryBudget retryBudget = new RetryBudget(ratio, maxTokens);
+        meterRegistry.ifAvailable(registry -> Gauge.builder("ledgers.retry.budget.available", retryBudget, RetryBudget::getAvailableRetries)
+                                                      .description("Retries currently allowed by the shared retry budget")
+                                                      .register(registry));
+        return retryBudget;
+    }
+}
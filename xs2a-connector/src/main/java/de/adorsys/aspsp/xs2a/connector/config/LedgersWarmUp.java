@@ -0,0 +1,192 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.ledgers.middleware.api.domain.account.AccountBalanceTO;
+import de.adorsys.ledgers.middleware.api.domain.account.AccountDetailsTO;
+import de.adorsys.ledgers.middleware.api.domain.account.TransactionTO;
+import de.adorsys.ledgers.middleware.api.domain.payment.PaymentTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAConsentResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCALoginResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAPaymentResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
+import de.adorsys.ledgers.middleware.api.service.TokenStorageService;
+import de.adorsys.ledgers.rest.client.MethodHandlerDecorator;
+import de.adorsys.ledgers.rest.client.PooledHttpClientFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.cloud.openfeign.FeignContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Warms up the connector after startup: resolves all Feign client proxies together with their client contexts and
+ * decorator chains, resolves the Jackson (de)serializers of the ASPSP consent data and the ledgers transfer objects,
+ * and pre-opens pooled connections to ledgers and CMS.
+ * <p>
+ * Warm-up runs in the background once the application is ready; until it has finished the
+ * {@code ledgersWarmUp} health indicator reports {@code OUT_OF_SERVICE}, so the readiness probe keeps traffic away.
+ * A failed step is logged and reported, but does not keep the node out of service.
+ */
+@Slf4j
+@Component
+public class LedgersWarmUp {
+    private static final List<Class<?>> LEDGERS_TYPES = Arrays.asList(AccountDetailsTO.class, AccountBalanceTO.class,
+                                                                     TransactionTO.class, PaymentTO.class);
+
+    private final ApplicationContext applicationContext;
+    private final Environment environment;
+    private final TokenStorageService tokenStorageService;
+    private final ObjectMapper objectMapper;
+    private final Map<String, String> report = Collections.synchronizedMap(new LinkedHashMap<>());
+    private volatile boolean completed;
+
+    @Value("${ledgers.warm-up.enabled:true}")
+    private boolean enabled;
+    @Value("${ledgers.warm-up.connections-per-client:2}")
+    private int connectionsPerClient;
+
+    public LedgersWarmUp(ApplicationContext applicationContext, Environment environment, TokenStorageService tokenStorageService,
+                         @Qualifier("objectMapper") ObjectMapper objectMapper) {
+        this.applicationContext = applicationContext;
+        this.environment = environment;
+        this.tokenStorageService = tokenStorageService;
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            completed = true;
+            return;
+        }
+        Thread warmUpThread = new Thread(this::warmUp, "ledgers-warm-up");
+        warmUpThread.setDaemon(true);
+        warmUpThread.start();
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * Duration (or failure) of every warm-up step, in execution order.
+     */
+    public Map<String, String> getReport() {
+        synchronized (report) {
+            return new LinkedHashMap<>(report);
+        }
+    }
+
+    void warmUp() {
+        long start = System.nanoTime();
+        try {
+            step("feign-clients", this::resolveFeignClients);
+            step("jackson", this::resolveSerializers);
+            step("connections", this::preOpenConnections);
+        } finally {
+            report.put("total", millisSince(start) + " ms");
+            completed = true;
+            log.info("Ledgers warm-up finished: {}", getReport());
+        }
+    }
+
+    private void step(String name, Supplier<String> step) {
+        long start = System.nanoTime();
+        try {
+            String result = step.get();
+            report.put(name, millisSince(start) + " ms (" + result + ")");
+        } catch (RuntimeException e) {
+            log.warn("Ledgers warm-up step {} failed: {}", name, e.getMessage());
+            report.put(name, "failed after " + millisSince(start) + " ms: " + e.getMessage());
+        }
+    }
+
+    private String resolveFeignClients() {
+        FeignContext feignContext = applicationContext.getBean(FeignContext.class);
+        String[] beanNames = applicationContext.getBeanNamesForAnnotation(FeignClient.class);
+        int decorators = 0;
+        for (String beanName : beanNames) {
+            String clientName = getClientName(applicationContext.findAnnotationOnBean(beanName, FeignClient.class));
+            // creates the child context of the client and the decorators applied to its methods
+            Map<String, MethodHandlerDecorator> clientDecorators = feignContext.getInstances(clientName, MethodHandlerDecorator.class);
+            decorators += clientDecorators == null
+                                  ? 0
+                                  : clientDecorators.size();
+            applicationContext.getBean(beanName);
+        }
+        return beanNames.length + " clients, " + decorators + " decorators";
+    }
+
+    private String resolveSerializers() {
+        List<SCAResponseTO> consentData = Arrays.asList(new SCAConsentResponseTO(), new SCALoginResponseTO(), new SCAPaymentResponseTO());
+        for (SCAResponseTO response : consentData) {
+            try {
+                tokenStorageService.fromBytes(tokenStorageService.toBytes(response), response.getClass());
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read " + response.getClass().getSimpleName(), e);
+            }
+        }
+        for (Class<?> type : LEDGERS_TYPES) {
+            objectMapper.canSerialize(type);
+            objectMapper.canDeserialize(objectMapper.constructType(type));
+        }
+        return consentData.size() + LEDGERS_TYPES.size() + " types";
+    }
+
+    private String preOpenConnections() {
+        FeignContext feignContext = applicationContext.getBean(FeignContext.class);
+        int opened = 0;
+        for (String beanName : applicationContext.getBeanNamesForAnnotation(FeignClient.class)) {
+            FeignClient feignClient = applicationContext.findAnnotationOnBean(beanName, FeignClient.class);
+            String clientName = getClientName(feignClient);
+            String url = environment.resolvePlaceholders(feignClient.url());
+            try {
+                opened += feignContext.getInstance(clientName, PooledHttpClientFactory.class)
+                                  .preOpenConnections(feignContext.getInstance(clientName, PoolingHttpClientConnectionManager.class),
+                                                      url, connectionsPerClient);
+            } catch (IOException e) {
+                log.warn("Could not pre-open connections of {} to {}: {}", clientName, url, e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return opened + " connections";
+    }
+
+    private static String getClientName(FeignClient feignClient) {
+        return feignClient.value().isEmpty()
+                       ? feignClient.name()
+                       : feignClient.value();
+    }
+
+    private static long millisSince(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config.auth;
+
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAConsentResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCALoginResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAPaymentResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.ScaStatusTO;
+
+import java.util.ArrayList;
+
+/**
+ * Projection of the SCA responses stored once the SCA is {@link ScaStatusTO#FINALISED finalised} or
+ * {@link ScaStatusTO#EXEMPTED exempted}. Later AIS and PIS calls only read the bearer token, the IDs, the statuses and
+ * the multilevel and partially authorised flags, so the SCA methods, challenge data, PSU message and links are dropped.
+ * <p>
+ * Responses are projected when written, and a slim snapshot is read into the same response type with the dropped
+ * fields left empty. Only full snapshots stored before are projected when read (see {@link #isFull}), so both look
+ * alike to the callers and a full snapshot is stored slim when it is written back.
+ */
+final class ConsentDataSnapshots {
+
+    private ConsentDataSnapshots() {
+    }
+
+    static boolean isSettled(SCAResponseTO response) {
+        return response.getScaStatus() == ScaStatusTO.FINALISED || response.getScaStatus() == ScaStatusTO.EXEMPTED;
+    }
+
+    /**
+     * @return whether a settled response still carries transient SCA fields, i.e. wasn't stored as slim snapshot
+     */
+    static boolean isFull(SCAResponseTO response) {
+        return isSettled(response)
+                       && (response.getPsuMessage() != null
+                                   || response.getStatusDate() != null
+                                   || response.getChallengeData() != null
+                                   || response.getChosenScaMethod() != null
+                                   || response.getScaMethods() != null && !response.getScaMethods().isEmpty());
+    }
+
+    /**
+     * @return the slim snapshot of a settled response, any other response unchanged
+     */
+    @SuppressWarnings("unchecked")
+    static <T extends SCAResponseTO> T slim(T response) {
+        if (!isSettled(response)) {
+            return response;
+        }
+        SCAResponseTO snapshot;
+        if (response instanceof SCAConsentResponseTO) {
+            SCAConsentResponseTO consent = (SCAConsentResponseTO) response;
+            SCAConsentResponseTO consentSnapshot = new SCAConsentResponseTO();
+            consentSnapshot.setConsentId(consent.getConsentId());
+            consentSnapshot.setPartiallyAuthorised(consent.isPartiallyAuthorised());
+            snapshot = consentSnapshot;
+        } else if (response instanceof SCAPaymentResponseTO) {
+            SCAPaymentResponseTO payment = (SCAPaymentResponseTO) response;
+            SCAPaymentResponseTO paymentSnapshot = new SCAPaymentResponseTO();
+            paymentSnapshot.setPaymentId(payment.getPaymentId());
+            paymentSnapshot.setTransactionStatus(payment.getTransactionStatus());
+            paymentSnapshot.setPaymentType(payment.getPaymentType());
+            paymentSnapshot.setPaymentProduct(payment.getPaymentProduct());
+            snapshot = paymentSnapshot;
+        } else if (response instanceof SCALoginResponseTO) {
+            snapshot = new SCALoginResponseTO();
+        } else {
+            return response;
+        }
+        snapshot.setObjectType(response.getObjectType());
+        snapshot.setScaStatus(response.getScaStatus());
+        snapshot.setAuthorisationId(response.getAuthorisationId());
+        snapshot.setMultilevelScaRequired(response.isMultilevelScaRequired());
+        snapshot.setBearerToken(response.getBearerToken());
+        if (response.getScaMethods() != null) {
+            // an empty list still tells "no SCA methods" apart from "not requested yet"
+            snapshot.setScaMethods(new ArrayList<>());
+        }
+        return (T) snapshot;
+    }
+}
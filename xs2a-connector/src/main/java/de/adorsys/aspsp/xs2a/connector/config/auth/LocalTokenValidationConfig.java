@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config.auth;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.ledgers.rest.client.LocalTokenValidator;
+import de.adorsys.ledgers.rest.client.TokenSigningKeys;
+import de.adorsys.ledgers.rest.client.TokenValidationCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class LocalTokenValidationConfig {
+    @Value("${ledgers.token-validation.local.secret:}")
+    private String secret;
+    @Value("${ledgers.token-validation.local.jwk-set-location:}")
+    private String jwkSetLocation;
+    @Value("${ledgers.token-validation.local.refresh-interval-ms:300000}")
+    private long refreshIntervalMs;
+    @Value("${ledgers.token-validation.cache.max-size:10000}")
+    private int cacheMaxSize;
+    @Value("${ledgers.token-validation.cache.max-ttl-ms:300000}")
+    private long cacheMaxTtlMs;
+    @Value("${ledgers.token-validation.cache.invalid-max-size:1000}")
+    private int invalidCacheMaxSize;
+    @Value("${ledgers.token-validation.cache.invalid-ttl-ms:5000}")
+    private long invalidCacheTtlMs;
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "ledgers.token-validation.local.enabled", havingValue = "true")
+    public TokenSigningKeys tokenSigningKeys(@Qualifier("objectMapper") ObjectMapper objectMapper) {
+        return new TokenSigningKeys(secret, jwkSetLocation, refreshIntervalMs, objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "ledgers.token-validation.cache.enabled", havingValue = "true", matchIfMissing = true)
+    public TokenValidationCache tokenValidationCache(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new TokenValidationCache(cacheMaxSize, Duration.ofMillis(cacheMaxTtlMs), invalidCacheMaxSize, Duration.ofMillis(invalidCacheTtlMs),
+                                        meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    @Bean
+    public LocalTokenValidator localTokenValidator(ObjectProvider<TokenSigningKeys> tokenSigningKeys,
+                                                   ObjectProvider<TokenValidationCache> tokenValidationCache,
+                                                   @Qualifier("objectMapper") ObjectMapper objectMapper,
+                                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        return new LocalTokenValidator(tokenSigningKeys.getIfAvailable(), tokenValidationCache.getIfAvailable(), objectMapper,
+                                       meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+}
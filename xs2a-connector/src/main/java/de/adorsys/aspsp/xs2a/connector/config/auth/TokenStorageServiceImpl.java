@@ -1,49 +1,124 @@
 package de.adorsys.aspsp.xs2a.connector.config.auth;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserSequence;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import de.adorsys.aspsp.xs2a.connector.spi.impl.FeignExceptionHandler;
 import de.adorsys.ledgers.middleware.api.domain.sca.SCAConsentResponseTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.SCALoginResponseTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.SCAPaymentResponseTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
 import de.adorsys.ledgers.middleware.api.service.TokenStorageService;
+import de.adorsys.ledgers.rest.client.JsonCodecRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.lang.reflect.Type;
 import java.util.Base64;
+import java.util.Map;
 import java.util.Optional;
 
+/**
+ * Encodes the SCA responses kept as ASPSP consent data in CMS.
+ * <p>
+ * With {@code xs2a.consent-data.compact-format.enabled} the responses are written in a compact binary form: the
+ * {@code COMPACT_FORMAT_MAGIC} byte (which can't start a JSON document), a format version byte and the response
+ * encoded as Smile. Reading detects the format, so consent data stored as JSON stays readable and the flag can be
+ * switched off again at any time.
+ * <p>
+ * With {@code xs2a.consent-data.slim-snapshots.enabled} responses of a finalised or exempted SCA are stored as slim
+ * snapshots without the transient SCA fields and without {@code null} properties, see {@link ConsentDataSnapshots}.
+ * Full snapshots stored before are projected when read.
+ */
 @Service
 public class TokenStorageServiceImpl implements TokenStorageService {
+    private static final byte COMPACT_FORMAT_MAGIC = (byte) 0xA7;
+    private static final byte COMPACT_FORMAT_VERSION = 1;
+    private static final int COMPACT_HEADER_LENGTH = 2;
+    private static final String OBJECT_TYPE = "objectType";
+    private static final Map<String, Class<? extends SCAResponseTO>> RESPONSE_TYPES = Map.of(
+            SCAConsentResponseTO.class.getSimpleName(), SCAConsentResponseTO.class,
+            SCALoginResponseTO.class.getSimpleName(), SCALoginResponseTO.class,
+            SCAPaymentResponseTO.class.getSimpleName(), SCAPaymentResponseTO.class);
+
     @Autowired
     @Qualifier(value = "objectMapper")
     private ObjectMapper mapper;
+    @Autowired
+    private JsonCodecRegistry jsonCodecRegistry;
+    @Value("${xs2a.consent-data.compact-format.enabled:false}")
+    private boolean compactFormat;
+    @Value("${xs2a.consent-data.slim-snapshots.enabled:false}")
+    private boolean slimSnapshots;
+    private volatile SmileFactory smileFactory;
+    private volatile JsonCodecRegistry snapshotCodecRegistry;
 
     @Override
     public SCAResponseTO fromBytes(byte[] tokenBytes) throws IOException {
         checkAspspConsentData(tokenBytes);
-        return read(tokenBytes);
+        return slimLegacySnapshot(read(tokenBytes));
     }
 
     @Override
     public byte[] toBytes(SCAResponseTO response) throws IOException {
-        return mapper.writeValueAsBytes(response);
+        SCAResponseTO stored = slimSnapshots
+                                       ? ConsentDataSnapshots.slim(response)
+                                       : response;
+        ObjectWriter writer = writer(stored);
+        if (!compactFormat) {
+            return writer.writeValueAsBytes(stored);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1_024);
+        out.write(COMPACT_FORMAT_MAGIC);
+        out.write(COMPACT_FORMAT_VERSION);
+        try (JsonGenerator generator = smileFactory().createGenerator(out)) {
+            writer.writeValue(generator, stored);
+        }
+        return out.toByteArray();
     }
 
     @Override
     public <T extends SCAResponseTO> T fromBytes(byte[] tokenBytes, Class<T> klass) throws IOException {
         checkAspspConsentData(tokenBytes);
-        return read(tokenBytes, klass);
+        return slimLegacySnapshot(read(tokenBytes, klass));
     }
 
     @Override
     public String toBase64String(SCAResponseTO response) throws IOException {
-        return Base64.getEncoder().encodeToString(toBytes(response));
+        // handed over to other applications, so always JSON
+        return Base64.getEncoder().encodeToString(jsonCodecRegistry.writer(response.getClass()).writeValueAsBytes(response));
+    }
+
+    /**
+     * Responses are projected when written, so only full snapshots stored before need to be projected when read.
+     */
+    private <T extends SCAResponseTO> T slimLegacySnapshot(T response) {
+        return slimSnapshots && ConsentDataSnapshots.isFull(response)
+                       ? ConsentDataSnapshots.slim(response)
+                       : response;
+    }
+
+    private ObjectWriter writer(SCAResponseTO response) {
+        if (!slimSnapshots || !ConsentDataSnapshots.isSettled(response)) {
+            return jsonCodecRegistry.writer(response.getClass());
+        }
+        if (snapshotCodecRegistry == null) {
+            ObjectMapper snapshotMapper = mapper.copy().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+            snapshotCodecRegistry = new JsonCodecRegistry(snapshotMapper, RESPONSE_TYPES.values().toArray(new Type[0]));
+        }
+        return snapshotCodecRegistry.writer(response.getClass());
     }
 
     private void checkAspspConsentData(byte[] tokenBytes) {
@@ -53,6 +128,115 @@ public class TokenStorageServiceImpl implements TokenStorageService {
     }
 
     private SCAResponseTO read(byte[] tokenBytes) throws IOException {
+        SCAResponseTO response = decode(tokenBytes, null);
+        return response != null
+                       ? response
+                       : readTree(tokenBytes);
+    }
+
+    private <T extends SCAResponseTO> T read(byte[] tokenBytes, Class<T> klass) throws IOException {
+        T response = decode(tokenBytes, klass);
+        return response != null
+                       ? response
+                       : readTree(tokenBytes, klass);
+    }
+
+    /**
+     * Single pass decoding: the tokens read before the {@code objectType} discriminator are buffered, then the buffered
+     * tokens followed by the rest of the input are deserialized into the response type directly, without building a tree.
+     * Follows the tree based decoding, including the unwrapping of a single root property.
+     *
+     * @return the response, or {@code null} for input only the tree based decoding handles (e.g. no JSON object)
+     */
+    private <T extends SCAResponseTO> T decode(byte[] tokenBytes, Class<T> klass) throws IOException {
+        try (JsonParser parser = createParser(tokenBytes)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT || parser.nextToken() != JsonToken.FIELD_NAME) {
+                return null;
+            }
+            TokenBuffer buffer = new TokenBuffer(parser);
+            buffer.writeStartObject();
+            String objectType = copyProperty(parser, buffer);
+            // the parser stopped on the end of the value
+            boolean objectValue = parser.getCurrentToken() == JsonToken.END_OBJECT;
+            if (parser.nextToken() == JsonToken.END_OBJECT) {
+                // a single property is the wrapped root value
+                return objectValue
+                               ? decodeWrapped(buffer, klass)
+                               : null;
+            }
+            return decode(buffer, parser, objectType, klass);
+        }
+    }
+
+    private <T extends SCAResponseTO> T decodeWrapped(TokenBuffer wrapper, Class<T> klass) throws IOException {
+        JsonParser parser = wrapper.asParser();
+        // skip the wrapper object and its property name
+        parser.nextToken();
+        parser.nextToken();
+        parser.nextToken();
+        TokenBuffer buffer = new TokenBuffer(parser);
+        buffer.writeStartObject();
+        parser.nextToken();
+        return decode(buffer, parser, null, klass);
+    }
+
+    /**
+     * @param buffer     tokens of the object read so far, starting with its {@code START_OBJECT}
+     * @param parser     positioned on the next property name (or the end) of the object
+     * @param objectType discriminator if already read
+     */
+    private <T extends SCAResponseTO> T decode(TokenBuffer buffer, JsonParser parser, String objectType, Class<T> klass) throws IOException {
+        Class<? extends SCAResponseTO> type = klass;
+        if (type == null) {
+            while (objectType == null && parser.getCurrentToken() == JsonToken.FIELD_NAME) {
+                objectType = copyProperty(parser, buffer);
+                parser.nextToken();
+            }
+            if (objectType == null && parser.getCurrentToken() != JsonToken.END_OBJECT) {
+                return null;
+            }
+            type = RESPONSE_TYPES.get(objectType);
+            if (type == null) {
+                throw new IOException("Unknown response type: " + objectType);
+            }
+        }
+        JsonParser remaining = JsonParserSequence.createFlattened(true, buffer.asParser(), parser);
+        return jsonCodecRegistry.reader(type).readValue(remaining);
+    }
+
+    /**
+     * Copies the property the parser is positioned on into the buffer, leaving the parser on the last token of its value.
+     *
+     * @return the value of the {@code objectType} discriminator, if this is the one
+     */
+    private String copyProperty(JsonParser parser, TokenBuffer buffer) throws IOException {
+        boolean discriminator = OBJECT_TYPE.equals(parser.getCurrentName());
+        buffer.copyCurrentEvent(parser);
+        JsonToken value = parser.nextToken();
+        buffer.copyCurrentStructure(parser);
+        return discriminator && value == JsonToken.VALUE_STRING
+                       ? parser.getText()
+                       : null;
+    }
+
+    private JsonParser createParser(byte[] tokenBytes) throws IOException {
+        if (tokenBytes[0] != COMPACT_FORMAT_MAGIC) {
+            return mapper.getFactory().createParser(tokenBytes);
+        }
+        if (tokenBytes.length < COMPACT_HEADER_LENGTH || tokenBytes[1] != COMPACT_FORMAT_VERSION) {
+            throw new IOException("Unsupported ASPSP consent data format");
+        }
+        return smileFactory().createParser(tokenBytes, COMPACT_HEADER_LENGTH, tokenBytes.length - COMPACT_HEADER_LENGTH);
+    }
+
+    private SmileFactory smileFactory() {
+        if (smileFactory == null) {
+            smileFactory = new SmileFactory(mapper);
+        }
+        return smileFactory;
+    }
+
+    private SCAResponseTO readTree(byte[] tokenBytes) throws IOException {
         JsonNode jsonNode = prepareNode(tokenBytes);
         String type = objectType(jsonNode);
         JsonParser jsonParser = mapper.treeAsTokens(jsonNode);
@@ -67,14 +251,17 @@ public class TokenStorageServiceImpl implements TokenStorageService {
         }
     }
 
-    private <T extends SCAResponseTO> T read(byte[] tokenBytes, Class<T> klass) throws IOException {
+    private <T extends SCAResponseTO> T readTree(byte[] tokenBytes, Class<T> klass) throws IOException {
         JsonNode jsonNode = prepareNode(tokenBytes);
         JsonParser jsonParser = mapper.treeAsTokens(jsonNode);
         return mapper.readValue(jsonParser, klass);
     }
 
     private JsonNode prepareNode(byte[] tokenBytes) throws IOException {
-        JsonNode jsonNode = mapper.readTree(tokenBytes);
+        JsonNode jsonNode;
+        try (JsonParser parser = createParser(tokenBytes)) {
+            jsonNode = mapper.readTree(parser);
+        }
         // size
         if (jsonNode.size() == 1) { // unwrapped object
             jsonNode = jsonNode.iterator().next();
@@ -83,7 +270,7 @@ public class TokenStorageServiceImpl implements TokenStorageService {
     }
 
     String objectType(JsonNode jsonNode) {
-        return Optional.ofNullable(jsonNode.get("objectType"))
+        return Optional.ofNullable(jsonNode.get(OBJECT_TYPE))
                        .map(JsonNode::asText)
                        .orElse(null);
     }
@@ -16,6 +16,7 @@
 
 package de.adorsys.aspsp.xs2a.connector.spi.converter;
 
+import com.fasterxml.jackson.databind.ObjectReader;
 import de.adorsys.ledgers.middleware.api.domain.payment.FrequencyCodeTO;
 import de.adorsys.ledgers.middleware.api.domain.payment.PaymentTO;
 import de.adorsys.ledgers.middleware.client.mappers.PaymentMapperTO;
@@ -38,6 +39,7 @@ public class LedgersSpiCommonPaymentTOMapper {
     private final LedgersSpiPaymentToMapper ledgersSpiPaymentToMapper;
     private final PaymentMapperTO paymentMapperTO;
     private final Xs2aObjectMapper xs2aObjectMapper;
+    private ObjectReader standingOrderTypeReader;
 
     public PaymentTO mapToPaymentTO(PaymentType paymentType, SpiPaymentInfo spiPaymentInfo) {
         if (standardPaymentProductsResolverConnector.isRawPaymentProduct(spiPaymentInfo.getPaymentProduct())) {
@@ -67,7 +69,7 @@ public class LedgersSpiCommonPaymentTOMapper {
         String paymentData = new String(spiPaymentInfo.getPaymentData());
         try {
             String json = paymentData.substring(paymentData.indexOf("{"), paymentData.lastIndexOf("}") + 1);
-            PeriodicPaymentInitiationXmlPart2StandingorderTypeJson periodicTypeJson = xs2aObjectMapper.readValue(json, PeriodicPaymentInitiationXmlPart2StandingorderTypeJson.class);
+            PeriodicPaymentInitiationXmlPart2StandingorderTypeJson periodicTypeJson = standingOrderTypeReader().readValue(json);
             paymentTO.setStartDate(periodicTypeJson.getStartDate());
             paymentTO.setEndDate(periodicTypeJson.getEndDate());
             paymentTO.setDayOfExecution(Optional.ofNullable(periodicTypeJson.getDayOfExecution())
@@ -86,4 +88,11 @@ public class LedgersSpiCommonPaymentTOMapper {
         }
         return paymentTO;
     }
+
+    private ObjectReader standingOrderTypeReader() {
+        if (standingOrderTypeReader == null) {
+            standingOrderTypeReader = xs2aObjectMapper.readerFor(PeriodicPaymentInitiationXmlPart2StandingorderTypeJson.class);
+        }
+        return standingOrderTypeReader;
+    }
 }
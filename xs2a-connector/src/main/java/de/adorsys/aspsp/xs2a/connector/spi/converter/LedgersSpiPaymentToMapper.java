@@ -16,10 +16,10 @@
 
 package de.adorsys.aspsp.xs2a.connector.spi.converter;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import de.adorsys.ledgers.middleware.api.domain.account.AccountReferenceTO;
 import de.adorsys.ledgers.middleware.api.domain.general.AddressTO;
 import de.adorsys.ledgers.middleware.api.domain.payment.*;
+import de.adorsys.ledgers.rest.client.JsonCodecRegistry;
 import de.adorsys.psd2.core.payment.model.*;
 import de.adorsys.psd2.xs2a.spi.domain.payment.SpiPaymentInfo;
 import lombok.extern.slf4j.Slf4j;
@@ -39,7 +39,7 @@ import java.util.stream.Collectors;
 @Component
 public class LedgersSpiPaymentToMapper {
     @Autowired
-    protected ObjectMapper objectMapper;
+    protected JsonCodecRegistry jsonCodecRegistry;
 
     public PaymentTO toPaymentTO_Single(SpiPaymentInfo spiPaymentInfo) {
         return Optional.ofNullable(spiPaymentInfo.getPaymentData())
@@ -119,7 +119,7 @@ public class LedgersSpiPaymentToMapper {
 
     private <T> T convert(byte[] paymentData, Class<T> tClass) {
         try {
-            return objectMapper.readValue(paymentData, tClass);
+            return jsonCodecRegistry.reader(tClass).readValue(paymentData);
         } catch (IOException e) {
             log.warn("Can't convert byte[] to Object {}", e.getMessage());
             return null;
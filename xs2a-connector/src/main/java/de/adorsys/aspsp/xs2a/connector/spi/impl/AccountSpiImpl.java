@@ -16,14 +16,19 @@
 
 package de.adorsys.aspsp.xs2a.connector.spi.impl;
 
+import de.adorsys.aspsp.xs2a.connector.account.ConsentAccessIndex;
 import de.adorsys.aspsp.xs2a.connector.account.IbanAccountReference;
 import de.adorsys.aspsp.xs2a.connector.account.OwnerNameService;
 import de.adorsys.aspsp.xs2a.connector.mock.IbanResolverMockService;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapper;
+import de.adorsys.ledgers.middleware.api.domain.account.AccountBalanceTO;
 import de.adorsys.ledgers.middleware.api.domain.account.AccountDetailsTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
+import de.adorsys.ledgers.rest.client.AccessTokenScope;
 import de.adorsys.ledgers.rest.client.AccountRestClient;
+import de.adorsys.ledgers.rest.client.AsyncAccountRestClient;
 import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import de.adorsys.ledgers.rest.client.LedgersAsyncExecutor;
 import de.adorsys.psd2.xs2a.core.ais.BookingStatus;
 import de.adorsys.psd2.xs2a.core.consent.AisConsentRequestType;
 import de.adorsys.psd2.xs2a.core.error.MessageErrorCode;
@@ -41,7 +46,6 @@ import de.adorsys.psd2.xs2a.spi.domain.response.SpiResponse;
 import de.adorsys.psd2.xs2a.spi.service.AccountSpi;
 import feign.FeignException;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
@@ -50,6 +54,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 
 import java.io.ByteArrayInputStream;
@@ -59,6 +64,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Month;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -71,6 +77,7 @@ public class AccountSpiImpl implements AccountSpi {
     private static final String WILDCARD_ACCEPT_HEADER = "*/*";
 
     private final AccountRestClient accountRestClient;
+    private final AsyncAccountRestClient asyncAccountRestClient;
     private final LedgersSpiAccountMapper accountMapper;
     private final AuthRequestInterceptor authRequestInterceptor;
     private final AspspConsentDataService tokenService;
@@ -81,11 +88,13 @@ public class AccountSpiImpl implements AccountSpi {
     @Value("${test-download-transaction-list}")
     private String transactionList;
 
-    public AccountSpiImpl(AccountRestClient restClient, LedgersSpiAccountMapper accountMapper,
+    public AccountSpiImpl(AccountRestClient restClient, AsyncAccountRestClient asyncAccountRestClient,
+                          LedgersSpiAccountMapper accountMapper,
                           AuthRequestInterceptor authRequestInterceptor, AspspConsentDataService tokenService,
                           FeignExceptionReader feignExceptionReader, IbanResolverMockService ibanResolverMockService,
                           OwnerNameService ownerNameService) {
         this.accountRestClient = restClient;
+        this.asyncAccountRestClient = asyncAccountRestClient;
         this.accountMapper = accountMapper;
         this.authRequestInterceptor = authRequestInterceptor;
         this.tokenService = tokenService;
@@ -102,31 +111,29 @@ public class AccountSpiImpl implements AccountSpi {
         byte[] aspspConsentData = aspspConsentDataProvider.loadAspspConsentData();
 
         try {
-            SCAResponseTO response = applyAuthorisation(aspspConsentData);
+            SCAResponseTO response = tokenService.response(aspspConsentData);
+            try (AccessTokenScope ignored = applyAuthorisation(response)) {
+                logger.info("Requested account list for consent with ID: {} and withBalance: {}", accountConsent.getId(),
+                            withBalance);
+                ConsentAccessIndex consentAccessIndex = ConsentAccessIndex.of(accountConsent.getAccess(), ibanResolverMockService);
+                List<SpiAccountDetails> accountDetailsList = getSpiAccountDetails(withBalance, accountConsent, consentAccessIndex);
 
-            logger.info("Requested account list for consent with ID: {} and withBalance: {}", accountConsent.getId(),
-                        withBalance);
-            List<SpiAccountDetails> accountDetailsList = getSpiAccountDetails(withBalance, accountConsent);
+                tokenService.updateIfChanged(aspspConsentDataProvider, aspspConsentData, response);
 
-            aspspConsentDataProvider.updateAspspConsentData(tokenService.store(response));
+                List<SpiAccountDetails> accountDetailsListWithOwnerName = enrichWithOwnerName(accountDetailsList, consentAccessIndex);
 
-            List<SpiAccountDetails> accountDetailsListWithOwnerName = accountDetailsList.stream()
-                                                                              .map(accountDetail -> enrichWithOwnerName(accountDetail, accountConsent.getAccess()))
-                                                                              .collect(Collectors.toList());
+                List<SpiAccountDetails> payload = filterAccountDetailsByWithBalance(withBalance, accountDetailsListWithOwnerName, accountConsent.getAccess(), consentAccessIndex);
 
-            List<SpiAccountDetails> payload = filterAccountDetailsByWithBalance(withBalance, accountDetailsListWithOwnerName, accountConsent.getAccess());
-
-            return SpiResponse.<List<SpiAccountDetails>>builder()
-                           .payload(payload)
-                           .build();
+                return SpiResponse.<List<SpiAccountDetails>>builder()
+                               .payload(payload)
+                               .build();
+            }
         } catch (FeignException feignException) {
             String devMessage = feignExceptionReader.getErrorMessage(feignException);
             logger.error("Request account list failed: consent ID {}, devMessage {}", accountConsent.getId(), devMessage);
             return SpiResponse.<List<SpiAccountDetails>>builder()
                            .error(buildTppMessage(feignException))
                            .build();
-        } finally {
-            authRequestInterceptor.setAccessToken(null);
         }
     }
 
@@ -159,35 +166,33 @@ public class AccountSpiImpl implements AccountSpi {
         byte[] aspspConsentData = aspspConsentDataProvider.loadAspspConsentData();
 
         try {
-            SCAResponseTO response = applyAuthorisation(aspspConsentData);
-
-            logger.info("Requested details for account, ACCOUNT-ID: {}, withBalance: {}",
-                        accountReference.getResourceId(), withBalance);
-            SpiAccountDetails accountDetails = Optional.ofNullable(accountRestClient.getAccountDetailsById(accountReference.getResourceId()).getBody())
-                                                       .map(accountMapper::toSpiAccountDetails)
-                                                       .orElseThrow(() -> FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, RESPONSE_STATUS_200_WITH_EMPTY_BODY));
-
-            SpiAccountDetails accountDetailsWithOwnerName = enrichWithOwnerName(accountDetails, accountConsent.getAccess());
-
-            if (!withBalance) {
-                accountDetailsWithOwnerName.emptyBalances();
+            SCAResponseTO response = tokenService.response(aspspConsentData);
+            try (AccessTokenScope ignored = applyAuthorisation(response)) {
+                logger.info("Requested details for account, ACCOUNT-ID: {}, withBalance: {}",
+                            accountReference.getResourceId(), withBalance);
+                SpiAccountDetails accountDetails = Optional.ofNullable(accountRestClient.getAccountDetailsById(accountReference.getResourceId()).getBody())
+                                                           .map(accountMapper::toSpiAccountDetails)
+                                                           .orElseThrow(() -> FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, RESPONSE_STATUS_200_WITH_EMPTY_BODY));
+
+                SpiAccountDetails accountDetailsWithOwnerName = enrichWithOwnerName(accountDetails, ConsentAccessIndex.of(accountConsent.getAccess(), ibanResolverMockService));
+
+                if (!withBalance) {
+                    accountDetailsWithOwnerName.emptyBalances();
+                }
+                logger.info("The responded account RESOURCE-ID: {}", accountDetailsWithOwnerName.getResourceId());
+
+                tokenService.updateIfChanged(aspspConsentDataProvider, aspspConsentData, response);
+
+                return SpiResponse.<SpiAccountDetails>builder()
+                               .payload(accountDetailsWithOwnerName)
+                               .build();
             }
-            logger.info("The responded account RESOURCE-ID: {}", accountDetailsWithOwnerName.getResourceId());
-
-            aspspConsentDataProvider.updateAspspConsentData(tokenService.store(response));
-
-            return SpiResponse.<SpiAccountDetails>builder()
-                           .payload(accountDetailsWithOwnerName)
-                           .build();
-
         } catch (FeignException feignException) {
             String devMessage = feignExceptionReader.getErrorMessage(feignException);
             logger.error("Request account details for account failed: consent ID {}, resource ID {}, devMessage {}", accountConsent.getId(), accountReference.getResourceId(), devMessage);
             return SpiResponse.<SpiAccountDetails>builder()
                            .error(buildTppMessage(feignException))
                            .build();
-        } finally {
-            authRequestInterceptor.setAccessToken(null);
         }
     }
 
@@ -222,33 +227,38 @@ public class AccountSpiImpl implements AccountSpi {
         Boolean deltaList = spiTransactionReportParameters.getDeltaList();
 
         try {
-            SCAResponseTO response = applyAuthorisation(aspspConsentData);
-
-            logger.info("Requested transactions for account: {}, dates from: {}, to: {}, withBalance: {}, entryReferenceFrom: {}, deltaList: {}",
-                        accountReference.getResourceId(), dateFrom, dateTo, withBalance, entryReferenceFrom, deltaList);
-            List<SpiTransaction> transactions = Optional.ofNullable(
-                    accountRestClient.getTransactionByDates(accountReference.getResourceId(), dateFrom, dateTo).getBody())
-                                                        .map(accountMapper::toSpiTransactions).orElseGet(ArrayList::new);
-            List<SpiAccountBalance> balances = getSpiAccountBalances(contextData, withBalance, accountReference,
-                                                                     accountConsent, aspspConsentDataProvider);
-
-            SpiTransactionReport transactionReport = new SpiTransactionReport("downloadId", transactions, balances,
-                                                                              processAcceptMediaType(acceptMediaType), null);
-            logger.info("Finally found {} transactions.", transactionReport.getTransactions().size());
-
-            aspspConsentDataProvider.updateAspspConsentData(tokenService.store(response));
-
-            return SpiResponse.<SpiTransactionReport>builder()
-                           .payload(transactionReport)
-                           .build();
+            SCAResponseTO response = tokenService.response(aspspConsentData);
+            try (AccessTokenScope ignored = applyAuthorisation(response)) {
+                logger.info("Requested transactions for account: {}, dates from: {}, to: {}, withBalance: {}, entryReferenceFrom: {}, deltaList: {}",
+                            accountReference.getResourceId(), dateFrom, dateTo, withBalance, entryReferenceFrom, deltaList);
+                CompletableFuture<ResponseEntity<List<AccountBalanceTO>>> balancesFuture = requestBalancesAsync(withBalance, accountReference);
+                List<SpiTransaction> transactions;
+                List<SpiAccountBalance> balances;
+                try {
+                    transactions = accountRestClient.getTransactionByDatesAsStream(accountReference.getResourceId(), dateFrom, dateTo)
+                                           .map(accountMapper::toSpiTransaction);
+                    balances = getSpiAccountBalances(balancesFuture);
+                } finally {
+                    // no-op if the balances are there, otherwise they aren't needed anymore
+                    balancesFuture.cancel(true);
+                }
+
+                SpiTransactionReport transactionReport = new SpiTransactionReport("downloadId", transactions, balances,
+                                                                                  processAcceptMediaType(acceptMediaType), null);
+                logger.info("Finally found {} transactions.", transactionReport.getTransactions().size());
+
+                tokenService.updateIfChanged(aspspConsentDataProvider, aspspConsentData, response);
+
+                return SpiResponse.<SpiTransactionReport>builder()
+                               .payload(transactionReport)
+                               .build();
+            }
         } catch (FeignException feignException) {
             String devMessage = feignExceptionReader.getErrorMessage(feignException);
             logger.error("Request transactions for account failed: consent ID {}, resource ID {}, devMessage {}", accountConsent.getId(), accountReference.getResourceId(), devMessage);
             return SpiResponse.<SpiTransactionReport>builder()
                            .error(buildTppMessage(feignException))
                            .build();
-        } finally {
-            authRequestInterceptor.setAccessToken(null);
         }
     }
 
@@ -267,30 +277,29 @@ public class AccountSpiImpl implements AccountSpi {
         byte[] aspspConsentData = aspspConsentDataProvider.loadAspspConsentData();
 
         try {
-            SCAResponseTO response = applyAuthorisation(aspspConsentData);
-
-            logger.info("Requested transaction with TRANSACTION-ID: {} for ACCOUNT-ID: {}", transactionId,
-                        accountReference.getResourceId());
-            SpiTransaction transaction = Optional
-                                                 .ofNullable(
-                                                         accountRestClient.getTransactionById(accountReference.getResourceId(), transactionId).getBody())
-                                                 .map(accountMapper::toSpiTransaction)
-                                                 .orElseThrow(() -> FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, RESPONSE_STATUS_200_WITH_EMPTY_BODY));
-            logger.info("Found transaction with TRANSACTION-ID: {}", transaction.getTransactionId());
-
-            aspspConsentDataProvider.updateAspspConsentData(tokenService.store(response));
-
-            return SpiResponse.<SpiTransaction>builder()
-                           .payload(transaction)
-                           .build();
+            SCAResponseTO response = tokenService.response(aspspConsentData);
+            try (AccessTokenScope ignored = applyAuthorisation(response)) {
+                logger.info("Requested transaction with TRANSACTION-ID: {} for ACCOUNT-ID: {}", transactionId,
+                            accountReference.getResourceId());
+                SpiTransaction transaction = Optional
+                                                     .ofNullable(
+                                                             accountRestClient.getTransactionById(accountReference.getResourceId(), transactionId).getBody())
+                                                     .map(accountMapper::toSpiTransaction)
+                                                     .orElseThrow(() -> FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, RESPONSE_STATUS_200_WITH_EMPTY_BODY));
+                logger.info("Found transaction with TRANSACTION-ID: {}", transaction.getTransactionId());
+
+                tokenService.updateIfChanged(aspspConsentDataProvider, aspspConsentData, response);
+
+                return SpiResponse.<SpiTransaction>builder()
+                               .payload(transaction)
+                               .build();
+            }
         } catch (FeignException feignException) {
             String devMessage = feignExceptionReader.getErrorMessage(feignException);
             logger.error("Request transactions for account by transaction id failed: consent ID {}, resource ID {}, transaction ID {}, devMessage {}", accountConsent.getId(), accountReference.getResourceId(), transactionId, devMessage);
             return SpiResponse.<SpiTransaction>builder()
                            .error(FeignExceptionHandler.getFailureMessage(feignException, MessageErrorCode.RESOURCE_UNKNOWN_403))
                            .build();
-        } finally {
-            authRequestInterceptor.setAccessToken(null);
         }
     }
 
@@ -302,28 +311,27 @@ public class AccountSpiImpl implements AccountSpi {
         byte[] aspspConsentData = aspspConsentDataProvider.loadAspspConsentData();
 
         try {
-            SCAResponseTO response = applyAuthorisation(aspspConsentData);
-
-            logger.info("Requested Balances for ACCOUNT-ID: {}", accountReference.getResourceId());
-            List<SpiAccountBalance> accountBalances = Optional
-                                                              .ofNullable(accountRestClient.getBalances(accountReference.getResourceId()).getBody())
-                                                              .map(accountMapper::toSpiAccountBalancesList)
-                                                              .orElseThrow(() -> FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, RESPONSE_STATUS_200_WITH_EMPTY_BODY));
-            logger.info("Found Balances: {}", accountBalances.size());
-
-            aspspConsentDataProvider.updateAspspConsentData(tokenService.store(response));
-
-            return SpiResponse.<List<SpiAccountBalance>>builder()
-                           .payload(accountBalances)
-                           .build();
+            SCAResponseTO response = tokenService.response(aspspConsentData);
+            try (AccessTokenScope ignored = applyAuthorisation(response)) {
+                logger.info("Requested Balances for ACCOUNT-ID: {}", accountReference.getResourceId());
+                List<SpiAccountBalance> accountBalances = Optional
+                                                                  .ofNullable(accountRestClient.getBalances(accountReference.getResourceId()).getBody())
+                                                                  .map(accountMapper::toSpiAccountBalancesList)
+                                                                  .orElseThrow(() -> FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, RESPONSE_STATUS_200_WITH_EMPTY_BODY));
+                logger.info("Found Balances: {}", accountBalances.size());
+
+                tokenService.updateIfChanged(aspspConsentDataProvider, aspspConsentData, response);
+
+                return SpiResponse.<List<SpiAccountBalance>>builder()
+                               .payload(accountBalances)
+                               .build();
+            }
         } catch (FeignException feignException) {
             String devMessage = feignExceptionReader.getErrorMessage(feignException);
             logger.error("Request balances for account failed: consent ID {}, resource ID {}, devMessage {}", accountConsent.getId(), accountReference.getResourceId(), devMessage);
             return SpiResponse.<List<SpiAccountBalance>>builder()
                            .error(buildTppMessage(feignException))
                            .build();
-        } finally {
-            authRequestInterceptor.setAccessToken(null);
         }
     }
 
@@ -336,57 +344,67 @@ public class AccountSpiImpl implements AccountSpi {
         byte[] aspspConsentData = aspspConsentDataProvider.loadAspspConsentData();
 
         try {
-            SCAResponseTO response = applyAuthorisation(aspspConsentData);
+            SCAResponseTO response = tokenService.response(aspspConsentData);
+            try (AccessTokenScope ignored = applyAuthorisation(response)) {
+                logger.info("Requested downloading list of transactions by download ID: {}", downloadId);
 
-            logger.info("Requested downloading list of transactions by download ID: {}", downloadId);
+                InputStream stream = new ByteArrayInputStream(transactionList.getBytes());
 
-            InputStream stream = new ByteArrayInputStream(transactionList.getBytes());
+                SpiTransactionsDownloadResponse transactionsDownloadResponse = new SpiTransactionsDownloadResponse(stream, "transactions.json", transactionList.getBytes().length);
 
-            SpiTransactionsDownloadResponse transactionsDownloadResponse = new SpiTransactionsDownloadResponse(stream, "transactions.json", transactionList.getBytes().length);
+                tokenService.updateIfChanged(aspspConsentDataProvider, aspspConsentData, response);
 
-            aspspConsentDataProvider.updateAspspConsentData(tokenService.store(response));
-
-            return SpiResponse.<SpiTransactionsDownloadResponse>builder()
-                           .payload(transactionsDownloadResponse)
-                           .build();
+                return SpiResponse.<SpiTransactionsDownloadResponse>builder()
+                               .payload(transactionsDownloadResponse)
+                               .build();
+            }
         } catch (FeignException feignException) {
             String devMessage = feignExceptionReader.getErrorMessage(feignException);
             logger.error("Request transactions by download link failed: consent ID {}, download link {}, devMessage {}", spiAccountConsent.getId(), downloadId, devMessage);
             return SpiResponse.<SpiTransactionsDownloadResponse>builder()
                            .error(buildTppMessage(feignException))
                            .build();
-        } finally {
-            authRequestInterceptor.setAccessToken(null);
         }
     }
 
-    private List<SpiAccountDetails> getSpiAccountDetails(boolean withBalance, @NotNull SpiAccountConsent accountConsent) {
+    private List<SpiAccountDetails> getSpiAccountDetails(boolean withBalance, @NotNull SpiAccountConsent accountConsent,
+                                                         ConsentAccessIndex consentAccessIndex) {
         List<SpiAccountDetails> accountDetailsList;
         if (isGlobalConsent(accountConsent.getAccess()) || isAllAvailableAccountsConsent(accountConsent)) {
             logger.info("Consent with ID: {} is a global or available account Consent", accountConsent.getId());
             accountDetailsList = getAccountDetailsByConsentId();
         } else {
             logger.info("Consent with ID: {} is a regular consent", accountConsent.getId());
-            accountDetailsList = getAccountDetailsFromReferences(withBalance, accountConsent);
+            accountDetailsList = getAccountDetailsFromReferences(withBalance, consentAccessIndex);
         }
         return accountDetailsList;
     }
 
-    private List<SpiAccountBalance> getSpiAccountBalances(@NotNull SpiContextData contextData,
-                                                          boolean withBalance,
-                                                          @NotNull SpiAccountReference accountReference,
-                                                          @NotNull SpiAccountConsent accountConsent,
-                                                          @NotNull SpiAspspConsentDataProvider aspspConsentDataProvider) {
-        if (withBalance) {
-            SpiResponse<List<SpiAccountBalance>> response = requestBalancesForAccount(contextData, accountReference,
-                                                                                      accountConsent, aspspConsentDataProvider);
-            if (response.isSuccessful()) {
-                return response.getPayload();
-            } else {
-                throw FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, "Requested transaction can`t be found");
+    /**
+     * Requests balances of the account in parallel with the transactions, using the access token of the current call.
+     * The returned future is the ledgers call itself, so cancelling it before it has been started skips the call.
+     */
+    private CompletableFuture<ResponseEntity<List<AccountBalanceTO>>> requestBalancesAsync(boolean withBalance,
+                                                                                            @NotNull SpiAccountReference accountReference) {
+        if (!withBalance) {
+            return CompletableFuture.completedFuture(null);
+        }
+        logger.info("Requested Balances for ACCOUNT-ID: {}", accountReference.getResourceId());
+        return asyncAccountRestClient.getBalances(accountReference.getResourceId());
+    }
+
+    private List<SpiAccountBalance> getSpiAccountBalances(CompletableFuture<ResponseEntity<List<AccountBalanceTO>>> balancesFuture) {
+        try {
+            ResponseEntity<List<AccountBalanceTO>> balances = LedgersAsyncExecutor.join(balancesFuture);
+            if (balances == null) {
+                return null;
             }
-        } else {
-            return null;
+            return Optional.ofNullable(balances.getBody())
+                           .map(accountMapper::toSpiAccountBalancesList)
+                           .orElseThrow(() -> FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, RESPONSE_STATUS_200_WITH_EMPTY_BODY));
+        } catch (FeignException feignException) {
+            logger.error("Request balances for account failed: devMessage {}", feignExceptionReader.getErrorMessage(feignException));
+            throw FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, "Requested transaction can`t be found");
         }
     }
 
@@ -405,15 +423,7 @@ public class AccountSpiImpl implements AccountSpi {
                        .orElseGet(Collections::emptyList);
     }
 
-    private List<SpiAccountDetails> getAccountDetailsFromReferences(boolean withBalance,
-                                                                    SpiAccountConsent accountConsent) {
-        SpiAccountAccess accountAccess = accountConsent.getAccess();
-        List<SpiAccountReference> references = withBalance ? accountAccess.getBalances() : accountAccess.getAccounts();
-
-        return getAccountDetailsFromReferences(references);
-    }
-
-    private List<SpiAccountDetails> getAccountDetailsFromReferences(List<SpiAccountReference> references) {
+    private List<SpiAccountDetails> getAccountDetailsFromReferences(boolean withBalance, ConsentAccessIndex consentAccessIndex) {
         List<AccountDetailsTO> accountDetails = accountRestClient.getListOfAccounts().getBody();
 
         if (accountDetails == null) {
@@ -421,29 +431,22 @@ public class AccountSpiImpl implements AccountSpi {
         }
 
         return accountDetails.stream()
-                       .filter(account -> containsAccountReferenceWithIban(references, account.getIban(), account.getCurrency()))
+                       .filter(account -> withBalance
+                                                  ? consentAccessIndex.hasBalanceAccess(account.getIban(), account.getCurrency())
+                                                  : consentAccessIndex.hasAccountAccess(account.getIban(), account.getCurrency()))
                        .map(accountMapper::toSpiAccountDetails)
                        .collect(Collectors.toList());
     }
 
-    private boolean containsAccountReferenceWithIban(List<SpiAccountReference> references, String iban, Currency currency) {
-        return references.stream()
-                       .filter(reference -> Optional.ofNullable(reference.getIban())
-                                                    .orElseGet(() -> ibanResolverMockService.handleIbanByAccountReference(reference)) // TODO: Remove when ledgers starts supporting card accounts https://git.adorsys.de/adorsys/xs2a/aspsp-xs2a/issues/1246
-                                                    .equals(iban))
-
-                       .anyMatch(reference -> reference.getCurrency() == null || reference.getCurrency().equals(currency));
-    }
-
     private List<SpiAccountDetails> filterAccountDetailsByWithBalance(boolean withBalance, List<SpiAccountDetails> details,
-                                                                      SpiAccountAccess spiAccountAccess) {
+                                                                      SpiAccountAccess spiAccountAccess, ConsentAccessIndex consentAccessIndex) {
 
         if (withBalance && isConsentSupportedBalances(spiAccountAccess)) {
             return details;
         }
 
         for (SpiAccountDetails spiAccountDetails : details) {
-            if (!withBalance || !isValidAccountByAccess(spiAccountDetails.getIban(), spiAccountAccess.getBalances())) {
+            if (!withBalance || !consentAccessIndex.hasBalanceAccess(spiAccountDetails.getIban(), spiAccountDetails.getCurrency())) {
                 spiAccountDetails.emptyBalances();
             }
         }
@@ -457,16 +460,9 @@ public class AccountSpiImpl implements AccountSpi {
         return isConsentGlobal || isConsentForAvailableAccountsWithBalances;
     }
 
-    private SCAResponseTO applyAuthorisation(byte[] aspspConsentData) {
-        SCAResponseTO sca = tokenService.response(aspspConsentData);
-        authRequestInterceptor.setAccessToken(sca.getBearerToken().getAccess_token());
-        return sca;
-    }
-
-    private boolean isValidAccountByAccess(String iban, List<SpiAccountReference> allowedAccountData) {
-        return CollectionUtils.isNotEmpty(allowedAccountData)
-                       && allowedAccountData.stream()
-                                  .anyMatch(a -> iban.equals(a.getIban()));
+    private AccessTokenScope applyAuthorisation(SCAResponseTO sca) {
+        tokenService.checkAccessTokenNotExpired(sca);
+        return authRequestInterceptor.withAccessToken(sca.getBearerToken().getAccess_token());
     }
 
     private TppMessage buildTppMessage(FeignException exception) {
@@ -499,9 +495,20 @@ public class AccountSpiImpl implements AccountSpi {
         return accountBalance;
     }
 
-    private SpiAccountDetails enrichWithOwnerName(SpiAccountDetails spiAccountDetails, SpiAccountAccess accountAccess) {
+    private List<SpiAccountDetails> enrichWithOwnerName(List<SpiAccountDetails> accountDetailsList, ConsentAccessIndex consentAccessIndex) {
+        List<SpiAccountDetails> accountDetailsWithOwnerNameAccess = accountDetailsList.stream()
+                                                                            .filter(accountDetails -> ownerNameService.shouldContainOwnerName(new IbanAccountReference(accountDetails.getIban(), accountDetails.getCurrency()), consentAccessIndex))
+                                                                            .collect(Collectors.toList());
+        if (!accountDetailsWithOwnerNameAccess.isEmpty()) {
+            ownerNameService.enrichAccountDetailsListWithOwnerName(accountDetailsWithOwnerNameAccess);
+        }
+
+        return accountDetailsList;
+    }
+
+    private SpiAccountDetails enrichWithOwnerName(SpiAccountDetails spiAccountDetails, ConsentAccessIndex consentAccessIndex) {
         IbanAccountReference ibanAccountReference = new IbanAccountReference(spiAccountDetails.getIban(), spiAccountDetails.getCurrency());
-        if (ownerNameService.shouldContainOwnerName(ibanAccountReference, accountAccess)) {
+        if (ownerNameService.shouldContainOwnerName(ibanAccountReference, consentAccessIndex)) {
             return ownerNameService.enrichAccountDetailsWithOwnerName(spiAccountDetails);
         }
 
@@ -16,19 +16,59 @@
 
 package de.adorsys.aspsp.xs2a.connector.spi.impl;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
 import de.adorsys.ledgers.middleware.api.service.TokenStorageService;
+import de.adorsys.ledgers.rest.client.JsonCodecRegistry;
+import de.adorsys.ledgers.rest.client.TokenValidationCache;
+import de.adorsys.psd2.xs2a.spi.domain.SpiAspspConsentDataProvider;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
 
+/**
+ * Stores and decodes the ASPSP consent data. Within a request, the same consent data bytes are decoded only once and
+ * the decoded response is shared by all reads; storing it again (see {@link #store(SCAResponseTO)}) evicts it.
+ * Responses that are only read don't need to be written back, see
+ * {@link #updateIfChanged(SpiAspspConsentDataProvider, byte[], SCAResponseTO)}.
+ * <p>
+ * Before the bearer token of a response is sent to ledgers, {@link #checkAccessTokenNotExpired(SCAResponseTO)} rejects
+ * tokens that have already expired, the way ledgers would, but without the round trip.
+ */
 @Service
 public class AspspConsentDataService {
+    private static final Logger logger = LoggerFactory.getLogger(AspspConsentDataService.class);
+    static final String ACCESS_TOKEN_EXPIRED = "Access token expired";
 
     @Autowired
     private TokenStorageService tokenStorageService;
+    @Autowired
+    private JsonCodecRegistry jsonCodecRegistry;
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+    @Autowired
+    private ObjectProvider<TokenValidationCache> tokenValidationCache;
+    @Value("${ledgers.token-validation.expiry-check.enabled:true}")
+    private boolean expiryCheck;
+    @Value("${ledgers.token-validation.expiry-check.leeway-ms:5000}")
+    private long expiryLeeway;
+    private Clock clock = Clock.systemUTC();
+
+    private final DecodedConsentDataCache decodedConsentDataCache = new DecodedConsentDataCache();
 
     /**
      * Default storage, makes sure there is a bearer token in the response object.
@@ -38,14 +78,21 @@ public class AspspConsentDataService {
     }
 
     public byte[] store(SCAResponseTO response, boolean checkCredentials) {
-        if (checkCredentials && response.getBearerToken() == null) {
-            throw new IllegalStateException("Missing credentials, response must contain a bearer token by default.");
-        }
-        try {
-            return tokenStorageService.toBytes(response);
-        } catch (IOException e) {
-            throw FeignExceptionHandler.getException(HttpStatus.UNAUTHORIZED, e.getMessage());
+        decodedConsentDataCache.evict(response);
+        return toBytes(response, checkCredentials);
+    }
+
+    /**
+     * Stores the response in the given consent data provider, unless it is equal to the consent data it has been
+     * loaded from, so reading with an unchanged response doesn't write the consent data again.
+     */
+    public void updateIfChanged(SpiAspspConsentDataProvider aspspConsentDataProvider, byte[] loadedConsentData, SCAResponseTO response) {
+        byte[] aspspConsentData = toBytes(response, true);
+        if (Arrays.equals(aspspConsentData, loadedConsentData)) {
+            return;
         }
+        decodedConsentDataCache.evict(response);
+        aspspConsentDataProvider.updateAspspConsentData(aspspConsentData);
     }
 
     public <T extends SCAResponseTO> T response(byte[] aspspConsentData, Class<T> klass) {
@@ -58,7 +105,11 @@ public class AspspConsentDataService {
 
     public SCAResponseTO response(byte[] aspspConsentData, boolean checkCredentials) {
         try {
-            SCAResponseTO sca = tokenStorageService.fromBytes(aspspConsentData);
+            SCAResponseTO sca = decodedConsentDataCache.get(aspspConsentData, SCAResponseTO.class);
+            if (sca == null) {
+                sca = tokenStorageService.fromBytes(aspspConsentData);
+                decodedConsentDataCache.put(aspspConsentData, SCAResponseTO.class, sca);
+            }
             checkBearerTokenPresent(checkCredentials, sca);
             return sca;
         } catch (IOException e) {
@@ -68,7 +119,11 @@ public class AspspConsentDataService {
 
     public <T extends SCAResponseTO> T response(byte[] aspspConsentData, Class<T> klass, boolean checkCredentials) {
         try {
-            T sca = tokenStorageService.fromBytes(aspspConsentData, klass);
+            T sca = decodedConsentDataCache.get(aspspConsentData, klass);
+            if (sca == null) {
+                sca = tokenStorageService.fromBytes(aspspConsentData, klass);
+                decodedConsentDataCache.put(aspspConsentData, klass, sca);
+            }
             checkBearerTokenPresent(checkCredentials, sca);
             return sca;
         } catch (IOException e) {
@@ -76,6 +131,64 @@ public class AspspConsentDataService {
         }
     }
 
+    /**
+     * Fails with the 401 ledgers answers an expired access token with, including its error body, so the caller reports
+     * the same error to the TPP. The expiry is taken from the {@code exp} claim of the token, allowing for a small clock
+     * skew; it is looked up in the {@link TokenValidationCache} if there is one, so the token isn't parsed on every call.
+     * Tokens without a readable expiry are left to ledgers.
+     */
+    public void checkAccessTokenNotExpired(SCAResponseTO response) {
+        BearerTokenTO bearerToken = response.getBearerToken();
+        if (!expiryCheck || bearerToken == null || bearerToken.getAccess_token() == null) {
+            return;
+        }
+        Instant expiresAt = expiresAt(bearerToken.getAccess_token());
+        if (expiresAt != null && !expiresAt.plusMillis(expiryLeeway).isAfter(clock.instant())) {
+            logger.info("Access token of authorisation {} expired, ledgers is not called", response.getAuthorisationId());
+            Counter.builder("ledgers.requests.avoided")
+                    .description("Ledgers requests not sent, as they would have been rejected")
+                    .tag("reason", "access-token-expired")
+                    .register(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry))
+                    .increment();
+            throw FeignExceptionHandler.getLedgersException(HttpStatus.UNAUTHORIZED, ACCESS_TOKEN_EXPIRED);
+        }
+    }
+
+    private Instant expiresAt(String accessToken) {
+        TokenValidationCache cache = tokenValidationCache.getIfAvailable();
+        return cache == null
+                       ? readExpiresAt(accessToken)
+                       : cache.getExpiresAt(accessToken, this::readExpiresAt);
+    }
+
+    /**
+     * @return the {@code exp} claim of the JWT, or {@code null} if it can't be read
+     */
+    private Instant readExpiresAt(String accessToken) {
+        String[] parts = accessToken.split("\\.");
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            JsonNode claims = jsonCodecRegistry.readTree(Base64.getUrlDecoder().decode(parts[1]));
+            long exp = claims == null ? 0 : claims.path("exp").asLong(0);
+            return exp > 0 ? Instant.ofEpochSecond(exp) : null;
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private byte[] toBytes(SCAResponseTO response, boolean checkCredentials) {
+        if (checkCredentials && response.getBearerToken() == null) {
+            throw new IllegalStateException("Missing credentials, response must contain a bearer token by default.");
+        }
+        try {
+            return tokenStorageService.toBytes(response);
+        } catch (IOException e) {
+            throw FeignExceptionHandler.getException(HttpStatus.UNAUTHORIZED, e.getMessage());
+        }
+    }
+
     private <T extends SCAResponseTO> void checkBearerTokenPresent(boolean checkCredentials, T sca) {
         if (checkCredentials && sca.getBearerToken() == null) {
             throw FeignExceptionHandler.getException(HttpStatus.UNAUTHORIZED, "Missing credentials. Expecting a bearer token in the consent data object.");
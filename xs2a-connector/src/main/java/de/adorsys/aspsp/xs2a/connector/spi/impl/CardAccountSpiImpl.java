@@ -16,14 +16,19 @@
 
 package de.adorsys.aspsp.xs2a.connector.spi.impl;
 
+import de.adorsys.aspsp.xs2a.connector.account.ConsentAccessIndex;
 import de.adorsys.aspsp.xs2a.connector.account.IbanAccountReference;
 import de.adorsys.aspsp.xs2a.connector.account.OwnerNameService;
 import de.adorsys.aspsp.xs2a.connector.mock.IbanResolverMockService;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapper;
+import de.adorsys.ledgers.middleware.api.domain.account.AccountBalanceTO;
 import de.adorsys.ledgers.middleware.api.domain.account.AccountDetailsTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
+import de.adorsys.ledgers.rest.client.AccessTokenScope;
 import de.adorsys.ledgers.rest.client.AccountRestClient;
+import de.adorsys.ledgers.rest.client.AsyncAccountRestClient;
 import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import de.adorsys.ledgers.rest.client.LedgersAsyncExecutor;
 import de.adorsys.psd2.xs2a.core.ais.BookingStatus;
 import de.adorsys.psd2.xs2a.core.consent.AisConsentRequestType;
 import de.adorsys.psd2.xs2a.core.error.MessageErrorCode;
@@ -43,11 +48,13 @@ import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.time.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Component
@@ -63,6 +70,7 @@ public class CardAccountSpiImpl implements CardAccountSpi {
     private static final String CARD_TRANSACTION_ACCEPTOR = "Müller";
 
     private final AccountRestClient accountRestClient;
+    private final AsyncAccountRestClient asyncAccountRestClient;
     private final LedgersSpiAccountMapper accountMapper;
     private final AuthRequestInterceptor authRequestInterceptor;
     private final AspspConsentDataService tokenService;
@@ -70,11 +78,13 @@ public class CardAccountSpiImpl implements CardAccountSpi {
     private final IbanResolverMockService ibanResolverMockService;
     private final OwnerNameService ownerNameService;
 
-    public CardAccountSpiImpl(AccountRestClient restClient, LedgersSpiAccountMapper accountMapper,
+    public CardAccountSpiImpl(AccountRestClient restClient, AsyncAccountRestClient asyncAccountRestClient,
+                              LedgersSpiAccountMapper accountMapper,
                               AuthRequestInterceptor authRequestInterceptor, AspspConsentDataService tokenService,
                               FeignExceptionReader feignExceptionReader, IbanResolverMockService ibanResolverMockService,
                               OwnerNameService ownerNameService) {
         this.accountRestClient = restClient;
+        this.asyncAccountRestClient = asyncAccountRestClient;
         this.accountMapper = accountMapper;
         this.authRequestInterceptor = authRequestInterceptor;
         this.tokenService = tokenService;
@@ -90,21 +100,21 @@ public class CardAccountSpiImpl implements CardAccountSpi {
         byte[] aspspConsentData = aspspConsentDataProvider.loadAspspConsentData();
 
         try {
-            SCAResponseTO response = applyAuthorisation(aspspConsentData);
+            SCAResponseTO response = tokenService.response(aspspConsentData);
+            try (AccessTokenScope ignored = applyAuthorisation(response)) {
+                logger.info("Requested card account list for consent with ID: {}", accountConsent.getId());
+                ConsentAccessIndex consentAccessIndex = ConsentAccessIndex.of(accountConsent.getAccess(), ibanResolverMockService);
+                List<SpiCardAccountDetails> cardAccountDetailsList = getSpiCardAccountDetails(accountConsent, consentAccessIndex);
 
-            logger.info("Requested card account list for consent with ID: {}", accountConsent.getId());
-            List<SpiCardAccountDetails> cardAccountDetailsList = getSpiCardAccountDetails(accountConsent, aspspConsentData);
+                tokenService.updateIfChanged(aspspConsentDataProvider, aspspConsentData, response);
 
-            aspspConsentDataProvider.updateAspspConsentData(tokenService.store(response));
+                List<SpiCardAccountDetails> cardAccountDetailsListWithMaskedPan = mapToCardAccountList(cardAccountDetailsList);
+                List<SpiCardAccountDetails> cardAccountDetailsListWithOwnerName = enrichWithOwnerName(cardAccountDetailsListWithMaskedPan, consentAccessIndex);
 
-            List<SpiCardAccountDetails> cardAccountDetailsListWithMaskedPan = mapToCardAccountList(cardAccountDetailsList);
-            List<SpiCardAccountDetails> cardAccountDetailsListWithOwnerName = cardAccountDetailsListWithMaskedPan.stream()
-                                                                                      .map(accountDetails -> enrichWithOwnerName(accountDetails, accountConsent.getAccess()))
-                                                                                      .collect(Collectors.toList());
-
-            return SpiResponse.<List<SpiCardAccountDetails>>builder()
-                           .payload(cardAccountDetailsListWithOwnerName)
-                           .build();
+                return SpiResponse.<List<SpiCardAccountDetails>>builder()
+                               .payload(cardAccountDetailsListWithOwnerName)
+                               .build();
+            }
         } catch (FeignException feignException) {
             String devMessage = feignExceptionReader.getErrorMessage(feignException);
             logger.error("Request card account list failed: consent ID {}, devMessage {}", accountConsent.getId(), devMessage);
@@ -112,8 +122,6 @@ public class CardAccountSpiImpl implements CardAccountSpi {
             return SpiResponse.<List<SpiCardAccountDetails>>builder()
                            .error(buildTppMessage(feignException))
                            .build();
-        } finally {
-            authRequestInterceptor.setAccessToken(null);
         }
     }
 
@@ -125,32 +133,30 @@ public class CardAccountSpiImpl implements CardAccountSpi {
         byte[] aspspConsentData = aspspConsentDataProvider.loadAspspConsentData();
 
         try {
-            SCAResponseTO response = applyAuthorisation(aspspConsentData);
+            SCAResponseTO response = tokenService.response(aspspConsentData);
+            try (AccessTokenScope ignored = applyAuthorisation(response)) {
+                logger.info("Requested details for account, ACCOUNT-ID: {}", accountReference.getResourceId());
 
-            logger.info("Requested details for account, ACCOUNT-ID: {}", accountReference.getResourceId());
+                SpiCardAccountDetails cardAccountDetails = Optional
+                                                                   .ofNullable(accountRestClient.getAccountDetailsById(accountReference.getResourceId()).getBody())
+                                                                   .map(accountMapper::toSpiCardAccountDetails)
+                                                                   .orElseThrow(() -> FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, RESPONSE_STATUS_200_WITH_EMPTY_BODY));
 
-            SpiCardAccountDetails cardAccountDetails = Optional
-                                                               .ofNullable(accountRestClient.getAccountDetailsById(accountReference.getResourceId()).getBody())
-                                                               .map(accountMapper::toSpiCardAccountDetails)
-                                                               .orElseThrow(() -> FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, RESPONSE_STATUS_200_WITH_EMPTY_BODY));
+                cardAccountDetails.setMaskedPan(ibanResolverMockService.getMaskedPanByIban(cardAccountDetails.getAspspAccountId())); // TODO: Remove when ledgers starts supporting card accounts https://git.adorsys.de/adorsys/xs2a/aspsp-xs2a/issues/1246
 
-            cardAccountDetails.setMaskedPan(ibanResolverMockService.getMaskedPanByIban(cardAccountDetails.getAspspAccountId())); // TODO: Remove when ledgers starts supporting card accounts https://git.adorsys.de/adorsys/xs2a/aspsp-xs2a/issues/1246
-
-            aspspConsentDataProvider.updateAspspConsentData(tokenService.store(response));
-            SpiCardAccountDetails accountDetailsWithOwnerName = enrichWithOwnerName(cardAccountDetails, accountConsent.getAccess());
-
-            return SpiResponse.<SpiCardAccountDetails>builder()
-                           .payload(accountDetailsWithOwnerName)
-                           .build();
+                tokenService.updateIfChanged(aspspConsentDataProvider, aspspConsentData, response);
+                SpiCardAccountDetails accountDetailsWithOwnerName = enrichWithOwnerName(cardAccountDetails, ConsentAccessIndex.of(accountConsent.getAccess(), ibanResolverMockService));
 
+                return SpiResponse.<SpiCardAccountDetails>builder()
+                               .payload(accountDetailsWithOwnerName)
+                               .build();
+            }
         } catch (FeignException feignException) {
             String devMessage = feignExceptionReader.getErrorMessage(feignException);
             logger.error("Request card account details for account failed: consent ID {}, resource ID {}, devMessage {}", accountConsent.getId(), accountReference.getResourceId(), devMessage);
             return SpiResponse.<SpiCardAccountDetails>builder()
                            .error(buildTppMessage(feignException))
                            .build();
-        } finally {
-            authRequestInterceptor.setAccessToken(null);
         }
     }
 
@@ -184,34 +190,39 @@ public class CardAccountSpiImpl implements CardAccountSpi {
         Boolean deltaList = spiTransactionReportParameters.getDeltaList();
 
         try {
-            SCAResponseTO response = applyAuthorisation(aspspConsentData);
-
-            logger.info("Requested transactions for account: {}, dates from: {}, to: {}, withBalance: {}, entryReferenceFrom: {}, deltaList: {}",
-                        accountReference.getResourceId(), dateFrom, dateTo, withBalance, entryReferenceFrom, deltaList);
-            List<SpiCardTransaction> transactions = Optional.ofNullable(
-                    accountRestClient.getTransactionByDates(accountReference.getResourceId(), dateFrom, dateTo).getBody())
-                                                            .map(accountMapper::toSpiCardTransactions).orElseGet(ArrayList::new);
-            List<SpiAccountBalance> balances = getSpiAccountBalances(contextData, withBalance, accountReference,
-                                                                     accountConsent, aspspConsentDataProvider);
-
-            SpiCardTransactionReport transactionReport =
-                    new SpiCardTransactionReport("dGVzdA==", transactions, balances, processAcceptMediaType(acceptMediaType), null);
-
-            logger.info("Finally found {} transactions.", transactionReport.getCardTransactions().size());
-
-            aspspConsentDataProvider.updateAspspConsentData(tokenService.store(response));
-
-            return SpiResponse.<SpiCardTransactionReport>builder()
-                           .payload(transactionReport)
-                           .build();
+            SCAResponseTO response = tokenService.response(aspspConsentData);
+            try (AccessTokenScope ignored = applyAuthorisation(response)) {
+                logger.info("Requested transactions for account: {}, dates from: {}, to: {}, withBalance: {}, entryReferenceFrom: {}, deltaList: {}",
+                            accountReference.getResourceId(), dateFrom, dateTo, withBalance, entryReferenceFrom, deltaList);
+                CompletableFuture<ResponseEntity<List<AccountBalanceTO>>> balancesFuture = requestBalancesAsync(withBalance, accountReference);
+                List<SpiCardTransaction> transactions;
+                List<SpiAccountBalance> balances;
+                try {
+                    transactions = accountRestClient.getTransactionByDatesAsStream(accountReference.getResourceId(), dateFrom, dateTo)
+                                           .map(accountMapper::toSpiCardTransaction);
+                    balances = getSpiAccountBalances(balancesFuture);
+                } finally {
+                    // no-op if the balances are there, otherwise they aren't needed anymore
+                    balancesFuture.cancel(true);
+                }
+
+                SpiCardTransactionReport transactionReport =
+                        new SpiCardTransactionReport("dGVzdA==", transactions, balances, processAcceptMediaType(acceptMediaType), null);
+
+                logger.info("Finally found {} transactions.", transactionReport.getCardTransactions().size());
+
+                tokenService.updateIfChanged(aspspConsentDataProvider, aspspConsentData, response);
+
+                return SpiResponse.<SpiCardTransactionReport>builder()
+                               .payload(transactionReport)
+                               .build();
+            }
         } catch (FeignException feignException) {
             String devMessage = feignExceptionReader.getErrorMessage(feignException);
             logger.error("Request transactions for account failed: consent ID {}, resource ID {}, devMessage {}", accountConsent.getId(), accountReference.getResourceId(), devMessage);
             return SpiResponse.<SpiCardTransactionReport>builder()
                            .error(buildTppMessage(feignException))
                            .build();
-        } finally {
-            authRequestInterceptor.setAccessToken(null);
         }
     }
 
@@ -229,59 +240,68 @@ public class CardAccountSpiImpl implements CardAccountSpi {
         byte[] aspspConsentData = aspspConsentDataProvider.loadAspspConsentData();
 
         try {
-            SCAResponseTO response = applyAuthorisation(aspspConsentData);
-
-            logger.info("Requested Balances for ACCOUNT-ID: {}", accountReference.getResourceId());
-            List<SpiAccountBalance> accountBalances = Optional
-                                                              .ofNullable(accountRestClient.getBalances(accountReference.getResourceId()).getBody())
-                                                              .map(accountMapper::toSpiAccountBalancesList)
-                                                              .orElseThrow(() -> FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, RESPONSE_STATUS_200_WITH_EMPTY_BODY));
-            logger.info("Found Balances: {}", accountBalances.size());
-
-            aspspConsentDataProvider.updateAspspConsentData(tokenService.store(response));
-
-            return SpiResponse.<List<SpiAccountBalance>>builder()
-                           .payload(accountBalances)
-                           .build();
+            SCAResponseTO response = tokenService.response(aspspConsentData);
+            try (AccessTokenScope ignored = applyAuthorisation(response)) {
+                logger.info("Requested Balances for ACCOUNT-ID: {}", accountReference.getResourceId());
+                List<SpiAccountBalance> accountBalances = Optional
+                                                                  .ofNullable(accountRestClient.getBalances(accountReference.getResourceId()).getBody())
+                                                                  .map(accountMapper::toSpiAccountBalancesList)
+                                                                  .orElseThrow(() -> FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, RESPONSE_STATUS_200_WITH_EMPTY_BODY));
+                logger.info("Found Balances: {}", accountBalances.size());
+
+                tokenService.updateIfChanged(aspspConsentDataProvider, aspspConsentData, response);
+
+                return SpiResponse.<List<SpiAccountBalance>>builder()
+                               .payload(accountBalances)
+                               .build();
+            }
         } catch (FeignException feignException) {
             String devMessage = feignExceptionReader.getErrorMessage(feignException);
             logger.error("Request balances for account failed: consent ID {}, resource ID {}, devMessage {}", accountConsent.getId(), accountReference.getResourceId(), devMessage);
             return SpiResponse.<List<SpiAccountBalance>>builder()
                            .error(buildTppMessage(feignException))
                            .build();
-        } finally {
-            authRequestInterceptor.setAccessToken(null);
         }
     }
 
     private List<SpiCardAccountDetails> getSpiCardAccountDetails(@NotNull SpiAccountConsent accountConsent,
-                                                                 byte[] aspspConsentData) {
+                                                                 ConsentAccessIndex consentAccessIndex) {
         List<SpiCardAccountDetails> accountDetailsList;
         if (isGlobalConsent(accountConsent.getAccess()) || isAllAvailableAccountsConsent(accountConsent)) {
             logger.info("Consent with ID: {} is a global or available account Consent", accountConsent.getId());
-            accountDetailsList = getAccountDetailsByConsentId(aspspConsentData);
+            accountDetailsList = getAccountDetailsByConsentId();
         } else {
             logger.info("Consent with ID: {} is a regular consent", accountConsent.getId());
-            accountDetailsList = getAccountDetailsFromReferences(accountConsent, aspspConsentData);
+            accountDetailsList = getAccountDetailsFromReferences(consentAccessIndex);
         }
         return accountDetailsList;
     }
 
-    private List<SpiAccountBalance> getSpiAccountBalances(@NotNull SpiContextData contextData,
-                                                          boolean withBalance,
-                                                          @NotNull SpiAccountReference accountReference,
-                                                          @NotNull SpiAccountConsent accountConsent,
-                                                          @NotNull SpiAspspConsentDataProvider aspspConsentDataProvider) {
-        if (withBalance) {
-            SpiResponse<List<SpiAccountBalance>> response = requestCardBalancesForAccount(contextData, accountReference,
-                                                                                          accountConsent, aspspConsentDataProvider);
-            if (response.isSuccessful()) {
-                return response.getPayload();
-            } else {
-                throw FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, "Requested transaction can`t be found");
+    /**
+     * Requests balances of the account in parallel with the transactions, using the access token of the current call.
+     * The returned future is the ledgers call itself, so cancelling it before it has been started skips the call.
+     */
+    private CompletableFuture<ResponseEntity<List<AccountBalanceTO>>> requestBalancesAsync(boolean withBalance,
+                                                                                            @NotNull SpiAccountReference accountReference) {
+        if (!withBalance) {
+            return CompletableFuture.completedFuture(null);
+        }
+        logger.info("Requested Balances for ACCOUNT-ID: {}", accountReference.getResourceId());
+        return asyncAccountRestClient.getBalances(accountReference.getResourceId());
+    }
+
+    private List<SpiAccountBalance> getSpiAccountBalances(CompletableFuture<ResponseEntity<List<AccountBalanceTO>>> balancesFuture) {
+        try {
+            ResponseEntity<List<AccountBalanceTO>> balances = LedgersAsyncExecutor.join(balancesFuture);
+            if (balances == null) {
+                return null;
             }
-        } else {
-            return null;
+            return Optional.ofNullable(balances.getBody())
+                           .map(accountMapper::toSpiAccountBalancesList)
+                           .orElseThrow(() -> FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, RESPONSE_STATUS_200_WITH_EMPTY_BODY));
+        } catch (FeignException feignException) {
+            logger.error("Request balances for account failed: devMessage {}", feignExceptionReader.getErrorMessage(feignException));
+            throw FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, "Requested transaction can`t be found");
         }
     }
 
@@ -293,31 +313,13 @@ public class CardAccountSpiImpl implements CardAccountSpi {
         return accountConsent.getAisConsentRequestType() == AisConsentRequestType.ALL_AVAILABLE_ACCOUNTS;
     }
 
-    private List<SpiCardAccountDetails> getAccountDetailsByConsentId(byte[] aspspConsentData) {
-        try {
-            applyAuthorisation(aspspConsentData);
-
-            return Optional.ofNullable(accountRestClient.getListOfAccounts().getBody())
-                           .map(l -> l.stream().map(accountMapper::toSpiCardAccountDetails).collect(Collectors.toList()))
-                           .orElseGet(Collections::emptyList);
-        } finally {
-            authRequestInterceptor.setAccessToken(null);
-        }
-    }
-
-    private List<SpiCardAccountDetails> getAccountDetailsFromReferences(SpiAccountConsent accountConsent,
-                                                                        byte[] aspspConsentData) {
-
-        SpiAccountAccess accountAccess = accountConsent.getAccess();
-        List<SpiAccountReference> references = accountAccess.getAccounts();
-
-        return getAccountDetailsFromReferences(references, aspspConsentData);
+    private List<SpiCardAccountDetails> getAccountDetailsByConsentId() {
+        return Optional.ofNullable(accountRestClient.getListOfAccounts().getBody())
+                       .map(l -> l.stream().map(accountMapper::toSpiCardAccountDetails).collect(Collectors.toList()))
+                       .orElseGet(Collections::emptyList);
     }
 
-    private List<SpiCardAccountDetails> getAccountDetailsFromReferences(List<SpiAccountReference> references,
-                                                                        byte[] aspspConsentData) {
-        applyAuthorisation(aspspConsentData);
-
+    private List<SpiCardAccountDetails> getAccountDetailsFromReferences(ConsentAccessIndex consentAccessIndex) {
         List<AccountDetailsTO> accountDetails = accountRestClient.getListOfAccounts().getBody();
 
         if (accountDetails == null) {
@@ -325,23 +327,14 @@ public class CardAccountSpiImpl implements CardAccountSpi {
         }
 
         return accountDetails.stream()
-                       .filter(account -> filterAccountDetailsByIbanAndCurrency(references, account))
+                       .filter(account -> consentAccessIndex.hasAccountAccess(account.getIban(), account.getCurrency()))
                        .map(accountMapper::toSpiCardAccountDetails)
                        .collect(Collectors.toList());
     }
 
-    private boolean filterAccountDetailsByIbanAndCurrency(List<SpiAccountReference> references, AccountDetailsTO account) {
-        return references.stream()
-                       .filter(reference -> Optional.ofNullable(reference.getIban())
-                                                    .orElseGet(() -> ibanResolverMockService.handleIbanByAccountReference(reference)) // TODO: Remove when ledgers starts supporting card accounts https://git.adorsys.de/adorsys/xs2a/aspsp-xs2a/issues/1246
-                                                    .equals(account.getIban()))
-                       .anyMatch(reference -> reference.getCurrency() == null || reference.getCurrency().equals(account.getCurrency()));
-    }
-
-    private SCAResponseTO applyAuthorisation(byte[] aspspConsentData) {
-        SCAResponseTO sca = tokenService.response(aspspConsentData);
-        authRequestInterceptor.setAccessToken(sca.getBearerToken().getAccess_token());
-        return sca;
+    private AccessTokenScope applyAuthorisation(SCAResponseTO sca) {
+        tokenService.checkAccessTokenNotExpired(sca);
+        return authRequestInterceptor.withAccessToken(sca.getBearerToken().getAccess_token());
     }
 
     private TppMessage buildTppMessage(FeignException exception) {
@@ -392,18 +385,33 @@ public class CardAccountSpiImpl implements CardAccountSpi {
         return details;
     }
 
-    private SpiCardAccountDetails enrichWithOwnerName(SpiCardAccountDetails spiCardAccountDetails, SpiAccountAccess accountAccess) {
-        Optional<String> ibanOptional = ibanResolverMockService.getIbanByMaskedPan(spiCardAccountDetails.getMaskedPan());
-
-        if (!ibanOptional.isPresent()) {
-            return spiCardAccountDetails;
+    private List<SpiCardAccountDetails> enrichWithOwnerName(List<SpiCardAccountDetails> cardAccountDetailsList, ConsentAccessIndex consentAccessIndex) {
+        List<SpiCardAccountDetails> cardAccountDetailsWithOwnerNameAccess = cardAccountDetailsList.stream()
+                                                                                    .filter(cardAccountDetails -> shouldContainOwnerName(cardAccountDetails, consentAccessIndex))
+                                                                                    .collect(Collectors.toList());
+        if (!cardAccountDetailsWithOwnerNameAccess.isEmpty()) {
+            ownerNameService.enrichCardAccountDetailsListWithOwnerName(cardAccountDetailsWithOwnerNameAccess);
         }
 
-        IbanAccountReference ibanAccountReference = new IbanAccountReference(ibanOptional.get(), spiCardAccountDetails.getCurrency());
-        if (ownerNameService.shouldContainOwnerName(ibanAccountReference, accountAccess)) {
+        return cardAccountDetailsList;
+    }
+
+    private SpiCardAccountDetails enrichWithOwnerName(SpiCardAccountDetails spiCardAccountDetails, ConsentAccessIndex consentAccessIndex) {
+        if (shouldContainOwnerName(spiCardAccountDetails, consentAccessIndex)) {
             return ownerNameService.enrichCardAccountDetailsWithOwnerName(spiCardAccountDetails);
         }
 
         return spiCardAccountDetails;
     }
+
+    private boolean shouldContainOwnerName(SpiCardAccountDetails spiCardAccountDetails, ConsentAccessIndex consentAccessIndex) {
+        Optional<String> ibanOptional = ibanResolverMockService.getIbanByMaskedPan(spiCardAccountDetails.getMaskedPan());
+
+        if (!ibanOptional.isPresent()) {
+            return false;
+        }
+
+        IbanAccountReference ibanAccountReference = new IbanAccountReference(ibanOptional.get(), spiCardAccountDetails.getCurrency());
+        return ownerNameService.shouldContainOwnerName(ibanAccountReference, consentAccessIndex);
+    }
 }
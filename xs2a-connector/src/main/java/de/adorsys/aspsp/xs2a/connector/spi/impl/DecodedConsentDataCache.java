@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.spi.impl;
+
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ASPSP consent data decoded during the current request, keyed by the content of the consent data bytes and the
+ * requested type, so the same bytes are parsed only once per request. Outside of a request nothing is cached.
+ */
+class DecodedConsentDataCache {
+    private static final String ATTRIBUTE_NAME = DecodedConsentDataCache.class.getName();
+
+    <T extends SCAResponseTO> T get(byte[] aspspConsentData, Class<T> type) {
+        Map<Key, SCAResponseTO> entries = entries();
+        if (entries == null || aspspConsentData == null) {
+            return null;
+        }
+        SCAResponseTO response = entries.get(new Key(aspspConsentData, type));
+        if (response == null && type != SCAResponseTO.class) {
+            // bytes already decoded by their object type
+            response = entries.get(new Key(aspspConsentData, SCAResponseTO.class));
+        }
+        return type.isInstance(response)
+                       ? type.cast(response)
+                       : null;
+    }
+
+    void put(byte[] aspspConsentData, Class<? extends SCAResponseTO> type, SCAResponseTO response) {
+        Map<Key, SCAResponseTO> entries = entries();
+        if (entries != null && aspspConsentData != null && response != null) {
+            entries.put(new Key(aspspConsentData.clone(), type), response);
+        }
+    }
+
+    /**
+     * Forgets the bytes the given response was decoded from, as the response has been changed and stored again.
+     */
+    void evict(SCAResponseTO response) {
+        Map<Key, SCAResponseTO> entries = entries();
+        if (entries != null) {
+            entries.values().removeIf(cached -> cached == response);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Key, SCAResponseTO> entries() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes == null) {
+            return null;
+        }
+        Map<Key, SCAResponseTO> entries = (Map<Key, SCAResponseTO>) requestAttributes.getAttribute(ATTRIBUTE_NAME, RequestAttributes.SCOPE_REQUEST);
+        if (entries == null) {
+            entries = new ConcurrentHashMap<>();
+            requestAttributes.setAttribute(ATTRIBUTE_NAME, entries, RequestAttributes.SCOPE_REQUEST);
+        }
+        return entries;
+    }
+
+    private static final class Key {
+        private final byte[] aspspConsentData;
+        private final Class<?> type;
+        private final int hash;
+
+        private Key(byte[] aspspConsentData, Class<?> type) {
+            this.aspspConsentData = aspspConsentData;
+            this.type = type;
+            this.hash = 31 * Arrays.hashCode(aspspConsentData) + type.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return hash == key.hash
+                           && Objects.equals(type, key.type)
+                           && Arrays.equals(aspspConsentData, key.aspspConsentData);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
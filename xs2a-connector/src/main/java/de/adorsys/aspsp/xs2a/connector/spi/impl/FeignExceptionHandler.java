@@ -1,5 +1,6 @@
 package de.adorsys.aspsp.xs2a.connector.spi.impl;
 
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
 import de.adorsys.psd2.xs2a.core.error.MessageErrorCode;
 import de.adorsys.psd2.xs2a.core.error.TppMessage;
 import feign.FeignException;
@@ -12,6 +13,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.client.ResourceAccessException;
 
 import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
@@ -31,6 +33,7 @@ public class FeignExceptionHandler {
 
         switch (HttpStatus.valueOf(e.status())) {
             case INTERNAL_SERVER_ERROR:
+            case SERVICE_UNAVAILABLE: // ledgers is down or the call was rejected by its circuit breaker/bulkhead
                 return new TppMessage(MessageErrorCode.INTERNAL_SERVER_ERROR);
             case UNAUTHORIZED:
                 return new TppMessage(MessageErrorCode.PSU_CREDENTIALS_INVALID);
@@ -54,6 +57,20 @@ public class FeignExceptionHandler {
         return FeignException.errorStatus(message, error(httpStatus));
     }
 
+    /**
+     * An exception carrying the JSON error body ledgers answers with, so that {@link FeignExceptionReader} reads the
+     * {@code devMessage} and the TPP gets the same message as for the corresponding ledgers response.
+     */
+    public static FeignException getLedgersException(HttpStatus httpStatus, String devMessage) {
+        String body = "{\"devMessage\":\"" + new String(JsonStringEncoder.getInstance().quoteAsString(devMessage)) + "\"}";
+        return FeignException.errorStatus(devMessage, Response.builder()
+                                                              .status(httpStatus.value())
+                                                              .request(Request.create(Request.HttpMethod.GET, "", Collections.emptyMap(), null))
+                                                              .headers(Collections.emptyMap())
+                                                              .body(body, StandardCharsets.UTF_8)
+                                                              .build());
+    }
+
     static Response error(HttpStatus httpStatus) {
         return Response.builder()
                        .status(httpStatus.value())
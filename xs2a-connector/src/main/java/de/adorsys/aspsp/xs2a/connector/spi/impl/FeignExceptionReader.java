@@ -1,7 +1,7 @@
 package de.adorsys.aspsp.xs2a.connector.spi.impl;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.ledgers.rest.client.JsonCodecRegistry;
 import feign.FeignException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,7 +14,7 @@ import java.util.Optional;
 @Slf4j
 @RequiredArgsConstructor
 public class FeignExceptionReader {
-    private final ObjectMapper objectMapper;
+    private final JsonCodecRegistry jsonCodecRegistry;
 
     public String getErrorMessage(FeignException feignException) {
         return Optional.ofNullable(feignException.content())
@@ -46,7 +46,7 @@ public class FeignExceptionReader {
 
     private JsonNode readTree(byte[] content) {
         try {
-            return objectMapper.readTree(content);
+            return jsonCodecRegistry.readTree(content);
         } catch (IOException ex) {
             log.error("Could not parse Error Message from Bank!");
             return null;
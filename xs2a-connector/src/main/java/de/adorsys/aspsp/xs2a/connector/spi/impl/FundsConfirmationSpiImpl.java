@@ -21,6 +21,7 @@ import de.adorsys.ledgers.middleware.api.domain.account.FundsConfirmationRequest
 import de.adorsys.ledgers.middleware.api.domain.sca.SCALoginResponseTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
 import de.adorsys.ledgers.middleware.api.domain.um.UserRoleTO;
+import de.adorsys.ledgers.rest.client.AccessTokenScope;
 import de.adorsys.ledgers.rest.client.AccountRestClient;
 import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
 import de.adorsys.ledgers.rest.client.UserMgmtRestClient;
@@ -86,32 +87,31 @@ public class FundsConfirmationSpiImpl implements FundsConfirmationSpi {
             } else {
                 // This is normal flow when PIIS consent is supported in ASPSP profile.
                 SCAResponseTO response = tokenService.response(aspspConsentData);
+                tokenService.checkAccessTokenNotExpired(response);
                 tokenForAuthorisation = response.getBearerToken().getAccess_token();
             }
 
-            authRequestInterceptor.setAccessToken(tokenForAuthorisation);
+            try (AccessTokenScope ignored = authRequestInterceptor.withAccessToken(tokenForAuthorisation)) {
+                logger.info("Funds confirmation request: {}", spiFundsConfirmationRequest);
+                FundsConfirmationRequestTO request = accountMapper.toFundsConfirmationTO(contextData.getPsuData(), spiFundsConfirmationRequest);
+                Boolean fundsAvailable = restClient.fundsConfirmation(request).getBody();
+                logger.info("Funds confirmation response: {}", fundsAvailable);
 
-            logger.info("Funds confirmation request: {}", spiFundsConfirmationRequest);
-            FundsConfirmationRequestTO request = accountMapper.toFundsConfirmationTO(contextData.getPsuData(), spiFundsConfirmationRequest);
-            Boolean fundsAvailable = restClient.fundsConfirmation(request).getBody();
-            logger.info("Funds confirmation response: {}", fundsAvailable);
+                SpiFundsConfirmationResponse spiFundsConfirmationResponse = new SpiFundsConfirmationResponse();
+                spiFundsConfirmationResponse.setFundsAvailable(Optional.ofNullable(fundsAvailable).orElse(false));
 
-            SpiFundsConfirmationResponse spiFundsConfirmationResponse = new SpiFundsConfirmationResponse();
-            spiFundsConfirmationResponse.setFundsAvailable(Optional.ofNullable(fundsAvailable).orElse(false));
+                if (aspspConsentDataProvider != null) {
+                    tokenService.updateIfChanged(aspspConsentDataProvider, aspspConsentData, tokenService.response(aspspConsentData));
+                }
 
-            if (aspspConsentDataProvider != null) {
-                aspspConsentDataProvider.updateAspspConsentData(tokenService.store(tokenService.response(aspspConsentData)));
+                return SpiResponse.<SpiFundsConfirmationResponse>builder()
+                               .payload(spiFundsConfirmationResponse)
+                               .build();
             }
-
-            return SpiResponse.<SpiFundsConfirmationResponse>builder()
-                           .payload(spiFundsConfirmationResponse)
-                           .build();
         } catch (FeignException e) {
             return SpiResponse.<SpiFundsConfirmationResponse>builder()
                            .error(FeignExceptionHandler.getFailureMessage(e, MessageErrorCode.FUNDS_CONFIRMATION_FAILED))
                            .build();
-        } finally {
-            authRequestInterceptor.setAccessToken(null);
         }
     }
 
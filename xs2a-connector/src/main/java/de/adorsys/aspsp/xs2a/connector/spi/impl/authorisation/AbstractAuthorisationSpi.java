@@ -11,6 +11,7 @@ import de.adorsys.ledgers.middleware.api.domain.sca.ScaStatusTO;
 import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
 import de.adorsys.ledgers.middleware.api.domain.um.ScaUserDataTO;
 import de.adorsys.ledgers.middleware.api.service.TokenStorageService;
+import de.adorsys.ledgers.rest.client.AccessTokenScope;
 import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
 import de.adorsys.psd2.xs2a.core.authorisation.AuthenticationObject;
 import de.adorsys.psd2.xs2a.core.consent.AspspConsentData;
@@ -184,9 +185,7 @@ public abstract class AbstractAuthorisationSpi<T, R extends SCAResponseTO> {
                                                                                      @NotNull SpiAspspConsentDataProvider aspspConsentDataProvider) {
         R sca = getSCAConsentResponse(aspspConsentDataProvider, true);
         if (EnumSet.of(PSUIDENTIFIED, PSUAUTHENTICATED).contains(sca.getScaStatus())) {
-            try {
-                authRequestInterceptor.setAccessToken(sca.getBearerToken().getAccess_token());
-
+            try (AccessTokenScope ignored = applyAuthorisation(sca)) {
                 ResponseEntity<R> selectMethodResponse = getSelectMethodResponse(authenticationMethodId, sca);
                 R authCodeResponse = selectMethodResponse.getBody();
                 if (authCodeResponse != null && authCodeResponse.getBearerToken() == null) {
@@ -200,8 +199,6 @@ public abstract class AbstractAuthorisationSpi<T, R extends SCAResponseTO> {
                 return SpiResponse.<SpiAuthorizationCodeResult>builder()
                                .error(errorMessage)
                                .build();
-            } finally {
-                authRequestInterceptor.setAccessToken(null);
             }
         } else {
             return authorisationService.getResponseIfScaSelected(aspspConsentDataProvider, sca);
@@ -256,6 +253,14 @@ public abstract class AbstractAuthorisationSpi<T, R extends SCAResponseTO> {
         return false;
     }
 
+    /**
+     * Binds the bearer token of the response for the ledgers requests, unless it has already expired.
+     */
+    protected AccessTokenScope applyAuthorisation(SCAResponseTO sca) {
+        consentDataService.checkAccessTokenNotExpired(sca);
+        return authRequestInterceptor.withAccessToken(sca.getBearerToken().getAccess_token());
+    }
+
     protected abstract boolean isFirstInitiationOfMultilevelSca(T businessObject, R scaBusinessObjectResponse);
 
     protected SpiResponse<SpiPsuAuthorisationResponse> onSuccessfulAuthorisation(T businessObject,
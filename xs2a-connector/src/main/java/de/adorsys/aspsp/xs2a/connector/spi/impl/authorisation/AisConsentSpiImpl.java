@@ -29,6 +29,7 @@ import de.adorsys.ledgers.middleware.api.domain.um.AisConsentTO;
 import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
 import de.adorsys.ledgers.middleware.api.service.TokenStorageService;
 import de.adorsys.ledgers.rest.client.AccountRestClient;
+import de.adorsys.ledgers.rest.client.AccessTokenScope;
 import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
 import de.adorsys.ledgers.rest.client.ConsentRestClient;
 import de.adorsys.ledgers.rest.client.UserMgmtRestClient;
@@ -82,7 +83,6 @@ public class AisConsentSpiImpl extends AbstractAuthorisationSpi<SpiAccountConsen
     private final LedgersSpiAccountMapper accountMapper;
     private final TokenStorageService tokenStorageService;
     private final AisConsentMapper aisConsentMapper;
-    private final AuthRequestInterceptor authRequestInterceptor;
     private final AspspConsentDataService consentDataService;
     private final ScaLoginMapper scaLoginMapper;
     private final FeignExceptionReader feignExceptionReader;
@@ -101,7 +101,6 @@ public class AisConsentSpiImpl extends AbstractAuthorisationSpi<SpiAccountConsen
         this.consentRestClient = consentRestClient;
         this.tokenStorageService = tokenStorageService;
         this.aisConsentMapper = aisConsentMapper;
-        this.authRequestInterceptor = authRequestInterceptor;
         this.consentDataService = consentDataService;
         this.scaLoginMapper = scaLoginMapper;
         this.feignExceptionReader = feignExceptionReader;
@@ -192,20 +191,20 @@ public class AisConsentSpiImpl extends AbstractAuthorisationSpi<SpiAccountConsen
                                                                                           @NotNull SpiAspspConsentDataProvider aspspConsentDataProvider) {
         try {
             SCAConsentResponseTO sca = consentDataService.response(aspspConsentDataProvider.loadAspspConsentData(), SCAConsentResponseTO.class);
-            authRequestInterceptor.setAccessToken(sca.getBearerToken().getAccess_token());
+            try (AccessTokenScope ignored = applyAuthorisation(sca)) {
+                ResponseEntity<SCAConsentResponseTO> authorizeConsentResponse = consentRestClient
+                                                                                        .authorizeConsent(sca.getConsentId(), sca.getAuthorisationId(), spiScaConfirmation.getTanNumber());
+                SCAConsentResponseTO consentResponse = authorizeConsentResponse.getBody();
 
-            ResponseEntity<SCAConsentResponseTO> authorizeConsentResponse = consentRestClient
-                                                                                    .authorizeConsent(sca.getConsentId(), sca.getAuthorisationId(), spiScaConfirmation.getTanNumber());
-            SCAConsentResponseTO consentResponse = authorizeConsentResponse.getBody();
+                String scaStatusName = sca.getScaStatus().name();
+                logger.info(SCA_STATUS_LOG, scaStatusName);
+                aspspConsentDataProvider.updateAspspConsentData(consentDataService.store(consentResponse, !consentResponse.isPartiallyAuthorised()));
 
-            String scaStatusName = sca.getScaStatus().name();
-            logger.info(SCA_STATUS_LOG, scaStatusName);
-            aspspConsentDataProvider.updateAspspConsentData(consentDataService.store(consentResponse, !consentResponse.isPartiallyAuthorised()));
-
-            // TODO use real sca status from Ledgers for resolving consent status https://git.adorsys.de/adorsys/xs2a/ledgers/issues/206
-            return SpiResponse.<SpiVerifyScaAuthorisationResponse>builder()
-                           .payload(new SpiVerifyScaAuthorisationResponse(getConsentStatus(consentResponse)))
-                           .build();
+                // TODO use real sca status from Ledgers for resolving consent status https://git.adorsys.de/adorsys/xs2a/ledgers/issues/206
+                return SpiResponse.<SpiVerifyScaAuthorisationResponse>builder()
+                               .payload(new SpiVerifyScaAuthorisationResponse(getConsentStatus(consentResponse)))
+                               .build();
+            }
         } catch (FeignException feignException) {
             String devMessage = feignExceptionReader.getErrorMessage(feignException);
             logger.error("Verify sca authorisation failed: consent ID {}, devMessage {}", accountConsent.getId(), devMessage);
@@ -221,8 +220,6 @@ public class AisConsentSpiImpl extends AbstractAuthorisationSpi<SpiAccountConsen
             return SpiResponse.<SpiVerifyScaAuthorisationResponse>builder()
                            .error(FeignExceptionHandler.getFailureMessage(feignException, MessageErrorCode.PSU_CREDENTIALS_INVALID, devMessage))
                            .build();
-        } finally {
-            authRequestInterceptor.setAccessToken(null);
         }
     }
 
@@ -231,33 +228,30 @@ public class AisConsentSpiImpl extends AbstractAuthorisationSpi<SpiAccountConsen
 
         try {
             SCAConsentResponseTO sca = consentDataService.response(spiAspspConsentDataProvider.loadAspspConsentData(), SCAConsentResponseTO.class);
-            authRequestInterceptor.setAccessToken(sca.getBearerToken().getAccess_token());
+            try (AccessTokenScope ignored = applyAuthorisation(sca)) {
+                ResponseEntity<AuthConfirmationTO> authConfirmationTOResponse =
+                        userMgmtRestClient.verifyAuthConfirmationCode(spiCheckConfirmationCodeRequest.getAuthorisationId(), spiCheckConfirmationCodeRequest.getConfirmationCode());
 
-            ResponseEntity<AuthConfirmationTO> authConfirmationTOResponse =
-                    userMgmtRestClient.verifyAuthConfirmationCode(spiCheckConfirmationCodeRequest.getAuthorisationId(), spiCheckConfirmationCodeRequest.getConfirmationCode());
+                AuthConfirmationTO authConfirmationTO = authConfirmationTOResponse.getBody();
 
-            AuthConfirmationTO authConfirmationTO = authConfirmationTOResponse.getBody();
+                if (authConfirmationTO == null || !authConfirmationTO.isSuccess()) {
+                    // No response in payload from ASPSP or confirmation code verification failed at ASPSP side.
+                    return getConfirmationCodeResponseForXs2a(ScaStatus.FAILED, ConsentStatus.REJECTED);
+                }
 
-            if (authConfirmationTO == null || !authConfirmationTO.isSuccess()) {
-                // No response in payload from ASPSP or confirmation code verification failed at ASPSP side.
-                return getConfirmationCodeResponseForXs2a(ScaStatus.FAILED, ConsentStatus.REJECTED);
-            }
+                if (authConfirmationTO.isPartiallyAuthorised()) {
+                    // This authorisation is finished, but others are left.
+                    return getConfirmationCodeResponseForXs2a(ScaStatus.FINALISED, ConsentStatus.PARTIALLY_AUTHORISED);
+                }
 
-            if (authConfirmationTO.isPartiallyAuthorised()) {
-                // This authorisation is finished, but others are left.
-                return getConfirmationCodeResponseForXs2a(ScaStatus.FINALISED, ConsentStatus.PARTIALLY_AUTHORISED);
+                // Authorisation is finalised and consent becomes valid.
+                return getConfirmationCodeResponseForXs2a(ScaStatus.FINALISED, ConsentStatus.VALID);
             }
-
-            // Authorisation is finalised and consent becomes valid.
-            return getConfirmationCodeResponseForXs2a(ScaStatus.FINALISED, ConsentStatus.VALID);
-
         } catch (FeignException feignException) {
             String devMessage = feignExceptionReader.getErrorMessage(feignException);
             return SpiResponse.<SpiConsentConfirmationCodeValidationResponse>builder()
                            .error(FeignExceptionHandler.getFailureMessage(feignException, MessageErrorCode.PSU_CREDENTIALS_INVALID, devMessage))
                            .build();
-        } finally {
-            authRequestInterceptor.setAccessToken(null);
         }
     }
 
@@ -407,10 +401,8 @@ public class AisConsentSpiImpl extends AbstractAuthorisationSpi<SpiAccountConsen
     }
 
     private SCAConsentResponseTO initiateConsentInternal(SpiAccountConsent accountConsent, byte[] initialAspspConsentData) {
-        try {
-            SCAResponseTO sca = consentDataService.response(initialAspspConsentData);
-            authRequestInterceptor.setAccessToken(sca.getBearerToken().getAccess_token());
-
+        SCAResponseTO sca = consentDataService.response(initialAspspConsentData);
+        try (AccessTokenScope ignored = applyAuthorisation(sca)) {
             SpiAccountAccess spiAccountAccess = accountConsent.getAccess();
             boolean isAllAvailableAccounts = spiAccountAccess.getAvailableAccounts() != null;
             boolean isAllAvailableAccountsWithBalance = spiAccountAccess.getAvailableAccountsWithBalance() != null;
@@ -440,8 +432,6 @@ public class AisConsentSpiImpl extends AbstractAuthorisationSpi<SpiAccountConsen
                 response.setBearerToken(sca.getBearerToken());
             }
             return response;
-        } finally {
-            authRequestInterceptor.setAccessToken(null);
         }
     }
 
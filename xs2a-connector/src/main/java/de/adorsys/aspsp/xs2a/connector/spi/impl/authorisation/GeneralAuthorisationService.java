@@ -26,7 +26,9 @@ import de.adorsys.ledgers.middleware.api.domain.sca.SCALoginResponseTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.ScaStatusTO;
 import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
+import de.adorsys.ledgers.rest.client.AccessTokenScope;
 import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import de.adorsys.ledgers.rest.client.LocalTokenValidator;
 import de.adorsys.ledgers.rest.client.UserMgmtRestClient;
 import de.adorsys.ledgers.util.Ids;
 import de.adorsys.psd2.xs2a.core.consent.AspspConsentData;
@@ -44,6 +46,7 @@ import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 
@@ -62,15 +65,18 @@ public class GeneralAuthorisationService {
     private final ScaMethodConverter scaMethodConverter;
     private final AspspConsentDataService consentDataService;
     private final FeignExceptionReader feignExceptionReader;
+    private final LocalTokenValidator localTokenValidator;
 
     public GeneralAuthorisationService(UserMgmtRestClient userMgmtRestClient, AuthRequestInterceptor authRequestInterceptor,
-                                       ChallengeDataMapper challengeDataMapper, ScaMethodConverter scaMethodConverter, AspspConsentDataService consentDataService, FeignExceptionReader feignExceptionReader) {
+                                       ChallengeDataMapper challengeDataMapper, ScaMethodConverter scaMethodConverter, AspspConsentDataService consentDataService, FeignExceptionReader feignExceptionReader,
+                                       LocalTokenValidator localTokenValidator) {
         this.userMgmtRestClient = userMgmtRestClient;
         this.authRequestInterceptor = authRequestInterceptor;
         this.challengeDataMapper = challengeDataMapper;
         this.scaMethodConverter = scaMethodConverter;
         this.consentDataService = consentDataService;
         this.feignExceptionReader = feignExceptionReader;
+        this.localTokenValidator = localTokenValidator;
     }
 
     @Deprecated // TODO remove deprecated method in 6.7 https://git.adorsys.de/adorsys/xs2a/aspsp-xs2a/-/issues/1270
@@ -149,13 +155,26 @@ public class GeneralAuthorisationService {
         }
     }
 
+    /**
+     * Validates the access token locally if possible, otherwise in ledgers (see {@link LocalTokenValidator}).
+     * <p>
+     * An invalid token is rejected with a 401 {@link FeignException}, no matter if it was rejected locally or ledgers
+     * answered without a token. Callers therefore never store a {@code null} bearer token in the consent data,
+     * they handle the rejection like any other failed ledgers call.
+     *
+     * @return the validated token, never {@code null}
+     * @throws FeignException with status 401 if the token is invalid or expired
+     */
     public BearerTokenTO validateToken(String accessToken) {
-        try {
-            authRequestInterceptor.setAccessToken(accessToken);
-            return userMgmtRestClient.validate(accessToken).getBody();
-        } finally {
-            authRequestInterceptor.setAccessToken(null);
+        BearerTokenTO bearerToken = localTokenValidator.validate(accessToken, () -> {
+            try (AccessTokenScope ignored = authRequestInterceptor.withAccessToken(accessToken)) {
+                return userMgmtRestClient.validate(accessToken).getBody();
+            }
+        });
+        if (bearerToken == null) {
+            throw FeignExceptionHandler.getException(HttpStatus.UNAUTHORIZED, "Access token is invalid or expired");
         }
+        return bearerToken;
     }
 
     public SpiResponse<SpiAuthorizationCodeResult> getResponseIfScaSelected(SpiAspspConsentDataProvider aspspConsentDataProvider, SCAResponseTO sca) {
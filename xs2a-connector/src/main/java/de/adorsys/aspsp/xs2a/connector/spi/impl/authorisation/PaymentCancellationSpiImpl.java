@@ -25,6 +25,7 @@ import de.adorsys.ledgers.middleware.api.domain.payment.PaymentTypeTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.*;
 import de.adorsys.ledgers.middleware.api.domain.um.ScaUserDataTO;
 import de.adorsys.ledgers.middleware.api.service.TokenStorageService;
+import de.adorsys.ledgers.rest.client.AccessTokenScope;
 import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
 import de.adorsys.ledgers.rest.client.PaymentRestClient;
 import de.adorsys.psd2.xs2a.core.error.MessageErrorCode;
@@ -59,7 +60,6 @@ public class PaymentCancellationSpiImpl extends AbstractAuthorisationSpi<SpiPaym
 
     private final PaymentRestClient paymentRestClient;
     private final TokenStorageService tokenStorageService;
-    private final AuthRequestInterceptor authRequestInterceptor;
     private final AspspConsentDataService consentDataService;
     private final FeignExceptionReader feignExceptionReader;
     private final ScaLoginMapper scaLoginMapper;
@@ -72,7 +72,6 @@ public class PaymentCancellationSpiImpl extends AbstractAuthorisationSpi<SpiPaym
         super(authRequestInterceptor, consentDataService, authorisationService, scaMethodConverter, feignExceptionReader, tokenStorageService);
         this.paymentRestClient = ledgersRestClient;
         this.tokenStorageService = tokenStorageService;
-        this.authRequestInterceptor = authRequestInterceptor;
         this.consentDataService = consentDataService;
         this.feignExceptionReader = feignExceptionReader;
         this.scaLoginMapper = scaLoginMapper;
@@ -105,8 +104,7 @@ public class PaymentCancellationSpiImpl extends AbstractAuthorisationSpi<SpiPaym
 
         SCAPaymentResponseTO sca = getSCAConsentResponse(aspspConsentDataProvider, true);
         if (sca.getScaStatus() == ScaStatusTO.EXEMPTED) {
-            authRequestInterceptor.setAccessToken(sca.getBearerToken().getAccess_token());
-            try {
+            try (AccessTokenScope ignored = applyAuthorisation(sca)) {
                 paymentRestClient.initiatePmtCancellation(payment.getPaymentId());
                 return SpiResponse.<SpiResponse.VoidResponse>builder()
                                .payload(SpiResponse.voidResponse())
@@ -132,16 +130,16 @@ public class PaymentCancellationSpiImpl extends AbstractAuthorisationSpi<SpiPaym
                                                                                                  @NotNull SpiAspspConsentDataProvider aspspConsentDataProvider) {
         try {
             SCAPaymentResponseTO sca = getSCAConsentResponse(aspspConsentDataProvider, true);
-            authRequestInterceptor.setAccessToken(sca.getBearerToken().getAccess_token());
-
-            ResponseEntity<SCAPaymentResponseTO> response = paymentRestClient.authorizeCancelPayment(sca.getPaymentId(), sca.getAuthorisationId(), spiScaConfirmation.getTanNumber());
-            return response.getStatusCode() == HttpStatus.OK
-                           ? SpiResponse.<SpiResponse.VoidResponse>builder()
-                                     .payload(SpiResponse.voidResponse())
-                                     .build()
-                           : SpiResponse.<SpiResponse.VoidResponse>builder()
-                                     .error(new TppMessage(MessageErrorCode.UNAUTHORIZED_CANCELLATION))
-                                     .build();
+            try (AccessTokenScope ignored = applyAuthorisation(sca)) {
+                ResponseEntity<SCAPaymentResponseTO> response = paymentRestClient.authorizeCancelPayment(sca.getPaymentId(), sca.getAuthorisationId(), spiScaConfirmation.getTanNumber());
+                return response.getStatusCode() == HttpStatus.OK
+                               ? SpiResponse.<SpiResponse.VoidResponse>builder()
+                                         .payload(SpiResponse.voidResponse())
+                                         .build()
+                               : SpiResponse.<SpiResponse.VoidResponse>builder()
+                                         .error(new TppMessage(MessageErrorCode.UNAUTHORIZED_CANCELLATION))
+                                         .build();
+            }
         } catch (FeignException feignException) {
             String devMessage = feignExceptionReader.getErrorMessage(feignException);
             logger.error("Verify sca authorisation and cancel payment failed: payment ID {}, devMessage {}", payment.getPaymentId(), devMessage);
@@ -158,16 +156,16 @@ public class PaymentCancellationSpiImpl extends AbstractAuthorisationSpi<SpiPaym
                                                                                            @NotNull SpiAspspConsentDataProvider aspspConsentDataProvider) {
         try {
             SCAPaymentResponseTO sca = getSCAConsentResponse(aspspConsentDataProvider, true);
-            authRequestInterceptor.setAccessToken(sca.getBearerToken().getAccess_token());
-
-            ResponseEntity<SCAPaymentResponseTO> response = paymentRestClient.authorizeCancelPayment(sca.getPaymentId(), sca.getAuthorisationId(), spiScaConfirmation.getTanNumber());
-            return response.getStatusCode() == HttpStatus.OK
-                           ? SpiResponse.<SpiPaymentResponse>builder()
-                                     .payload(new SpiPaymentResponse(SpiAuthorisationStatus.SUCCESS))
-                                     .build()
-                           : SpiResponse.<SpiPaymentResponse>builder()
-                                     .error(new TppMessage(MessageErrorCode.UNAUTHORIZED_CANCELLATION))
-                                     .build();
+            try (AccessTokenScope ignored = applyAuthorisation(sca)) {
+                ResponseEntity<SCAPaymentResponseTO> response = paymentRestClient.authorizeCancelPayment(sca.getPaymentId(), sca.getAuthorisationId(), spiScaConfirmation.getTanNumber());
+                return response.getStatusCode() == HttpStatus.OK
+                               ? SpiResponse.<SpiPaymentResponse>builder()
+                                         .payload(new SpiPaymentResponse(SpiAuthorisationStatus.SUCCESS))
+                                         .build()
+                               : SpiResponse.<SpiPaymentResponse>builder()
+                                         .error(new TppMessage(MessageErrorCode.UNAUTHORIZED_CANCELLATION))
+                                         .build();
+            }
         } catch (FeignException feignException) {
             String devMessage = feignExceptionReader.getErrorMessage(feignException);
             logger.error("Verify sca authorisation and cancel payment failed: payment ID {}, devMessage {}", payment.getPaymentId(), devMessage);
@@ -262,11 +260,12 @@ public class PaymentCancellationSpiImpl extends AbstractAuthorisationSpi<SpiPaym
 
     @Override
     protected Optional<List<ScaUserDataTO>> getScaMethods(SCAPaymentResponseTO sca) {
-        authRequestInterceptor.setAccessToken(sca.getBearerToken().getAccess_token());
-        ResponseEntity<SCAPaymentResponseTO> cancelSCA = paymentRestClient.getCancelSCA(sca.getPaymentId(), sca.getAuthorisationId());
+        try (AccessTokenScope ignored = applyAuthorisation(sca)) {
+            ResponseEntity<SCAPaymentResponseTO> cancelSCA = paymentRestClient.getCancelSCA(sca.getPaymentId(), sca.getAuthorisationId());
 
-        return Optional.ofNullable(cancelSCA.getBody())
-                       .map(SCAPaymentResponseTO::getScaMethods);
+            return Optional.ofNullable(cancelSCA.getBody())
+                           .map(SCAPaymentResponseTO::getScaMethods);
+        }
     }
 
     @Override
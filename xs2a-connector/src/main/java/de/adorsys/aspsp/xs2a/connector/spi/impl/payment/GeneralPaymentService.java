@@ -27,6 +27,7 @@ import de.adorsys.ledgers.middleware.api.domain.sca.AuthConfirmationTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.SCAPaymentResponseTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.ScaStatusTO;
+import de.adorsys.ledgers.rest.client.AccessTokenScope;
 import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
 import de.adorsys.ledgers.rest.client.PaymentRestClient;
 import de.adorsys.ledgers.rest.client.UserMgmtRestClient;
@@ -111,18 +112,18 @@ public class GeneralPaymentService {
         }
         try {
             SCAPaymentResponseTO sca = consentDataService.response(aspspConsentData, SCAPaymentResponseTO.class);
-            authRequestInterceptor.setAccessToken(sca.getBearerToken().getAccess_token());
-
-            logger.info("Get payment status by ID with type: {} and ID: {}", paymentType, paymentId);
-            TransactionStatusTO response = paymentRestClient.getPaymentStatusById(sca.getPaymentId()).getBody();
-            TransactionStatus status = Optional.ofNullable(response)
-                                               .map(r -> TransactionStatus.valueOf(r.name()))
-                                               .orElseThrow(() -> FeignException.errorStatus("Request failed, response was 200, but body was empty!",
-                                                                                             Response.builder().status(HttpStatus.BAD_REQUEST.value()).build()));
-            logger.info("Transaction status: {}", status);
-            return SpiResponse.<SpiGetPaymentStatusResponse>builder()
-                           .payload(new SpiGetPaymentStatusResponse(status, null, SpiGetPaymentStatusResponse.RESPONSE_TYPE_JSON, null, PSU_MESSAGE))
-                           .build();
+            try (AccessTokenScope ignored = applyAuthorisation(sca)) {
+                logger.info("Get payment status by ID with type: {} and ID: {}", paymentType, paymentId);
+                TransactionStatusTO response = paymentRestClient.getPaymentStatusById(sca.getPaymentId()).getBody();
+                TransactionStatus status = Optional.ofNullable(response)
+                                                   .map(r -> TransactionStatus.valueOf(r.name()))
+                                                   .orElseThrow(() -> FeignException.errorStatus("Request failed, response was 200, but body was empty!",
+                                                                                                 Response.builder().status(HttpStatus.BAD_REQUEST.value()).build()));
+                logger.info("Transaction status: {}", status);
+                return SpiResponse.<SpiGetPaymentStatusResponse>builder()
+                               .payload(new SpiGetPaymentStatusResponse(status, null, SpiGetPaymentStatusResponse.RESPONSE_TYPE_JSON, null, PSU_MESSAGE))
+                               .build();
+            }
         } catch (FeignException feignException) {
             String devMessage = feignExceptionReader.getErrorMessage(feignException);
             logger.error("Get payment status by id failed: payment ID {}, devMessage {}", paymentId, devMessage);
@@ -130,8 +131,6 @@ public class GeneralPaymentService {
                            .error(new TppMessage(MessageErrorCode.FORMAT_ERROR, devMessage))
                            .build();
 
-        } finally {
-            authRequestInterceptor.setAccessToken(null);
         }
     }
 
@@ -139,22 +138,22 @@ public class GeneralPaymentService {
     public SpiResponse<SpiPaymentExecutionResponse> verifyScaAuthorisationAndExecutePayment(@NotNull SpiScaConfirmation spiScaConfirmation, @NotNull SpiAspspConsentDataProvider aspspConsentDataProvider) {
         try {
             SCAPaymentResponseTO sca = consentDataService.response(aspspConsentDataProvider.loadAspspConsentData(), SCAPaymentResponseTO.class);
-            authRequestInterceptor.setAccessToken(sca.getBearerToken().getAccess_token());
+            try (AccessTokenScope ignored = applyAuthorisation(sca)) {
+                ResponseEntity<SCAPaymentResponseTO> authorizePaymentResponse = paymentRestClient.authorizePayment(sca.getPaymentId(), sca.getAuthorisationId(), spiScaConfirmation.getTanNumber());
+                SCAPaymentResponseTO consentResponse = authorizePaymentResponse.getBody();
 
-            ResponseEntity<SCAPaymentResponseTO> authorizePaymentResponse = paymentRestClient.authorizePayment(sca.getPaymentId(), sca.getAuthorisationId(), spiScaConfirmation.getTanNumber());
-            SCAPaymentResponseTO consentResponse = authorizePaymentResponse.getBody();
+                aspspConsentDataProvider.updateAspspConsentData(consentDataService.store(consentResponse));
 
-            aspspConsentDataProvider.updateAspspConsentData(consentDataService.store(consentResponse));
+                String scaStatus = Optional.ofNullable(consentResponse)
+                                           .map(SCAResponseTO::getScaStatus)
+                                           .map(ScaStatusTO::name)
+                                           .orElse(null);
 
-            String scaStatus = Optional.ofNullable(consentResponse)
-                                       .map(SCAResponseTO::getScaStatus)
-                                       .map(ScaStatusTO::name)
-                                       .orElse(null);
-
-            logger.info("SCA status is: {}", scaStatus);
-            return SpiResponse.<SpiPaymentExecutionResponse>builder()
-                           .payload(spiPaymentExecutionResponse(consentResponse.getTransactionStatus()))
-                           .build();
+                logger.info("SCA status is: {}", scaStatus);
+                return SpiResponse.<SpiPaymentExecutionResponse>builder()
+                               .payload(spiPaymentExecutionResponse(consentResponse.getTransactionStatus()))
+                               .build();
+            }
         } catch (FeignException feignException) {
             String devMessage = "Wrong auth code";
             logger.info("Verify SCA authorisation and execute payment failed: payment ID {}, devMessage {}", spiScaConfirmation.getPaymentId(), devMessage);
@@ -165,30 +164,28 @@ public class GeneralPaymentService {
             return SpiResponse.<SpiPaymentExecutionResponse>builder()
                            .error(new TppMessage(MessageErrorCode.FORMAT_ERROR_PAYMENT_NOT_EXECUTED))
                            .build();
-        } finally {
-            authRequestInterceptor.setAccessToken(null);
         }
     }
 
     public SpiResponse<SpiPaymentResponse> verifyScaAuthorisationAndExecutePaymentWithPaymentResponse(@NotNull SpiScaConfirmation spiScaConfirmation, @NotNull SpiAspspConsentDataProvider aspspConsentDataProvider) {
         try {
             SCAPaymentResponseTO sca = consentDataService.response(aspspConsentDataProvider.loadAspspConsentData(), SCAPaymentResponseTO.class);
-            authRequestInterceptor.setAccessToken(sca.getBearerToken().getAccess_token());
-
-            ResponseEntity<SCAPaymentResponseTO> authorizePaymentResponse = paymentRestClient.authorizePayment(sca.getPaymentId(), sca.getAuthorisationId(), spiScaConfirmation.getTanNumber());
-            SCAPaymentResponseTO consentResponse = authorizePaymentResponse.getBody();
+            try (AccessTokenScope ignored = applyAuthorisation(sca)) {
+                ResponseEntity<SCAPaymentResponseTO> authorizePaymentResponse = paymentRestClient.authorizePayment(sca.getPaymentId(), sca.getAuthorisationId(), spiScaConfirmation.getTanNumber());
+                SCAPaymentResponseTO consentResponse = authorizePaymentResponse.getBody();
 
-            aspspConsentDataProvider.updateAspspConsentData(consentDataService.store(consentResponse));
+                aspspConsentDataProvider.updateAspspConsentData(consentDataService.store(consentResponse));
 
-            String scaStatus = Optional.ofNullable(consentResponse)
-                                       .map(SCAResponseTO::getScaStatus)
-                                       .map(ScaStatusTO::name)
-                                       .orElse(null);
+                String scaStatus = Optional.ofNullable(consentResponse)
+                                           .map(SCAResponseTO::getScaStatus)
+                                           .map(ScaStatusTO::name)
+                                           .orElse(null);
 
-            logger.info("SCA status is: {}", scaStatus);
-            return SpiResponse.<SpiPaymentResponse>builder()
-                           .payload(spiPaymentExecutionResponse(consentResponse.getTransactionStatus()))
-                           .build();
+                logger.info("SCA status is: {}", scaStatus);
+                return SpiResponse.<SpiPaymentResponse>builder()
+                               .payload(spiPaymentExecutionResponse(consentResponse.getTransactionStatus()))
+                               .build();
+            }
         } catch (FeignException feignException) {
             String devMessage = feignExceptionReader.getErrorMessage(feignException);
             logger.info("Verify SCA authorisation and execute payment failed: payment ID {}, devMessage {}", spiScaConfirmation.getPaymentId(), devMessage);
@@ -208,8 +205,6 @@ public class GeneralPaymentService {
             return SpiResponse.<SpiPaymentResponse>builder()
                            .error(new TppMessage(MessageErrorCode.FORMAT_ERROR_PAYMENT_NOT_EXECUTED))
                            .build();
-        } finally {
-            authRequestInterceptor.setAccessToken(null);
         }
     }
 
@@ -218,36 +213,34 @@ public class GeneralPaymentService {
 
         try {
             SCAPaymentResponseTO sca = consentDataService.response(aspspConsentDataProvider.loadAspspConsentData(), SCAPaymentResponseTO.class);
-            authRequestInterceptor.setAccessToken(sca.getBearerToken().getAccess_token());
-
-            ResponseEntity<AuthConfirmationTO> authConfirmationTOResponse =
-                    userMgmtRestClient.verifyAuthConfirmationCode(spiCheckConfirmationCodeRequest.getAuthorisationId(), spiCheckConfirmationCodeRequest.getConfirmationCode());
-
-            AuthConfirmationTO authConfirmationTO = authConfirmationTOResponse.getBody();
-
-            if (authConfirmationTO == null || !authConfirmationTO.isSuccess()) {
-                // No response in payload from ASPSP or confirmation code verification failed at ASPSP side.
-                return buildFailedConfirmationCodeResponse();
-            }
-
-            if (authConfirmationTO.isPartiallyAuthorised()) {
-                // This authorisation is finished, but others are left.
-                return getConfirmationCodeResponseForXs2a(ScaStatus.FINALISED, TransactionStatus.PATC);
+            try (AccessTokenScope ignored = applyAuthorisation(sca)) {
+                ResponseEntity<AuthConfirmationTO> authConfirmationTOResponse =
+                        userMgmtRestClient.verifyAuthConfirmationCode(spiCheckConfirmationCodeRequest.getAuthorisationId(), spiCheckConfirmationCodeRequest.getConfirmationCode());
+
+                AuthConfirmationTO authConfirmationTO = authConfirmationTOResponse.getBody();
+
+                if (authConfirmationTO == null || !authConfirmationTO.isSuccess()) {
+                    // No response in payload from ASPSP or confirmation code verification failed at ASPSP side.
+                    return buildFailedConfirmationCodeResponse();
+                }
+
+                if (authConfirmationTO.isPartiallyAuthorised()) {
+                    // This authorisation is finished, but others are left.
+                    return getConfirmationCodeResponseForXs2a(ScaStatus.FINALISED, TransactionStatus.PATC);
+                }
+
+                Optional<TransactionStatus> xs2aTransactionStatus = Optional.ofNullable(authConfirmationTO.getTransactionStatus())
+                                                                            .map(TransactionStatusTO::getName)
+                                                                            .map(TransactionStatus::getByValue);
+                return xs2aTransactionStatus
+                               .map(transactionStatus -> getConfirmationCodeResponseForXs2a(ScaStatus.FINALISED, transactionStatus))
+                               .orElse(buildFailedConfirmationCodeResponse());
             }
-
-            Optional<TransactionStatus> xs2aTransactionStatus = Optional.ofNullable(authConfirmationTO.getTransactionStatus())
-                                                                        .map(TransactionStatusTO::getName)
-                                                                        .map(TransactionStatus::getByValue);
-            return xs2aTransactionStatus
-                           .map(transactionStatus -> getConfirmationCodeResponseForXs2a(ScaStatus.FINALISED, transactionStatus))
-                           .orElse(buildFailedConfirmationCodeResponse());
         } catch (FeignException feignException) {
             String devMessage = feignExceptionReader.getErrorMessage(feignException);
             return SpiResponse.<SpiPaymentConfirmationCodeValidationResponse>builder()
                            .error(FeignExceptionHandler.getFailureMessage(feignException, MessageErrorCode.PSU_CREDENTIALS_INVALID, devMessage))
                            .build();
-        } finally {
-            authRequestInterceptor.setAccessToken(null);
         }
     }
 
@@ -360,28 +353,23 @@ public class GeneralPaymentService {
     private Optional<PaymentTO> getPaymentFromLedgers(SpiPayment payment, byte[] aspspConsentData) {
         try {
             SCAPaymentResponseTO sca = consentDataService.response(aspspConsentData, SCAPaymentResponseTO.class);
-            authRequestInterceptor.setAccessToken(sca.getBearerToken().getAccess_token());
-
-            logger.info("Get payment by ID with type: {} and ID: {}", payment.getPaymentType(), payment.getPaymentId());
-            logger.debug("Payment body: {}", payment);
-            return Optional.ofNullable(paymentRestClient.getPaymentById(sca.getPaymentId()).getBody());
+            try (AccessTokenScope ignored = applyAuthorisation(sca)) {
+                logger.info("Get payment by ID with type: {} and ID: {}", payment.getPaymentType(), payment.getPaymentId());
+                logger.debug("Payment body: {}", payment);
+                return Optional.ofNullable(paymentRestClient.getPaymentById(sca.getPaymentId()).getBody());
+            }
         } catch (FeignException feignException) {
             String devMessage = feignExceptionReader.getErrorMessage(feignException);
             logger.error("Get payment by id failed: payment ID {}, devMessage {}", payment.getPaymentId(), devMessage);
             return Optional.empty();
-        } finally {
-            authRequestInterceptor.setAccessToken(null);
         }
     }
 
     public <P> SCAPaymentResponseTO initiatePaymentInternal(P payment, byte[] initialAspspConsentData, PaymentTypeTO paymentTypeTO, PaymentTO request) {
-        try {
-            SCAPaymentResponseTO sca = getSCAPaymentResponseTO(initialAspspConsentData);
-            authRequestInterceptor.setAccessToken(sca.getBearerToken().getAccess_token());
+        SCAPaymentResponseTO sca = getSCAPaymentResponseTO(initialAspspConsentData);
+        try (AccessTokenScope ignored = applyAuthorisation(sca)) {
             logger.debug("{} payment body: {}", paymentTypeTO, payment);
             return paymentRestClient.initiatePayment(paymentTypeTO, request).getBody();
-        } finally {
-            authRequestInterceptor.setAccessToken(null);
         }
     }
 
@@ -389,6 +377,11 @@ public class GeneralPaymentService {
         return consentDataService.response(initialAspspConsentData, SCAPaymentResponseTO.class);
     }
 
+    private AccessTokenScope applyAuthorisation(SCAResponseTO sca) {
+        consentDataService.checkAccessTokenNotExpired(sca);
+        return authRequestInterceptor.withAccessToken(sca.getBearerToken().getAccess_token());
+    }
+
     private SpiPaymentExecutionResponse spiPaymentExecutionResponse(TransactionStatusTO transactionStatus) {
         return new SpiPaymentExecutionResponse(TransactionStatus.valueOf(transactionStatus.name()));
     }
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package de.adorsys.aspsp.xs2a.connector.account;
+
+import de.adorsys.aspsp.xs2a.connector.mock.IbanResolverMockService;
+import de.adorsys.psd2.xs2a.core.ais.AccountAccessType;
+import de.adorsys.psd2.xs2a.spi.domain.account.SpiAccountReference;
+import de.adorsys.psd2.xs2a.spi.domain.account.SpiAdditionalInformationAccess;
+import de.adorsys.psd2.xs2a.spi.domain.consent.SpiAccountAccess;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Currency;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConsentAccessIndexTest {
+    private static final String IBAN_FIRST_ACCOUNT = "DE89370400440532013000";
+    private static final String IBAN_SECOND_ACCOUNT = "DE32760700240271232100";
+    private static final String PAN = "4937023494670836";
+    private static final Currency CURRENCY_EUR = Currency.getInstance("EUR");
+    private static final Currency CURRENCY_USD = Currency.getInstance("USD");
+
+    @Mock
+    private IbanResolverMockService ibanResolverMockService;
+
+    @Test
+    void hasAccountAccess_shouldMatchIbanAndCurrency() {
+        // Given
+        SpiAccountAccess accountAccess = new SpiAccountAccess();
+        accountAccess.setAccounts(Arrays.asList(ibanReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR), ibanReference(IBAN_SECOND_ACCOUNT, null)));
+
+        // When
+        ConsentAccessIndex consentAccessIndex = ConsentAccessIndex.of(accountAccess, ibanResolverMockService);
+
+        // Then
+        assertTrue(consentAccessIndex.hasAccountAccess(IBAN_FIRST_ACCOUNT, CURRENCY_EUR));
+        assertFalse(consentAccessIndex.hasAccountAccess(IBAN_FIRST_ACCOUNT, CURRENCY_USD));
+        assertTrue(consentAccessIndex.hasAccountAccess(IBAN_SECOND_ACCOUNT, CURRENCY_EUR));
+        assertTrue(consentAccessIndex.hasAccountAccess(IBAN_SECOND_ACCOUNT, CURRENCY_USD));
+        assertFalse(consentAccessIndex.hasAccountAccess(null, CURRENCY_EUR));
+        assertFalse(consentAccessIndex.hasBalanceAccess(IBAN_FIRST_ACCOUNT, CURRENCY_EUR));
+        assertFalse(consentAccessIndex.hasTransactionAccess(IBAN_FIRST_ACCOUNT, CURRENCY_EUR));
+    }
+
+    @Test
+    void hasBalanceAccess_hasTransactionAccess_shouldUseOwnAccessLists() {
+        // Given
+        SpiAccountAccess accountAccess = new SpiAccountAccess();
+        accountAccess.setAccounts(Arrays.asList(ibanReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR), ibanReference(IBAN_SECOND_ACCOUNT, CURRENCY_EUR)));
+        accountAccess.setBalances(Collections.singletonList(ibanReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR)));
+        accountAccess.setTransactions(Collections.singletonList(ibanReference(IBAN_SECOND_ACCOUNT, CURRENCY_EUR)));
+
+        // When
+        ConsentAccessIndex consentAccessIndex = ConsentAccessIndex.of(accountAccess, ibanResolverMockService);
+
+        // Then
+        assertTrue(consentAccessIndex.hasBalanceAccess(IBAN_FIRST_ACCOUNT, CURRENCY_EUR));
+        assertFalse(consentAccessIndex.hasBalanceAccess(IBAN_SECOND_ACCOUNT, CURRENCY_EUR));
+        assertFalse(consentAccessIndex.hasTransactionAccess(IBAN_FIRST_ACCOUNT, CURRENCY_EUR));
+        assertTrue(consentAccessIndex.hasTransactionAccess(IBAN_SECOND_ACCOUNT, CURRENCY_EUR));
+    }
+
+    @Test
+    void hasAccountAccess_cardReference_shouldResolveIbanOnce() {
+        // Given
+        SpiAccountReference cardReference = new SpiAccountReference(null, null, null, PAN, null, null, CURRENCY_EUR);
+        SpiAccountAccess accountAccess = new SpiAccountAccess();
+        accountAccess.setAccounts(Collections.singletonList(cardReference));
+        when(ibanResolverMockService.handleIbanByAccountReference(cardReference)).thenReturn(IBAN_FIRST_ACCOUNT);
+        ConsentAccessIndex consentAccessIndex = ConsentAccessIndex.of(accountAccess, ibanResolverMockService);
+
+        // When
+        boolean firstAccount = consentAccessIndex.hasAccountAccess(IBAN_FIRST_ACCOUNT, CURRENCY_EUR);
+        boolean secondAccount = consentAccessIndex.hasAccountAccess(IBAN_SECOND_ACCOUNT, CURRENCY_EUR);
+
+        // Then
+        assertTrue(firstAccount);
+        assertFalse(secondAccount);
+        verify(ibanResolverMockService, times(1)).handleIbanByAccountReference(cardReference);
+    }
+
+    @Test
+    void hasOwnerNameAccess_emptyOwnerNameList_shouldAllowAllAccounts() {
+        // Given
+        SpiAccountAccess accountAccess = new SpiAccountAccess();
+        accountAccess.setSpiAdditionalInformationAccess(new SpiAdditionalInformationAccess(Collections.emptyList(), Collections.emptyList()));
+
+        // When
+        ConsentAccessIndex consentAccessIndex = ConsentAccessIndex.of(accountAccess, ibanResolverMockService);
+
+        // Then
+        assertTrue(consentAccessIndex.hasOwnerNameAccess(IBAN_FIRST_ACCOUNT, CURRENCY_EUR));
+        assertTrue(consentAccessIndex.hasOwnerNameAccess(IBAN_SECOND_ACCOUNT, CURRENCY_USD));
+    }
+
+    @Test
+    void hasOwnerNameAccess_allAccountsWithOwnerName_shouldAllowAllAccounts() {
+        // Given
+        SpiAccountAccess accountAccess = new SpiAccountAccess();
+        accountAccess.setAvailableAccounts(AccountAccessType.ALL_ACCOUNTS_WITH_OWNER_NAME);
+
+        // When
+        ConsentAccessIndex consentAccessIndex = ConsentAccessIndex.of(accountAccess, ibanResolverMockService);
+
+        // Then
+        assertTrue(consentAccessIndex.hasOwnerNameAccess(IBAN_FIRST_ACCOUNT, CURRENCY_EUR));
+        verify(ibanResolverMockService, never()).handleIbanByAccountReference(any());
+    }
+
+    @Test
+    void hasOwnerNameAccess_dedicatedOwnerName_shouldMatchListedAccountsOnly() {
+        // Given
+        SpiAccountAccess accountAccess = new SpiAccountAccess();
+        accountAccess.setAccounts(Arrays.asList(ibanReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR), ibanReference(IBAN_SECOND_ACCOUNT, CURRENCY_EUR)));
+        accountAccess.setSpiAdditionalInformationAccess(new SpiAdditionalInformationAccess(Collections.singletonList(ibanReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR)), Collections.emptyList()));
+
+        // When
+        ConsentAccessIndex consentAccessIndex = ConsentAccessIndex.of(accountAccess, ibanResolverMockService);
+
+        // Then
+        assertTrue(consentAccessIndex.hasOwnerNameAccess(IBAN_FIRST_ACCOUNT, CURRENCY_EUR));
+        assertFalse(consentAccessIndex.hasOwnerNameAccess(IBAN_FIRST_ACCOUNT, CURRENCY_USD));
+        assertFalse(consentAccessIndex.hasOwnerNameAccess(IBAN_SECOND_ACCOUNT, CURRENCY_EUR));
+    }
+
+    private SpiAccountReference ibanReference(String iban, Currency currency) {
+        return new SpiAccountReference(null, iban, null, null, null, null, currency);
+    }
+}
@@ -21,6 +21,8 @@ import de.adorsys.aspsp.xs2a.util.JsonReader;
 import de.adorsys.ledgers.middleware.api.domain.account.AccountIdentifierTypeTO;
 import de.adorsys.ledgers.middleware.api.domain.account.AdditionalAccountInformationTO;
 import de.adorsys.ledgers.rest.client.AccountRestClient;
+import de.adorsys.ledgers.rest.client.AsyncAccountRestClient;
+import de.adorsys.ledgers.rest.client.ExpiringCache;
 import de.adorsys.psd2.xs2a.spi.domain.account.SpiAccountDetails;
 import de.adorsys.psd2.xs2a.spi.domain.account.SpiAccountReference;
 import de.adorsys.psd2.xs2a.spi.domain.account.SpiCardAccountDetails;
@@ -30,21 +32,35 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Currency;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class OwnerNameServiceTest {
     private static final String RESOURCE_ID = "11111-999999999";
+    private static final String RESOURCE_ID_SECOND_ACCOUNT = "11111-999999998";
     private static final String PAN = "4937023494670836";
     private static final String ACCOUNT_OWNER_NAME = "account owner name";
     private static final String ACCOUNT_OWNER_NAME_2 = "different account owner name";
@@ -55,7 +71,11 @@ class OwnerNameServiceTest {
     @Mock
     private AccountRestClient accountRestClient;
     @Mock
+    private AsyncAccountRestClient asyncAccountRestClient;
+    @Mock
     private IbanResolverMockService ibanResolverMockService;
+    @Spy
+    private ExpiringCache<String, String> ownerNameCache = new ExpiringCache<>("ledgers.owner-names", 100);
     @InjectMocks
     private OwnerNameService ownerNameService;
 
@@ -66,7 +86,7 @@ class OwnerNameServiceTest {
         IbanAccountReference accountReference = new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR);
         SpiAccountAccess accountAccess = jsonReader.getObjectFromFile("json/account/additional-account-information/spi-account-access-dedicated-owner-name-all.json", SpiAccountAccess.class);
 
-        boolean actualResult = ownerNameService.shouldContainOwnerName(accountReference, accountAccess);
+        boolean actualResult = ownerNameService.shouldContainOwnerName(accountReference, ConsentAccessIndex.of(accountAccess, ibanResolverMockService));
 
         assertTrue(actualResult);
     }
@@ -76,7 +96,7 @@ class OwnerNameServiceTest {
         IbanAccountReference accountReference = new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR);
         SpiAccountAccess accountAccessWithOwnerNameFirstAccount = jsonReader.getObjectFromFile("json/account/additional-account-information/spi-account-access-dedicated-owner-name-first-account.json", SpiAccountAccess.class);
 
-        boolean actualResult = ownerNameService.shouldContainOwnerName(accountReference, accountAccessWithOwnerNameFirstAccount);
+        boolean actualResult = ownerNameService.shouldContainOwnerName(accountReference, ConsentAccessIndex.of(accountAccessWithOwnerNameFirstAccount, ibanResolverMockService));
 
         assertTrue(actualResult);
     }
@@ -86,7 +106,7 @@ class OwnerNameServiceTest {
         IbanAccountReference accountReferenceSecondAccount = new IbanAccountReference(IBAN_SECOND_ACCOUNT, CURRENCY_EUR);
         SpiAccountAccess accountAccessWithOwnerNameFirstAccount = jsonReader.getObjectFromFile("json/account/additional-account-information/spi-account-access-dedicated-owner-name-first-account.json", SpiAccountAccess.class);
 
-        boolean actualResult = ownerNameService.shouldContainOwnerName(accountReferenceSecondAccount, accountAccessWithOwnerNameFirstAccount);
+        boolean actualResult = ownerNameService.shouldContainOwnerName(accountReferenceSecondAccount, ConsentAccessIndex.of(accountAccessWithOwnerNameFirstAccount, ibanResolverMockService));
 
         assertFalse(actualResult);
     }
@@ -96,7 +116,7 @@ class OwnerNameServiceTest {
         IbanAccountReference accountReference = new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR);
         SpiAccountAccess accountAccessWithUsdAccount = jsonReader.getObjectFromFile("json/account/additional-account-information/spi-account-access-dedicated-owner-name-first-account-usd.json", SpiAccountAccess.class);
 
-        boolean actualResult = ownerNameService.shouldContainOwnerName(accountReference, accountAccessWithUsdAccount);
+        boolean actualResult = ownerNameService.shouldContainOwnerName(accountReference, ConsentAccessIndex.of(accountAccessWithUsdAccount, ibanResolverMockService));
 
         assertFalse(actualResult);
     }
@@ -106,7 +126,7 @@ class OwnerNameServiceTest {
         IbanAccountReference accountReference = new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR);
         SpiAccountAccess accountAccessWithCardAccounts = jsonReader.getObjectFromFile("json/account/additional-account-information/spi-account-access-dedicated-owner-name-bban-first-account.json", SpiAccountAccess.class);
 
-        boolean actualResult = ownerNameService.shouldContainOwnerName(accountReference, accountAccessWithCardAccounts);
+        boolean actualResult = ownerNameService.shouldContainOwnerName(accountReference, ConsentAccessIndex.of(accountAccessWithCardAccounts, ibanResolverMockService));
 
         assertFalse(actualResult);
     }
@@ -118,7 +138,7 @@ class OwnerNameServiceTest {
         SpiAccountReference cardAccountReference = jsonReader.getObjectFromFile("json/account/additional-account-information/spi-account-reference-card.json", SpiAccountReference.class);
         when(ibanResolverMockService.handleIbanByAccountReference(cardAccountReference)).thenReturn(IBAN_FIRST_ACCOUNT);
 
-        boolean actualResult = ownerNameService.shouldContainOwnerName(accountReference, accountAccessWithCardAccounts);
+        boolean actualResult = ownerNameService.shouldContainOwnerName(accountReference, ConsentAccessIndex.of(accountAccessWithCardAccounts, ibanResolverMockService));
 
         assertTrue(actualResult);
     }
@@ -128,7 +148,7 @@ class OwnerNameServiceTest {
         IbanAccountReference accountReference = new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR);
         SpiAccountAccess accountAccessWithCardAccounts = jsonReader.getObjectFromFile("json/account/additional-account-information/spi-account-access-dedicated-owner-name-card-first-account.json", SpiAccountAccess.class);
 
-        boolean actualResult = ownerNameService.shouldContainOwnerName(accountReference, accountAccessWithCardAccounts);
+        boolean actualResult = ownerNameService.shouldContainOwnerName(accountReference, ConsentAccessIndex.of(accountAccessWithCardAccounts, ibanResolverMockService));
 
         assertFalse(actualResult);
     }
@@ -138,7 +158,7 @@ class OwnerNameServiceTest {
         IbanAccountReference accountReference = new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR);
         SpiAccountAccess accountAccessAvailableAccountsWithOwnerName = jsonReader.getObjectFromFile("json/account/additional-account-information/spi-account-access-available-accounts-owner-name.json", SpiAccountAccess.class);
 
-        boolean actualResult = ownerNameService.shouldContainOwnerName(accountReference, accountAccessAvailableAccountsWithOwnerName);
+        boolean actualResult = ownerNameService.shouldContainOwnerName(accountReference, ConsentAccessIndex.of(accountAccessAvailableAccountsWithOwnerName, ibanResolverMockService));
 
         assertTrue(actualResult);
     }
@@ -148,7 +168,7 @@ class OwnerNameServiceTest {
         IbanAccountReference accountReference = new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR);
         SpiAccountAccess accountAccessAvailableAccounts = jsonReader.getObjectFromFile("json/account/additional-account-information/spi-account-access-available-accounts.json", SpiAccountAccess.class);
 
-        boolean actualResult = ownerNameService.shouldContainOwnerName(accountReference, accountAccessAvailableAccounts);
+        boolean actualResult = ownerNameService.shouldContainOwnerName(accountReference, ConsentAccessIndex.of(accountAccessAvailableAccounts, ibanResolverMockService));
 
         assertFalse(actualResult);
     }
@@ -158,7 +178,7 @@ class OwnerNameServiceTest {
         IbanAccountReference accountReference = new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR);
         SpiAccountAccess accountAccessAvailableAccountsWithBalanceAndOwnerName = jsonReader.getObjectFromFile("json/account/additional-account-information/spi-account-access-available-accounts-balance-owner-name.json", SpiAccountAccess.class);
 
-        boolean actualResult = ownerNameService.shouldContainOwnerName(accountReference, accountAccessAvailableAccountsWithBalanceAndOwnerName);
+        boolean actualResult = ownerNameService.shouldContainOwnerName(accountReference, ConsentAccessIndex.of(accountAccessAvailableAccountsWithBalanceAndOwnerName, ibanResolverMockService));
 
         assertTrue(actualResult);
     }
@@ -168,7 +188,7 @@ class OwnerNameServiceTest {
         IbanAccountReference accountReference = new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR);
         SpiAccountAccess accountAccessAvailableAccountsWithBalance = jsonReader.getObjectFromFile("json/account/additional-account-information/spi-account-access-available-accounts-balance.json", SpiAccountAccess.class);
 
-        boolean actualResult = ownerNameService.shouldContainOwnerName(accountReference, accountAccessAvailableAccountsWithBalance);
+        boolean actualResult = ownerNameService.shouldContainOwnerName(accountReference, ConsentAccessIndex.of(accountAccessAvailableAccountsWithBalance, ibanResolverMockService));
 
         assertFalse(actualResult);
     }
@@ -178,7 +198,7 @@ class OwnerNameServiceTest {
         IbanAccountReference accountReference = new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR);
         SpiAccountAccess accountAccessGlobalWithOwnerName = jsonReader.getObjectFromFile("json/account/additional-account-information/spi-account-access-global-owner-name.json", SpiAccountAccess.class);
 
-        boolean actualResult = ownerNameService.shouldContainOwnerName(accountReference, accountAccessGlobalWithOwnerName);
+        boolean actualResult = ownerNameService.shouldContainOwnerName(accountReference, ConsentAccessIndex.of(accountAccessGlobalWithOwnerName, ibanResolverMockService));
 
         assertTrue(actualResult);
     }
@@ -188,7 +208,7 @@ class OwnerNameServiceTest {
         IbanAccountReference accountReference = new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR);
         SpiAccountAccess accountAccessGlobal = jsonReader.getObjectFromFile("json/account/additional-account-information/spi-account-access-global.json", SpiAccountAccess.class);
 
-        boolean actualResult = ownerNameService.shouldContainOwnerName(accountReference, accountAccessGlobal);
+        boolean actualResult = ownerNameService.shouldContainOwnerName(accountReference, ConsentAccessIndex.of(accountAccessGlobal, ibanResolverMockService));
 
         assertFalse(actualResult);
     }
@@ -311,6 +331,143 @@ class OwnerNameServiceTest {
         verify(accountRestClient).getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID);
     }
 
+    @Test
+    void enrichAccountDetailsListWithOwnerName_shouldSetOwnerNameOfEveryAccount() {
+        ReflectionTestUtils.setField(ownerNameService, "parallelism", 8);
+        when(asyncAccountRestClient.getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID))
+                .thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok(Collections.singletonList(buildAdditionalAccountInformationTO(ACCOUNT_OWNER_NAME)))));
+        when(asyncAccountRestClient.getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID_SECOND_ACCOUNT))
+                .thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok(Collections.singletonList(buildAdditionalAccountInformationTO(ACCOUNT_OWNER_NAME_2)))));
+        List<SpiAccountDetails> accountDetailsList = Arrays.asList(buildSpiAccountDetails(RESOURCE_ID), buildSpiAccountDetails(RESOURCE_ID_SECOND_ACCOUNT));
+
+        List<SpiAccountDetails> enrichedAccountDetailsList = ownerNameService.enrichAccountDetailsListWithOwnerName(accountDetailsList);
+
+        assertEquals(ACCOUNT_OWNER_NAME, enrichedAccountDetailsList.get(0).getOwnerName());
+        assertEquals(ACCOUNT_OWNER_NAME_2, enrichedAccountDetailsList.get(1).getOwnerName());
+    }
+
+    @Test
+    void enrichAccountDetailsListWithOwnerName_failedLookup_shouldSetOwnerNameOfOtherAccounts() {
+        ReflectionTestUtils.setField(ownerNameService, "parallelism", 8);
+        CompletableFuture<ResponseEntity<List<AdditionalAccountInformationTO>>> failedLookup = new CompletableFuture<>();
+        failedLookup.completeExceptionally(new IllegalStateException("ledgers unavailable"));
+        when(asyncAccountRestClient.getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID))
+                .thenReturn(failedLookup);
+        when(asyncAccountRestClient.getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID_SECOND_ACCOUNT))
+                .thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok(Collections.singletonList(buildAdditionalAccountInformationTO(ACCOUNT_OWNER_NAME_2)))));
+        List<SpiAccountDetails> accountDetailsList = Arrays.asList(buildSpiAccountDetails(RESOURCE_ID), buildSpiAccountDetails(RESOURCE_ID_SECOND_ACCOUNT));
+
+        List<SpiAccountDetails> enrichedAccountDetailsList = ownerNameService.enrichAccountDetailsListWithOwnerName(accountDetailsList);
+
+        assertNull(enrichedAccountDetailsList.get(0).getOwnerName());
+        assertEquals(ACCOUNT_OWNER_NAME_2, enrichedAccountDetailsList.get(1).getOwnerName());
+    }
+
+    @Test
+    void enrichCardAccountDetailsListWithOwnerName_shouldNotExceedParallelism() throws InterruptedException {
+        ReflectionTestUtils.setField(ownerNameService, "parallelism", 2);
+        ExecutorService ledgers = Executors.newFixedThreadPool(4);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(asyncAccountRestClient.getAdditionalAccountInfo(eq(AccountIdentifierTypeTO.ACCOUNT_ID), any()))
+                .thenAnswer(invocation -> CompletableFuture.supplyAsync(() -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    sleep(20);
+                    inFlight.decrementAndGet();
+                    return ResponseEntity.ok(Collections.singletonList(buildAdditionalAccountInformationTO(ACCOUNT_OWNER_NAME)));
+                }, ledgers));
+        List<SpiCardAccountDetails> cardAccountDetailsList = IntStream.range(0, 6)
+                                                                     .mapToObj(i -> buildSpiCardAccountDetails(RESOURCE_ID + i))
+                                                                     .collect(Collectors.toList());
+
+        List<SpiCardAccountDetails> enrichedCardAccountDetailsList = ownerNameService.enrichCardAccountDetailsListWithOwnerName(cardAccountDetailsList);
+
+        enrichedCardAccountDetailsList.forEach(cardAccountDetails -> assertEquals(ACCOUNT_OWNER_NAME, cardAccountDetails.getOwnerName()));
+        assertTrue(maxInFlight.get() <= 2, () -> maxInFlight.get() + " lookups in flight");
+        ledgers.shutdown();
+        assertTrue(ledgers.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void enrichAccountDetailsWithOwnerName_cachedOwnerName_shouldRequestLedgersOnce() {
+        ReflectionTestUtils.setField(ownerNameService, "ownerNameCacheTtlMs", 60_000L);
+        when(accountRestClient.getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID))
+                .thenReturn(ResponseEntity.ok(Collections.singletonList(buildAdditionalAccountInformationTO(ACCOUNT_OWNER_NAME))));
+
+        ownerNameService.enrichAccountDetailsWithOwnerName(buildSpiAccountDetails(RESOURCE_ID));
+        SpiCardAccountDetails enrichedCardAccountDetails = ownerNameService.enrichCardAccountDetailsWithOwnerName(buildSpiCardAccountDetails(RESOURCE_ID));
+
+        assertEquals(ACCOUNT_OWNER_NAME, enrichedCardAccountDetails.getOwnerName());
+        verify(accountRestClient, times(1)).getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID);
+    }
+
+    @Test
+    void enrichAccountDetailsWithOwnerName_invalidatedOwnerName_shouldRequestLedgersAgain() {
+        ReflectionTestUtils.setField(ownerNameService, "ownerNameCacheTtlMs", 60_000L);
+        when(accountRestClient.getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID))
+                .thenReturn(ResponseEntity.ok(Collections.singletonList(buildAdditionalAccountInformationTO(ACCOUNT_OWNER_NAME))))
+                .thenReturn(ResponseEntity.ok(Collections.singletonList(buildAdditionalAccountInformationTO(ACCOUNT_OWNER_NAME_2))));
+        ownerNameService.enrichAccountDetailsWithOwnerName(buildSpiAccountDetails(RESOURCE_ID));
+
+        ownerNameService.invalidateOwnerName(RESOURCE_ID);
+        SpiAccountDetails enrichedAccountDetails = ownerNameService.enrichAccountDetailsWithOwnerName(buildSpiAccountDetails(RESOURCE_ID));
+
+        assertEquals(ACCOUNT_OWNER_NAME_2, enrichedAccountDetails.getOwnerName());
+        verify(accountRestClient, times(2)).getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID);
+    }
+
+    @Test
+    void invalidateOwnerNames_shouldDropAllCachedOwnerNames() {
+        ReflectionTestUtils.setField(ownerNameService, "ownerNameCacheTtlMs", 60_000L);
+        when(accountRestClient.getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID))
+                .thenReturn(ResponseEntity.ok(Collections.singletonList(buildAdditionalAccountInformationTO(ACCOUNT_OWNER_NAME))));
+        ownerNameService.enrichAccountDetailsWithOwnerName(buildSpiAccountDetails(RESOURCE_ID));
+        assertEquals(1, ownerNameService.getCachedOwnerNamesCount());
+
+        ownerNameService.invalidateOwnerNames();
+
+        assertEquals(0, ownerNameService.getCachedOwnerNamesCount());
+    }
+
+    @Test
+    void enrichAccountDetailsListWithOwnerName_cachedOwnerName_shouldRequestUncachedAccountsOnly() {
+        ReflectionTestUtils.setField(ownerNameService, "parallelism", 8);
+        ReflectionTestUtils.setField(ownerNameService, "ownerNameCacheTtlMs", 60_000L);
+        when(accountRestClient.getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID))
+                .thenReturn(ResponseEntity.ok(Collections.singletonList(buildAdditionalAccountInformationTO(ACCOUNT_OWNER_NAME))));
+        ownerNameService.enrichAccountDetailsWithOwnerName(buildSpiAccountDetails(RESOURCE_ID));
+        when(asyncAccountRestClient.getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID_SECOND_ACCOUNT))
+                .thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok(Collections.singletonList(buildAdditionalAccountInformationTO(ACCOUNT_OWNER_NAME_2)))));
+        List<SpiAccountDetails> accountDetailsList = Arrays.asList(buildSpiAccountDetails(RESOURCE_ID), buildSpiAccountDetails(RESOURCE_ID_SECOND_ACCOUNT));
+
+        List<SpiAccountDetails> enrichedAccountDetailsList = ownerNameService.enrichAccountDetailsListWithOwnerName(accountDetailsList);
+
+        assertEquals(ACCOUNT_OWNER_NAME, enrichedAccountDetailsList.get(0).getOwnerName());
+        assertEquals(ACCOUNT_OWNER_NAME_2, enrichedAccountDetailsList.get(1).getOwnerName());
+        verify(asyncAccountRestClient, never()).getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID);
+        assertEquals(ACCOUNT_OWNER_NAME_2, ownerNameCache.get(RESOURCE_ID_SECOND_ACCOUNT));
+    }
+
+    private SpiAccountDetails buildSpiAccountDetails(String resourceId) {
+        SpiAccountDetails accountDetails = jsonReader.getObjectFromFile("json/account/additional-account-information/spi-account-details-first-account.json", SpiAccountDetails.class);
+        accountDetails.setResourceId(resourceId);
+        return accountDetails;
+    }
+
+    private SpiCardAccountDetails buildSpiCardAccountDetails(String resourceId) {
+        SpiCardAccountDetails cardAccountDetails = jsonReader.getObjectFromFile("json/account/additional-account-information/spi-card-account-details-first-account.json", SpiCardAccountDetails.class);
+        cardAccountDetails.setResourceId(resourceId);
+        return cardAccountDetails;
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     @NotNull
     private AdditionalAccountInformationTO buildAdditionalAccountInformationTO(String ownerName) {
         AdditionalAccountInformationTO additionalAccountInformationTO = new AdditionalAccountInformationTO();
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config;
+
+import de.adorsys.aspsp.xs2a.util.MutableClock;
+import de.adorsys.ledgers.rest.client.ExpiringCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiringCacheTest {
+    private final MutableClock clock = new MutableClock(Instant.parse("2020-05-01T10:00:00Z"));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExpiringCache<String, String> cache = new ExpiringCache<>("test", 2, clock);
+
+    @Test
+    void get_beforeAndAfterExpiry() {
+        // Given
+        cache.bindTo(meterRegistry);
+        cache.put("key", "value", Duration.ofSeconds(10));
+
+        // When
+        String beforeExpiry = cache.get("key");
+        clock.advance(Duration.ofSeconds(10));
+        String afterExpiry = cache.get("key");
+
+        // Then
+        assertEquals("value", beforeExpiry);
+        assertNull(afterExpiry);
+        assertEquals(0, cache.size());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "test").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "test").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void put_fullCache_shouldRemoveExpiredEntriesFirst() {
+        // Given
+        cache.put("expiring", "value", Duration.ofSeconds(1));
+        cache.put("lasting", "value", Duration.ofSeconds(60));
+        clock.advance(Duration.ofSeconds(1));
+
+        // When
+        cache.put("new", "value", Duration.ofSeconds(60));
+
+        // Then
+        assertEquals(2, cache.size());
+        assertEquals("value", cache.get("lasting"));
+        assertEquals("value", cache.get("new"));
+    }
+
+    @Test
+    void put_fullCacheWithoutExpiredEntries_shouldStayWithinMaxSize() {
+        // Given
+        cache.bindTo(meterRegistry);
+        cache.put("first", "value", Duration.ofSeconds(60));
+        cache.put("second", "value", Duration.ofSeconds(60));
+
+        // When
+        cache.put("third", "value", Duration.ofSeconds(60));
+
+        // Then
+        assertEquals(2, cache.size());
+        assertEquals("value", cache.get("third"));
+        assertEquals(1, meterRegistry.get("cache.evictions").tag("cache", "test").functionCounter().count());
+    }
+
+    @Test
+    void put_zeroTimeToLive_shouldNotCache() {
+        // When
+        cache.put("key", "value", Duration.ZERO);
+
+        // Then
+        assertNull(cache.get("key"));
+    }
+}
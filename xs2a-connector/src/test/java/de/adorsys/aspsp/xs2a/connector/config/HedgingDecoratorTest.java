@@ -0,0 +1,263 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config;
+
+import de.adorsys.aspsp.xs2a.connector.config.auth.AuthConfig;
+import de.adorsys.ledgers.rest.client.HedgingDecorator;
+import de.adorsys.ledgers.rest.client.LedgersAsyncExecutor;
+import de.adorsys.ledgers.rest.client.LedgersClientProperties;
+import de.adorsys.ledgers.rest.client.LedgersHedgingExecutor;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Target;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HedgingDecoratorTest {
+    private final MockEnvironment environment = new MockEnvironment()
+                                                        .withProperty("ledgers.hedging.config.default.enabled", "true")
+                                                        .withProperty("ledgers.hedging.config.default.initial-delay-ms", "20")
+                                                        .withProperty("ledgers.hedging.config.default.budget-ratio", "1");
+    private final LedgersHedgingExecutor executor = new LedgersHedgingExecutor(2, new AuthConfig().getClientAuth(), null);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void failingSlowCall_shouldBeAnsweredByHedgedRequest() throws Throwable {
+        // Given
+        MethodHandler handler = decorate("getBalances", firstCallSlowAndFailing());
+
+        // When
+        Object result = handler.invoke(new Object[0]);
+
+        // Then
+        assertEquals("call-2", result);
+        assertEquals(2, calls.get());
+        assertEquals(1, meterRegistry.get("ledgers.hedging.sent").counter().count());
+        assertEquals(1, meterRegistry.get("ledgers.hedging.won").counter().count());
+    }
+
+    @Test
+    void slowCall_shouldReturnHedgedResponseBeforeOriginalCompletes() throws Throwable {
+        // Given
+        MethodHandler handler = decorate("getBalances", firstCallSlow(5_000));
+
+        // When
+        long start = System.nanoTime();
+        Object result = handler.invoke(new Object[0]);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        // Then
+        assertEquals("call-2", result);
+        assertTrue(elapsedMs < 2_000, () -> "waited " + elapsedMs + "ms for the original request");
+        assertEquals(1, meterRegistry.get("ledgers.hedging.sent").counter().count());
+        assertEquals(1, meterRegistry.get("ledgers.hedging.won").counter().count());
+    }
+
+    @Test
+    void originalAnsweringFirst_shouldReturnOriginalResponse() throws Throwable {
+        // Given
+        MethodHandler handler = decorate("getBalances", args -> {
+            int call = calls.incrementAndGet();
+            Thread.sleep(call == 1 ? 100 : 5_000);
+            return "call-" + call;
+        });
+
+        // When
+        Object result = handler.invoke(new Object[0]);
+
+        // Then
+        assertEquals("call-1", result);
+        assertEquals(1, meterRegistry.get("ledgers.hedging.sent").counter().count());
+        assertEquals(0, meterRegistry.get("ledgers.hedging.won").counter().count());
+    }
+
+    @Test
+    void busyExecutor_shouldCallOnCallingThreadWithoutHedging() throws Throwable {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        assertTrue(executor.execute(() -> await(release)));
+        assertTrue(executor.execute(() -> await(release)));
+        Thread caller = Thread.currentThread();
+        MethodHandler handler = decorate("getBalances", args -> {
+            calls.incrementAndGet();
+            Thread.sleep(100);
+            return Thread.currentThread() == caller;
+        });
+
+        try {
+            // When
+            Object result = handler.invoke(new Object[0]);
+
+            // Then
+            assertEquals(true, result);
+            assertEquals(1, calls.get());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void hedgedCallFromAsyncPool_shouldNotWaitForThePool() throws Exception {
+        // Given
+        LedgersAsyncExecutor asyncExecutor = new LedgersAsyncExecutor(1, 1, new AuthConfig().getClientAuth(), null);
+        MethodHandler handler = decorate("getBalances", firstCallSlowAndFailing());
+
+        try {
+            // When
+            CompletableFuture<Object> result = asyncExecutor.supplyAsync(() -> {
+                try {
+                    return handler.invoke(new Object[0]);
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            // Then
+            assertEquals("call-2", result.get(5, TimeUnit.SECONDS));
+            assertEquals(2, calls.get());
+        } finally {
+            asyncExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void hangingHedgedRequest_shouldRethrowOriginalFailureAfterMaxWait() {
+        // Given
+        environment.setProperty("ledgers.hedging.config.default.max-hedge-wait-ms", "100");
+        MethodHandler handler = decorate("getBalances", args -> {
+            int call = calls.incrementAndGet();
+            Thread.sleep(call == 1 ? 200 : 10_000);
+            throw new IllegalStateException("call-" + call);
+        });
+
+        // When
+        long start = System.nanoTime();
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> handler.invoke(new Object[0]));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        // Then
+        assertEquals("call-1", exception.getMessage());
+        assertTrue(elapsedMs < 2_000, () -> "waited " + elapsedMs + "ms for the hedged request");
+        assertEquals(0, meterRegistry.get("ledgers.hedging.won").counter().count());
+    }
+
+    @Test
+    void fastCall_shouldNotBeHedged() throws Throwable {
+        // Given
+        MethodHandler handler = decorate("getBalances", args -> "call-" + calls.incrementAndGet());
+
+        // When
+        Object result = handler.invoke(new Object[0]);
+
+        // Then
+        assertEquals("call-1", result);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void notListedMethod_shouldNotBeDecorated() {
+        // Given
+        MethodHandler original = args -> "ok";
+
+        // Then
+        assertSame(original, decorate("getTransactionByDates", original));
+        assertSame(original, decorate("initiatePayment", original));
+    }
+
+    @Test
+    void exhaustedBudget_shouldWaitForOriginalRequest() throws Throwable {
+        // Given
+        environment.setProperty("ledgers.hedging.config.default.budget-ratio", "0");
+        environment.setProperty("ledgers.hedging.config.default.budget-max-tokens", "0");
+        MethodHandler handler = decorate("getBalances", firstCallSlow(300));
+
+        // When
+        Object result = handler.invoke(new Object[0]);
+
+        // Then
+        assertEquals("call-1", result);
+        assertEquals(1, calls.get());
+        assertEquals(1, meterRegistry.get("ledgers.hedging.budget.exhausted").counter().count());
+    }
+
+    private MethodHandler decorate(String methodName, MethodHandler handler) {
+        HedgingDecorator hedgingDecorator = new HedgingDecorator(new LedgersClientProperties(environment, "ledgers.hedging", "ledgersAccount"),
+                                                                 executor, meterRegistry);
+        try {
+            return hedgingDecorator.decorate(new Target.HardCodedTarget<>(TestClient.class, "http://localhost"),
+                                             TestClient.class.getMethod(methodName), handler);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private MethodHandler firstCallSlow(long sleepMs) {
+        return args -> {
+            int call = calls.incrementAndGet();
+            if (call == 1) {
+                Thread.sleep(sleepMs);
+            }
+            return "call-" + call;
+        };
+    }
+
+    private MethodHandler firstCallSlowAndFailing() {
+        return args -> {
+            int call = calls.incrementAndGet();
+            if (call == 1) {
+                Thread.sleep(200);
+                throw new IllegalStateException("call-1");
+            }
+            return "call-" + call;
+        };
+    }
+
+    interface TestClient {
+        @GetMapping("/balances")
+        String getBalances();
+
+        @GetMapping("/transactions")
+        String getTransactionByDates();
+
+        @PostMapping("/payments")
+        String initiatePayment();
+    }
+}
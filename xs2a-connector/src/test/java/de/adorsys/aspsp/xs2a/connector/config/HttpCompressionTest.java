@@ -0,0 +1,241 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config;
+
+import com.sun.net.httpserver.HttpServer;
+import de.adorsys.ledgers.rest.client.HttpCompression;
+import de.adorsys.ledgers.rest.client.LedgersClientProperties;
+import de.adorsys.ledgers.rest.client.PooledHttpClientFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpCompressionTest {
+    private static final String CLIENT_NAME = "ledgersAccount";
+    private static final String JSON = "{\"transactions\":[" + String.join(",", Collections.nCopies(100, "{\"amount\":\"10.00\"}")) + "]}";
+
+    private final MockEnvironment environment = new MockEnvironment();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HttpServer server;
+    private String responseEncoding;
+    private String receivedAcceptEncoding;
+    private String receivedContentEncoding;
+    private byte[] receivedBody;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            receivedAcceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            receivedContentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+            try (InputStream body = exchange.getRequestBody()) {
+                receivedBody = IOUtils.toByteArray(body);
+            }
+            byte[] response = encode(JSON.getBytes(StandardCharsets.UTF_8), responseEncoding);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            if (responseEncoding != null) {
+                exchange.getResponseHeaders().add("Content-Encoding", responseEncoding);
+            }
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(response);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void disabled_compressedResponse_shouldStillBeDecoded() throws IOException {
+        // Given
+        responseEncoding = "gzip";
+
+        // When
+        String body = get(false);
+
+        // Then
+        assertEquals(JSON, body);
+        assertNotNull(receivedAcceptEncoding);
+        assertTrue(receivedAcceptEncoding.contains("gzip"));
+        assertEquals(0, bytes("response", "wire"));
+    }
+
+    @Test
+    void enabled_gzipResponse_shouldBeDecodedAndCounted() throws IOException {
+        // Given
+        responseEncoding = "gzip";
+
+        // When
+        String body = get(true);
+
+        // Then
+        assertEquals(JSON, body);
+        assertEquals("gzip, deflate", receivedAcceptEncoding);
+        assertEquals(encode(JSON.getBytes(StandardCharsets.UTF_8), "gzip").length, bytes("response", "wire"));
+        assertEquals(JSON.length(), bytes("response", "decoded"));
+    }
+
+    @Test
+    void enabled_deflateResponse_shouldBeDecoded() throws IOException {
+        // Given
+        responseEncoding = "deflate";
+
+        // When
+        String body = get(true);
+
+        // Then
+        assertEquals(JSON, body);
+        assertEquals(JSON.length(), bytes("response", "decoded"));
+    }
+
+    @Test
+    void enabled_uncompressedResponse_shouldBeCountedOnce() throws IOException {
+        // When
+        String body = get(true);
+
+        // Then
+        assertEquals(JSON, body);
+        assertEquals(JSON.length(), bytes("response", "wire"));
+        assertEquals(JSON.length(), bytes("response", "decoded"));
+    }
+
+    @Test
+    void enabled_largeJsonRequest_shouldBeGzipped() throws IOException {
+        // Given
+        environment.setProperty("ledgers.http-client.config.default.compression.min-request-size", "1024");
+        byte[] request = JSON.getBytes(StandardCharsets.UTF_8);
+
+        // When
+        post(request, ContentType.APPLICATION_JSON);
+
+        // Then
+        assertEquals("gzip", receivedContentEncoding);
+        assertArrayEquals(request, IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(receivedBody))));
+        assertEquals(request.length, bytes("request", "decoded"));
+        assertEquals(receivedBody.length, bytes("request", "wire"));
+        assertTrue(receivedBody.length < request.length);
+    }
+
+    @Test
+    void enabled_requestBelowMinimumSize_shouldNotBeCompressed() throws IOException {
+        // Given
+        environment.setProperty("ledgers.http-client.config.default.compression.min-request-size", String.valueOf(JSON.length() + 1));
+        byte[] request = JSON.getBytes(StandardCharsets.UTF_8);
+
+        // When
+        post(request, ContentType.APPLICATION_JSON);
+
+        // Then
+        assertNull(receivedContentEncoding);
+        assertArrayEquals(request, receivedBody);
+        assertEquals(request.length, bytes("request", "wire"));
+    }
+
+    @Test
+    void enabled_requestOfOtherMimeType_shouldNotBeCompressed() throws IOException {
+        // Given
+        environment.setProperty("ledgers.http-client.config.default.compression.min-request-size", "1024");
+        byte[] request = JSON.getBytes(StandardCharsets.UTF_8);
+
+        // When
+        post(request, ContentType.TEXT_PLAIN);
+
+        // Then
+        assertNull(receivedContentEncoding);
+        assertArrayEquals(request, receivedBody);
+    }
+
+    private String get(boolean compressionEnabled) throws IOException {
+        environment.setProperty("ledgers.http-client.config.default.compression.enabled", String.valueOf(compressionEnabled));
+        try (CloseableHttpClient httpClient = httpClient();
+             CloseableHttpResponse response = httpClient.execute(new HttpGet(url()))) {
+            return EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private void post(byte[] body, ContentType contentType) throws IOException {
+        environment.setProperty("ledgers.http-client.config.default.compression.enabled", "true");
+        HttpPost request = new HttpPost(url());
+        request.setEntity(new ByteArrayEntity(body, contentType));
+        try (CloseableHttpClient httpClient = httpClient();
+             CloseableHttpResponse response = httpClient.execute(request)) {
+            EntityUtils.consume(response.getEntity());
+        }
+    }
+
+    private CloseableHttpClient httpClient() {
+        PooledHttpClientFactory factory = new PooledHttpClientFactory(properties());
+        return factory.httpClient(factory.connectionManager(), Collections.singletonList(new HttpCompression(properties(), meterRegistry)));
+    }
+
+    private LedgersClientProperties properties() {
+        return new LedgersClientProperties(environment, "ledgers.http-client", CLIENT_NAME);
+    }
+
+    private String url() {
+        return "http://localhost:" + server.getAddress().getPort() + "/";
+    }
+
+    private double bytes(String direction, String representation) {
+        return meterRegistry.find("ledgers.http.client.bytes")
+                       .tag("direction", direction)
+                       .tag("representation", representation)
+                       .counters().stream()
+                       .mapToDouble(Counter::count)
+                       .sum();
+    }
+
+    private static byte[] encode(byte[] body, String encoding) throws IOException {
+        if (encoding == null) {
+            return body;
+        }
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        try (OutputStream out = "gzip".equals(encoding) ? new GZIPOutputStream(encoded) : new DeflaterOutputStream(encoded)) {
+            out.write(body);
+        }
+        return encoded.toByteArray();
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.ledgers.middleware.api.domain.account.TransactionTO;
+import de.adorsys.ledgers.rest.client.AccountRestClient;
+import de.adorsys.ledgers.rest.client.JsonArrayBody;
+import de.adorsys.ledgers.rest.client.JsonArrayDecoder;
+import feign.Request;
+import feign.Response;
+import feign.codec.DecodeException;
+import feign.codec.Decoder;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class JsonArrayDecoderTest {
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final Decoder delegate = mock(Decoder.class);
+    private final JsonArrayDecoder jsonArrayDecoder = new JsonArrayDecoder(objectMapper, delegate);
+
+    @Test
+    void decode_jsonArrayBody_shouldMapElements() throws Exception {
+        // Given
+        Response response = response("[{\"transactionId\":\"1\"},{\"transactionId\":\"2\"}]");
+
+        // When
+        JsonArrayBody<TransactionTO> body = decodeTransactions(response);
+        List<String> transactionIds = body.map(TransactionTO::getTransactionId);
+
+        // Then
+        assertEquals(Arrays.asList("1", "2"), transactionIds);
+        verify(delegate, never()).decode(any(), any());
+    }
+
+    @Test
+    void decode_emptyBody_shouldMapToEmptyList() throws Exception {
+        // Given
+        Response response = response((String) null);
+
+        // When
+        JsonArrayBody<TransactionTO> body = decodeTransactions(response);
+
+        // Then
+        assertTrue(body.map(TransactionTO::getTransactionId).isEmpty());
+    }
+
+    @Test
+    void map_noArray_shouldThrowDecodeException() throws Exception {
+        // Given
+        JsonArrayBody<TransactionTO> body = decodeTransactions(response("{\"transactionId\":\"1\"}"));
+
+        // Then
+        assertThrows(DecodeException.class, () -> body.map(TransactionTO::getTransactionId));
+    }
+
+    @Test
+    void map_shouldMapElementsBeforeTheWholeBodyHasArrived() throws Exception {
+        // Given
+        byte[] firstElement = "[{\"transactionId\":\"1\"},".getBytes(StandardCharsets.UTF_8);
+        InputStream brokenAfterFirstElement = new SequenceInputStream(new ByteArrayInputStream(firstElement), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset");
+            }
+        });
+        JsonArrayBody<TransactionTO> body = decodeTransactions(response(brokenAfterFirstElement));
+        List<String> mapped = new ArrayList<>();
+
+        // Then
+        assertThrows(DecodeException.class, () -> body.map(transaction -> mapped.add(transaction.getTransactionId())));
+        assertEquals(Collections.singletonList("1"), mapped);
+    }
+
+    @Test
+    void map_shouldCloseTheResponse() throws Exception {
+        // Given
+        CloseTrackingInputStream stream = new CloseTrackingInputStream("[{\"transactionId\":\"1\"}]");
+        JsonArrayBody<TransactionTO> body = decodeTransactions(response(stream));
+
+        // When
+        assertFalse(stream.closed);
+        body.map(TransactionTO::getTransactionId);
+
+        // Then
+        assertTrue(stream.closed);
+        assertThrows(IllegalStateException.class, () -> body.map(TransactionTO::getTransactionId));
+    }
+
+    @Test
+    void decode_otherType_shouldBeDelegatedAndCloseTheResponse() throws Exception {
+        // Given
+        CloseTrackingInputStream stream = new CloseTrackingInputStream("{}");
+        Response response = response(stream);
+        when(delegate.decode(response, String.class)).thenReturn("decoded");
+
+        // When
+        Object result = jsonArrayDecoder.decode(response, String.class);
+
+        // Then
+        assertEquals("decoded", result);
+        assertTrue(stream.closed);
+    }
+
+    @SuppressWarnings("unchecked")
+    private JsonArrayBody<TransactionTO> decodeTransactions(Response response) throws Exception {
+        Type returnType = AccountRestClient.class.getMethod("getTransactionByDatesAsStream", String.class, LocalDate.class, LocalDate.class)
+                                  .getGenericReturnType();
+        return (JsonArrayBody<TransactionTO>) jsonArrayDecoder.decode(response, returnType);
+    }
+
+    private Response response(InputStream body) {
+        return Response.builder()
+                       .status(200)
+                       .request(Request.create(Request.HttpMethod.GET, "", Collections.emptyMap(), null))
+                       .headers(Collections.emptyMap())
+                       .body(body, null)
+                       .build();
+    }
+
+    private Response response(String body) {
+        Response.Builder builder = Response.builder()
+                                           .status(200)
+                                           .request(Request.create(Request.HttpMethod.GET, "", Collections.emptyMap(), null))
+                                           .headers(Collections.emptyMap());
+        if (body != null) {
+            builder.body(body, StandardCharsets.UTF_8);
+        }
+        return builder.build();
+    }
+
+    private static class CloseTrackingInputStream extends ByteArrayInputStream {
+        private boolean closed;
+
+        private CloseTrackingInputStream(String content) {
+            super(content.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.aspsp.xs2a.util.Benchmark;
+import de.adorsys.aspsp.xs2a.util.JsonReader;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAConsentResponseTO;
+import de.adorsys.ledgers.rest.client.JsonCodecRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Per call cost of reading and writing a DTO through the generic {@link ObjectMapper} methods and through the
+ * pre-built readers and writers of the {@link JsonCodecRegistry}.
+ * <p>
+ * Not part of the regular build, run it explicitly with
+ * {@code mvn test -pl xs2a-connector -Dtest=JsonCodecRegistryBenchmarkTest -Dbenchmark=true}.
+ * The number of iterations can be changed with {@code -Dbenchmark.iterations=200000}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class JsonCodecRegistryBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(JsonCodecRegistryBenchmarkTest.class);
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final JsonCodecRegistry jsonCodecRegistry = new JsonCodecRegistry(objectMapper, SCAConsentResponseTO.class);
+    private final Benchmark benchmark = new Benchmark();
+
+    @Test
+    void registry_versusObjectMapper() throws IOException {
+        byte[] json = new JsonReader().getStringFromFile("json/config/auth/sca-consent-response.json").getBytes(StandardCharsets.UTF_8);
+        SCAConsentResponseTO response = objectMapper.readValue(json, SCAConsentResponseTO.class);
+        byte[] error = "{\"errorCode\": \"PSU_AUTH_ATTEMPT_INVALID\", \"devMessage\": \"Wrong PIN\"}".getBytes(StandardCharsets.UTF_8);
+
+        logger.info("read: ObjectMapper {}; registry {}",
+                    benchmark.measure(() -> objectMapper.readValue(json, SCAConsentResponseTO.class)),
+                    benchmark.measure(() -> jsonCodecRegistry.reader(SCAConsentResponseTO.class).readValue(json)));
+        logger.info("write: ObjectMapper {}; registry {}",
+                    benchmark.measure(() -> objectMapper.writeValueAsBytes(response)),
+                    benchmark.measure(() -> jsonCodecRegistry.writer(response.getClass()).writeValueAsBytes(response)));
+        logger.info("read tree: ObjectMapper {}; registry {}",
+                    benchmark.measure(() -> objectMapper.readTree(error)),
+                    benchmark.measure(() -> jsonCodecRegistry.readTree(error)));
+    }
+}
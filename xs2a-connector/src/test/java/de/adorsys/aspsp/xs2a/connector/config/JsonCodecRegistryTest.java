@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAConsentResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
+import de.adorsys.ledgers.rest.client.JsonCodecEncoder;
+import de.adorsys.ledgers.rest.client.JsonCodecRegistry;
+import feign.RequestTemplate;
+import feign.codec.Encoder;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class JsonCodecRegistryTest {
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final JsonCodecRegistry jsonCodecRegistry = new JsonCodecRegistry(objectMapper, SCAConsentResponseTO.class);
+
+    @Test
+    void reader_shouldBeBuiltOncePerType() {
+        assertSame(jsonCodecRegistry.reader(SCAConsentResponseTO.class), jsonCodecRegistry.reader(SCAConsentResponseTO.class));
+        assertSame(jsonCodecRegistry.writer(SCAConsentResponseTO.class), jsonCodecRegistry.writer(SCAConsentResponseTO.class));
+    }
+
+    @Test
+    void writer_declaredSupertype_shouldWriteRuntimeType() throws Exception {
+        // Given
+        SCAConsentResponseTO response = new SCAConsentResponseTO();
+        response.setAuthorisationId("authorisation ID");
+
+        // When
+        String json = jsonCodecRegistry.writer(response, SCAResponseTO.class).writeValueAsString(response);
+
+        // Then
+        assertEquals(objectMapper.writeValueAsString(response), json);
+    }
+
+    @Test
+    void encode_jsonBody_shouldUseRegistryWriter() throws Exception {
+        // Given
+        Encoder delegate = mock(Encoder.class);
+        JsonCodecEncoder encoder = new JsonCodecEncoder(jsonCodecRegistry, delegate);
+        RequestTemplate template = new RequestTemplate();
+        List<String> body = Collections.singletonList("value");
+        Type bodyType = objectMapper.getTypeFactory().constructCollectionType(List.class, String.class);
+
+        // When
+        encoder.encode(body, bodyType, template);
+
+        // Then
+        assertEquals("[\"value\"]", new String(template.body(), StandardCharsets.UTF_8));
+        assertEquals(Collections.singletonList(MediaType.APPLICATION_JSON_VALUE), List.copyOf(template.headers().get(HttpHeaders.CONTENT_TYPE)));
+        verify(delegate, never()).encode(any(), any(), any());
+    }
+
+    @Test
+    void encode_otherContentType_shouldUseDelegate() {
+        // Given
+        Encoder delegate = mock(Encoder.class);
+        JsonCodecEncoder encoder = new JsonCodecEncoder(jsonCodecRegistry, delegate);
+        RequestTemplate template = new RequestTemplate().header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_XML_VALUE);
+
+        // When
+        encoder.encode("<xml/>", String.class, template);
+
+        // Then
+        verify(delegate).encode("<xml/>", String.class, template);
+    }
+}
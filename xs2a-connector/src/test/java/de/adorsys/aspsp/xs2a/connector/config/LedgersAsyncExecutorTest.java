@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config;
+
+import de.adorsys.aspsp.xs2a.connector.config.auth.AuthConfig;
+import de.adorsys.ledgers.rest.client.AccessTokenScope;
+import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import de.adorsys.ledgers.rest.client.LedgersAsyncExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgersAsyncExecutorTest {
+    private final AuthRequestInterceptor authRequestInterceptor = new AuthConfig().getClientAuth();
+    private final LedgersAsyncExecutor executor = new LedgersAsyncExecutor(2, 10, authRequestInterceptor, null);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void supplyAsync_shouldRunWithCallerAccessToken() {
+        // Given
+        CompletableFuture<String> accessToken;
+
+        // When
+        try (AccessTokenScope ignored = authRequestInterceptor.withAccessToken("caller")) {
+            accessToken = executor.supplyAsync(authRequestInterceptor::getAccessToken);
+        }
+
+        // Then
+        assertEquals("caller", LedgersAsyncExecutor.join(accessToken));
+    }
+
+    @Test
+    void join_shouldRethrowOriginalException() {
+        // Given
+        IllegalStateException exception = new IllegalStateException("ledgers failed");
+
+        // When
+        CompletableFuture<String> future = executor.supplyAsync(() -> {
+            throw exception;
+        });
+
+        // Then
+        assertSame(exception, assertThrows(IllegalStateException.class, () -> LedgersAsyncExecutor.join(future)));
+    }
+}
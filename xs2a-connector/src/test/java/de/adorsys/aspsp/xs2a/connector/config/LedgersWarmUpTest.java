@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config;
+
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
+import de.adorsys.ledgers.middleware.api.service.TokenStorageService;
+import de.adorsys.ledgers.rest.client.AccountRestClient;
+import de.adorsys.ledgers.rest.client.MethodHandlerDecorator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.cloud.openfeign.FeignContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LedgersWarmUpTest {
+    private static final String ACCOUNT_CLIENT_BEAN = AccountRestClient.class.getName();
+
+    @Mock
+    private ApplicationContext applicationContext;
+    @Mock
+    private TokenStorageService tokenStorageService;
+    @Mock
+    private FeignContext feignContext;
+
+    private LedgersWarmUp ledgersWarmUp;
+
+    @BeforeEach
+    void setUp() {
+        ledgersWarmUp = new LedgersWarmUp(applicationContext, new MockEnvironment(), tokenStorageService, new JacksonConfig().objectMapper());
+        when(applicationContext.getBean(FeignContext.class)).thenReturn(feignContext);
+        when(applicationContext.getBeanNamesForAnnotation(FeignClient.class)).thenReturn(new String[0]);
+    }
+
+    @Test
+    void warmUp_shouldResolveFeignClientsAndTheirDecorators() {
+        // Given
+        when(applicationContext.getBeanNamesForAnnotation(FeignClient.class)).thenReturn(new String[]{ACCOUNT_CLIENT_BEAN});
+        when(applicationContext.findAnnotationOnBean(ACCOUNT_CLIENT_BEAN, FeignClient.class))
+                .thenReturn(AccountRestClient.class.getAnnotation(FeignClient.class));
+        when(feignContext.getInstances("ledgersAccount", MethodHandlerDecorator.class))
+                .thenReturn(Collections.singletonMap("metricsDecorator", mock(MethodHandlerDecorator.class)));
+
+        // When
+        ledgersWarmUp.warmUp();
+
+        // Then
+        verify(applicationContext).getBean(ACCOUNT_CLIENT_BEAN);
+        assertTrue(ledgersWarmUp.getReport().get("feign-clients").endsWith("(1 clients, 1 decorators)"));
+    }
+
+    @Test
+    void warmUp_shouldReportEveryStep() throws IOException {
+        // Given
+        when(tokenStorageService.toBytes(any(SCAResponseTO.class))).thenReturn(new byte[]{1});
+
+        // When
+        assertFalse(ledgersWarmUp.isCompleted());
+        ledgersWarmUp.warmUp();
+
+        // Then
+        Map<String, String> report = ledgersWarmUp.getReport();
+        assertTrue(ledgersWarmUp.isCompleted());
+        assertEquals(Arrays.asList("feign-clients", "jackson", "connections", "total"), Arrays.asList(report.keySet().toArray()));
+        assertTrue(report.get("jackson").endsWith("(7 types)"));
+    }
+
+    @Test
+    void warmUp_failedStep_shouldStillComplete() throws IOException {
+        // Given
+        when(tokenStorageService.toBytes(any(SCAResponseTO.class))).thenThrow(new IOException("broken"));
+
+        // When
+        ledgersWarmUp.warmUp();
+
+        // Then
+        assertTrue(ledgersWarmUp.isCompleted());
+        assertTrue(ledgersWarmUp.getReport().get("jackson").startsWith("failed after"));
+        assertTrue(ledgersWarmUp.getReport().containsKey("connections"));
+    }
+}
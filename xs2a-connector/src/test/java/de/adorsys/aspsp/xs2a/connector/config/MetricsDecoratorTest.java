@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config;
+
+import de.adorsys.ledgers.rest.client.LedgersClientProperties;
+import de.adorsys.ledgers.rest.client.MetricsDecorator;
+import de.adorsys.ledgers.rest.client.PsuAccountListCache;
+import de.adorsys.ledgers.rest.client.SingleFlightDecorator;
+import feign.FeignException;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Request;
+import feign.Response;
+import feign.Target;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.bind.annotation.GetMapping;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsDecoratorTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MetricsDecorator metricsDecorator =
+            new MetricsDecorator(new LedgersClientProperties(new MockEnvironment(), "ledgers.metrics", "ledgersAccount"), meterRegistry);
+
+    @Test
+    void successfulCall_shouldBeTimedWithStatus() throws Throwable {
+        // Given
+        MethodHandler handler = decorate(args -> ResponseEntity.ok("balances"));
+
+        // When
+        handler.invoke(new Object[0]);
+
+        // Then
+        assertEquals(1, meterRegistry.get("ledgers.client.requests")
+                                .tags("client", "ledgersAccount", "method", "getBalances", "status", "200", "outcome", "SUCCESS")
+                                .timer()
+                                .count());
+    }
+
+    @Test
+    void failedCall_shouldBeTimedAndCounted() {
+        // Given
+        FeignException notFound = FeignException.errorStatus("getBalances", Response.builder()
+                                                                                     .status(404)
+                                                                                     .request(Request.create(Request.HttpMethod.GET, "", Collections.emptyMap(), null))
+                                                                                     .headers(Collections.emptyMap())
+                                                                                     .build());
+        MethodHandler handler = decorate(args -> {
+            throw notFound;
+        });
+
+        // Then
+        assertThrows(FeignException.class, () -> handler.invoke(new Object[0]));
+        assertEquals(1, meterRegistry.get("ledgers.client.requests")
+                                .tags("status", "404", "outcome", "CLIENT_ERROR")
+                                .timer()
+                                .count());
+        assertEquals(1, meterRegistry.get("ledgers.client.errors")
+                                .tags("exception", notFound.getClass().getSimpleName())
+                                .counter()
+                                .count());
+    }
+
+    @Test
+    void getOrder_shouldBeInsideCacheAndSingleFlight() {
+        // Given
+        SingleFlightDecorator singleFlightDecorator =
+                new SingleFlightDecorator(new LedgersClientProperties(new MockEnvironment(), "ledgers.single-flight", "ledgersAccount"),
+                                          null, meterRegistry);
+        PsuAccountListCache psuAccountListCache = new PsuAccountListCache(10, Duration.ofSeconds(5), null,
+                                                                          new JacksonConfig().objectMapper(), meterRegistry);
+
+        // Then
+        assertTrue(metricsDecorator.getOrder() > singleFlightDecorator.getOrder());
+        assertTrue(metricsDecorator.getOrder() > psuAccountListCache.getOrder());
+    }
+
+    private MethodHandler decorate(MethodHandler handler) {
+        try {
+            return metricsDecorator.decorate(new Target.HardCodedTarget<>(TestClient.class, "http://localhost"),
+                                             TestClient.class.getMethod("getBalances"), handler);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    interface TestClient {
+        @GetMapping("/balances")
+        ResponseEntity<String> getBalances();
+    }
+}
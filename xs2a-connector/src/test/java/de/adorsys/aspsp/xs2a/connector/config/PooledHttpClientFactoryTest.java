@@ -0,0 +1,154 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config;
+
+import de.adorsys.ledgers.rest.client.LedgersClientProperties;
+import de.adorsys.ledgers.rest.client.PooledHttpClientFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledHttpClientFactoryTest {
+    private static final String LOOPBACK = "127.0.0.1";
+
+    private final MockEnvironment environment = new MockEnvironment();
+    private ServerSocket server;
+    private PoolingHttpClientConnectionManager connectionManager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // connections are completed by the backlog, nothing has to be accepted
+        server = new ServerSocket(0, 50, InetAddress.getByName(LOOPBACK));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (connectionManager != null) {
+            connectionManager.shutdown();
+        }
+        server.close();
+    }
+
+    @Test
+    void connectionManager_defaults() {
+        // When
+        connectionManager = factory("ledgersAccount").connectionManager();
+
+        // Then
+        assertEquals(200, connectionManager.getMaxTotal());
+        assertEquals(50, connectionManager.getDefaultMaxPerRoute());
+        assertEquals(2_000, connectionManager.getValidateAfterInactivity());
+    }
+
+    @Test
+    void connectionManager_clientProperties_shouldOverrideDefaults() {
+        // Given
+        environment.setProperty("ledgers.http-client.config.default.max-connections", "100");
+        environment.setProperty("ledgers.http-client.config.default.max-connections-per-route", "20");
+        environment.setProperty("ledgers.http-client.config.ledgersAccount.max-connections-per-route", "80");
+
+        // When
+        connectionManager = factory("ledgersAccount").connectionManager();
+        PoolingHttpClientConnectionManager paymentConnectionManager = factory("ledgersPayment").connectionManager();
+
+        // Then
+        assertEquals(100, connectionManager.getMaxTotal());
+        assertEquals(80, connectionManager.getDefaultMaxPerRoute());
+        assertEquals(100, paymentConnectionManager.getMaxTotal());
+        assertEquals(20, paymentConnectionManager.getDefaultMaxPerRoute());
+        paymentConnectionManager.shutdown();
+    }
+
+    @Test
+    void preOpenConnections_shouldLeaveIdleConnectionsInPool() throws Exception {
+        // Given
+        PooledHttpClientFactory factory = factory("ledgersAccount");
+        connectionManager = factory.connectionManager();
+
+        // When
+        int opened = factory.preOpenConnections(connectionManager, url(), 3);
+
+        // Then
+        assertEquals(3, opened);
+        assertEquals(3, connectionManager.getTotalStats().getAvailable());
+        assertEquals(0, connectionManager.getTotalStats().getLeased());
+    }
+
+    @Test
+    void preOpenConnections_shouldReusePooledConnections() throws Exception {
+        // Given
+        PooledHttpClientFactory factory = factory("ledgersAccount");
+        connectionManager = factory.connectionManager();
+        factory.preOpenConnections(connectionManager, url(), 2);
+
+        // When
+        int opened = factory.preOpenConnections(connectionManager, url(), 3);
+
+        // Then
+        assertEquals(1, opened);
+        assertEquals(3, connectionManager.getTotalStats().getAvailable());
+    }
+
+    @Test
+    void preOpenConnections_shouldBeLimitedByMaxConnectionsPerRoute() throws Exception {
+        // Given
+        environment.setProperty("ledgers.http-client.config.default.max-connections-per-route", "2");
+        PooledHttpClientFactory factory = factory("ledgersAccount");
+        connectionManager = factory.connectionManager();
+
+        // When
+        int opened = factory.preOpenConnections(connectionManager, url(), 5);
+
+        // Then
+        assertEquals(2, opened);
+        assertEquals(2, connectionManager.getTotalStats().getAvailable());
+    }
+
+    @Test
+    void bindMetrics_shouldReportPoolStats() throws Exception {
+        // Given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PooledHttpClientFactory factory = factory("ledgersAccount");
+        connectionManager = factory.connectionManager();
+        factory.bindMetrics(meterRegistry, connectionManager);
+
+        // When
+        factory.preOpenConnections(connectionManager, url(), 2);
+
+        // Then
+        assertEquals(2, meterRegistry.get("ledgers.http.client.pool.idle").tag("client", "ledgersAccount").gauge().value());
+        assertEquals(0, meterRegistry.get("ledgers.http.client.pool.leased").gauge().value());
+        assertEquals(200, meterRegistry.get("ledgers.http.client.pool.max").gauge().value());
+    }
+
+    private PooledHttpClientFactory factory(String clientName) {
+        return new PooledHttpClientFactory(new LedgersClientProperties(environment, "ledgers.http-client", clientName));
+    }
+
+    private String url() {
+        return "http://" + LOOPBACK + ":" + server.getLocalPort();
+    }
+}
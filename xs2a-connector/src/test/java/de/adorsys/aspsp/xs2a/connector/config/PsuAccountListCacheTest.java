@@ -0,0 +1,207 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config;
+
+import de.adorsys.aspsp.xs2a.connector.config.auth.AuthConfig;
+import de.adorsys.aspsp.xs2a.util.MutableClock;
+import de.adorsys.ledgers.rest.client.AccessTokenScope;
+import de.adorsys.ledgers.rest.client.AccountRestClient;
+import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import de.adorsys.ledgers.rest.client.PaymentRestClient;
+import de.adorsys.ledgers.rest.client.PsuAccountListCache;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Target;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PsuAccountListCacheTest {
+    private static final Instant NOW = Instant.parse("2020-03-01T10:00:00Z");
+
+    private final AuthRequestInterceptor authRequestInterceptor = new AuthConfig().getClientAuth();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MutableClock clock = new MutableClock(NOW);
+    private final PsuAccountListCache psuAccountListCache =
+            new PsuAccountListCache(100, Duration.ofSeconds(5), authRequestInterceptor, new JacksonConfig().objectMapper(), meterRegistry, clock);
+    private final AtomicInteger calls = new AtomicInteger();
+    private final MethodHandler getListOfAccounts = decorate(AccountRestClient.class, "getListOfAccounts",
+                                                             args -> ResponseEntity.ok(Collections.singletonList("account-" + calls.incrementAndGet())));
+
+    @Test
+    void getListOfAccounts_sameToken_shouldCallLedgersOnce() throws Throwable {
+        // When
+        Object first = invoke(getListOfAccounts, accessToken("psu-1", "token-1"));
+        Object second = invoke(getListOfAccounts, accessToken("psu-1", "token-1"));
+
+        // Then
+        assertSame(first, second);
+        assertEquals(1, calls.get());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "ledgers.accounts").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "ledgers.accounts").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void getListOfAccounts_otherPsu_shouldCallLedgers() throws Throwable {
+        // When
+        invoke(getListOfAccounts, accessToken("psu-1", "token-1"));
+        invoke(getListOfAccounts, accessToken("psu-2", "token-1"));
+
+        // Then
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void getListOfAccounts_otherTokenOfSamePsu_shouldCallLedgers() throws Throwable {
+        // When
+        invoke(getListOfAccounts, accessToken("psu-1", "token-1"));
+        invoke(getListOfAccounts, accessToken("psu-1", "token-2"));
+
+        // Then
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void getListOfAccounts_afterTimeToLive_shouldCallLedgersAgain() throws Throwable {
+        // Given
+        invoke(getListOfAccounts, accessToken("psu-1", "token-1"));
+
+        // When
+        clock.advance(Duration.ofSeconds(6));
+        invoke(getListOfAccounts, accessToken("psu-1", "token-1"));
+
+        // Then
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void paymentExecution_shouldInvalidateAccountListsOfAllTokensOfPsu() throws Throwable {
+        // Given
+        MethodHandler authorizePayment = decorate(PaymentRestClient.class, "authorizePayment", args -> {
+            throw new IllegalStateException("timeout");
+        });
+        invoke(getListOfAccounts, accessToken("psu-1", "token-1"));
+        invoke(getListOfAccounts, accessToken("psu-1", "token-3"));
+        invoke(getListOfAccounts, accessToken("psu-2", "token-1"));
+
+        // When
+        assertThrows(IllegalStateException.class, () -> invoke(authorizePayment, accessToken("psu-1", "token-2")));
+        invoke(getListOfAccounts, accessToken("psu-1", "token-1"));
+        invoke(getListOfAccounts, accessToken("psu-1", "token-3"));
+        invoke(getListOfAccounts, accessToken("psu-2", "token-1"));
+
+        // Then
+        assertEquals(5, calls.get());
+    }
+
+    @Test
+    void paymentExecution_duringAccountListCall_shouldNotServeThatList() throws Throwable {
+        // Given
+        MethodHandler authorizePayment = decorate(PaymentRestClient.class, "authorizePayment", args -> "ok");
+        MethodHandler handler = decorate(AccountRestClient.class, "getListOfAccounts", args -> {
+            if (calls.incrementAndGet() == 1) {
+                invoke(authorizePayment, accessToken("psu-1", "token-2"));
+            }
+            return ResponseEntity.ok(Collections.singletonList("account-" + calls.get()));
+        });
+
+        // When
+        invoke(handler, accessToken("psu-1", "token-1"));
+        invoke(handler, accessToken("psu-1", "token-1"));
+
+        // Then
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void getListOfAccounts_unreadableOrExpiredToken_shouldNotBeCached() throws Throwable {
+        // When
+        invoke(getListOfAccounts, "opaque token");
+        invoke(getListOfAccounts, "opaque token");
+        invoke(getListOfAccounts, accessToken("psu-1", NOW.minusSeconds(1)));
+        invoke(getListOfAccounts, accessToken("psu-1", NOW.minusSeconds(1)));
+
+        // Then
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    void getListOfAccounts_emptyResponse_shouldNotBeCached() throws Throwable {
+        // Given
+        MethodHandler handler = decorate(AccountRestClient.class, "getListOfAccounts", args -> {
+            calls.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+        });
+
+        // When
+        invoke(handler, accessToken("psu-1", "token-1"));
+        invoke(handler, accessToken("psu-1", "token-1"));
+
+        // Then
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void otherMethods_shouldNotBeDecorated() {
+        // Given
+        MethodHandler original = args -> "ok";
+
+        // Then
+        assertSame(original, decorate(AccountRestClient.class, "getBalances", original));
+        assertSame(original, decorate(PaymentRestClient.class, "getPaymentById", original));
+    }
+
+    private MethodHandler decorate(Class<?> client, String methodName, MethodHandler handler) {
+        Method method = Arrays.stream(client.getMethods())
+                                .filter(m -> m.getName().equals(methodName))
+                                .findFirst()
+                                .orElseThrow(() -> new IllegalArgumentException(methodName));
+        return psuAccountListCache.decorate(new Target.HardCodedTarget<>(client, "http://localhost"), method, handler);
+    }
+
+    private Object invoke(MethodHandler handler, String accessToken) throws Throwable {
+        try (AccessTokenScope ignored = authRequestInterceptor.withAccessToken(accessToken)) {
+            return handler.invoke(new Object[0]);
+        }
+    }
+
+    private String accessToken(String psuId, String tokenId) {
+        return jwt("{\"sub\":\"" + psuId + "\",\"jti\":\"" + tokenId + "\",\"exp\":" + NOW.plusSeconds(300).getEpochSecond() + "}");
+    }
+
+    private String accessToken(String psuId, Instant expiresAt) {
+        return jwt("{\"sub\":\"" + psuId + "\",\"exp\":" + expiresAt.getEpochSecond() + "}");
+    }
+
+    private String jwt(String claims) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.UTF_8)) + "."
+                       + encoder.encodeToString(claims.getBytes(StandardCharsets.UTF_8)) + ".signature";
+    }
+}
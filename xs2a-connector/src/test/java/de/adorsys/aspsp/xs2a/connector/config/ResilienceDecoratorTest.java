@@ -0,0 +1,243 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config;
+
+import de.adorsys.ledgers.rest.client.LedgersCallNotPermittedException;
+import de.adorsys.ledgers.rest.client.LedgersClientProperties;
+import de.adorsys.ledgers.rest.client.ResilienceDecorator;
+import feign.FeignException;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Request;
+import feign.Response;
+import feign.Target;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.bind.annotation.GetMapping;
+
+import java.util.Collections;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResilienceDecoratorTest {
+    private final MockEnvironment environment = new MockEnvironment()
+                                                        .withProperty("ledgers.resilience.config.default.circuit-breaker.sliding-window-size", "4")
+                                                        .withProperty("ledgers.resilience.config.default.circuit-breaker.minimum-number-of-calls", "2")
+                                                        .withProperty("ledgers.resilience.config.default.circuit-breaker.failure-rate-threshold", "50")
+                                                        .withProperty("ledgers.resilience.config.default.circuit-breaker.wait-duration-in-open-state-ms", "60000");
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void serverErrors_shouldOpenCircuit() {
+        // Given
+        MethodHandler handler = decorate(failing(503));
+
+        // When
+        assertThrows(FeignException.class, () -> handler.invoke(new Object[0]));
+        assertThrows(FeignException.class, () -> handler.invoke(new Object[0]));
+
+        // Then
+        assertThrows(LedgersCallNotPermittedException.class, () -> handler.invoke(new Object[0]));
+        assertEquals(2, calls.get());
+        assertEquals(1, rejections("circuit-open"));
+    }
+
+    @Test
+    void clientErrors_shouldNotOpenCircuit() {
+        // Given
+        MethodHandler handler = decorate(failing(404));
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            FeignException exception = assertThrows(FeignException.class, () -> handler.invoke(new Object[0]));
+            assertEquals(404, exception.status());
+        }
+
+        // Then
+        assertEquals(5, calls.get());
+        assertEquals(0, rejections("circuit-open"));
+    }
+
+    @Test
+    void fullBulkhead_withoutWait_shouldRejectCall() throws Exception {
+        // Given
+        environment.setProperty("ledgers.resilience.config.default.bulkhead.max-concurrent-calls", "1");
+        environment.setProperty("ledgers.resilience.config.default.bulkhead.max-wait-ms", "0");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MethodHandler handler = decorate(blocking(started, release));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<Object> firstCall = executor.submit(() -> invoke(handler));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // Then
+            assertThrows(LedgersCallNotPermittedException.class, () -> handler.invoke(new Object[0]));
+            assertEquals(1, rejections("bulkhead-full"));
+
+            release.countDown();
+            assertEquals("ok", firstCall.get(5, TimeUnit.SECONDS));
+            assertEquals("ok", handler.invoke(new Object[0]));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void fullBulkhead_shouldWaitForFreeSlot() throws Exception {
+        // Given
+        environment.setProperty("ledgers.resilience.config.default.bulkhead.max-concurrent-calls", "1");
+        environment.setProperty("ledgers.resilience.config.default.bulkhead.max-wait-ms", "5000");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MethodHandler handler = decorate(blocking(started, release));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<Object> firstCall = executor.submit(() -> invoke(handler));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<Object> secondCall = executor.submit(() -> invoke(handler));
+
+            // When
+            release.countDown();
+
+            // Then
+            assertEquals("ok", firstCall.get(5, TimeUnit.SECONDS));
+            assertEquals("ok", secondCall.get(5, TimeUnit.SECONDS));
+            assertEquals(0, rejections("bulkhead-full"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void interruptedWhileWaitingForBulkhead_shouldReleaseCircuitBreakerPermission() throws Exception {
+        // Given
+        environment.setProperty("ledgers.resilience.config.default.circuit-breaker.wait-duration-in-open-state-ms", "1");
+        environment.setProperty("ledgers.resilience.config.default.circuit-breaker.permitted-calls-in-half-open-state", "2");
+        environment.setProperty("ledgers.resilience.config.default.bulkhead.max-concurrent-calls", "1");
+        environment.setProperty("ledgers.resilience.config.default.bulkhead.max-wait-ms", "5000");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MethodHandler handler = decorate(args -> {
+            int call = calls.incrementAndGet();
+            if (call <= 2) {
+                throw FeignException.errorStatus("getBalances", response(503));
+            }
+            if (call == 3) {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return "ok";
+        });
+        assertThrows(FeignException.class, () -> handler.invoke(new Object[0]));
+        assertThrows(FeignException.class, () -> handler.invoke(new Object[0]));
+        Thread.sleep(10);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicReference<Throwable> waitingCallFailure = new AtomicReference<>();
+        Thread waitingCall = new Thread(() -> {
+            try {
+                handler.invoke(new Object[0]);
+            } catch (Throwable e) {
+                waitingCallFailure.set(e);
+            }
+        });
+
+        try {
+            // the half open circuit permits two calls, the first one holds the bulkhead
+            Future<Object> firstCall = executor.submit(() -> invoke(handler));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            waitingCall.start();
+            while (waitingCall.getState() != Thread.State.TIMED_WAITING) {
+                Thread.sleep(1);
+            }
+
+            // When
+            waitingCall.interrupt();
+            waitingCall.join(5_000);
+            release.countDown();
+
+            // Then
+            assertTrue(waitingCallFailure.get() instanceof InterruptedException);
+            assertEquals("ok", firstCall.get(5, TimeUnit.SECONDS));
+            assertEquals("ok", handler.invoke(new Object[0]));
+            assertEquals(0, rejections("circuit-open"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private MethodHandler decorate(MethodHandler handler) {
+        ResilienceDecorator resilienceDecorator = new ResilienceDecorator(new LedgersClientProperties(environment, "ledgers.resilience", "ledgersAccount"),
+                                                                          meterRegistry);
+        try {
+            return resilienceDecorator.decorate(new Target.HardCodedTarget<>(TestClient.class, "http://localhost"),
+                                                TestClient.class.getMethod("getBalances"), handler);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private Object invoke(MethodHandler handler) throws Exception {
+        try {
+            return handler.invoke(new Object[0]);
+        } catch (Exception e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new ExecutionException(e);
+        }
+    }
+
+    private MethodHandler failing(int status) {
+        return args -> {
+            calls.incrementAndGet();
+            throw FeignException.errorStatus("getBalances", response(status));
+        };
+    }
+
+    private MethodHandler blocking(CountDownLatch started, CountDownLatch release) {
+        return args -> {
+            if (calls.incrementAndGet() == 1) {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return "ok";
+        };
+    }
+
+    private double rejections(String reason) {
+        return meterRegistry.get("ledgers.resilience.rejected").tag("reason", reason).counter().count();
+    }
+
+    private Response response(int status) {
+        return Response.builder()
+                       .status(status)
+                       .request(Request.create(Request.HttpMethod.GET, "", Collections.emptyMap(), null))
+                       .headers(Collections.emptyMap())
+                       .build();
+    }
+
+    interface TestClient {
+        @GetMapping("/balances")
+        String getBalances();
+    }
+}
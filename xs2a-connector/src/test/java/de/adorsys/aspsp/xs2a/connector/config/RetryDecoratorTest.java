@@ -0,0 +1,161 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config;
+
+import de.adorsys.ledgers.rest.client.LedgersClientProperties;
+import de.adorsys.ledgers.rest.client.ResilienceDecorator;
+import de.adorsys.ledgers.rest.client.RetryBudget;
+import de.adorsys.ledgers.rest.client.RetryDecorator;
+import feign.FeignException;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Request;
+import feign.Response;
+import feign.Target;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+
+import java.net.ConnectException;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryDecoratorTest {
+    private final MockEnvironment environment = new MockEnvironment()
+                                                        .withProperty("ledgers.retry.config.default.initial-backoff-ms", "0");
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void get_transientStatus_shouldBeRetriedUntilSuccess() throws Throwable {
+        // Given
+        MethodHandler handler = decorate("getBalances", failing(2, serviceUnavailable()), new RetryBudget(0.1, 10));
+
+        // When
+        Object result = handler.invoke(new Object[0]);
+
+        // Then
+        assertEquals("ok", result);
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void post_serviceUnavailable_shouldNotBeRetried() {
+        // Given
+        MethodHandler handler = decorate("updateConsent", failing(1, serviceUnavailable()), new RetryBudget(0.1, 10));
+
+        // Then
+        assertThrows(FeignException.class, () -> handler.invoke(new Object[0]));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void post_connectFailure_shouldBeRetried() throws Throwable {
+        // Given
+        MethodHandler handler = decorate("updateConsent", failing(1, connectFailure()), new RetryBudget(0.1, 10));
+
+        // When
+        handler.invoke(new Object[0]);
+
+        // Then
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void initiatePayment_shouldNeverBeRetried() {
+        // Given
+        environment.setProperty("ledgers.retry.config.ledgersPayment.methods.initiatePayment.idempotent", "true");
+        MethodHandler handler = decorate("initiatePayment", failing(1, connectFailure()), new RetryBudget(0.1, 10));
+
+        // Then
+        assertThrows(FeignException.class, () -> handler.invoke(new Object[0]));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void exhaustedBudget_shouldStopRetries() {
+        // Given
+        MethodHandler handler = decorate("getBalances", failing(10, serviceUnavailable()), new RetryBudget(0, 1));
+
+        // Then
+        assertThrows(FeignException.class, () -> handler.invoke(new Object[0]));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void getOrder_shouldBeOutsideResilience() {
+        // Given
+        RetryDecorator retryDecorator = new RetryDecorator(new LedgersClientProperties(environment, "ledgers.retry", "ledgersPayment"),
+                                                           new RetryBudget(0.1, 10), new SimpleMeterRegistry());
+        ResilienceDecorator resilienceDecorator =
+                new ResilienceDecorator(new LedgersClientProperties(environment, "ledgers.resilience", "ledgersPayment"),
+                                        new SimpleMeterRegistry());
+
+        // Then
+        assertTrue(retryDecorator.getOrder() < resilienceDecorator.getOrder());
+    }
+
+    private MethodHandler decorate(String methodName, MethodHandler handler, RetryBudget retryBudget) {
+        RetryDecorator retryDecorator = new RetryDecorator(new LedgersClientProperties(environment, "ledgers.retry", "ledgersPayment"),
+                                                           retryBudget, new SimpleMeterRegistry());
+        try {
+            return retryDecorator.decorate(new Target.HardCodedTarget<>(TestClient.class, "http://localhost"),
+                                           TestClient.class.getMethod(methodName), handler);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private MethodHandler failing(int failures, FeignException failure) {
+        return args -> {
+            if (calls.incrementAndGet() <= failures) {
+                throw failure;
+            }
+            return "ok";
+        };
+    }
+
+    private FeignException serviceUnavailable() {
+        return FeignException.errorStatus("getBalances", response(503));
+    }
+
+    private FeignException connectFailure() {
+        Response response = response(200);
+        return FeignException.errorReading(response.request(), response, new ConnectException("Connection refused"));
+    }
+
+    private Response response(int status) {
+        return Response.builder()
+                       .status(status)
+                       .request(Request.create(Request.HttpMethod.GET, "", Collections.emptyMap(), null))
+                       .headers(Collections.emptyMap())
+                       .build();
+    }
+
+    interface TestClient {
+        @GetMapping("/balances")
+        String getBalances();
+
+        @PostMapping("/consents")
+        String updateConsent();
+
+        @PostMapping("/payments")
+        String initiatePayment();
+    }
+}
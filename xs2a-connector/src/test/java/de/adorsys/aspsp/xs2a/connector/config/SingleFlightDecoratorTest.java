@@ -0,0 +1,149 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config;
+
+import de.adorsys.aspsp.xs2a.connector.config.auth.AuthConfig;
+import de.adorsys.ledgers.rest.client.AccessTokenScope;
+import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import de.adorsys.ledgers.rest.client.JsonArrayBody;
+import de.adorsys.ledgers.rest.client.LedgersClientProperties;
+import de.adorsys.ledgers.rest.client.SingleFlightDecorator;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Target;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightDecoratorTest {
+    private final AuthRequestInterceptor authRequestInterceptor = new AuthConfig().getClientAuth();
+    private final SingleFlightDecorator singleFlightDecorator =
+            new SingleFlightDecorator(new LedgersClientProperties(new MockEnvironment(), "ledgers.single-flight", "ledgersAccount"),
+                                      authRequestInterceptor, new SimpleMeterRegistry());
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentIdenticalCalls_shouldShareOneLedgersCall() throws Exception {
+        // Given
+        MethodHandler handler = decorate("getBalances", blockingCall());
+
+        // When
+        Future<Object> first = invoke(handler, "token", "account-1");
+        waitForCalls(1);
+        Future<Object> second = invoke(handler, "token", "account-1");
+        Thread.sleep(100);
+        release.countDown();
+
+        // Then
+        assertEquals("call-1", first.get(5, TimeUnit.SECONDS));
+        assertEquals("call-1", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void differentAccessTokens_shouldNotBeCoalesced() throws Exception {
+        // Given
+        MethodHandler handler = decorate("getBalances", blockingCall());
+
+        // When
+        Future<Object> first = invoke(handler, "token-1", "account-1");
+        Future<Object> second = invoke(handler, "token-2", "account-1");
+        waitForCalls(2);
+        release.countDown();
+
+        // Then
+        assertNotEquals(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void nonIdempotentMethod_shouldNotBeDecorated() {
+        // Given
+        MethodHandler original = args -> "ok";
+
+        // Then
+        assertSame(original, decorate("initiatePayment", original));
+    }
+
+    @Test
+    void jsonArrayBodyMethod_shouldNotBeDecorated() {
+        // Given
+        MethodHandler original = args -> "ok";
+
+        // Then
+        assertSame(original, decorate("getTransactions", original));
+    }
+
+    private MethodHandler decorate(String methodName, MethodHandler handler) {
+        try {
+            return singleFlightDecorator.decorate(new Target.HardCodedTarget<>(TestClient.class, "http://localhost"),
+                                                  TestClient.class.getMethod(methodName, String.class), handler);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private MethodHandler blockingCall() {
+        return args -> {
+            int call = calls.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            return "call-" + call;
+        };
+    }
+
+    private Future<Object> invoke(MethodHandler handler, String accessToken, String accountId) {
+        return executor.submit(() -> {
+            try (AccessTokenScope ignored = authRequestInterceptor.withAccessToken(accessToken)) {
+                return handler.invoke(new Object[]{accountId});
+            } catch (Throwable e) {
+                throw new ExecutionException(e);
+            }
+        });
+    }
+
+    private void waitForCalls(int expectedCalls) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (calls.get() < expectedCalls && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    interface TestClient {
+        @GetMapping("/balances")
+        String getBalances(String accountId);
+
+        @GetMapping("/transactions")
+        JsonArrayBody<String> getTransactions(String accountId);
+
+        @PostMapping("/payments")
+        String initiatePayment(String payment);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config;
+
+import de.adorsys.ledgers.rest.client.LedgersClientProperties;
+import de.adorsys.ledgers.rest.client.TimeoutDecorator;
+import feign.Client;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Request;
+import feign.Target;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeoutDecoratorTest {
+    private static final Request.Options FEIGN_DEFAULTS = new Request.Options(60_000, 60_000);
+
+    private final MockEnvironment environment = new MockEnvironment()
+                                                        .withProperty("ledgers.timeouts.config.default.read.read-timeout-ms", "7000");
+    private final AtomicReference<Request.Options> usedOptions = new AtomicReference<>();
+
+    @Test
+    void readTimeout_shouldDependOnOperationClass() throws Throwable {
+        assertEquals(7_000, invoke("getBalances").readTimeoutMillis());
+        assertEquals(60_000, invoke("getTransactionByDates").readTimeoutMillis());
+        assertEquals(30_000, invoke("initiatePayment").readTimeoutMillis());
+        assertEquals(5_000, invoke("authorise").readTimeoutMillis());
+        assertEquals(2_000, usedOptions.get().connectTimeoutMillis());
+    }
+
+    @Test
+    void methodOverride_shouldWinOverOperationClass() throws Throwable {
+        // Given
+        environment.setProperty("ledgers.timeouts.config.ledgersAccount.methods.getBalances.operation-class", "bulk-read");
+        environment.setProperty("ledgers.timeouts.config.ledgersAccount.methods.getTransactionByDates.read-timeout-ms", "90000");
+
+        // Then
+        assertEquals(60_000, invoke("getBalances").readTimeoutMillis());
+        assertEquals(90_000, invoke("getTransactionByDates").readTimeoutMillis());
+    }
+
+    @Test
+    void disabled_shouldKeepFeignOptions() throws Throwable {
+        // Given
+        environment.setProperty("ledgers.timeouts.config.default.enabled", "false");
+
+        // Then
+        assertSame(FEIGN_DEFAULTS, invoke("getBalances"));
+    }
+
+    private Request.Options invoke(String methodName) throws Throwable {
+        TimeoutDecorator timeoutDecorator = new TimeoutDecorator(new LedgersClientProperties(environment, "ledgers.timeouts", "ledgersAccount"),
+                                                                 new SimpleMeterRegistry());
+        Client client = timeoutDecorator.client((request, options) -> {
+            usedOptions.set(options);
+            return null;
+        });
+        MethodHandler feignCall = args -> client.execute(Request.create(Request.HttpMethod.GET, "", Collections.emptyMap(), null), FEIGN_DEFAULTS);
+        timeoutDecorator.decorate(new Target.HardCodedTarget<>(TestClient.class, "http://localhost"),
+                                  TestClient.class.getMethod(methodName), feignCall)
+                .invoke(new Object[0]);
+        return usedOptions.get();
+    }
+
+    interface TestClient {
+        @GetMapping("/balances")
+        String getBalances();
+
+        @GetMapping("/transactions")
+        String getTransactionByDates();
+
+        @PostMapping("/payments")
+        String initiatePayment();
+
+        @GetMapping("/authorise")
+        String authorise();
+    }
+}
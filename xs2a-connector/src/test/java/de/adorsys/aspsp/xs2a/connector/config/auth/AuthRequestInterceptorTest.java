@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config.auth;
+
+import de.adorsys.ledgers.middleware.rest.utils.Constants;
+import de.adorsys.ledgers.rest.client.AccessTokenScope;
+import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import feign.RequestTemplate;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthRequestInterceptorTest {
+    private static final int THREADS = 32;
+    private static final int REQUESTS = 20_000;
+    private static final String BEARER = "Bearer ";
+
+    private final AuthRequestInterceptor authRequestInterceptor = new AuthConfig().getClientAuth();
+
+    @Test
+    void apply_concurrentRequests_shouldNeverLeakTokenBetweenRequests() throws Exception {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        Queue<String> failures = new ConcurrentLinkedQueue<>();
+        List<Future<?>> futures = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < REQUESTS; i++) {
+            String accessToken = "token-" + i;
+            futures.add(executor.submit(() -> {
+                startGate.await();
+                try (AccessTokenScope ignored = authRequestInterceptor.withAccessToken(accessToken)) {
+                    Thread.yield();
+                    String firstCall = authorisationHeader();
+                    Thread.yield();
+                    String secondCall = authorisationHeader();
+                    if (!(BEARER + accessToken).equals(firstCall) || !(BEARER + accessToken).equals(secondCall)) {
+                        failures.add(accessToken + " sent as " + firstCall + "/" + secondCall);
+                    }
+                }
+                String afterScope = authorisationHeader();
+                if (afterScope != null) {
+                    failures.add(accessToken + " left " + afterScope + " on the thread");
+                }
+                return null;
+            }));
+        }
+        startGate.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then
+        assertTrue(failures.isEmpty(), () -> failures.size() + " leaked tokens, e.g. " + failures.peek());
+    }
+
+    @Test
+    void withAccessToken_nestedScope_shouldRestoreCallerToken() {
+        // Given
+        try (AccessTokenScope ignored = authRequestInterceptor.withAccessToken("outer")) {
+            // When
+            try (AccessTokenScope ignoredNested = authRequestInterceptor.withAccessToken("nested")) {
+                assertEquals(BEARER + "nested", authorisationHeader());
+            }
+
+            // Then
+            assertEquals(BEARER + "outer", authorisationHeader());
+        }
+        assertNull(authorisationHeader());
+    }
+
+    @Test
+    void propagating_shouldBindCallerTokenOnWorkerThreadOnly() throws Exception {
+        // Given
+        ExecutorService worker = Executors.newSingleThreadExecutor();
+        Executor propagatingWorker = authRequestInterceptor.propagating(worker);
+
+        // When
+        CompletableFuture<String> propagated;
+        try (AccessTokenScope ignored = authRequestInterceptor.withAccessToken("caller")) {
+            propagated = CompletableFuture.supplyAsync(this::authorisationHeader, propagatingWorker);
+        }
+        CompletableFuture<String> afterwards = CompletableFuture.supplyAsync(this::authorisationHeader, worker);
+
+        // Then
+        assertEquals(BEARER + "caller", propagated.get(5, TimeUnit.SECONDS));
+        assertNull(afterwards.get(5, TimeUnit.SECONDS));
+        assertNull(authorisationHeader());
+        worker.shutdown();
+    }
+
+    private String authorisationHeader() {
+        RequestTemplate template = new RequestTemplate();
+        authRequestInterceptor.apply(template);
+        Collection<String> values = template.headers().getOrDefault(Constants.AUTH_HEADER_NAME, Collections.emptyList());
+        return values.isEmpty() ? null : values.iterator().next();
+    }
+}
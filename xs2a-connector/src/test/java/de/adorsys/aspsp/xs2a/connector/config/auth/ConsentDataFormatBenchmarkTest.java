@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config.auth;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.aspsp.xs2a.connector.config.JacksonConfig;
+import de.adorsys.aspsp.xs2a.util.Benchmark;
+import de.adorsys.aspsp.xs2a.util.JsonReader;
+import de.adorsys.ledgers.middleware.api.domain.payment.TransactionStatusTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAConsentResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAPaymentResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
+import de.adorsys.ledgers.rest.client.JsonCodecRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Size and throughput of the JSON and the compact format of the ASPSP consent data, for a typical consent
+ * and a typical payment response.
+ * <p>
+ * Not part of the regular build, run it explicitly with
+ * {@code mvn test -pl xs2a-connector -Dtest=ConsentDataFormatBenchmarkTest -Dbenchmark=true}.
+ * The number of iterations can be changed with {@code -Dbenchmark.iterations=200000}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ConsentDataFormatBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(ConsentDataFormatBenchmarkTest.class);
+
+    private final ObjectMapper mapper = new JacksonConfig().objectMapper();
+    private final TokenStorageServiceImpl tokenStorageService = new TokenStorageServiceImpl();
+    private final Benchmark benchmark = new Benchmark();
+
+    @Test
+    void compactFormat_shouldBeSmallerThanJson() throws IOException {
+        ReflectionTestUtils.setField(tokenStorageService, "mapper", mapper);
+        ReflectionTestUtils.setField(tokenStorageService, "jsonCodecRegistry", new JsonCodecRegistry(mapper));
+        SCAConsentResponseTO consentResponse = mapper.readValue(new JsonReader().getStringFromFile("json/config/auth/sca-consent-response.json"),
+                                                                SCAConsentResponseTO.class);
+        SCAPaymentResponseTO paymentResponse = new SCAPaymentResponseTO();
+        paymentResponse.setPaymentId("yc7AU-GdRIMjLAzKXjmDU4");
+        paymentResponse.setTransactionStatus(TransactionStatusTO.ACSP);
+        paymentResponse.setBearerToken(consentResponse.getBearerToken());
+        paymentResponse.setScaMethods(consentResponse.getScaMethods());
+        paymentResponse.setScaStatus(consentResponse.getScaStatus());
+
+        compare("consent", consentResponse);
+        compare("payment", paymentResponse);
+    }
+
+    private void compare(String name, SCAResponseTO response) throws IOException {
+        byte[] json = encode(response, false);
+        Benchmark.Measurement jsonWrite = benchmark.measure(() -> tokenStorageService.toBytes(response));
+        Benchmark.Measurement jsonRead = benchmark.measure(() -> tokenStorageService.fromBytes(json));
+        byte[] compact = encode(response, true);
+        Benchmark.Measurement compactWrite = benchmark.measure(() -> tokenStorageService.toBytes(response));
+        Benchmark.Measurement compactRead = benchmark.measure(() -> tokenStorageService.fromBytes(compact));
+
+        logger.info("{} response: JSON {} bytes, write {}, read {}; compact {} bytes, write {}, read {}",
+                    name, json.length, jsonWrite, jsonRead, compact.length, compactWrite, compactRead);
+        assertTrue(compact.length < json.length, () -> "Compact " + name + " response must be smaller than JSON");
+    }
+
+    private byte[] encode(SCAResponseTO response, boolean compactFormat) throws IOException {
+        ReflectionTestUtils.setField(tokenStorageService, "compactFormat", compactFormat);
+        return tokenStorageService.toBytes(response);
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config.auth;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.aspsp.xs2a.connector.config.JacksonConfig;
+import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
+import de.adorsys.ledgers.rest.client.LocalTokenValidator;
+import de.adorsys.ledgers.rest.client.TokenSigningKeys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalTokenValidatorTest {
+    private static final String SECRET = "6VFX8YFQG5DLFKZIMNLGH9P406XR1SY4";
+    private static final String KEY_ID = "EMujhYSXSJIgyH2E93A27A";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger remoteCalls = new AtomicInteger();
+    private final BearerTokenTO remoteToken = new BearerTokenTO();
+    private TokenSigningKeys signingKeys;
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        if (signingKeys != null) {
+            signingKeys.close();
+        }
+    }
+
+    @Test
+    void validate_validToken_shouldBeValidatedLocally() throws Exception {
+        // Given
+        LocalTokenValidator validator = validator(new TokenSigningKeys(SECRET, null, 0, objectMapper));
+        long expiresAt = Instant.now().getEpochSecond() + 300;
+        String accessToken = hmacToken(KEY_ID, SECRET, expiresAt);
+
+        // When
+        BearerTokenTO bearerToken = validator.validate(accessToken, remoteValidation());
+
+        // Then
+        assertEquals(0, remoteCalls.get());
+        assertEquals(accessToken, bearerToken.getAccess_token());
+        assertEquals("marion.mueller", bearerToken.getAccessTokenObject().getLogin());
+        assertTrue(bearerToken.getExpires_in() > 0 && bearerToken.getExpires_in() <= 300);
+        assertEquals(1, meterRegistry.get("ledgers.token.validation").tag("result", "local-valid").counter().count());
+    }
+
+    @Test
+    void validate_expiredToken_shouldBeInvalidWithoutLedgersCall() throws Exception {
+        // Given
+        LocalTokenValidator validator = validator(new TokenSigningKeys(SECRET, null, 0, objectMapper));
+        String accessToken = hmacToken(KEY_ID, SECRET, Instant.now().getEpochSecond() - 1);
+
+        // When
+        BearerTokenTO bearerToken = validator.validate(accessToken, remoteValidation());
+
+        // Then
+        assertNull(bearerToken);
+        assertEquals(0, remoteCalls.get());
+    }
+
+    @Test
+    void validate_forgedTokenForKnownKeyId_shouldBeInvalidWithoutLedgersCall() throws Exception {
+        // Given
+        LocalTokenValidator validator = validator(new TokenSigningKeys(null, jwkSet(octKey(KEY_ID, SECRET)), 0, objectMapper));
+        String accessToken = hmacToken(KEY_ID, "another secret", Instant.now().getEpochSecond() + 300);
+
+        // When
+        BearerTokenTO bearerToken = validator.validate(accessToken, remoteValidation());
+
+        // Then
+        assertNull(bearerToken);
+        assertEquals(0, remoteCalls.get());
+    }
+
+    @Test
+    void validate_unknownSecret_shouldFallBackToLedgers() throws Exception {
+        // Given
+        LocalTokenValidator validator = validator(new TokenSigningKeys(SECRET, null, 0, objectMapper));
+        String accessToken = hmacToken(KEY_ID, "rotated secret", Instant.now().getEpochSecond() + 300);
+
+        // When
+        BearerTokenTO bearerToken = validator.validate(accessToken, remoteValidation());
+
+        // Then
+        assertSame(remoteToken, bearerToken);
+        assertEquals(1, remoteCalls.get());
+    }
+
+    @Test
+    void validate_unknownKeyId_shouldBeValidatedAfterKeyRefresh() throws Exception {
+        // Given
+        String jwkSet = jwkSet(octKey("old-key", "old secret"));
+        signingKeys = new TokenSigningKeys(null, jwkSet, 0, objectMapper);
+        LocalTokenValidator validator = validator(signingKeys);
+        String accessToken = hmacToken(KEY_ID, SECRET, Instant.now().getEpochSecond() + 300);
+
+        // When
+        BearerTokenTO beforeRefresh = validator.validate(accessToken, remoteValidation());
+        Files.writeString(tempDir.resolve("jwks.json"), "{\"keys\": [" + octKey(KEY_ID, SECRET) + "]}");
+        signingKeys.refresh();
+        BearerTokenTO afterRefresh = validator.validate(accessToken, remoteValidation());
+
+        // Then
+        assertSame(remoteToken, beforeRefresh);
+        assertEquals(accessToken, afterRefresh.getAccess_token());
+        assertEquals(1, remoteCalls.get());
+    }
+
+    @Test
+    void validate_rsaSignedToken_shouldBeValidatedLocally() throws Exception {
+        // Given
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+        RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+        String rsaKey = "{\"kty\": \"RSA\", \"kid\": \"" + KEY_ID + "\", \"n\": \"" + ENCODER.encodeToString(publicKey.getModulus().toByteArray())
+                                + "\", \"e\": \"" + ENCODER.encodeToString(publicKey.getPublicExponent().toByteArray()) + "\"}";
+        LocalTokenValidator validator = validator(new TokenSigningKeys(null, jwkSet(rsaKey), 0, objectMapper));
+
+        String signingInput = signingInput("RS256", KEY_ID, Instant.now().getEpochSecond() + 300);
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(keyPair.getPrivate());
+        signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+        String accessToken = signingInput + "." + ENCODER.encodeToString(signature.sign());
+
+        // When
+        BearerTokenTO bearerToken = validator.validate(accessToken, remoteValidation());
+
+        // Then
+        assertEquals(accessToken, bearerToken.getAccess_token());
+        assertEquals(0, remoteCalls.get());
+    }
+
+    @Test
+    void validate_withoutSigningKeys_shouldAlwaysUseLedgers() throws Exception {
+        // Given
+        LocalTokenValidator validator = validator(null);
+
+        // When
+        BearerTokenTO bearerToken = validator.validate(hmacToken(KEY_ID, SECRET, Instant.now().getEpochSecond() + 300), remoteValidation());
+
+        // Then
+        assertSame(remoteToken, bearerToken);
+        assertEquals(1, remoteCalls.get());
+        assertEquals(1, meterRegistry.get("ledgers.token.validation").tag("result", "remote").counter().count());
+    }
+
+    @Test
+    void validate_malformedToken_shouldFallBackToLedgers() {
+        // Given
+        LocalTokenValidator validator = validator(new TokenSigningKeys(SECRET, null, 0, objectMapper));
+
+        // When
+        BearerTokenTO bearerToken = validator.validate("not a jwt", remoteValidation());
+
+        // Then
+        assertSame(remoteToken, bearerToken);
+    }
+
+    private LocalTokenValidator validator(TokenSigningKeys signingKeys) {
+        return new LocalTokenValidator(signingKeys, objectMapper, meterRegistry);
+    }
+
+    private Supplier<BearerTokenTO> remoteValidation() {
+        return () -> {
+            remoteCalls.incrementAndGet();
+            return remoteToken;
+        };
+    }
+
+    private String jwkSet(String key) throws Exception {
+        Path jwkSet = tempDir.resolve("jwks.json");
+        Files.writeString(jwkSet, "{\"keys\": [" + key + "]}");
+        return jwkSet.toUri().toString();
+    }
+
+    private String octKey(String keyId, String secret) {
+        return "{\"kty\": \"oct\", \"kid\": \"" + keyId + "\", \"k\": \"" + ENCODER.encodeToString(secret.getBytes(StandardCharsets.UTF_8)) + "\"}";
+    }
+
+    private String hmacToken(String keyId, String secret, long expiresAt) throws Exception {
+        String signingInput = signingInput("HS256", keyId, expiresAt);
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return signingInput + "." + ENCODER.encodeToString(mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private String signingInput(String algorithm, String keyId, long expiresAt) {
+        String header = "{\"kid\":\"" + keyId + "\",\"alg\":\"" + algorithm + "\"}";
+        String claims = "{\"sub\":\"a_sfzlc_SeQpQ65yr4pqXY\",\"token_usage\":\"DELEGATED_ACCESS\",\"role\":\"CUSTOMER\","
+                                + "\"login\":\"marion.mueller\",\"iat\":" + (expiresAt - 600) + ",\"exp\":" + expiresAt
+                                + ",\"jti\":\"4hXx7cOoRj8tZ7c_av5SbE\"}";
+        return ENCODER.encodeToString(header.getBytes(StandardCharsets.UTF_8)) + "."
+                       + ENCODER.encodeToString(claims.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config.auth;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.aspsp.xs2a.connector.config.JacksonConfig;
+import de.adorsys.aspsp.xs2a.util.Benchmark;
+import de.adorsys.aspsp.xs2a.util.JsonReader;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAConsentResponseTO;
+import de.adorsys.ledgers.rest.client.JsonCodecRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+
+/**
+ * Compares the former tree based decoding of the ASPSP consent data with the single pass decoding of
+ * {@link TokenStorageServiceImpl}.
+ * <p>
+ * Not part of the regular build, run it explicitly with
+ * {@code mvn test -pl xs2a-connector -Dtest=TokenStorageDecodingBenchmarkTest -Dbenchmark=true}.
+ * The number of iterations can be changed with {@code -Dbenchmark.iterations=200000}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TokenStorageDecodingBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(TokenStorageDecodingBenchmarkTest.class);
+
+    private final ObjectMapper mapper = new JacksonConfig().objectMapper();
+    private final TokenStorageServiceImpl tokenStorageService = new TokenStorageServiceImpl();
+    private final byte[] tokenBytes = new JsonReader().getStringFromFile("json/config/auth/sca-consent-response.json").getBytes();
+    private final Benchmark benchmark = new Benchmark();
+
+    @Test
+    void singlePassDecoding_versusTreeBasedDecoding() throws IOException {
+        ReflectionTestUtils.setField(tokenStorageService, "mapper", mapper);
+        ReflectionTestUtils.setField(tokenStorageService, "jsonCodecRegistry", new JsonCodecRegistry(mapper));
+
+        Benchmark.Measurement tree = benchmark.measure(this::readTree);
+        Benchmark.Measurement singlePass = benchmark.measure(() -> tokenStorageService.fromBytes(tokenBytes));
+
+        logger.info("{} decodes: tree based {}; single pass {}", benchmark.getIterations(), tree, singlePass);
+    }
+
+    /**
+     * The former implementation of {@link TokenStorageServiceImpl#fromBytes(byte[])}.
+     */
+    private SCAConsentResponseTO readTree() throws IOException {
+        JsonNode jsonNode = mapper.readTree(tokenBytes);
+        if (jsonNode.size() == 1) {
+            jsonNode = jsonNode.iterator().next();
+        }
+        tokenStorageService.objectType(jsonNode);
+        return mapper.readValue(mapper.treeAsTokens(jsonNode), SCAConsentResponseTO.class);
+    }
+}
@@ -6,13 +6,16 @@ import de.adorsys.aspsp.xs2a.util.JsonReader;
 import de.adorsys.aspsp.xs2a.util.TestConfiguration;
 import de.adorsys.ledgers.middleware.api.domain.sca.SCAConsentResponseTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.ScaStatusTO;
 import feign.FeignException;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.IOException;
 
@@ -30,6 +33,12 @@ class TokenStorageServiceImplTest {
 
     private JsonReader jsonReader = new JsonReader();
 
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.setField(tokenStorageService, "compactFormat", false);
+        ReflectionTestUtils.setField(tokenStorageService, "slimSnapshots", false);
+    }
+
     @Test
     void fromBytes_SCAConsentResponseTO_success() throws IOException {
         byte[] tokenBytes = jsonReader.getStringFromFile("json/config/auth/sca-consent-response.json").getBytes();
@@ -39,6 +48,119 @@ class TokenStorageServiceImplTest {
         assertTrue(scaResponseTO instanceof SCAConsentResponseTO);
     }
 
+    @Test
+    void fromBytes_shouldDecodeLikeTreeBasedDecoding() throws IOException {
+        String json = jsonReader.getStringFromFile("json/config/auth/sca-consent-response.json");
+        SCAConsentResponseTO expected = readTree(json);
+
+        assertDecodedAs(expected, tokenStorageService.fromBytes(json.getBytes()));
+        assertDecodedAs(expected, tokenStorageService.fromBytes(json.getBytes(), SCAConsentResponseTO.class));
+    }
+
+    @Test
+    void fromBytes_wrappedRootValue_shouldBeUnwrapped() throws IOException {
+        String json = jsonReader.getStringFromFile("json/config/auth/sca-consent-response.json");
+        String wrapped = "{\"SCAConsentResponseTO\":" + json + "}";
+        SCAConsentResponseTO expected = readTree(json);
+
+        assertDecodedAs(expected, tokenStorageService.fromBytes(wrapped.getBytes()));
+        assertDecodedAs(expected, tokenStorageService.fromBytes(wrapped.getBytes(), SCAConsentResponseTO.class));
+    }
+
+    @Test
+    void fromBytes_storedResponse_shouldBeDecodedUnchanged() throws IOException {
+        SCAConsentResponseTO stored = readTree(jsonReader.getStringFromFile("json/config/auth/sca-consent-response.json"));
+        byte[] tokenBytes = tokenStorageService.toBytes(stored);
+
+        assertDecodedAs(stored, tokenStorageService.fromBytes(tokenBytes));
+        assertArrayEquals(tokenBytes, tokenStorageService.toBytes(tokenStorageService.fromBytes(tokenBytes)));
+    }
+
+    @Test
+    void toBytes_compactFormat_shouldBeSmallerAndDecodeUnchanged() throws IOException {
+        String json = jsonReader.getStringFromFile("json/config/auth/sca-consent-response.json");
+        SCAConsentResponseTO response = readTree(json);
+        ReflectionTestUtils.setField(tokenStorageService, "compactFormat", true);
+
+        byte[] compact = tokenStorageService.toBytes(response);
+
+        assertTrue(compact.length < mapper.writeValueAsBytes(response).length);
+        assertDecodedAs(response, tokenStorageService.fromBytes(compact));
+        assertDecodedAs(response, tokenStorageService.fromBytes(compact, SCAConsentResponseTO.class));
+        assertDecodedAs(response, tokenStorageService.fromBytes(json.getBytes()));
+    }
+
+    @Test
+    void fromBytes_unsupportedCompactFormatVersion_shouldThrowException() throws IOException {
+        ReflectionTestUtils.setField(tokenStorageService, "compactFormat", true);
+        byte[] compact = tokenStorageService.toBytes(readTree(jsonReader.getStringFromFile("json/config/auth/sca-consent-response.json")));
+        compact[1] = 99;
+
+        assertThrows(IOException.class, () -> tokenStorageService.fromBytes(compact));
+    }
+
+    @Test
+    void toBytes_slimSnapshots_settledResponse_shouldDropTransientFields() throws IOException {
+        SCAConsentResponseTO response = readTree(jsonReader.getStringFromFile("json/config/auth/sca-consent-response.json"));
+        byte[] full = tokenStorageService.toBytes(response);
+        ReflectionTestUtils.setField(tokenStorageService, "slimSnapshots", true);
+
+        byte[] slim = tokenStorageService.toBytes(response);
+        SCAConsentResponseTO snapshot = tokenStorageService.fromBytes(slim, SCAConsentResponseTO.class);
+
+        assertTrue(slim.length < full.length);
+        assertNull(snapshot.getPsuMessage());
+        assertNull(snapshot.getStatusDate());
+        assertEquals(response.getScaStatus(), snapshot.getScaStatus());
+        assertEquals(response.getAuthorisationId(), snapshot.getAuthorisationId());
+        assertEquals(response.getBearerToken().getAccess_token(), snapshot.getBearerToken().getAccess_token());
+        assertDecodedAs(response.getBearerToken().getAccessTokenObject(), snapshot.getBearerToken().getAccessTokenObject());
+        assertTrue(tokenStorageService.fromBytes(slim) instanceof SCAConsentResponseTO);
+    }
+
+    @Test
+    void toBytes_slimSnapshots_partiallyAuthorisedConsent_shouldKeepFlag() throws IOException {
+        SCAConsentResponseTO response = readTree(jsonReader.getStringFromFile("json/config/auth/sca-consent-response.json"));
+        response.setScaStatus(ScaStatusTO.FINALISED);
+        response.setPartiallyAuthorised(true);
+        ReflectionTestUtils.setField(tokenStorageService, "slimSnapshots", true);
+
+        SCAConsentResponseTO snapshot = tokenStorageService.fromBytes(tokenStorageService.toBytes(response), SCAConsentResponseTO.class);
+
+        assertTrue(snapshot.isPartiallyAuthorised());
+        assertFalse(ConsentDataSnapshots.isFull(snapshot));
+    }
+
+    @Test
+    void fromBytes_slimSnapshots_fullSnapshot_shouldBeReadAsSlimSnapshot() throws IOException {
+        byte[] full = jsonReader.getStringFromFile("json/config/auth/sca-consent-response.json").getBytes();
+        ReflectionTestUtils.setField(tokenStorageService, "slimSnapshots", true);
+
+        SCAResponseTO response = tokenStorageService.fromBytes(full);
+
+        assertTrue(ConsentDataSnapshots.isFull(readTree(new String(full))));
+        assertFalse(ConsentDataSnapshots.isFull(response));
+        assertNull(response.getPsuMessage());
+        assertNotNull(response.getBearerToken());
+        assertArrayEquals(tokenStorageService.toBytes(readTree(new String(full))), tokenStorageService.toBytes(response));
+    }
+
+    @Test
+    void toBytes_slimSnapshots_unsettledResponse_shouldBeStoredUnchanged() throws IOException {
+        SCAConsentResponseTO response = readTree(jsonReader.getStringFromFile("json/config/auth/sca-consent-response.json"));
+        response.setScaStatus(ScaStatusTO.PSUAUTHENTICATED);
+        byte[] full = tokenStorageService.toBytes(response);
+        ReflectionTestUtils.setField(tokenStorageService, "slimSnapshots", true);
+
+        assertArrayEquals(full, tokenStorageService.toBytes(response));
+        assertDecodedAs(response, tokenStorageService.fromBytes(full));
+    }
+
+    @Test
+    void fromBytes_unknownObjectType_shouldThrowException() {
+        assertThrows(IOException.class, () -> tokenStorageService.fromBytes("{\"scaStatus\":\"exempted\",\"objectType\":\"unknown\"}".getBytes()));
+    }
+
     @Test
     void fromBytes_objectTypesNull() {
         assertThrows(IOException.class, () -> tokenStorageService.fromBytes("{}".getBytes()));
@@ -54,6 +176,15 @@ class TokenStorageServiceImplTest {
         assertThrows(FeignException.class, () -> tokenStorageService.fromBytes(new byte[]{}));
     }
 
+    private SCAConsentResponseTO readTree(String json) throws IOException {
+        return mapper.readValue(mapper.treeAsTokens(mapper.readTree(json)), SCAConsentResponseTO.class);
+    }
+
+    private void assertDecodedAs(Object expected, Object actual) throws IOException {
+        assertEquals(expected.getClass(), actual.getClass());
+        assertEquals(mapper.writeValueAsString(expected), mapper.writeValueAsString(actual));
+    }
+
     @Test
     void objectType() throws IOException {
         assertEquals("test1", tokenStorageService.objectType(mapper.readTree("{\"objectType\": \"test1\"}")));
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config.auth;
+
+import de.adorsys.aspsp.xs2a.connector.spi.impl.FeignExceptionHandler;
+import de.adorsys.aspsp.xs2a.util.MutableClock;
+import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
+import de.adorsys.ledgers.rest.client.TokenValidationCache;
+import feign.FeignException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenValidationCacheTest {
+    private static final String ACCESS_TOKEN = "access_token";
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2020-05-01T10:00:00Z"));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TokenValidationCache cache = new TokenValidationCache(100, Duration.ofMinutes(5), 100, Duration.ofSeconds(5),
+                                                                        meterRegistry, clock);
+    private final AtomicInteger validations = new AtomicInteger();
+
+    @Test
+    void validate_validToken_shouldBeValidatedOnceAndReportRemainingLifetime() {
+        // Given
+        cache.validate(ACCESS_TOKEN, validation(bearerToken(600)));
+        clock.advance(Duration.ofSeconds(60));
+
+        // When
+        BearerTokenTO cached = cache.validate(ACCESS_TOKEN, validation(bearerToken(600)));
+
+        // Then
+        assertEquals(1, validations.get());
+        assertEquals(ACCESS_TOKEN, cached.getAccess_token());
+        assertEquals(540, cached.getExpires_in());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "ledgers.token.validation").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void validate_shouldNotCacheLongerThanMaximum() {
+        // Given
+        cache.validate(ACCESS_TOKEN, validation(bearerToken(3600)));
+
+        // When
+        clock.advance(Duration.ofMinutes(5));
+        cache.validate(ACCESS_TOKEN, validation(bearerToken(3300)));
+
+        // Then
+        assertEquals(2, validations.get());
+    }
+
+    @Test
+    void validate_shouldNotCacheLongerThanTokenLifetime() {
+        // Given
+        cache.validate(ACCESS_TOKEN, validation(bearerToken(30)));
+
+        // When
+        clock.advance(Duration.ofSeconds(30));
+        BearerTokenTO afterExpiry = cache.validate(ACCESS_TOKEN, validation(null));
+
+        // Then
+        assertNull(afterExpiry);
+        assertEquals(2, validations.get());
+    }
+
+    @Test
+    void validate_invalidToken_shouldBeCachedShortly() {
+        // Given
+        cache.validate(ACCESS_TOKEN, validation(null));
+
+        // When
+        BearerTokenTO withinInvalidTtl = cache.validate(ACCESS_TOKEN, validation(bearerToken(600)));
+        clock.advance(Duration.ofSeconds(5));
+        BearerTokenTO afterInvalidTtl = cache.validate(ACCESS_TOKEN, validation(bearerToken(600)));
+
+        // Then
+        assertNull(withinInvalidTtl);
+        assertNotNull(afterInvalidTtl);
+        assertEquals(2, validations.get());
+    }
+
+    @Test
+    void validate_unauthorisedInLedgers_shouldBeCachedAsInvalid() {
+        // Given
+        FeignException unauthorised = FeignExceptionHandler.getException(HttpStatus.UNAUTHORIZED, "invalid token");
+        assertThrows(FeignException.class, () -> cache.validate(ACCESS_TOKEN, () -> {
+            validations.incrementAndGet();
+            throw unauthorised;
+        }));
+
+        // When
+        BearerTokenTO cached = cache.validate(ACCESS_TOKEN, validation(bearerToken(600)));
+
+        // Then
+        assertNull(cached);
+        assertEquals(1, validations.get());
+    }
+
+    @Test
+    void validate_ledgersUnavailable_shouldNotBeCached() {
+        // Given
+        FeignException unavailable = FeignExceptionHandler.getException(HttpStatus.SERVICE_UNAVAILABLE, "unavailable");
+        assertThrows(FeignException.class, () -> cache.validate(ACCESS_TOKEN, () -> {
+            validations.incrementAndGet();
+            throw unavailable;
+        }));
+
+        // When
+        BearerTokenTO validated = cache.validate(ACCESS_TOKEN, validation(bearerToken(600)));
+
+        // Then
+        assertNotNull(validated);
+        assertEquals(2, validations.get());
+    }
+
+    @Test
+    void getExpiresAt_validatedToken_shouldUseCachedValidation() {
+        // Given
+        cache.validate(ACCESS_TOKEN, validation(bearerToken(600)));
+
+        // When
+        Instant expiresAt = cache.getExpiresAt(ACCESS_TOKEN, token -> {
+            throw new AssertionError("token must not be parsed");
+        });
+
+        // Then
+        assertEquals(clock.instant().plusSeconds(600), expiresAt);
+    }
+
+    @Test
+    void getExpiresAt_unvalidatedToken_shouldBeReadOnce() {
+        // Given
+        Instant expiry = clock.instant().plusSeconds(600);
+        AtomicInteger reads = new AtomicInteger();
+
+        // When
+        cache.getExpiresAt(ACCESS_TOKEN, token -> {
+            reads.incrementAndGet();
+            return expiry;
+        });
+        Instant expiresAt = cache.getExpiresAt(ACCESS_TOKEN, token -> {
+            reads.incrementAndGet();
+            return expiry;
+        });
+
+        // Then
+        assertEquals(expiry, expiresAt);
+        assertEquals(1, reads.get());
+    }
+
+    private Supplier<BearerTokenTO> validation(BearerTokenTO result) {
+        return () -> {
+            validations.incrementAndGet();
+            return result;
+        };
+    }
+
+    private BearerTokenTO bearerToken(int expiresIn) {
+        BearerTokenTO bearerToken = new BearerTokenTO();
+        bearerToken.setAccess_token(ACCESS_TOKEN);
+        bearerToken.setExpires_in(expiresIn);
+        return bearerToken;
+    }
+}
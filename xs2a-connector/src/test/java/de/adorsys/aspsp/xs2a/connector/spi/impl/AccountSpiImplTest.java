@@ -1,11 +1,14 @@
 package de.adorsys.aspsp.xs2a.connector.spi.impl;
 
+import de.adorsys.aspsp.xs2a.connector.account.ConsentAccessIndex;
 import de.adorsys.aspsp.xs2a.connector.account.IbanAccountReference;
 import de.adorsys.aspsp.xs2a.connector.account.OwnerNameService;
+import de.adorsys.aspsp.xs2a.connector.config.JacksonConfig;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapper;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapperImpl;
 import de.adorsys.aspsp.xs2a.util.JsonReader;
 import de.adorsys.aspsp.xs2a.util.TestSpiDataProvider;
+import de.adorsys.ledgers.middleware.api.domain.account.AccountBalanceTO;
 import de.adorsys.ledgers.middleware.api.domain.account.AccountDetailsTO;
 import de.adorsys.ledgers.middleware.api.domain.account.AccountIdentifierTypeTO;
 import de.adorsys.ledgers.middleware.api.domain.account.AdditionalAccountInformationTO;
@@ -15,7 +18,9 @@ import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
 import de.adorsys.ledgers.middleware.api.domain.um.AccessTokenTO;
 import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
 import de.adorsys.ledgers.rest.client.AccountRestClient;
+import de.adorsys.ledgers.rest.client.AsyncAccountRestClient;
 import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import de.adorsys.ledgers.rest.client.JsonArrayBody;
 import de.adorsys.psd2.xs2a.core.ais.BookingStatus;
 import de.adorsys.psd2.xs2a.core.consent.AspspConsentData;
 import de.adorsys.psd2.xs2a.spi.domain.SpiAspspConsentDataProvider;
@@ -38,12 +43,15 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
 import javax.validation.constraints.NotNull;
+import java.io.ByteArrayInputStream;
 import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Currency;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -78,6 +86,8 @@ class AccountSpiImplTest {
 
     @Mock
     private AccountRestClient accountRestClient;
+    @Mock
+    private AsyncAccountRestClient asyncAccountRestClient;
     @Spy
     private LedgersSpiAccountMapper accountMapper = new LedgersSpiAccountMapperImpl();
     @Mock
@@ -127,18 +137,16 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
-        when(accountRestClient.getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO)).thenReturn(ResponseEntity.ok(Collections.emptyList()));
-        when(accountRestClient.getBalances(RESOURCE_ID)).thenReturn(ResponseEntity.ok(Collections.emptyList()));
+        when(accountRestClient.getTransactionByDatesAsStream(RESOURCE_ID, DATE_FROM, DATE_TO)).thenReturn(buildTransactionsResponse("[]"));
+        when(asyncAccountRestClient.getBalances(RESOURCE_ID)).thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok(Collections.emptyList())));
 
         SpiResponse<SpiTransactionReport> actualResponse = accountSpi.requestTransactionsForAccount(SPI_CONTEXT_DATA, buildSpiTransactionReportParameters(MediaType.APPLICATION_XML_VALUE),
                                                                                                     accountReference, spiAccountConsent, aspspConsentDataProvider);
 
-        verify(accountRestClient, times(1)).getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO);
-        verify(accountRestClient, times(1)).getBalances(RESOURCE_ID);
-        verify(tokenService, times(2)).response(ASPSP_CONSENT_DATA.getAspspConsentData());
-        verify(authRequestInterceptor, times(2)).setAccessToken("access_token");
-        verify(authRequestInterceptor, times(2)).setAccessToken(null);
+        verify(accountRestClient, times(1)).getTransactionByDatesAsStream(RESOURCE_ID, DATE_FROM, DATE_TO);
+        verify(asyncAccountRestClient, times(1)).getBalances(RESOURCE_ID);
+        verify(tokenService, times(1)).response(ASPSP_CONSENT_DATA.getAspspConsentData());
+        verify(authRequestInterceptor, times(1)).withAccessToken("access_token");
 
         assertEquals(MediaType.APPLICATION_XML_VALUE, actualResponse.getPayload().getResponseContentType());
     }
@@ -149,18 +157,16 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
-        when(accountRestClient.getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO)).thenReturn(ResponseEntity.ok(Collections.emptyList()));
-        when(accountRestClient.getBalances(RESOURCE_ID)).thenReturn(ResponseEntity.ok(Collections.emptyList()));
+        when(accountRestClient.getTransactionByDatesAsStream(RESOURCE_ID, DATE_FROM, DATE_TO)).thenReturn(buildTransactionsResponse("[]"));
+        when(asyncAccountRestClient.getBalances(RESOURCE_ID)).thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok(Collections.emptyList())));
 
         SpiResponse<SpiTransactionReport> actualResponse = accountSpi.requestTransactionsForAccount(SPI_CONTEXT_DATA, buildSpiTransactionReportParameters(null),
                                                                                                     accountReference, spiAccountConsent, aspspConsentDataProvider);
 
-        verify(accountRestClient, times(1)).getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO);
-        verify(accountRestClient, times(1)).getBalances(RESOURCE_ID);
-        verify(tokenService, times(2)).response(ASPSP_CONSENT_DATA.getAspspConsentData());
-        verify(authRequestInterceptor, times(2)).setAccessToken("access_token");
-        verify(authRequestInterceptor, times(2)).setAccessToken(null);
+        verify(accountRestClient, times(1)).getTransactionByDatesAsStream(RESOURCE_ID, DATE_FROM, DATE_TO);
+        verify(asyncAccountRestClient, times(1)).getBalances(RESOURCE_ID);
+        verify(tokenService, times(1)).response(ASPSP_CONSENT_DATA.getAspspConsentData());
+        verify(authRequestInterceptor, times(1)).withAccessToken("access_token");
 
         assertEquals(MediaType.APPLICATION_JSON_VALUE, actualResponse.getPayload().getResponseContentType());
     }
@@ -171,18 +177,16 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
-        when(accountRestClient.getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO)).thenReturn(ResponseEntity.ok(Collections.emptyList()));
-        when(accountRestClient.getBalances(RESOURCE_ID)).thenReturn(ResponseEntity.ok(Collections.emptyList()));
+        when(accountRestClient.getTransactionByDatesAsStream(RESOURCE_ID, DATE_FROM, DATE_TO)).thenReturn(buildTransactionsResponse("[]"));
+        when(asyncAccountRestClient.getBalances(RESOURCE_ID)).thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok(Collections.emptyList())));
 
         SpiResponse<SpiTransactionReport> actualResponse = accountSpi.requestTransactionsForAccount(SPI_CONTEXT_DATA, buildSpiTransactionReportParameters("*/*"),
                                                                                                     accountReference, spiAccountConsent, aspspConsentDataProvider);
 
-        verify(accountRestClient, times(1)).getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO);
-        verify(accountRestClient, times(1)).getBalances(RESOURCE_ID);
-        verify(tokenService, times(2)).response(ASPSP_CONSENT_DATA.getAspspConsentData());
-        verify(authRequestInterceptor, times(2)).setAccessToken("access_token");
-        verify(authRequestInterceptor, times(2)).setAccessToken(null);
+        verify(accountRestClient, times(1)).getTransactionByDatesAsStream(RESOURCE_ID, DATE_FROM, DATE_TO);
+        verify(asyncAccountRestClient, times(1)).getBalances(RESOURCE_ID);
+        verify(tokenService, times(1)).response(ASPSP_CONSENT_DATA.getAspspConsentData());
+        verify(authRequestInterceptor, times(1)).withAccessToken("access_token");
 
         assertEquals(MediaType.APPLICATION_JSON_VALUE, actualResponse.getPayload().getResponseContentType());
     }
@@ -193,23 +197,78 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
-        when(accountRestClient.getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO)).thenReturn(ResponseEntity.ok(Collections.emptyList()));
-        when(accountRestClient.getBalances(RESOURCE_ID)).thenReturn(ResponseEntity.ok(Collections.emptyList()));
+        when(accountRestClient.getTransactionByDatesAsStream(RESOURCE_ID, DATE_FROM, DATE_TO)).thenReturn(buildTransactionsResponse("[]"));
+        when(asyncAccountRestClient.getBalances(RESOURCE_ID)).thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok(Collections.emptyList())));
 
-        when(tokenService.store(scaResponseTO)).thenThrow(getFeignException());
+        doThrow(getFeignException()).when(tokenService).updateIfChanged(aspspConsentDataProvider, BYTES, scaResponseTO);
 
         SpiResponse<SpiTransactionReport> actualResponse = accountSpi.requestTransactionsForAccount(SPI_CONTEXT_DATA, buildSpiTransactionReportParameters(MediaType.APPLICATION_XML_VALUE),
                                                                                                     accountReference, spiAccountConsent, aspspConsentDataProvider);
 
         assertFalse(actualResponse.getErrors().isEmpty());
         assertNull(actualResponse.getPayload());
-        verify(aspspConsentDataProvider, times(2)).loadAspspConsentData();
-        verify(tokenService, times(2)).response(BYTES);
-        verify(authRequestInterceptor, times(2)).setAccessToken(scaResponseTO.getBearerToken().getAccess_token());
-        verify(authRequestInterceptor, times(2)).setAccessToken(null);
-        verify(accountRestClient, times(1)).getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO);
-        verify(tokenService, times(1)).store(scaResponseTO);
+        verify(aspspConsentDataProvider, times(1)).loadAspspConsentData();
+        verify(tokenService, times(1)).response(BYTES);
+        verify(authRequestInterceptor, times(1)).withAccessToken(scaResponseTO.getBearerToken().getAccess_token());
+        verify(accountRestClient, times(1)).getTransactionByDatesAsStream(RESOURCE_ID, DATE_FROM, DATE_TO);
+        verify(tokenService, times(1)).updateIfChanged(aspspConsentDataProvider, BYTES, scaResponseTO);
+    }
+
+    @Test
+    void requestTransactionsForAccount_mapsStreamedTransactions() {
+        BearerTokenTO bearerTokenTO = new BearerTokenTO();
+        bearerTokenTO.setAccess_token("access_token");
+        when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
+        when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
+        String transaction = jsonReader.getStringFromFile("json/mappers/transaction-to.json");
+        when(accountRestClient.getTransactionByDatesAsStream(RESOURCE_ID, DATE_FROM, DATE_TO)).thenReturn(buildTransactionsResponse("[" + transaction + "," + transaction + "]"));
+        when(asyncAccountRestClient.getBalances(RESOURCE_ID)).thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok(Collections.emptyList())));
+
+        SpiResponse<SpiTransactionReport> actualResponse = accountSpi.requestTransactionsForAccount(SPI_CONTEXT_DATA, buildSpiTransactionReportParameters(MediaType.APPLICATION_JSON_VALUE),
+                                                                                                    accountReference, spiAccountConsent, aspspConsentDataProvider);
+
+        SpiTransaction expectedTransaction = jsonReader.getObjectFromFile("json/mappers/spi-transaction.json", SpiTransaction.class);
+        assertEquals(Arrays.asList(expectedTransaction, expectedTransaction), actualResponse.getPayload().getTransactions());
+        verify(accountMapper, times(2)).toSpiTransaction(any(TransactionTO.class));
+    }
+
+    @Test
+    void requestTransactionsForAccount_errorStatus() {
+        BearerTokenTO bearerTokenTO = new BearerTokenTO();
+        bearerTokenTO.setAccess_token("access_token");
+        when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
+        when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
+        when(accountRestClient.getTransactionByDatesAsStream(RESOURCE_ID, DATE_FROM, DATE_TO)).thenThrow(getFeignException());
+        CompletableFuture<ResponseEntity<List<AccountBalanceTO>>> pendingBalances = new CompletableFuture<>();
+        when(asyncAccountRestClient.getBalances(RESOURCE_ID)).thenReturn(pendingBalances);
+
+        SpiResponse<SpiTransactionReport> actualResponse = accountSpi.requestTransactionsForAccount(SPI_CONTEXT_DATA, buildSpiTransactionReportParameters(MediaType.APPLICATION_JSON_VALUE),
+                                                                                                    accountReference, spiAccountConsent, aspspConsentDataProvider);
+
+        assertFalse(actualResponse.getErrors().isEmpty());
+        assertNull(actualResponse.getPayload());
+        assertTrue(pendingBalances.isCancelled());
+        verify(tokenService, never()).updateIfChanged(any(), any(), any());
+    }
+
+    @Test
+    void requestTransactionsForAccount_balancesFailed() {
+        BearerTokenTO bearerTokenTO = new BearerTokenTO();
+        bearerTokenTO.setAccess_token("access_token");
+        when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
+        when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
+        when(accountRestClient.getTransactionByDatesAsStream(RESOURCE_ID, DATE_FROM, DATE_TO)).thenReturn(buildTransactionsResponse("[]"));
+        CompletableFuture<ResponseEntity<List<AccountBalanceTO>>> failedBalances = new CompletableFuture<>();
+        failedBalances.completeExceptionally(getFeignException());
+        when(asyncAccountRestClient.getBalances(RESOURCE_ID)).thenReturn(failedBalances);
+
+        SpiResponse<SpiTransactionReport> actualResponse = accountSpi.requestTransactionsForAccount(SPI_CONTEXT_DATA, buildSpiTransactionReportParameters(MediaType.APPLICATION_XML_VALUE),
+                                                                                                    accountReference, spiAccountConsent, aspspConsentDataProvider);
+
+        assertFalse(actualResponse.getErrors().isEmpty());
+        assertNull(actualResponse.getPayload());
+        verify(accountRestClient, times(1)).getTransactionByDatesAsStream(RESOURCE_ID, DATE_FROM, DATE_TO);
+        verify(tokenService, never()).updateIfChanged(any(), any(), any());
     }
 
     @Test
@@ -218,7 +277,6 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         AccountDetailsTO accountDetails_1 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetails_2 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
@@ -239,7 +297,6 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         AccountDetailsTO accountDetails_1 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetails_2 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
@@ -260,7 +317,6 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         AccountDetailsTO accountDetails_1 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Collections.singletonList(accountDetails_1)));
@@ -283,7 +339,6 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Collections.singletonList(accountDetailsTO)));
 
@@ -306,7 +361,6 @@ class AccountSpiImplTest {
         assertNull(actualResponse.getPayload());
         verify(aspspConsentDataProvider, times(1)).loadAspspConsentData();
         verify(tokenService, times(1)).response(BYTES);
-        verify(authRequestInterceptor, times(1)).setAccessToken(null);
     }
 
     @Test
@@ -315,7 +369,6 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         AccountDetailsTO accountDetails_1 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetails_2 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
@@ -340,7 +393,6 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         AccountDetailsTO accountDetails_1 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetails_2 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
@@ -370,13 +422,11 @@ class AccountSpiImplTest {
         when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(accountDetailsTOList));
 
         SpiAccountDetails spiAccountDetailsFirstAccount = buildSpiAccountDetails(IBAN, RESOURCE_ID);
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN, CURRENCY_EUR), accountAccess)).thenReturn(true);
-        when(ownerNameService.enrichAccountDetailsWithOwnerName(spiAccountDetailsFirstAccount))
-                .thenReturn(buildSpiAccountDetailsWithOwnerName(IBAN, RESOURCE_ID, ACCOUNT_OWNER_NAME));
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN, CURRENCY_EUR)), any(ConsentAccessIndex.class))).thenReturn(true);
         SpiAccountDetails spiAccountDetailsSecondAccount = buildSpiAccountDetails(IBAN_SECOND_ACCOUNT, RESOURCE_ID_SECOND_ACCOUNT);
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN_SECOND_ACCOUNT, CURRENCY_EUR), accountAccess)).thenReturn(true);
-        when(ownerNameService.enrichAccountDetailsWithOwnerName(spiAccountDetailsSecondAccount))
-                .thenReturn(buildSpiAccountDetailsWithOwnerName(IBAN_SECOND_ACCOUNT, RESOURCE_ID_SECOND_ACCOUNT, ACCOUNT_OWNER_NAME_SECOND_ACCOUNT));
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN_SECOND_ACCOUNT, CURRENCY_EUR)), any(ConsentAccessIndex.class))).thenReturn(true);
+        mockEnrichWithOwnerNames(Arrays.asList(spiAccountDetailsFirstAccount, spiAccountDetailsSecondAccount),
+                                 ACCOUNT_OWNER_NAME, ACCOUNT_OWNER_NAME_SECOND_ACCOUNT);
 
         //When
         SpiResponse<List<SpiAccountDetails>> actualResponse = accountSpi.requestAccountList(SPI_CONTEXT_DATA, false,
@@ -403,9 +453,9 @@ class AccountSpiImplTest {
                                                               .collect(Collectors.toList());
         when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(accountDetailsTOList));
 
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN, CURRENCY_EUR), accountAccess))
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN, CURRENCY_EUR)), any(ConsentAccessIndex.class)))
                 .thenReturn(false);
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN_SECOND_ACCOUNT, CURRENCY_EUR), accountAccess))
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN_SECOND_ACCOUNT, CURRENCY_EUR)), any(ConsentAccessIndex.class)))
                 .thenReturn(false);
 
         //When
@@ -417,7 +467,7 @@ class AccountSpiImplTest {
         assertNotNull(spiAccountDetails);
         assertNull(spiAccountDetails.get(0).getOwnerName());
         assertNull(spiAccountDetails.get(1).getOwnerName());
-        verify(ownerNameService, never()).enrichAccountDetailsWithOwnerName(any());
+        verify(ownerNameService, never()).enrichAccountDetailsListWithOwnerName(any());
     }
 
     @Test
@@ -436,12 +486,10 @@ class AccountSpiImplTest {
         when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(accountDetailsTOList));
 
         SpiAccountDetails spiAccountDetailsFirstAccount = buildSpiAccountDetails(IBAN, RESOURCE_ID);
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN, CURRENCY_EUR), accountAccess))
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN, CURRENCY_EUR)), any(ConsentAccessIndex.class)))
                 .thenReturn(true);
-        when(ownerNameService.enrichAccountDetailsWithOwnerName(spiAccountDetailsFirstAccount))
-                .thenReturn(buildSpiAccountDetailsWithOwnerName(IBAN, RESOURCE_ID, ACCOUNT_OWNER_NAME));
-        SpiAccountDetails spiAccountDetailsSecondAccount = buildSpiAccountDetails(IBAN_SECOND_ACCOUNT, RESOURCE_ID_SECOND_ACCOUNT);
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN_SECOND_ACCOUNT, CURRENCY_EUR), accountAccess))
+        mockEnrichWithOwnerNames(Collections.singletonList(spiAccountDetailsFirstAccount), ACCOUNT_OWNER_NAME);
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN_SECOND_ACCOUNT, CURRENCY_EUR)), any(ConsentAccessIndex.class)))
                 .thenReturn(false);
 
         //When
@@ -453,7 +501,6 @@ class AccountSpiImplTest {
         assertNotNull(spiAccountDetails);
         assertNotNull(spiAccountDetails.get(0).getOwnerName());
         assertNull(spiAccountDetails.get(1).getOwnerName());
-        verify(ownerNameService, never()).enrichAccountDetailsWithOwnerName(spiAccountDetailsSecondAccount);
     }
 
     @Test
@@ -461,13 +508,11 @@ class AccountSpiImplTest {
         //Given
         when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Collections.singletonList(buildAccountDetailsTO(IBAN, RESOURCE_ID))));
         SpiAccountConsent spiAccountConsent = jsonReader.getObjectFromFile("json/spi/impl/account-spi/spi-account-consent-available-accounts-owner-name.json", SpiAccountConsent.class);
-        SpiAccountAccess accountAccess = spiAccountConsent.getAccess();
 
         SpiAccountDetails spiAccountDetailsFirstAccount = buildSpiAccountDetails(IBAN, RESOURCE_ID);
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN, CURRENCY_EUR), accountAccess))
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN, CURRENCY_EUR)), any(ConsentAccessIndex.class)))
                 .thenReturn(true);
-        when(ownerNameService.enrichAccountDetailsWithOwnerName(spiAccountDetailsFirstAccount))
-                .thenReturn(buildSpiAccountDetailsWithOwnerName(IBAN, RESOURCE_ID, ACCOUNT_OWNER_NAME));
+        mockEnrichWithOwnerNames(Collections.singletonList(spiAccountDetailsFirstAccount), ACCOUNT_OWNER_NAME);
 
         //When
         SpiResponse<List<SpiAccountDetails>> actualResponse = accountSpi.requestAccountList(SPI_CONTEXT_DATA, false,
@@ -484,13 +529,11 @@ class AccountSpiImplTest {
         //Given
         when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Collections.singletonList(buildAccountDetailsTO(IBAN, RESOURCE_ID))));
         SpiAccountConsent spiAccountConsent = jsonReader.getObjectFromFile("json/spi/impl/account-spi/spi-account-consent-available-accounts-balance-owner-name.json", SpiAccountConsent.class);
-        SpiAccountAccess accountAccess = spiAccountConsent.getAccess();
 
         SpiAccountDetails spiAccountDetailsFirstAccount = buildSpiAccountDetails(IBAN, RESOURCE_ID);
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN, CURRENCY_EUR), accountAccess))
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN, CURRENCY_EUR)), any(ConsentAccessIndex.class)))
                 .thenReturn(true);
-        when(ownerNameService.enrichAccountDetailsWithOwnerName(spiAccountDetailsFirstAccount))
-                .thenReturn(buildSpiAccountDetailsWithOwnerName(IBAN, RESOURCE_ID, ACCOUNT_OWNER_NAME));
+        mockEnrichWithOwnerNames(Collections.singletonList(spiAccountDetailsFirstAccount), ACCOUNT_OWNER_NAME);
 
         //When
         SpiResponse<List<SpiAccountDetails>> actualResponse = accountSpi.requestAccountList(SPI_CONTEXT_DATA, false,
@@ -507,13 +550,11 @@ class AccountSpiImplTest {
         //Given
         when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Collections.singletonList(buildAccountDetailsTO(IBAN, RESOURCE_ID))));
         SpiAccountConsent spiAccountConsent = jsonReader.getObjectFromFile("json/spi/impl/account-spi/spi-account-consent-global-owner-name.json", SpiAccountConsent.class);
-        SpiAccountAccess accountAccess = spiAccountConsent.getAccess();
 
         SpiAccountDetails spiAccountDetailsFirstAccount = buildSpiAccountDetails(IBAN, RESOURCE_ID);
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN, CURRENCY_EUR), accountAccess))
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN, CURRENCY_EUR)), any(ConsentAccessIndex.class)))
                 .thenReturn(true);
-        when(ownerNameService.enrichAccountDetailsWithOwnerName(spiAccountDetailsFirstAccount))
-                .thenReturn(buildSpiAccountDetailsWithOwnerName(IBAN, RESOURCE_ID, ACCOUNT_OWNER_NAME));
+        mockEnrichWithOwnerNames(Collections.singletonList(spiAccountDetailsFirstAccount), ACCOUNT_OWNER_NAME);
 
         //When
         SpiResponse<List<SpiAccountDetails>> actualResponse = accountSpi.requestAccountList(SPI_CONTEXT_DATA, false,
@@ -533,7 +574,7 @@ class AccountSpiImplTest {
         accountAccess.setSpiAdditionalInformationAccess(new SpiAdditionalInformationAccess(Collections.emptyList(), Collections.emptyList()));
         when(accountRestClient.getAccountDetailsById(RESOURCE_ID)).thenReturn(ResponseEntity.ok(buildAccountDetailsTO(IBAN, RESOURCE_ID)));
         SpiAccountDetails spiAccountDetailsFirstAccount = buildSpiAccountDetails(IBAN, RESOURCE_ID);
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN, CURRENCY_EUR), accountAccess))
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN, CURRENCY_EUR)), any(ConsentAccessIndex.class)))
                 .thenReturn(true);
         when(ownerNameService.enrichAccountDetailsWithOwnerName(spiAccountDetailsFirstAccount))
                 .thenReturn(buildSpiAccountDetailsWithOwnerName(IBAN, RESOURCE_ID, ACCOUNT_OWNER_NAME));
@@ -569,11 +610,21 @@ class AccountSpiImplTest {
         verify(ownerNameService, never()).enrichAccountDetailsWithOwnerName(any());
     }
 
+    private void mockEnrichWithOwnerNames(List<SpiAccountDetails> accountDetails, String... ownerNames) {
+        when(ownerNameService.enrichAccountDetailsListWithOwnerName(accountDetails))
+                .thenAnswer(invocation -> {
+                    List<SpiAccountDetails> accountDetailsWithOwnerName = invocation.getArgument(0);
+                    for (int i = 0; i < ownerNames.length; i++) {
+                        accountDetailsWithOwnerName.get(i).setOwnerName(ownerNames[i]);
+                    }
+                    return accountDetailsWithOwnerName;
+                });
+    }
+
     private void verifyGetListOfAccounts() {
         verify(accountRestClient).getListOfAccounts();
         verify(tokenService).response(ASPSP_CONSENT_DATA.getAspspConsentData());
-        verify(authRequestInterceptor).setAccessToken("access_token");
-        verify(authRequestInterceptor).setAccessToken(null);
+        verify(authRequestInterceptor).withAccessToken("access_token");
     }
 
     @Test
@@ -582,7 +633,6 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         when(accountRestClient.getAccountDetailsById(RESOURCE_ID)).thenReturn(ResponseEntity.ok(accountDetailsTO));
 
@@ -592,10 +642,9 @@ class AccountSpiImplTest {
         assertTrue(actualResponse.getErrors().isEmpty());
         assertNotNull(actualResponse.getPayload());
         verify(aspspConsentDataProvider, times(1)).loadAspspConsentData();
-        verify(aspspConsentDataProvider, times(1)).updateAspspConsentData(BYTES);
-        verifyApplyAuthorisationUsedAndInterceptorWithNull();
+        verifyApplyAuthorisationUsed();
         verify(accountRestClient, times(1)).getAccountDetailsById(RESOURCE_ID);
-        verify(tokenService, times(1)).store(scaResponseTO);
+        verify(tokenService, times(1)).updateIfChanged(aspspConsentDataProvider, BYTES, scaResponseTO);
     }
 
     @Test
@@ -604,7 +653,6 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
         when(accountRestClient.getAccountDetailsById(RESOURCE_ID)).thenReturn(ResponseEntity.ok(accountDetailsTO));
 
         SpiResponse<SpiAccountDetails> actualResponse = accountSpi.requestAccountDetailForAccount(SPI_CONTEXT_DATA, false, accountReference,
@@ -613,10 +661,9 @@ class AccountSpiImplTest {
         assertTrue(actualResponse.getErrors().isEmpty());
         assertNotNull(actualResponse.getPayload());
         verify(aspspConsentDataProvider, times(1)).loadAspspConsentData();
-        verify(aspspConsentDataProvider, times(1)).updateAspspConsentData(BYTES);
-        verifyApplyAuthorisationUsedAndInterceptorWithNull();
+        verifyApplyAuthorisationUsed();
         verify(accountRestClient, times(1)).getAccountDetailsById(RESOURCE_ID);
-        verify(tokenService, times(1)).store(scaResponseTO);
+        verify(tokenService, times(1)).updateIfChanged(aspspConsentDataProvider, BYTES, scaResponseTO);
     }
 
     @Test
@@ -634,7 +681,7 @@ class AccountSpiImplTest {
         assertFalse(actualResponse.getErrors().isEmpty());
         assertNull(actualResponse.getPayload());
         verify(aspspConsentDataProvider, times(1)).loadAspspConsentData();
-        verifyApplyAuthorisationUsedAndInterceptorWithNull();
+        verifyApplyAuthorisationUsed();
         verify(accountRestClient, times(1)).getAccountDetailsById(RESOURCE_ID);
     }
 
@@ -644,7 +691,6 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
         when(accountRestClient.getTransactionById(accountReference.getResourceId(), TRANSACTION_ID)).thenReturn(ResponseEntity.ok(transactionTO));
 
         SpiResponse<SpiTransaction> actualResponse = accountSpi
@@ -653,10 +699,9 @@ class AccountSpiImplTest {
         assertTrue(actualResponse.getErrors().isEmpty());
         assertNotNull(actualResponse.getPayload());
         verify(aspspConsentDataProvider, times(1)).loadAspspConsentData();
-        verify(aspspConsentDataProvider, times(1)).updateAspspConsentData(BYTES);
-        verifyApplyAuthorisationUsedAndInterceptorWithNull();
+        verifyApplyAuthorisationUsed();
         verify(accountRestClient, times(1)).getTransactionById(accountReference.getResourceId(), TRANSACTION_ID);
-        verify(tokenService, times(1)).store(scaResponseTO);
+        verify(tokenService, times(1)).updateIfChanged(aspspConsentDataProvider, BYTES, scaResponseTO);
     }
 
     @Test
@@ -675,7 +720,7 @@ class AccountSpiImplTest {
         assertFalse(actualResponse.getErrors().isEmpty());
         assertNull(actualResponse.getPayload());
         verify(aspspConsentDataProvider, times(1)).loadAspspConsentData();
-        verifyApplyAuthorisationUsedAndInterceptorWithNull();
+        verifyApplyAuthorisationUsed();
         verify(accountRestClient, times(1)).getTransactionById(accountReference.getResourceId(), TRANSACTION_ID);
     }
 
@@ -685,7 +730,6 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         String transactionList = "transactionList";
         Field fieldTransactionList = accountSpi.getClass().getDeclaredField(transactionList);
@@ -697,7 +741,7 @@ class AccountSpiImplTest {
 
         assertTrue(actualResponse.getErrors().isEmpty());
         assertNotNull(actualResponse.getPayload());
-        verifyApplyAuthorisationUsedAndInterceptorWithNull();
+        verifyApplyAuthorisationUsed();
     }
 
     @Test
@@ -711,7 +755,6 @@ class AccountSpiImplTest {
         assertNull(actualResponse.getPayload());
         verify(aspspConsentDataProvider, times(1)).loadAspspConsentData();
         verify(tokenService, times(1)).response(BYTES);
-        verify(authRequestInterceptor, times(1)).setAccessToken(null);
     }
 
     @Test
@@ -739,10 +782,14 @@ class AccountSpiImplTest {
                        .build();
     }
 
-    private void verifyApplyAuthorisationUsedAndInterceptorWithNull() {
+    private JsonArrayBody<TransactionTO> buildTransactionsResponse(String body) {
+        return new JsonArrayBody<>(new JacksonConfig().objectMapper().readerFor(TransactionTO.class),
+                                   new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private void verifyApplyAuthorisationUsed() {
         verify(tokenService, times(1)).response(BYTES);
-        verify(authRequestInterceptor, times(1)).setAccessToken(scaResponseTO.getBearerToken().getAccess_token());
-        verify(authRequestInterceptor, times(1)).setAccessToken(null);
+        verify(authRequestInterceptor, times(1)).withAccessToken(scaResponseTO.getBearerToken().getAccess_token());
     }
 
     private SpiTransactionReportParameters buildSpiTransactionReportParameters(String mediaType) {
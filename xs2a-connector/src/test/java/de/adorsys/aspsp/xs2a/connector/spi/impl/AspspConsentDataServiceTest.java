@@ -0,0 +1,274 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.spi.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAConsentResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
+import de.adorsys.ledgers.middleware.api.service.TokenStorageService;
+import de.adorsys.ledgers.rest.client.JsonCodecRegistry;
+import de.adorsys.ledgers.rest.client.TokenValidationCache;
+import de.adorsys.psd2.xs2a.core.error.MessageErrorCode;
+import de.adorsys.psd2.xs2a.core.error.TppMessage;
+import de.adorsys.psd2.xs2a.spi.domain.SpiAspspConsentDataProvider;
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AspspConsentDataServiceTest {
+    private static final byte[] CONSENT_DATA = "consent data".getBytes();
+    private static final Instant NOW = Instant.parse("2020-03-01T10:00:00Z");
+
+    @InjectMocks
+    private AspspConsentDataService aspspConsentDataService;
+    @Mock
+    private TokenStorageService tokenStorageService;
+    @Mock
+    private SpiAspspConsentDataProvider aspspConsentDataProvider;
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistry;
+    @Mock
+    private ObjectProvider<TokenValidationCache> tokenValidationCache;
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void response_sameBytesWithinRequest_shouldBeDecodedOnce() throws IOException {
+        // Given
+        startRequest();
+        when(tokenStorageService.fromBytes(CONSENT_DATA)).thenReturn(consentResponse());
+
+        // When
+        SCAResponseTO first = aspspConsentDataService.response(CONSENT_DATA);
+        SCAConsentResponseTO typed = aspspConsentDataService.response(CONSENT_DATA.clone(), SCAConsentResponseTO.class);
+
+        // Then
+        assertSame(first, typed);
+        verify(tokenStorageService, times(1)).fromBytes(CONSENT_DATA);
+        verify(tokenStorageService, never()).fromBytes(any(), any());
+    }
+
+    @Test
+    void response_outsideOfRequest_shouldAlwaysDecode() throws IOException {
+        // Given
+        when(tokenStorageService.fromBytes(CONSENT_DATA)).thenReturn(consentResponse());
+
+        // When
+        aspspConsentDataService.response(CONSENT_DATA);
+        aspspConsentDataService.response(CONSENT_DATA);
+
+        // Then
+        verify(tokenStorageService, times(2)).fromBytes(CONSENT_DATA);
+    }
+
+    @Test
+    void store_shouldEvictDecodedResponse() throws IOException {
+        // Given
+        startRequest();
+        SCAConsentResponseTO response = consentResponse();
+        when(tokenStorageService.fromBytes(CONSENT_DATA)).thenReturn(response);
+        aspspConsentDataService.response(CONSENT_DATA);
+
+        // When
+        aspspConsentDataService.store(response);
+        aspspConsentDataService.response(CONSENT_DATA);
+
+        // Then
+        verify(tokenStorageService, times(2)).fromBytes(CONSENT_DATA);
+    }
+
+    @Test
+    void updateIfChanged_unchangedResponse_shouldNotUpdateConsentData() throws IOException {
+        // Given
+        SCAConsentResponseTO response = consentResponse();
+        when(tokenStorageService.toBytes(response)).thenReturn(CONSENT_DATA.clone());
+
+        // When
+        aspspConsentDataService.updateIfChanged(aspspConsentDataProvider, CONSENT_DATA, response);
+
+        // Then
+        verify(aspspConsentDataProvider, never()).updateAspspConsentData(any());
+    }
+
+    @Test
+    void updateIfChanged_changedResponse_shouldUpdateConsentData() throws IOException {
+        // Given
+        SCAConsentResponseTO response = consentResponse();
+        byte[] changedConsentData = "changed consent data".getBytes();
+        when(tokenStorageService.toBytes(response)).thenReturn(changedConsentData);
+
+        // When
+        aspspConsentDataService.updateIfChanged(aspspConsentDataProvider, CONSENT_DATA, response);
+
+        // Then
+        verify(aspspConsentDataProvider, times(1)).updateAspspConsentData(changedConsentData);
+    }
+
+    @Test
+    void updateIfChanged_missingBearerToken_shouldThrowException() {
+        // Given
+        SCAConsentResponseTO response = new SCAConsentResponseTO();
+
+        // Then
+        assertThrows(IllegalStateException.class, () -> aspspConsentDataService.updateIfChanged(aspspConsentDataProvider, CONSENT_DATA, response));
+        verify(aspspConsentDataProvider, never()).updateAspspConsentData(any());
+    }
+
+    @Test
+    void checkAccessTokenNotExpired_expiredToken_shouldFailWithoutCallingLedgers() {
+        // Given
+        MeterRegistry registry = new SimpleMeterRegistry();
+        when(meterRegistry.getIfAvailable(any())).thenReturn(registry);
+        enableExpiryCheck();
+        SCAConsentResponseTO response = responseWithAccessToken(NOW.minusSeconds(60));
+
+        // When
+        FeignException exception = assertThrows(FeignException.class, () -> aspspConsentDataService.checkAccessTokenNotExpired(response));
+
+        // Then
+        assertEquals(401, exception.status());
+        assertEquals(1, registry.get("ledgers.requests.avoided").tag("reason", "access-token-expired").counter().count());
+    }
+
+    @Test
+    void checkAccessTokenNotExpired_tokenWithinLeeway_shouldPass() {
+        // Given
+        enableExpiryCheck();
+
+        // Then
+        assertDoesNotThrow(() -> aspspConsentDataService.checkAccessTokenNotExpired(responseWithAccessToken(NOW.plusSeconds(60))));
+        assertDoesNotThrow(() -> aspspConsentDataService.checkAccessTokenNotExpired(responseWithAccessToken(NOW.minusSeconds(1))));
+        verify(meterRegistry, never()).getIfAvailable(any());
+    }
+
+    @Test
+    void checkAccessTokenNotExpired_unreadableToken_shouldBeLeftToLedgers() {
+        // Given
+        enableExpiryCheck();
+        SCAConsentResponseTO response = consentResponse();
+        response.getBearerToken().setAccess_token("opaque token");
+
+        // Then
+        assertDoesNotThrow(() -> aspspConsentDataService.checkAccessTokenNotExpired(response));
+        assertDoesNotThrow(() -> aspspConsentDataService.checkAccessTokenNotExpired(consentResponse()));
+    }
+
+    @Test
+    void checkAccessTokenNotExpired_expiredToken_shouldReportSameTppMessageAsLedgers() {
+        // Given
+        when(meterRegistry.getIfAvailable(any())).thenReturn(new SimpleMeterRegistry());
+        enableExpiryCheck();
+        FeignExceptionReader feignExceptionReader = new FeignExceptionReader(new JsonCodecRegistry(new ObjectMapper()));
+        FeignException ledgersException = FeignException.errorStatus("getListOfAccounts", Response.builder()
+                                                                                              .status(401)
+                                                                                              .request(Request.create(Request.HttpMethod.GET, "", Collections.emptyMap(), null))
+                                                                                              .headers(Collections.emptyMap())
+                                                                                              .body("{\"code\":401,\"devMessage\":\"" + AspspConsentDataService.ACCESS_TOKEN_EXPIRED + "\"}",
+                                                                                                    StandardCharsets.UTF_8)
+                                                                                              .build());
+
+        // When
+        FeignException localException = assertThrows(FeignException.class,
+                                                     () -> aspspConsentDataService.checkAccessTokenNotExpired(responseWithAccessToken(NOW.minusSeconds(60))));
+        TppMessage localMessage = FeignExceptionHandler.getFailureMessage(localException, MessageErrorCode.CONSENT_UNKNOWN_400,
+                                                                          feignExceptionReader.getErrorMessage(localException));
+        TppMessage ledgersMessage = FeignExceptionHandler.getFailureMessage(ledgersException, MessageErrorCode.CONSENT_UNKNOWN_400,
+                                                                            feignExceptionReader.getErrorMessage(ledgersException));
+
+        // Then
+        assertEquals(ledgersException.status(), localException.status());
+        assertEquals(MessageErrorCode.CONSENT_UNKNOWN_400, localMessage.getErrorCode());
+        assertEquals(ledgersMessage.getErrorCode(), localMessage.getErrorCode());
+        assertEquals(ledgersMessage.getMessageText(), localMessage.getMessageText());
+    }
+
+    @Test
+    void checkAccessTokenNotExpired_validatedToken_shouldUseExpiryOfCachedValidation() {
+        // Given
+        when(meterRegistry.getIfAvailable(any())).thenReturn(new SimpleMeterRegistry());
+        enableExpiryCheck();
+        TokenValidationCache cache = new TokenValidationCache(10, Duration.ofMinutes(5), 10, Duration.ofSeconds(5),
+                                                              new SimpleMeterRegistry(), Clock.fixed(NOW.minusSeconds(120), ZoneOffset.UTC));
+        when(tokenValidationCache.getIfAvailable()).thenReturn(cache);
+        SCAConsentResponseTO response = consentResponse();
+        response.getBearerToken().setAccess_token("opaque token");
+        BearerTokenTO validated = new BearerTokenTO();
+        validated.setAccess_token("opaque token");
+        validated.setExpires_in(60);
+        cache.validate("opaque token", () -> validated);
+
+        // Then
+        assertThrows(FeignException.class, () -> aspspConsentDataService.checkAccessTokenNotExpired(response));
+    }
+
+    private void enableExpiryCheck() {
+        ReflectionTestUtils.setField(aspspConsentDataService, "jsonCodecRegistry", new JsonCodecRegistry(new ObjectMapper()));
+        ReflectionTestUtils.setField(aspspConsentDataService, "expiryCheck", true);
+        ReflectionTestUtils.setField(aspspConsentDataService, "expiryLeeway", 5_000L);
+        ReflectionTestUtils.setField(aspspConsentDataService, "clock", Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private SCAConsentResponseTO responseWithAccessToken(Instant expiresAt) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String claims = "{\"sub\":\"psu\",\"exp\":" + expiresAt.getEpochSecond() + "}";
+        SCAConsentResponseTO response = consentResponse();
+        response.getBearerToken().setAccess_token(encoder.encodeToString("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.UTF_8)) + "."
+                                                          + encoder.encodeToString(claims.getBytes(StandardCharsets.UTF_8)) + ".signature");
+        return response;
+    }
+
+    private void startRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    private SCAConsentResponseTO consentResponse() {
+        SCAConsentResponseTO response = new SCAConsentResponseTO();
+        response.setBearerToken(new BearerTokenTO());
+        return response;
+    }
+}
@@ -16,26 +16,30 @@
 
 package de.adorsys.aspsp.xs2a.connector.spi.impl;
 
+import de.adorsys.aspsp.xs2a.connector.account.ConsentAccessIndex;
 import de.adorsys.aspsp.xs2a.connector.account.IbanAccountReference;
 import de.adorsys.aspsp.xs2a.connector.account.OwnerNameService;
+import de.adorsys.aspsp.xs2a.connector.config.JacksonConfig;
 import de.adorsys.aspsp.xs2a.connector.mock.IbanResolverMockService;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapper;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapperImpl;
 import de.adorsys.aspsp.xs2a.util.JsonReader;
 import de.adorsys.aspsp.xs2a.util.TestSpiDataProvider;
 import de.adorsys.ledgers.middleware.api.domain.account.AccountDetailsTO;
+import de.adorsys.ledgers.middleware.api.domain.account.TransactionTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.SCAConsentResponseTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
 import de.adorsys.ledgers.middleware.api.domain.um.AccessTokenTO;
 import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
 import de.adorsys.ledgers.rest.client.AccountRestClient;
+import de.adorsys.ledgers.rest.client.AsyncAccountRestClient;
 import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import de.adorsys.ledgers.rest.client.JsonArrayBody;
 import de.adorsys.psd2.xs2a.core.ais.BookingStatus;
 import de.adorsys.psd2.xs2a.core.consent.AspspConsentData;
 import de.adorsys.psd2.xs2a.spi.domain.SpiAspspConsentDataProvider;
 import de.adorsys.psd2.xs2a.spi.domain.SpiContextData;
 import de.adorsys.psd2.xs2a.spi.domain.account.*;
-import de.adorsys.psd2.xs2a.spi.domain.consent.SpiAccountAccess;
 import de.adorsys.psd2.xs2a.spi.domain.response.SpiResponse;
 import feign.FeignException;
 import feign.Request;
@@ -51,8 +55,11 @@ import org.mockito.junit.jupiter.MockitoSettings;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -85,6 +92,8 @@ class CardAccountSpiImplTest {
 
     @Mock
     private AccountRestClient accountRestClient;
+    @Mock
+    private AsyncAccountRestClient asyncAccountRestClient;
     @Spy
     private LedgersSpiAccountMapper accountMapper = new LedgersSpiAccountMapperImpl();
     @Mock
@@ -131,21 +140,19 @@ class CardAccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
-        when(accountRestClient.getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO))
-                .thenReturn(ResponseEntity.ok(Collections.emptyList()));
-        when(accountRestClient.getBalances(RESOURCE_ID))
-                .thenReturn(ResponseEntity.ok(Collections.emptyList()));
+        when(accountRestClient.getTransactionByDatesAsStream(RESOURCE_ID, DATE_FROM, DATE_TO))
+                .thenReturn(buildTransactionsResponse("[]"));
+        when(asyncAccountRestClient.getBalances(RESOURCE_ID))
+                .thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok(Collections.emptyList())));
 
         // When
         SpiResponse<SpiCardTransactionReport> actualResponse = cardAccountSpi.requestCardTransactionsForAccount(SPI_CONTEXT_DATA, buildSpiTransactionReportParameters(MediaType.APPLICATION_XML_VALUE),
                                                                                                                 accountReference, spiAccountConsent, aspspConsentDataProvider);
         // Then
-        verify(accountRestClient, times(1)).getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO);
-        verify(accountRestClient, times(1)).getBalances(RESOURCE_ID);
-        verify(tokenService, times(2)).response(ASPSP_CONSENT_DATA.getAspspConsentData());
-        verify(authRequestInterceptor, times(2)).setAccessToken("access_token");
-        verify(authRequestInterceptor, times(2)).setAccessToken(null);
+        verify(accountRestClient, times(1)).getTransactionByDatesAsStream(RESOURCE_ID, DATE_FROM, DATE_TO);
+        verify(asyncAccountRestClient, times(1)).getBalances(RESOURCE_ID);
+        verify(tokenService, times(1)).response(ASPSP_CONSENT_DATA.getAspspConsentData());
+        verify(authRequestInterceptor, times(1)).withAccessToken("access_token");
 
         assertEquals(MediaType.APPLICATION_XML_VALUE, actualResponse.getPayload().getResponseContentType());
     }
@@ -157,21 +164,19 @@ class CardAccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
-        when(accountRestClient.getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO))
-                .thenReturn(ResponseEntity.ok(Collections.emptyList()));
-        when(accountRestClient.getBalances(RESOURCE_ID))
-                .thenReturn(ResponseEntity.ok(Collections.emptyList()));
+        when(accountRestClient.getTransactionByDatesAsStream(RESOURCE_ID, DATE_FROM, DATE_TO))
+                .thenReturn(buildTransactionsResponse("[]"));
+        when(asyncAccountRestClient.getBalances(RESOURCE_ID))
+                .thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok(Collections.emptyList())));
 
         // When
         SpiResponse<SpiCardTransactionReport> actualResponse = cardAccountSpi.requestCardTransactionsForAccount(SPI_CONTEXT_DATA, buildSpiTransactionReportParameters("*/*"),
                                                                                                                 accountReference, spiAccountConsent, aspspConsentDataProvider);
         // Then
-        verify(accountRestClient, times(1)).getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO);
-        verify(accountRestClient, times(1)).getBalances(RESOURCE_ID);
-        verify(tokenService, times(2)).response(ASPSP_CONSENT_DATA.getAspspConsentData());
-        verify(authRequestInterceptor, times(2)).setAccessToken("access_token");
-        verify(authRequestInterceptor, times(2)).setAccessToken(null);
+        verify(accountRestClient, times(1)).getTransactionByDatesAsStream(RESOURCE_ID, DATE_FROM, DATE_TO);
+        verify(asyncAccountRestClient, times(1)).getBalances(RESOURCE_ID);
+        verify(tokenService, times(1)).response(ASPSP_CONSENT_DATA.getAspspConsentData());
+        verify(authRequestInterceptor, times(1)).withAccessToken("access_token");
 
         assertEquals(MediaType.APPLICATION_JSON_VALUE, actualResponse.getPayload().getResponseContentType());
     }
@@ -183,13 +188,12 @@ class CardAccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
-        when(accountRestClient.getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO))
-                .thenReturn(ResponseEntity.ok(Collections.emptyList()));
-        when(accountRestClient.getBalances(RESOURCE_ID))
-                .thenReturn(ResponseEntity.ok(Collections.emptyList()));
+        when(accountRestClient.getTransactionByDatesAsStream(RESOURCE_ID, DATE_FROM, DATE_TO))
+                .thenReturn(buildTransactionsResponse("[]"));
+        when(asyncAccountRestClient.getBalances(RESOURCE_ID))
+                .thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok(Collections.emptyList())));
 
-        when(tokenService.store(scaResponseTO)).thenThrow(getFeignException());
+        doThrow(getFeignException()).when(tokenService).updateIfChanged(aspspConsentDataProvider, BYTES, scaResponseTO);
 
         // When
         SpiResponse<SpiCardTransactionReport> actualResponse = cardAccountSpi.requestCardTransactionsForAccount(SPI_CONTEXT_DATA, buildSpiTransactionReportParameters(MediaType.APPLICATION_XML_VALUE),
@@ -197,12 +201,11 @@ class CardAccountSpiImplTest {
         // Then
         assertFalse(actualResponse.getErrors().isEmpty());
         assertNull(actualResponse.getPayload());
-        verify(aspspConsentDataProvider, times(2)).loadAspspConsentData();
-        verify(tokenService, times(2)).response(BYTES);
-        verify(authRequestInterceptor, times(2)).setAccessToken(scaResponseTO.getBearerToken().getAccess_token());
-        verify(authRequestInterceptor, times(2)).setAccessToken(null);
-        verify(accountRestClient, times(1)).getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO);
-        verify(tokenService, times(1)).store(scaResponseTO);
+        verify(aspspConsentDataProvider, times(1)).loadAspspConsentData();
+        verify(tokenService, times(1)).response(BYTES);
+        verify(authRequestInterceptor, times(1)).withAccessToken(scaResponseTO.getBearerToken().getAccess_token());
+        verify(accountRestClient, times(1)).getTransactionByDatesAsStream(RESOURCE_ID, DATE_FROM, DATE_TO);
+        verify(tokenService, times(1)).updateIfChanged(aspspConsentDataProvider, BYTES, scaResponseTO);
     }
 
     @Test
@@ -212,7 +215,6 @@ class CardAccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         AccountDetailsTO accountDetails_1 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetails_2 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
@@ -243,7 +245,6 @@ class CardAccountSpiImplTest {
         assertNull(actualResponse.getPayload());
         verify(aspspConsentDataProvider, times(1)).loadAspspConsentData();
         verify(tokenService, times(1)).response(BYTES);
-        verify(authRequestInterceptor, times(1)).setAccessToken(null);
     }
 
     @Test
@@ -253,7 +254,6 @@ class CardAccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         AccountDetailsTO accountDetails_1 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetails_2 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
@@ -281,20 +281,17 @@ class CardAccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         AccountDetailsTO accountDetailsFirst = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-details-first.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetailsSecond = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-details-second.json", AccountDetailsTO.class);
         SpiCardAccountDetails cardAccountDetailsFirstAccount = jsonReader.getObjectFromFile("json/spi/impl/card-account/spi-card-account-details-first.json", SpiCardAccountDetails.class);
         when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Arrays.asList(accountDetailsFirst, accountDetailsSecond)));
-        SpiAccountAccess accountAccess = spiAccountConsent.getAccess();
         SpiAccountReference cardAccountReference = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-reference.json", SpiAccountReference.class);
         when(ibanResolverMockService.handleIbanByAccountReference(cardAccountReference)).thenReturn(IBAN_FIRST_ACCOUNT);
         when(ibanResolverMockService.getMaskedPanByIban(IBAN_FIRST_ACCOUNT)).thenReturn(MASKED_PAN_FIRST_ACCOUNT);
         when(ibanResolverMockService.getIbanByMaskedPan(MASKED_PAN_FIRST_ACCOUNT)).thenReturn(Optional.of(IBAN_FIRST_ACCOUNT));
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR), accountAccess)).thenReturn(true);
-        when(ownerNameService.enrichCardAccountDetailsWithOwnerName(cardAccountDetailsFirstAccount))
-                .thenReturn(jsonReader.getObjectFromFile("json/spi/impl/card-account/spi-card-account-details-first-owner-name.json", SpiCardAccountDetails.class));
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR)), any(ConsentAccessIndex.class))).thenReturn(true);
+        mockEnrichWithOwnerNames(Collections.singletonList(cardAccountDetailsFirstAccount), ACCOUNT_OWNER_NAME);
 
         // When
         SpiResponse<List<SpiCardAccountDetails>> actualResponse = cardAccountSpi.requestCardAccountList(SPI_CONTEXT_DATA, spiAccountConsent, aspspConsentDataProvider);
@@ -315,23 +312,20 @@ class CardAccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         AccountDetailsTO accountDetailsFirst = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-details-first.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetailsSecond = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-details-second.json", AccountDetailsTO.class);
         SpiCardAccountDetails cardAccountDetailsFirstAccount = jsonReader.getObjectFromFile("json/spi/impl/card-account/spi-card-account-details-first.json", SpiCardAccountDetails.class);
         when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Arrays.asList(accountDetailsFirst, accountDetailsSecond)));
         SpiAccountConsent accountConsentWithTwoAccounts = jsonReader.getObjectFromFile("json/spi/impl/card-account/spi-account-consent-two-accounts.json", SpiAccountConsent.class);
-        SpiAccountAccess accountAccess = accountConsentWithTwoAccounts.getAccess();
         SpiAccountReference cardAccountReference = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-reference.json", SpiAccountReference.class);
         when(ibanResolverMockService.handleIbanByAccountReference(cardAccountReference)).thenReturn(IBAN_FIRST_ACCOUNT);
         SpiAccountReference cardAccountReferenceSecondAccount = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-reference-second.json", SpiAccountReference.class);
         when(ibanResolverMockService.handleIbanByAccountReference(cardAccountReferenceSecondAccount)).thenReturn(IBAN_SECOND_ACCOUNT);
         when(ibanResolverMockService.getMaskedPanByIban(IBAN_FIRST_ACCOUNT)).thenReturn(MASKED_PAN_FIRST_ACCOUNT);
         when(ibanResolverMockService.getIbanByMaskedPan(MASKED_PAN_FIRST_ACCOUNT)).thenReturn(Optional.of(IBAN_FIRST_ACCOUNT));
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR), accountAccess)).thenReturn(true);
-        when(ownerNameService.enrichCardAccountDetailsWithOwnerName(cardAccountDetailsFirstAccount))
-                .thenReturn(jsonReader.getObjectFromFile("json/spi/impl/card-account/spi-card-account-details-first-owner-name.json", SpiCardAccountDetails.class));
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR)), any(ConsentAccessIndex.class))).thenReturn(true);
+        mockEnrichWithOwnerNames(Collections.singletonList(cardAccountDetailsFirstAccount), ACCOUNT_OWNER_NAME);
 
         // When
         SpiResponse<List<SpiCardAccountDetails>> actualResponse = cardAccountSpi.requestCardAccountList(SPI_CONTEXT_DATA, accountConsentWithTwoAccounts, aspspConsentDataProvider);
@@ -353,7 +347,6 @@ class CardAccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         AccountDetailsTO accountDetailsFirst = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-details-first.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetailsSecond = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-details-second.json", AccountDetailsTO.class);
@@ -373,7 +366,7 @@ class CardAccountSpiImplTest {
         assertEquals(1, actualPayload.size());
         assertNull(actualPayload.get(0).getOwnerName());
         verifyGetListOfAccounts();
-        verify(ownerNameService, never()).enrichCardAccountDetailsWithOwnerName(any());
+        verify(ownerNameService, never()).enrichCardAccountDetailsListWithOwnerName(any());
     }
 
     @Test
@@ -383,7 +376,6 @@ class CardAccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         AccountDetailsTO accountDetailsFirst = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-details-first.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetailsSecond = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-details-second.json", AccountDetailsTO.class);
@@ -402,7 +394,7 @@ class CardAccountSpiImplTest {
         assertNull(actualPayload.get(0).getOwnerName());
         verifyGetListOfAccounts();
         verify(ownerNameService, never()).shouldContainOwnerName(any(), any());
-        verify(ownerNameService, never()).enrichCardAccountDetailsWithOwnerName(any());
+        verify(ownerNameService, never()).enrichCardAccountDetailsListWithOwnerName(any());
     }
 
     @Test
@@ -412,7 +404,6 @@ class CardAccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         when(accountRestClient.getAccountDetailsById(RESOURCE_ID)).thenReturn(ResponseEntity.ok(accountDetailsTO));
 
@@ -423,10 +414,9 @@ class CardAccountSpiImplTest {
         assertTrue(actualResponse.getErrors().isEmpty());
         assertNotNull(actualResponse.getPayload());
         verify(aspspConsentDataProvider, times(1)).loadAspspConsentData();
-        verify(aspspConsentDataProvider, times(1)).updateAspspConsentData(BYTES);
-        verifyApplyAuthorisationUsedAndInterceptorWithNull();
+        verifyApplyAuthorisationUsed();
         verify(accountRestClient, times(1)).getAccountDetailsById(RESOURCE_ID);
-        verify(tokenService, times(1)).store(scaResponseTO);
+        verify(tokenService, times(1)).updateIfChanged(aspspConsentDataProvider, BYTES, scaResponseTO);
     }
 
     @Test
@@ -436,14 +426,12 @@ class CardAccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         when(accountRestClient.getAccountDetailsById(RESOURCE_ID)).thenReturn(ResponseEntity.ok(accountDetailsTO));
 
-        SpiAccountAccess accountAccess = spiAccountConsent.getAccess();
         when(ibanResolverMockService.getMaskedPanByIban(IBAN_FIRST_ACCOUNT)).thenReturn(MASKED_PAN_FIRST_ACCOUNT);
         when(ibanResolverMockService.getIbanByMaskedPan(MASKED_PAN_FIRST_ACCOUNT)).thenReturn(Optional.of(IBAN_FIRST_ACCOUNT));
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR), accountAccess)).thenReturn(true);
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR)), any(ConsentAccessIndex.class))).thenReturn(true);
         SpiCardAccountDetails cardAccountDetailsFirstAccount = jsonReader.getObjectFromFile("json/spi/impl/card-account/spi-card-account-details-first.json", SpiCardAccountDetails.class);
         when(ownerNameService.enrichCardAccountDetailsWithOwnerName(cardAccountDetailsFirstAccount))
                 .thenReturn(jsonReader.getObjectFromFile("json/spi/impl/card-account/spi-card-account-details-first-owner-name.json", SpiCardAccountDetails.class));
@@ -466,7 +454,6 @@ class CardAccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         when(accountRestClient.getAccountDetailsById(RESOURCE_ID)).thenReturn(ResponseEntity.ok(accountDetailsTO));
 
@@ -493,14 +480,12 @@ class CardAccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         when(accountRestClient.getAccountDetailsById(RESOURCE_ID)).thenReturn(ResponseEntity.ok(accountDetailsTO));
 
-        SpiAccountAccess accountAccess = spiAccountConsent.getAccess();
         when(ibanResolverMockService.getMaskedPanByIban(IBAN_FIRST_ACCOUNT)).thenReturn(MASKED_PAN_FIRST_ACCOUNT);
         when(ibanResolverMockService.getIbanByMaskedPan(MASKED_PAN_FIRST_ACCOUNT)).thenReturn(Optional.of(IBAN_FIRST_ACCOUNT));
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR), accountAccess)).thenReturn(false);
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR)), any(ConsentAccessIndex.class))).thenReturn(false);
 
         // When
         SpiResponse<SpiCardAccountDetails> actualResponse = cardAccountSpi.requestCardAccountDetailsForAccount(SPI_CONTEXT_DATA, accountReference,
@@ -526,11 +511,21 @@ class CardAccountSpiImplTest {
         assertEquals(MediaType.APPLICATION_ATOM_XML_VALUE, cardAccountSpi.processAcceptMediaType(MediaType.APPLICATION_ATOM_XML_VALUE));
     }
 
+    private void mockEnrichWithOwnerNames(List<SpiCardAccountDetails> cardAccountDetails, String... ownerNames) {
+        when(ownerNameService.enrichCardAccountDetailsListWithOwnerName(cardAccountDetails))
+                .thenAnswer(invocation -> {
+                    List<SpiCardAccountDetails> cardAccountDetailsWithOwnerName = invocation.getArgument(0);
+                    for (int i = 0; i < ownerNames.length; i++) {
+                        cardAccountDetailsWithOwnerName.get(i).setOwnerName(ownerNames[i]);
+                    }
+                    return cardAccountDetailsWithOwnerName;
+                });
+    }
+
     private void verifyGetListOfAccounts() {
         verify(accountRestClient, times(1)).getListOfAccounts();
-        verify(tokenService, times(2)).response(ASPSP_CONSENT_DATA.getAspspConsentData());
-        verify(authRequestInterceptor, times(2)).setAccessToken("access_token");
-        verify(authRequestInterceptor).setAccessToken(null);
+        verify(tokenService, times(1)).response(ASPSP_CONSENT_DATA.getAspspConsentData());
+        verify(authRequestInterceptor, times(1)).withAccessToken("access_token");
     }
 
     private FeignException getFeignException() {
@@ -545,10 +540,14 @@ class CardAccountSpiImplTest {
                        .build();
     }
 
-    private void verifyApplyAuthorisationUsedAndInterceptorWithNull() {
+    private JsonArrayBody<TransactionTO> buildTransactionsResponse(String body) {
+        return new JsonArrayBody<>(new JacksonConfig().objectMapper().readerFor(TransactionTO.class),
+                                   new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private void verifyApplyAuthorisationUsed() {
         verify(tokenService, times(1)).response(BYTES);
-        verify(authRequestInterceptor, times(1)).setAccessToken(scaResponseTO.getBearerToken().getAccess_token());
-        verify(authRequestInterceptor, times(1)).setAccessToken(null);
+        verify(authRequestInterceptor, times(1)).withAccessToken(scaResponseTO.getBearerToken().getAccess_token());
     }
 
     private SpiTransactionReportParameters buildSpiTransactionReportParameters(String mediaType) {
@@ -1,5 +1,6 @@
 package de.adorsys.aspsp.xs2a.connector.spi.impl;
 
+import de.adorsys.ledgers.rest.client.LedgersCallNotPermittedException;
 import de.adorsys.psd2.xs2a.core.error.MessageErrorCode;
 import de.adorsys.psd2.xs2a.core.error.TppMessage;
 import feign.FeignException;
@@ -23,6 +24,14 @@ class FeignExceptionHandlerTest {
         assertEquals("", tppMessage.getMessageText());
     }
 
+    @Test
+    void getFailureMessage_callNotPermitted() {
+        FeignException feignException = new LedgersCallNotPermittedException("Circuit breaker of ledgersAccount is open");
+        TppMessage tppMessage = FeignExceptionHandler.getFailureMessage(feignException, MessageErrorCode.FORMAT_ERROR);
+
+        assertEquals(MessageErrorCode.INTERNAL_SERVER_ERROR, tppMessage.getErrorCode());
+    }
+
     @Test
     void getFailureMessage_otherErrors() {
         FeignException feignException = FeignException.errorStatus("message1", FeignExceptionHandler.error(HttpStatus.BAD_REQUEST));
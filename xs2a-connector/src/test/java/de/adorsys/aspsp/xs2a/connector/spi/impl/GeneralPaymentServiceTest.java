@@ -147,8 +147,6 @@ class GeneralPaymentServiceTest {
                 .when(paymentRestClient).getPaymentById(paymentTO.getPaymentId());
         when(spiAspspConsentDataProvider.loadAspspConsentData())
                 .thenReturn(aspspConsentData);
-        doNothing()
-                .when(authRequestInterceptor).setAccessToken(anyString());
         when(consentDataService.response(aspspConsentData, SCAPaymentResponseTO.class))
                 .thenReturn(sca);
         doReturn(paymentAspsp)
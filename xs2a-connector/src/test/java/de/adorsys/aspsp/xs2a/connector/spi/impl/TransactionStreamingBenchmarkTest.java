@@ -0,0 +1,203 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.spi.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.aspsp.xs2a.connector.config.JacksonConfig;
+import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapper;
+import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapperImpl;
+import de.adorsys.aspsp.xs2a.util.Benchmark;
+import de.adorsys.ledgers.middleware.api.domain.account.TransactionTO;
+import de.adorsys.ledgers.rest.client.AccountRestClient;
+import de.adorsys.ledgers.rest.client.JsonArrayBody;
+import de.adorsys.ledgers.rest.client.JsonArrayDecoder;
+import de.adorsys.psd2.xs2a.spi.domain.account.SpiTransaction;
+import feign.Request;
+import feign.Response;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares materialising the ledgers transaction list before mapping it with decoding it as a {@link JsonArrayBody}
+ * and mapping the elements one by one.
+ * <p>
+ * The retained heap is the peak of each path: it is measured while both lists are alive, respectively while the last
+ * element is mapped and the response stream is still open, so any buffered body would be included.
+ * <p>
+ * Not part of the regular build, run it explicitly with
+ * {@code mvn test -pl xs2a-connector -Dtest=TransactionStreamingBenchmarkTest -Dbenchmark=true -DargLine=-Xmx4g}.
+ * The number of transactions can be changed with {@code -Dbenchmark.sizes=10000,100000}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TransactionStreamingBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionStreamingBenchmarkTest.class);
+    private static final String DEFAULT_SIZES = "10000,100000,1000000";
+    private static final String TRANSACTION = "{\"transactionId\":\"%d\",\"endToEndId\":\"end-to-end-%d\"," +
+                                                      "\"bookingDate\":\"2020-01-01\",\"valueDate\":\"2020-01-02\"," +
+                                                      "\"amount\":{\"currency\":\"EUR\",\"amount\":\"%d.15\"}," +
+                                                      "\"creditorName\":\"John Miles\"," +
+                                                      "\"creditorAccount\":{\"iban\":\"DE52500105173911841934\",\"currency\":\"EUR\"}," +
+                                                      "\"debtorName\":\"Anton Brueckner\"," +
+                                                      "\"debtorAccount\":{\"iban\":\"DE80760700240271232400\",\"currency\":\"EUR\"}," +
+                                                      "\"remittanceInformationUnstructured\":\"Invoice %d\"}";
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final JsonArrayDecoder jsonArrayDecoder = new JsonArrayDecoder(objectMapper, null);
+    private final LedgersSpiAccountMapper accountMapper = new LedgersSpiAccountMapperImpl();
+
+    @Test
+    void streamingDecodeAndMap_comparedToMaterialisedList() throws IOException {
+        for (String size : System.getProperty("benchmark.sizes", DEFAULT_SIZES).split(",")) {
+            int count = Integer.parseInt(size.trim());
+
+            // warm up both paths before measuring
+            materialised(1_000);
+            streamed(1_000);
+
+            HeapUsage materialised = materialised(count);
+            HeapUsage streamed = streamed(count);
+
+            logger.info("{} transactions: materialised list retained {} MB, allocated {} MB; streaming retained {} MB, allocated {} MB",
+                        count, mb(materialised.retainedBytes), mb(materialised.allocatedBytes),
+                        mb(streamed.retainedBytes), mb(streamed.allocatedBytes));
+        }
+    }
+
+    private HeapUsage materialised(int count) throws IOException {
+        long usedBefore = Benchmark.usedHeapAfterGc();
+        long allocatedBefore = Benchmark.allocatedBytes();
+
+        List<TransactionTO> transactionTOs = objectMapper.readValue(transactionsJson(count), new TypeReference<List<TransactionTO>>() {
+        });
+        List<SpiTransaction> transactions = accountMapper.toSpiTransactions(transactionTOs);
+
+        long allocated = Benchmark.allocatedBytes() - allocatedBefore;
+        // both lists are alive at this point, exactly as in the former SPI implementation
+        long retained = Benchmark.usedHeapAfterGc() - usedBefore;
+        assertEquals(count, transactionTOs.size());
+        assertEquals(count, transactions.size());
+        return new HeapUsage(retained, allocated);
+    }
+
+    @SuppressWarnings("unchecked")
+    private HeapUsage streamed(int count) throws IOException {
+        Type returnType = getTransactionsReturnType();
+        long usedBefore = Benchmark.usedHeapAfterGc();
+        long allocatedBefore = Benchmark.allocatedBytes();
+
+        AtomicInteger mapped = new AtomicInteger();
+        AtomicLong usedAtLastElement = new AtomicLong();
+
+        List<SpiTransaction> transactions = ((JsonArrayBody<TransactionTO>) jsonArrayDecoder.decode(transactionsResponse(count), returnType))
+                                                    .map(transaction -> {
+                                                        SpiTransaction spiTransaction = accountMapper.toSpiTransaction(transaction);
+                                                        if (mapped.incrementAndGet() == count) {
+                                                            // the response is still open, so everything held while reading it is reachable
+                                                            usedAtLastElement.set(Benchmark.usedHeapAfterGc());
+                                                        }
+                                                        return spiTransaction;
+                                                    });
+
+        long allocated = Benchmark.allocatedBytes() - allocatedBefore;
+        long retained = usedAtLastElement.get() - usedBefore;
+        assertEquals(count, transactions.size());
+        return new HeapUsage(retained, allocated);
+    }
+
+    private Type getTransactionsReturnType() {
+        try {
+            return AccountRestClient.class.getMethod("getTransactionByDatesAsStream", String.class, LocalDate.class, LocalDate.class)
+                           .getGenericReturnType();
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Response transactionsResponse(int count) {
+        return Response.builder()
+                       .status(200)
+                       .request(Request.create(Request.HttpMethod.GET, "", Collections.emptyMap(), null))
+                       .headers(Collections.emptyMap())
+                       .body(transactionsJson(count), null)
+                       .build();
+    }
+
+    /**
+     * Generates the JSON array on the fly, so that the payload itself doesn't distort the heap measurement.
+     */
+    private InputStream transactionsJson(int count) {
+        Enumeration<InputStream> parts = new Enumeration<InputStream>() {
+            private int index = -1;
+
+            @Override
+            public boolean hasMoreElements() {
+                return index <= count;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                if (!hasMoreElements()) {
+                    throw new NoSuchElementException();
+                }
+                int current = index++;
+                String part;
+                if (current < 0) {
+                    part = "[";
+                } else if (current == count) {
+                    part = "]";
+                } else {
+                    part = (current > 0 ? "," : "") + String.format(TRANSACTION, current, current, current, current);
+                }
+                return new ByteArrayInputStream(part.getBytes(StandardCharsets.UTF_8));
+            }
+        };
+        return new SequenceInputStream(parts);
+    }
+
+    private static long mb(long bytes) {
+        return bytes / (1024 * 1024);
+    }
+
+    private static class HeapUsage {
+        private final long retainedBytes;
+        private final long allocatedBytes;
+
+        private HeapUsage(long retainedBytes, long allocatedBytes) {
+            this.retainedBytes = retainedBytes;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+}
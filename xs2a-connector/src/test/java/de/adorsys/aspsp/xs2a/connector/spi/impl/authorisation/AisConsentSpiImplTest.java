@@ -136,7 +136,6 @@ class AisConsentSpiImplTest {
         assertNotNull(actualResponse.getPayload());
         verify(consentRestClient, times((1))).startSCA(spiAccountConsent.getId(), aisConsentMapper.mapToAisConsent(spiAccountConsent));
         verify(consentDataService).response(ASPSP_CONSENT_DATA.getAspspConsentData());
-        verify(authRequestInterceptor).setAccessToken(null);
     }
 
     @Test
@@ -169,7 +168,6 @@ class AisConsentSpiImplTest {
         assertNotNull(actualResponse.getPayload());
         verify(consentRestClient, times((1))).startSCA(spiAccountConsent.getId(), aisConsentMapper.mapToAisConsent(spiAccountConsent));
         verify(consentDataService).response(ASPSP_CONSENT_DATA.getAspspConsentData());
-        verify(authRequestInterceptor).setAccessToken(null);
 
         List<SpiAccountReference> spiAccountReferences = spiAccountDetails.stream().map(SpiAccountReference::new).collect(Collectors.toList());
         verify(spiAccountConsent, times(2)).getAccess();
@@ -206,7 +204,6 @@ class AisConsentSpiImplTest {
         assertNotNull(actualResponse.getPayload());
         verify(consentRestClient, times((1))).startSCA(spiAccountConsent.getId(), aisConsentMapper.mapToAisConsent(spiAccountConsent));
         verify(consentDataService).response(ASPSP_CONSENT_DATA.getAspspConsentData());
-        verify(authRequestInterceptor).setAccessToken(null);
 
         List<SpiAccountReference> spiAccountReferences = spiAccountDetails.stream().map(SpiAccountReference::new).collect(Collectors.toList());
         verify(spiAccountConsent, times(2)).getAccess();
@@ -243,7 +240,6 @@ class AisConsentSpiImplTest {
         assertNotNull(actualResponse.getPayload());
         verify(consentRestClient, times((1))).startSCA(spiAccountConsent.getId(), aisConsentMapper.mapToAisConsent(spiAccountConsent));
         verify(consentDataService).response(ASPSP_CONSENT_DATA.getAspspConsentData());
-        verify(authRequestInterceptor).setAccessToken(null);
 
         List<SpiAccountReference> spiAccountReferences = spiAccountDetails.stream().map(SpiAccountReference::new).collect(Collectors.toList());
         verify(spiAccountConsent, times(2)).getAccess();
@@ -334,9 +330,8 @@ class AisConsentSpiImplTest {
 
         verify(spiAspspConsentDataProvider, times(2)).updateAspspConsentData(tokenStorageService.toBytes(scaConsentResponseTO));
         verify(authorisationService).authorisePsuForConsent(spiPsuData, password, CONSENT_ID, AUTHORISATION_ID, OpTypeTO.CONSENT, spiAspspConsentDataProvider);
-        verify(authRequestInterceptor).setAccessToken(scaConsentResponseTO.getBearerToken().getAccess_token());
+        verify(authRequestInterceptor).withAccessToken(scaConsentResponseTO.getBearerToken().getAccess_token());
         verify(consentRestClient).startSCA(CONSENT_ID, aisConsentTO);
-        verify(authRequestInterceptor).setAccessToken(null);
     }
 
     @Test
@@ -416,9 +411,8 @@ class AisConsentSpiImplTest {
         assertEquals(MessageErrorCode.FORMAT_ERROR_UNKNOWN_ACCOUNT, actual.getErrors().get(0).getErrorCode());
 
         verify(authorisationService).authorisePsuForConsent(spiPsuData, password, CONSENT_ID, AUTHORISATION_ID, OpTypeTO.CONSENT, spiAspspConsentDataProvider);
-        verify(authRequestInterceptor).setAccessToken(scaConsentResponseTO.getBearerToken().getAccess_token());
+        verify(authRequestInterceptor).withAccessToken(scaConsentResponseTO.getBearerToken().getAccess_token());
         verify(consentRestClient).startSCA(CONSENT_ID, aisConsentTO);
-        verify(authRequestInterceptor).setAccessToken(null);
     }
 
     @Test
@@ -891,8 +885,6 @@ class AisConsentSpiImplTest {
         when(spiAspspConsentDataProvider.loadAspspConsentData()).thenReturn(CONSENT_DATA_BYTES);
         SCAConsentResponseTO scaConsentResponseTO = buildSCAConsentResponseTO(ScaStatusTO.PSUIDENTIFIED);
         when(consentDataService.response(CONSENT_DATA_BYTES, SCAConsentResponseTO.class, true)).thenReturn(scaConsentResponseTO);
-
-        doNothing().when(authRequestInterceptor).setAccessToken(ACCESS_TOKEN);
         when(consentRestClient.selectMethod(CONSENT_ID, "authorisation id", "authentication method id"))
                 .thenReturn(ResponseEntity.ok(scaConsentResponseTO));
         SpiAuthorizationCodeResult payload = new SpiAuthorizationCodeResult();
@@ -913,7 +905,7 @@ class AisConsentSpiImplTest {
 
         verify(spiAspspConsentDataProvider).loadAspspConsentData();
         verify(consentDataService).response(CONSENT_DATA_BYTES, SCAConsentResponseTO.class, true);
-        verify(authRequestInterceptor).setAccessToken(ACCESS_TOKEN);
+        verify(authRequestInterceptor).withAccessToken(ACCESS_TOKEN);
         verify(consentRestClient).selectMethod(CONSENT_ID, AUTHORISATION_ID, AUTHENTICATION_METHOD_ID);
         verify(authorisationService).returnScaMethodSelection(spiAspspConsentDataProviderWithEncryptedId, scaConsentResponseTO);
     }
@@ -924,8 +916,6 @@ class AisConsentSpiImplTest {
         SCAConsentResponseTO scaConsentResponseTO = buildSCAConsentResponseTO(ScaStatusTO.PSUIDENTIFIED);
 
         when(consentDataService.response(CONSENT_DATA_BYTES, SCAConsentResponseTO.class, true)).thenReturn(scaConsentResponseTO);
-
-        doNothing().when(authRequestInterceptor).setAccessToken(ACCESS_TOKEN);
         when(consentRestClient.selectMethod(CONSENT_ID, AUTHORISATION_ID, AUTHENTICATION_METHOD_ID))
                 .thenReturn(ResponseEntity.ok(scaConsentResponseTO));
         FeignException feignException = FeignExceptionHandler.getException(HttpStatus.BAD_REQUEST, "message");
@@ -942,7 +932,7 @@ class AisConsentSpiImplTest {
 
         verify(spiAspspConsentDataProvider).loadAspspConsentData();
         verify(consentDataService).response(CONSENT_DATA_BYTES, SCAConsentResponseTO.class, true);
-        verify(authRequestInterceptor).setAccessToken(ACCESS_TOKEN);
+        verify(authRequestInterceptor).withAccessToken(ACCESS_TOKEN);
         verify(consentRestClient).selectMethod(CONSENT_ID, AUTHORISATION_ID, AUTHENTICATION_METHOD_ID);
         verify(authorisationService).returnScaMethodSelection(spiAspspConsentDataProvider, scaConsentResponseTO);
         verify(feignExceptionReader).getErrorMessage(any(FeignException.class));
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.spi.impl.authorisation;
+
+import de.adorsys.aspsp.xs2a.connector.config.JacksonConfig;
+import de.adorsys.aspsp.xs2a.connector.spi.converter.ChallengeDataMapper;
+import de.adorsys.aspsp.xs2a.connector.spi.converter.ScaMethodConverter;
+import de.adorsys.aspsp.xs2a.connector.spi.impl.AspspConsentDataService;
+import de.adorsys.aspsp.xs2a.connector.spi.impl.FeignExceptionReader;
+import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
+import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import de.adorsys.ledgers.rest.client.LocalTokenValidator;
+import de.adorsys.ledgers.rest.client.UserMgmtRestClient;
+import feign.FeignException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GeneralAuthorisationServiceTest {
+    private static final String ACCESS_TOKEN = "access_token";
+
+    @Mock
+    private UserMgmtRestClient userMgmtRestClient;
+    @Mock
+    private AuthRequestInterceptor authRequestInterceptor;
+    @Mock
+    private ChallengeDataMapper challengeDataMapper;
+    @Mock
+    private ScaMethodConverter scaMethodConverter;
+    @Mock
+    private AspspConsentDataService consentDataService;
+    @Mock
+    private FeignExceptionReader feignExceptionReader;
+
+    private GeneralAuthorisationService authorisationService;
+
+    @BeforeEach
+    void setUp() {
+        // without signing keys every token is validated in ledgers
+        LocalTokenValidator localTokenValidator = new LocalTokenValidator(null, new JacksonConfig().objectMapper(), new SimpleMeterRegistry());
+        authorisationService = new GeneralAuthorisationService(userMgmtRestClient, authRequestInterceptor, challengeDataMapper,
+                                                               scaMethodConverter, consentDataService, feignExceptionReader,
+                                                               localTokenValidator);
+    }
+
+    @Test
+    void validateToken_validInLedgers() {
+        // Given
+        BearerTokenTO bearerToken = new BearerTokenTO();
+        bearerToken.setAccess_token(ACCESS_TOKEN);
+        when(userMgmtRestClient.validate(ACCESS_TOKEN)).thenReturn(ResponseEntity.ok(bearerToken));
+
+        // When
+        BearerTokenTO actual = authorisationService.validateToken(ACCESS_TOKEN);
+
+        // Then
+        assertSame(bearerToken, actual);
+        verify(authRequestInterceptor).withAccessToken(ACCESS_TOKEN);
+    }
+
+    @Test
+    void validateToken_ledgersReturnsNoToken_shouldBeRejected() {
+        // Given
+        when(userMgmtRestClient.validate(ACCESS_TOKEN)).thenReturn(ResponseEntity.ok().build());
+
+        // When
+        FeignException exception = assertThrows(FeignException.class, () -> authorisationService.validateToken(ACCESS_TOKEN));
+
+        // Then
+        assertEquals(401, exception.status());
+        verify(userMgmtRestClient).validate(ACCESS_TOKEN);
+    }
+}
@@ -412,8 +412,6 @@ class PaymentAuthorisationSpiImplTest {
         when(spiAspspConsentDataProvider.loadAspspConsentData()).thenReturn(CONSENT_DATA_BYTES);
         SCAPaymentResponseTO scaPaymentResponseTO = getScaPaymentResponseTO(ScaStatusTO.PSUIDENTIFIED);
         when(consentDataService.response(CONSENT_DATA_BYTES, SCAPaymentResponseTO.class, true)).thenReturn(scaPaymentResponseTO);
-
-        doNothing().when(authRequestInterceptor).setAccessToken(ACCESS_TOKEN);
         when(paymentRestClient.selectMethod(PAYMENT_ID, AUTHORISATION_ID, AUTHENTICATION_METHOD_ID))
                 .thenReturn(ResponseEntity.ok(scaPaymentResponseTO));
         when(authorisationService.returnScaMethodSelection(spiAspspConsentDataProvider, scaPaymentResponseTO))
@@ -428,7 +426,7 @@ class PaymentAuthorisationSpiImplTest {
 
         verify(spiAspspConsentDataProvider, times(1)).loadAspspConsentData();
         verify(consentDataService, times(1)).response(CONSENT_DATA_BYTES, SCAPaymentResponseTO.class, true);
-        verify(authRequestInterceptor, times(1)).setAccessToken(ACCESS_TOKEN);
+        verify(authRequestInterceptor, times(1)).withAccessToken(ACCESS_TOKEN);
         verify(paymentRestClient, times(1)).selectMethod(PAYMENT_ID, AUTHORISATION_ID, AUTHENTICATION_METHOD_ID);
         verify(authorisationService, times(1)).returnScaMethodSelection(spiAspspConsentDataProvider, scaPaymentResponseTO);
     }
@@ -439,8 +437,6 @@ class PaymentAuthorisationSpiImplTest {
         SCAPaymentResponseTO scaPaymentResponseTO = getScaPaymentResponseTO(ScaStatusTO.PSUIDENTIFIED);
 
         when(consentDataService.response(CONSENT_DATA_BYTES, SCAPaymentResponseTO.class, true)).thenReturn(scaPaymentResponseTO);
-
-        doNothing().when(authRequestInterceptor).setAccessToken(ACCESS_TOKEN);
         when(paymentRestClient.selectMethod(PAYMENT_ID, AUTHORISATION_ID, AUTHENTICATION_METHOD_ID))
                 .thenReturn(ResponseEntity.ok(scaPaymentResponseTO));
         FeignException feignException = FeignExceptionHandler.getException(HttpStatus.BAD_REQUEST, "message");
@@ -456,7 +452,7 @@ class PaymentAuthorisationSpiImplTest {
 
         verify(spiAspspConsentDataProvider, times(1)).loadAspspConsentData();
         verify(consentDataService, times(1)).response(CONSENT_DATA_BYTES, SCAPaymentResponseTO.class, true);
-        verify(authRequestInterceptor, times(1)).setAccessToken(ACCESS_TOKEN);
+        verify(authRequestInterceptor, times(1)).withAccessToken(ACCESS_TOKEN);
         verify(paymentRestClient, times(1)).selectMethod(PAYMENT_ID, AUTHORISATION_ID, AUTHENTICATION_METHOD_ID);
         verify(authorisationService, times(1)).returnScaMethodSelection(spiAspspConsentDataProvider, scaPaymentResponseTO);
         verify(feignExceptionReader, times(1)).getErrorMessage(any(FeignException.class));
@@ -153,8 +153,6 @@ class PaymentCancellationSpiImplTest {
         SCAPaymentResponseTO scaPaymentResponseTO = getScaPaymentResponseTO(ScaStatusTO.PSUIDENTIFIED);
         scaPaymentResponseTO.setScaStatus(ScaStatusTO.EXEMPTED);
         when(consentDataService.response(CONSENT_DATA_BYTES, SCAPaymentResponseTO.class, true)).thenReturn(scaPaymentResponseTO);
-
-        doNothing().when(authRequestInterceptor).setAccessToken(ACCESS_TOKEN);
         when(paymentRestClient.initiatePmtCancellation(PAYMENT_ID))
                 .thenThrow(FeignExceptionHandler.getException(HttpStatus.BAD_REQUEST, "message"));
 
@@ -165,7 +163,7 @@ class PaymentCancellationSpiImplTest {
 
         verify(spiAspspConsentDataProvider, times(1)).loadAspspConsentData();
         verify(consentDataService, times(1)).response(CONSENT_DATA_BYTES, SCAPaymentResponseTO.class, true);
-        verify(authRequestInterceptor, times(1)).setAccessToken(ACCESS_TOKEN);
+        verify(authRequestInterceptor, times(1)).withAccessToken(ACCESS_TOKEN);
         verify(paymentRestClient, times(1)).initiatePmtCancellation(PAYMENT_ID);
     }
 
@@ -175,8 +173,6 @@ class PaymentCancellationSpiImplTest {
         SCAPaymentResponseTO scaPaymentResponseTO = getScaPaymentResponseTO(ScaStatusTO.PSUIDENTIFIED);
         scaPaymentResponseTO.setScaStatus(ScaStatusTO.EXEMPTED);
         when(consentDataService.response(CONSENT_DATA_BYTES, SCAPaymentResponseTO.class, true)).thenReturn(scaPaymentResponseTO);
-
-        doNothing().when(authRequestInterceptor).setAccessToken(ACCESS_TOKEN);
         when(paymentRestClient.initiatePmtCancellation(PAYMENT_ID))
                 .thenReturn(ResponseEntity.ok(scaPaymentResponseTO));
 
@@ -187,7 +183,7 @@ class PaymentCancellationSpiImplTest {
 
         verify(spiAspspConsentDataProvider, times(1)).loadAspspConsentData();
         verify(consentDataService, times(1)).response(CONSENT_DATA_BYTES, SCAPaymentResponseTO.class, true);
-        verify(authRequestInterceptor, times(1)).setAccessToken(ACCESS_TOKEN);
+        verify(authRequestInterceptor, times(1)).withAccessToken(ACCESS_TOKEN);
         verify(paymentRestClient, times(1)).initiatePmtCancellation(PAYMENT_ID);
     }
 
@@ -206,8 +202,6 @@ class PaymentCancellationSpiImplTest {
         when(spiAspspConsentDataProvider.loadAspspConsentData()).thenReturn(CONSENT_DATA_BYTES);
         SCAPaymentResponseTO scaPaymentResponseTO = getScaPaymentResponseTO(ScaStatusTO.PSUIDENTIFIED);
         when(consentDataService.response(CONSENT_DATA_BYTES, SCAPaymentResponseTO.class, true)).thenReturn(scaPaymentResponseTO);
-
-        doNothing().when(authRequestInterceptor).setAccessToken(ACCESS_TOKEN);
         when(paymentRestClient.authorizeCancelPayment(PAYMENT_ID, AUTHORISATION_ID, TAN_NUMBER))
                 .thenReturn(ResponseEntity.ok(scaPaymentResponseTO));
 
@@ -220,7 +214,7 @@ class PaymentCancellationSpiImplTest {
 
         verify(spiAspspConsentDataProvider, times(1)).loadAspspConsentData();
         verify(consentDataService, times(1)).response(CONSENT_DATA_BYTES, SCAPaymentResponseTO.class, true);
-        verify(authRequestInterceptor, times(1)).setAccessToken(ACCESS_TOKEN);
+        verify(authRequestInterceptor, times(1)).withAccessToken(ACCESS_TOKEN);
         verify(paymentRestClient, times(1)).authorizeCancelPayment(PAYMENT_ID, AUTHORISATION_ID, TAN_NUMBER);
     }
 
@@ -229,8 +223,6 @@ class PaymentCancellationSpiImplTest {
         when(spiAspspConsentDataProvider.loadAspspConsentData()).thenReturn(CONSENT_DATA_BYTES);
         SCAPaymentResponseTO scaPaymentResponseTO = getScaPaymentResponseTO(ScaStatusTO.PSUIDENTIFIED);
         when(consentDataService.response(CONSENT_DATA_BYTES, SCAPaymentResponseTO.class, true)).thenReturn(scaPaymentResponseTO);
-
-        doNothing().when(authRequestInterceptor).setAccessToken(ACCESS_TOKEN);
         when(paymentRestClient.authorizeCancelPayment(PAYMENT_ID, AUTHORISATION_ID, TAN_NUMBER))
                 .thenReturn(ResponseEntity.badRequest().build());
 
@@ -242,7 +234,7 @@ class PaymentCancellationSpiImplTest {
 
         verify(spiAspspConsentDataProvider, times(1)).loadAspspConsentData();
         verify(consentDataService, times(1)).response(CONSENT_DATA_BYTES, SCAPaymentResponseTO.class, true);
-        verify(authRequestInterceptor, times(1)).setAccessToken(ACCESS_TOKEN);
+        verify(authRequestInterceptor, times(1)).withAccessToken(ACCESS_TOKEN);
         verify(paymentRestClient, times(1)).authorizeCancelPayment(PAYMENT_ID, AUTHORISATION_ID, TAN_NUMBER);
     }
 
@@ -252,8 +244,6 @@ class PaymentCancellationSpiImplTest {
         SCAPaymentResponseTO scaPaymentResponseTO = getScaPaymentResponseTO(ScaStatusTO.PSUIDENTIFIED);
         when(consentDataService.response(CONSENT_DATA_BYTES, SCAPaymentResponseTO.class, true)).thenReturn(scaPaymentResponseTO);
 
-        doNothing().when(authRequestInterceptor).setAccessToken(ACCESS_TOKEN);
-
         FeignException feignException = FeignExceptionHandler.getException(HttpStatus.BAD_REQUEST, "message");
         when(paymentRestClient.authorizeCancelPayment(PAYMENT_ID, AUTHORISATION_ID, TAN_NUMBER))
                 .thenThrow(feignException);
@@ -267,7 +257,7 @@ class PaymentCancellationSpiImplTest {
 
         verify(spiAspspConsentDataProvider, times(1)).loadAspspConsentData();
         verify(consentDataService, times(1)).response(CONSENT_DATA_BYTES, SCAPaymentResponseTO.class, true);
-        verify(authRequestInterceptor, times(1)).setAccessToken(ACCESS_TOKEN);
+        verify(authRequestInterceptor, times(1)).withAccessToken(ACCESS_TOKEN);
         verify(paymentRestClient, times(1)).authorizeCancelPayment(PAYMENT_ID, AUTHORISATION_ID, TAN_NUMBER);
     }
 
@@ -277,8 +267,6 @@ class PaymentCancellationSpiImplTest {
         SCAPaymentResponseTO scaPaymentResponseTO = getScaPaymentResponseTO(ScaStatusTO.PSUIDENTIFIED);
         when(consentDataService.response(CONSENT_DATA_BYTES, SCAPaymentResponseTO.class, true)).thenReturn(scaPaymentResponseTO);
 
-        doNothing().when(authRequestInterceptor).setAccessToken(ACCESS_TOKEN);
-
         FeignException feignException = FeignExceptionHandler.getException(HttpStatus.BAD_REQUEST, "message");
         when(paymentRestClient.authorizeCancelPayment(PAYMENT_ID, AUTHORISATION_ID, TAN_NUMBER))
                 .thenThrow(feignException);
@@ -295,7 +283,7 @@ class PaymentCancellationSpiImplTest {
 
         verify(spiAspspConsentDataProvider, times(1)).loadAspspConsentData();
         verify(consentDataService, times(1)).response(CONSENT_DATA_BYTES, SCAPaymentResponseTO.class, true);
-        verify(authRequestInterceptor, times(1)).setAccessToken(ACCESS_TOKEN);
+        verify(authRequestInterceptor, times(1)).withAccessToken(ACCESS_TOKEN);
         verify(paymentRestClient, times(1)).authorizeCancelPayment(PAYMENT_ID, AUTHORISATION_ID, TAN_NUMBER);
     }
 
@@ -545,8 +533,6 @@ class PaymentCancellationSpiImplTest {
         when(spiAspspConsentDataProvider.loadAspspConsentData()).thenReturn(CONSENT_DATA_BYTES);
         SCAPaymentResponseTO scaPaymentResponseTO = getScaPaymentResponseTO(ScaStatusTO.PSUIDENTIFIED);
         when(consentDataService.response(CONSENT_DATA_BYTES, SCAPaymentResponseTO.class, true)).thenReturn(scaPaymentResponseTO);
-
-        doNothing().when(authRequestInterceptor).setAccessToken(ACCESS_TOKEN);
         when(paymentRestClient.selecCancelPaymentSCAtMethod(PAYMENT_ID, AUTHORISATION_ID, AUTHENTICATION_METHOD_ID))
                 .thenReturn(ResponseEntity.ok(scaPaymentResponseTO));
         when(authorisationService.returnScaMethodSelection(spiAspspConsentDataProvider, scaPaymentResponseTO))
@@ -561,7 +547,7 @@ class PaymentCancellationSpiImplTest {
 
         verify(spiAspspConsentDataProvider, times(1)).loadAspspConsentData();
         verify(consentDataService, times(1)).response(CONSENT_DATA_BYTES, SCAPaymentResponseTO.class, true);
-        verify(authRequestInterceptor, times(1)).setAccessToken(ACCESS_TOKEN);
+        verify(authRequestInterceptor, times(1)).withAccessToken(ACCESS_TOKEN);
         verify(paymentRestClient, times(1)).selecCancelPaymentSCAtMethod(PAYMENT_ID, AUTHORISATION_ID, AUTHENTICATION_METHOD_ID);
         verify(authorisationService, times(1)).returnScaMethodSelection(spiAspspConsentDataProvider, scaPaymentResponseTO);
     }
@@ -572,8 +558,6 @@ class PaymentCancellationSpiImplTest {
         SCAPaymentResponseTO scaPaymentResponseTO = getScaPaymentResponseTO(ScaStatusTO.PSUIDENTIFIED);
 
         when(consentDataService.response(CONSENT_DATA_BYTES, SCAPaymentResponseTO.class, true)).thenReturn(scaPaymentResponseTO);
-
-        doNothing().when(authRequestInterceptor).setAccessToken(ACCESS_TOKEN);
         when(paymentRestClient.selecCancelPaymentSCAtMethod(PAYMENT_ID, AUTHORISATION_ID, AUTHENTICATION_METHOD_ID))
                 .thenReturn(ResponseEntity.ok(scaPaymentResponseTO));
         FeignException feignException = FeignExceptionHandler.getException(HttpStatus.BAD_REQUEST, "message");
@@ -589,7 +573,7 @@ class PaymentCancellationSpiImplTest {
 
         verify(spiAspspConsentDataProvider, times(1)).loadAspspConsentData();
         verify(consentDataService, times(1)).response(CONSENT_DATA_BYTES, SCAPaymentResponseTO.class, true);
-        verify(authRequestInterceptor, times(1)).setAccessToken(ACCESS_TOKEN);
+        verify(authRequestInterceptor, times(1)).withAccessToken(ACCESS_TOKEN);
         verify(paymentRestClient, times(1)).selecCancelPaymentSCAtMethod(PAYMENT_ID, AUTHORISATION_ID, AUTHENTICATION_METHOD_ID);
         verify(authorisationService, times(1)).returnScaMethodSelection(spiAspspConsentDataProvider, scaPaymentResponseTO);
         verify(feignExceptionReader, times(1)).getErrorMessage(any(FeignException.class));
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.util;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Harness of the benchmarks which are only run with {@code -Dbenchmark=true}: repeats a call after a warm-up and
+ * reports the time and the bytes allocated by the calling thread per call.
+ * <p>
+ * The number of measured iterations can be changed with {@code -Dbenchmark.iterations}. The results are meant
+ * to be logged and compared by a human, they vary too much between machines and runs to be asserted on.
+ */
+public class Benchmark {
+    private static final int WARM_UP_ITERATIONS = 20_000;
+    private static final int DEFAULT_ITERATIONS = 100_000;
+
+    private final int iterations;
+
+    public Benchmark() {
+        this.iterations = Integer.getInteger("benchmark.iterations", DEFAULT_ITERATIONS);
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public Measurement measure(Call call) throws IOException {
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            call.run();
+        }
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            call.run();
+        }
+        long duration = System.nanoTime() - start;
+        return new Measurement(duration / iterations, (allocatedBytes() - allocatedBefore) / iterations);
+    }
+
+    /**
+     * @return bytes allocated by the current thread so far, 0 if the JVM doesn't provide them
+     */
+    public static long allocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        return threadMXBean instanceof com.sun.management.ThreadMXBean
+                       ? ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId())
+                       : 0;
+    }
+
+    /**
+     * @return heap in use after requesting a few garbage collections, an approximation of the live objects
+     */
+    public static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @FunctionalInterface
+    public interface Call {
+        Object run() throws IOException;
+    }
+
+    public static class Measurement {
+        private final long nanosPerOp;
+        private final long bytesPerOp;
+
+        private Measurement(long nanosPerOp, long bytesPerOp) {
+            this.nanosPerOp = nanosPerOp;
+            this.bytesPerOp = bytesPerOp;
+        }
+
+        public long getNanosPerOp() {
+            return nanosPerOp;
+        }
+
+        public long getBytesPerOp() {
+            return bytesPerOp;
+        }
+
+        @Override
+        public String toString() {
+            return nanosPerOp + " ns/op, " + bytesPerOp + " bytes/op";
+        }
+    }
+}
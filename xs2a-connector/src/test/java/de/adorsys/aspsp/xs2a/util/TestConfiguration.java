@@ -2,6 +2,7 @@ package de.adorsys.aspsp.xs2a.util;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import de.adorsys.ledgers.rest.client.JsonCodecRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
@@ -16,4 +17,9 @@ public class TestConfiguration {
         objectMapper.registerModule(new JavaTimeModule());
         return objectMapper;
     }
+
+    @Bean
+    public JsonCodecRegistry jsonCodecRegistry(ObjectMapper objectMapper) {
+        return new JsonCodecRegistry(objectMapper);
+    }
 }
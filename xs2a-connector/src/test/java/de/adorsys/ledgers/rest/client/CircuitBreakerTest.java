@@ -0,0 +1,182 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+    private static final long WAIT_DURATION_MS = 1_000;
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker(10, 4, 50f, WAIT_DURATION_MS, 2, nanoTime::get);
+
+    @Test
+    void closed_failuresBelowMinimumNumberOfCalls_shouldStayClosed() {
+        // When
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void closed_failureRateReachedAfterMinimumNumberOfCalls_shouldOpen() {
+        // Given
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onFailure();
+
+        // When
+        circuitBreaker.onFailure();
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void closed_failureRateBelowThreshold_shouldStayClosed() {
+        // When
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onFailure();
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void open_shouldBecomeHalfOpenAfterWaitDuration() {
+        // Given
+        open();
+
+        // When
+        advance(WAIT_DURATION_MS - 1);
+
+        // Then
+        assertFalse(circuitBreaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        // When
+        advance(1);
+
+        // Then
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void halfOpen_shouldOnlyPermitConfiguredTrialCalls() {
+        // Given
+        halfOpen();
+
+        // Then
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void halfOpen_releasedPermission_shouldBeAvailableAgain() {
+        // Given
+        halfOpen();
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+
+        // When
+        circuitBreaker.releasePermission();
+
+        // Then
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void halfOpen_releasePermission_shouldNotExceedPermittedCalls() {
+        // Given
+        halfOpen();
+
+        // When
+        circuitBreaker.releasePermission();
+        circuitBreaker.releasePermission();
+
+        // Then
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void halfOpen_allTrialCallsSucceed_shouldClose() {
+        // Given
+        halfOpen();
+        circuitBreaker.tryAcquirePermission();
+        circuitBreaker.tryAcquirePermission();
+
+        // When
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        // the window has been reset, so a single failure doesn't reopen the breaker
+        circuitBreaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void halfOpen_failedTrialCall_shouldReopen() {
+        // Given
+        halfOpen();
+        circuitBreaker.tryAcquirePermission();
+
+        // When
+        circuitBreaker.onFailure();
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.onFailure();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    private void halfOpen() {
+        open();
+        advance(WAIT_DURATION_MS);
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.releasePermission();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    }
+
+    private void advance(long millis) {
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}